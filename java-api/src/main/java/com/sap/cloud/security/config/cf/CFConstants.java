@@ -31,6 +31,7 @@ public class CFConstants {
 		}
 
 		public static final String IDENTITY_ZONE = "identityzone";
+		public static final String IDENTITY_ZONE_ID = "identityzoneid";
 		public static final String UAA_DOMAIN = "uaadomain";
 		public static final String APP_ID = "xsappname";
 		public static final String VERIFICATION_KEY = "verificationkey";
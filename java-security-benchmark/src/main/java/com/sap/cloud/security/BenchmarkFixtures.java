@@ -0,0 +1,129 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security;
+
+import java.io.IOException;
+import java.net.URI;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+
+import com.sap.cloud.security.config.OAuth2ServiceConfiguration;
+import com.sap.cloud.security.config.OAuth2ServiceConfigurationBuilder;
+import com.sap.cloud.security.config.Service;
+import com.sap.cloud.security.test.JwtGenerator;
+import com.sap.cloud.security.test.RSAKeys;
+import com.sap.cloud.security.token.TokenClaims;
+import com.sap.cloud.security.token.validation.validators.JwtValidatorBuilder;
+import com.sap.cloud.security.xsuaa.client.OAuth2ServiceEndpointsProvider;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Tokens and service configurations shared by the benchmarks. The tokens are
+ * signed with the {@code /privateKey.txt} of {@code java-security-test} and
+ * the token keys and oidc configuration are served from memory, so that the
+ * benchmarks measure the library and not the network.
+ */
+public class BenchmarkFixtures {
+
+	public static final String XSUAA_CLIENT_ID = "sb-benchmark!t0815";
+	public static final String XSUAA_APP_ID = "benchmark!t0815";
+	public static final String IAS_CLIENT_ID = "benchmark-ias-client";
+	public static final String IAS_DOMAIN = "accounts.benchmark.com";
+	public static final String IAS_ISSUER = "https://tenant." + IAS_DOMAIN;
+	public static final String UAA_DOMAIN = "localhost"; // domain of the jku of the JwtGenerator
+
+	private final RSAKeys keys;
+	private final String jwks;
+
+	public BenchmarkFixtures() throws IOException, GeneralSecurityException {
+		keys = RSAKeys.fromKeyFiles("/publicKey.txt", "/privateKey.txt");
+		String publicKey = Base64.getEncoder().encodeToString(keys.getPublic().getEncoded());
+		jwks = new JSONObject().put("keys", new JSONArray()
+				.put(createJsonWebKey(JwtGenerator.DEFAULT_KEY_ID, publicKey))
+				.put(createJsonWebKey(JwtGenerator.DEFAULT_KEY_ID_IAS, publicKey))).toString();
+	}
+
+	private static JSONObject createJsonWebKey(String keyId, String publicKey) {
+		return new JSONObject()
+				.put("kty", "RSA")
+				.put("alg", "RS256")
+				.put("kid", keyId)
+				.put("value", publicKey);
+	}
+
+	/**
+	 * @return a generator of XSUAA user tokens with scopes of the
+	 *         {@link #XSUAA_APP_ID}, signed with the benchmark key
+	 */
+	public JwtGenerator xsuaaTokenGenerator() {
+		return JwtGenerator.getInstance(Service.XSUAA, XSUAA_CLIENT_ID)
+				.withPrivateKey(keys.getPrivate())
+				.withAppId(XSUAA_APP_ID)
+				.withScopes("openid", XSUAA_APP_ID + ".Read", XSUAA_APP_ID + ".Write", XSUAA_APP_ID + ".Admin")
+				.withClaimValue(TokenClaims.USER_NAME, "benchmark@example.com")
+				.withClaimValue(TokenClaims.EMAIL, "benchmark@example.com");
+	}
+
+	/**
+	 * @return a generator of IAS oidc tokens issued by {@link #IAS_ISSUER},
+	 *         signed with the benchmark key
+	 */
+	public JwtGenerator iasTokenGenerator() {
+		return JwtGenerator.getInstance(Service.IAS, IAS_CLIENT_ID)
+				.withPrivateKey(keys.getPrivate())
+				.withClaimValue(TokenClaims.ISSUER, IAS_ISSUER)
+				.withClaimValue(TokenClaims.EMAIL, "benchmark@example.com");
+	}
+
+	public OAuth2ServiceConfiguration xsuaaConfiguration() {
+		return OAuth2ServiceConfigurationBuilder.forService(Service.XSUAA)
+				.withClientId(XSUAA_CLIENT_ID)
+				.withUrl("http://" + UAA_DOMAIN)
+				.withProperty("uaadomain", UAA_DOMAIN)
+				.withProperty("xsappname", XSUAA_APP_ID)
+				.build();
+	}
+
+	public OAuth2ServiceConfiguration iasConfiguration() {
+		return OAuth2ServiceConfigurationBuilder.forService(Service.IAS)
+				.withClientId(IAS_CLIENT_ID)
+				.withUrl(IAS_ISSUER)
+				.withDomains(IAS_DOMAIN)
+				.build();
+	}
+
+	/**
+	 * Creates a builder of the default validators of the given service
+	 * configuration, which retrieves the token keys and the oidc configuration
+	 * from memory.
+	 *
+	 * @param configuration
+	 *            the service configuration
+	 * @return the validator builder
+	 */
+	public JwtValidatorBuilder validatorBuilder(OAuth2ServiceConfiguration configuration) {
+		URI jwksUri = URI.create(IAS_ISSUER + "/oauth2/certs");
+		return JwtValidatorBuilder.getInstance(configuration)
+				.withOAuth2TokenKeyService((tokenKeysEndpointUri, zoneId) -> jwks)
+				.withOidcConfigurationService(discoveryEndpointUri -> new OAuth2ServiceEndpointsProvider() {
+					@Override
+					public URI getTokenEndpoint() {
+						return URI.create(IAS_ISSUER + "/oauth2/token");
+					}
+
+					@Override
+					public URI getAuthorizeEndpoint() {
+						return URI.create(IAS_ISSUER + "/oauth2/authorize");
+					}
+
+					@Override
+					public URI getJwksUri() {
+						return jwksUri;
+					}
+				});
+	}
+}
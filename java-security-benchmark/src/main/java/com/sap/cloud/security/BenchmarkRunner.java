@@ -0,0 +1,66 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Properties;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks that match the given regular expressions (all by
+ * default) once per thread count with the GC profiler, which reports the
+ * allocated bytes per operation ({@code gc.alloc.rate.norm}).<br>
+ *
+ * The thread counts are configured with system property
+ * {@code benchmark.threads}, e.g. {@code -Dbenchmark.threads=1,4,16}. The
+ * results are written as JSON to
+ * {@code target/benchmark-<version>-<threads>-threads.json}, where version is
+ * the benchmarked {@code java-security} version, so that the results of
+ * different releases can be compared, e.g. with
+ * <a href="https://jmh.morethan.io">JMH Visualizer</a>.
+ */
+public class BenchmarkRunner {
+
+	private static final String DEFAULT_THREADS = "1,8,32";
+
+	public static void main(String[] args) throws RunnerException {
+		String version = getBenchmarkedVersion();
+		int[] threadCounts = Arrays.stream(System.getProperty("benchmark.threads", DEFAULT_THREADS).split(","))
+				.map(String::trim)
+				.mapToInt(Integer::parseInt)
+				.toArray();
+		for (int threads : threadCounts) {
+			OptionsBuilder options = new OptionsBuilder();
+			Arrays.stream(args).forEach(options::include);
+			options.threads(threads)
+					.addProfiler(GCProfiler.class)
+					.resultFormat(ResultFormatType.JSON)
+					.result("target/benchmark-" + version + "-" + threads + "-threads.json");
+			new Runner(options.build()).run();
+		}
+	}
+
+	private static String getBenchmarkedVersion() {
+		try (InputStream pomProperties = BenchmarkRunner.class
+				.getResourceAsStream("/META-INF/maven/com.sap.cloud.security/java-security/pom.properties")) {
+			if (pomProperties != null) {
+				Properties properties = new Properties();
+				properties.load(pomProperties);
+				return properties.getProperty("version", "unknown");
+			}
+		} catch (IOException e) {
+			// fall through
+		}
+		return "unknown";
+	}
+}
@@ -0,0 +1,117 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.json;
+
+import static com.sap.cloud.security.token.TokenClaims.*;
+import static com.sap.cloud.security.token.TokenClaims.XSUAA.*;
+
+import java.util.concurrent.TimeUnit;
+
+import com.sap.cloud.security.config.Service;
+import com.sap.cloud.security.test.JwtGenerator;
+import com.sap.cloud.security.token.XsuaaToken;
+import com.sap.cloud.security.xsuaa.jwt.Base64JwtDecoder;
+import com.sap.cloud.security.xsuaa.jwt.DecodedJwt;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the access to the nested {@code ext_attr} and
+ * {@code xs.user.attributes} claims of a typical XSUAA user token, as done by
+ * {@link XsuaaToken#getSubdomain()}, {@link XsuaaToken#getSubaccountId()} and
+ * {@code XSUserInfoAdapter#getAttribute(String)}.<br>
+ *
+ * {@link #reparsedNestedObjects(Blackhole)} serializes and parses every nested
+ * object again, as it was done before. The other benchmarks use the views on
+ * the parsed ({@link DefaultJsonObject}) respectively indexed
+ * ({@link LazyJsonObject}) json.
+ *
+ * Run {@link #main(String[])} to get the allocated bytes per operation
+ * ({@code gc.alloc.rate.norm}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NestedJsonObjectBenchmark {
+
+	private static final String COST_CENTER = "cost-center";
+
+	private DecodedJwt decodedJwt;
+	private String payload;
+
+	@Setup
+	public void setup() {
+		String tokenValue = JwtGenerator.getInstance(Service.XSUAA, "sb-benchmark!t0815")
+				.withClaimValue(EXTERNAL_ATTRIBUTE, new DefaultJsonObject("{"
+						+ "\"enhancer\": \"XSUAA\", \"zdn\": \"benchmark-subdomain\","
+						+ "\"subaccountid\": \"8b2f6fa9-6ad0-4a2a-8f72-4bf0fb7bd09b\","
+						+ "\"serviceinstanceid\": \"b6b3fa3b-1a25-4b3d-a64e-0d7a1c5d4f1e\"}"))
+				.withClaimValue(XS_USER_ATTRIBUTES, new DefaultJsonObject("{"
+						+ "\"cost-center\": [\"0815\", \"4711\"], \"country\": [\"DE\"]}"))
+				.withScopes("openid", "sb-benchmark!t0815.Read", "sb-benchmark!t0815.Write")
+				.withClaimValue(USER_NAME, "benchmark@example.com")
+				.withClaimValue(EMAIL, "benchmark@example.com")
+				.withClaimValue(GIVEN_NAME, "Bench")
+				.withClaimValue(FAMILY_NAME, "Mark")
+				.createToken().getTokenValue();
+		decodedJwt = Base64JwtDecoder.getInstance().decode(tokenValue);
+		payload = decodedJwt.getPayload();
+	}
+
+	@Benchmark
+	public void reparsedNestedObjects(Blackhole blackhole) {
+		JSONObject jsonObject = new JSONObject(payload);
+		blackhole.consume(new DefaultJsonObject(jsonObject.getJSONObject(EXTERNAL_ATTRIBUTE).toString())
+				.getAsString(EXTERNAL_ATTRIBUTE_ZDN));
+		blackhole.consume(new DefaultJsonObject(jsonObject.getJSONObject(EXTERNAL_ATTRIBUTE).toString())
+				.getAsString(EXTERNAL_ATTRIBUTE_SUBACCOUNTID));
+		blackhole.consume(new DefaultJsonObject(jsonObject.getJSONObject(XS_USER_ATTRIBUTES).toString())
+				.getAsStringList(COST_CENTER));
+	}
+
+	@Benchmark
+	public void defaultJsonObjectViews(Blackhole blackhole) {
+		consumeNestedClaims(new DefaultJsonObject(payload), blackhole);
+	}
+
+	@Benchmark
+	public void lazyJsonObjectViews(Blackhole blackhole) {
+		consumeNestedClaims(new LazyJsonObject(payload), blackhole);
+	}
+
+	@Benchmark
+	public void xsuaaToken(Blackhole blackhole) {
+		XsuaaToken token = new XsuaaToken(decodedJwt);
+		blackhole.consume(token.getSubdomain());
+		blackhole.consume(token.getSubaccountId());
+		blackhole.consume(token.getClaimAsJsonObject(XS_USER_ATTRIBUTES).getAsStringList(COST_CENTER));
+	}
+
+	private static void consumeNestedClaims(JsonObject jsonObject, Blackhole blackhole) {
+		blackhole.consume(jsonObject.getJsonObject(EXTERNAL_ATTRIBUTE).getAsString(EXTERNAL_ATTRIBUTE_ZDN));
+		blackhole.consume(jsonObject.getJsonObject(EXTERNAL_ATTRIBUTE).getAsString(EXTERNAL_ATTRIBUTE_SUBACCOUNTID));
+		blackhole.consume(jsonObject.getJsonObject(XS_USER_ATTRIBUTES).getAsStringList(COST_CENTER));
+	}
+
+	public static void main(String[] args) throws Exception {
+		Options options = new OptionsBuilder()
+				.include(NestedJsonObjectBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.resultFormat(ResultFormatType.JSON)
+				.result("target/" + NestedJsonObjectBenchmark.class.getSimpleName() + ".json")
+				.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,58 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.spring.token.authentication;
+
+import java.util.concurrent.TimeUnit;
+
+import com.sap.cloud.security.BenchmarkFixtures;
+import com.sap.cloud.security.BenchmarkRunner;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.RunnerException;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+/**
+ * Measures {@link HybridJwtDecoder#decode(String)} of {@code spring-security},
+ * i.e. the parsing, the validation with the default validators and the
+ * conversion to a Spring {@link Jwt}, for XSUAA and IAS tokens. The token keys
+ * are retrieved once from memory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HybridJwtDecoderBenchmark {
+
+	private HybridJwtDecoder decoder;
+	private String xsuaaTokenValue;
+	private String iasTokenValue;
+
+	@Setup
+	public void setup() throws Exception {
+		BenchmarkFixtures fixtures = new BenchmarkFixtures();
+		decoder = new HybridJwtDecoder(fixtures.validatorBuilder(fixtures.xsuaaConfiguration()).build(),
+				fixtures.validatorBuilder(fixtures.iasConfiguration()).build());
+		xsuaaTokenValue = fixtures.xsuaaTokenGenerator().createToken().getTokenValue();
+		iasTokenValue = fixtures.iasTokenGenerator().createToken().getTokenValue();
+		decoder.decode(xsuaaTokenValue); // fails in case the token is invalid
+		decoder.decode(iasTokenValue);
+	}
+
+	@Benchmark
+	public Jwt decodeXsuaaToken() {
+		return decoder.decode(xsuaaTokenValue);
+	}
+
+	@Benchmark
+	public Jwt decodeIasToken() {
+		return decoder.decode(iasTokenValue);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		BenchmarkRunner.main(new String[] { HybridJwtDecoderBenchmark.class.getSimpleName() });
+	}
+}
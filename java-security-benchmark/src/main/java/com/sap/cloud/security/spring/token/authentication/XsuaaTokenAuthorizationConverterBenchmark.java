@@ -0,0 +1,49 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.spring.token.authentication;
+
+import java.util.concurrent.TimeUnit;
+
+import com.sap.cloud.security.BenchmarkFixtures;
+import com.sap.cloud.security.BenchmarkRunner;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.RunnerException;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+/**
+ * Measures the conversion of the scopes of a decoded XSUAA {@link Jwt} into
+ * the local scope authorities of the application by
+ * {@link XsuaaTokenAuthorizationConverter}, which is done for every
+ * authenticated request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class XsuaaTokenAuthorizationConverterBenchmark {
+
+	private XsuaaTokenAuthorizationConverter converter;
+	private Jwt jwt;
+
+	@Setup
+	public void setup() throws Exception {
+		BenchmarkFixtures fixtures = new BenchmarkFixtures();
+		converter = new XsuaaTokenAuthorizationConverter(BenchmarkFixtures.XSUAA_APP_ID);
+		jwt = HybridJwtDecoder.parseJwt(fixtures.xsuaaTokenGenerator().createToken());
+	}
+
+	@Benchmark
+	public AbstractAuthenticationToken convert() {
+		return converter.convert(jwt);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		BenchmarkRunner.main(new String[] { XsuaaTokenAuthorizationConverterBenchmark.class.getSimpleName() });
+	}
+}
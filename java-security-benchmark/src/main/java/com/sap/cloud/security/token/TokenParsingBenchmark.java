@@ -0,0 +1,76 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.token;
+
+import java.util.concurrent.TimeUnit;
+
+import com.sap.cloud.security.BenchmarkFixtures;
+import com.sap.cloud.security.BenchmarkRunner;
+import com.sap.cloud.security.xsuaa.jwt.Base64JwtDecoder;
+import com.sap.cloud.security.xsuaa.jwt.DecodedJwt;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.RunnerException;
+
+/**
+ * Measures the decoding of an encoded token with {@link Base64JwtDecoder} and
+ * the construction of {@link XsuaaToken} and {@link SapIdToken}, which also
+ * decodes the token. The {@code WithClaims} benchmarks additionally read the
+ * claims that are accessed for almost every request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenParsingBenchmark {
+
+	private String xsuaaTokenValue;
+	private String iasTokenValue;
+
+	@Setup
+	public void setup() throws Exception {
+		BenchmarkFixtures fixtures = new BenchmarkFixtures();
+		xsuaaTokenValue = fixtures.xsuaaTokenGenerator().createToken().getTokenValue();
+		iasTokenValue = fixtures.iasTokenGenerator().createToken().getTokenValue();
+	}
+
+	@Benchmark
+	public DecodedJwt base64JwtDecoder() {
+		return Base64JwtDecoder.getInstance().decode(xsuaaTokenValue);
+	}
+
+	@Benchmark
+	public Token xsuaaToken() {
+		return new XsuaaToken(xsuaaTokenValue);
+	}
+
+	@Benchmark
+	public Token sapIdToken() {
+		return new SapIdToken(iasTokenValue);
+	}
+
+	@Benchmark
+	public void xsuaaTokenWithClaims(Blackhole blackhole) {
+		XsuaaToken token = new XsuaaToken(xsuaaTokenValue);
+		blackhole.consume(token.getClientId());
+		blackhole.consume(token.getExpiration());
+		blackhole.consume(token.getScopes());
+	}
+
+	@Benchmark
+	public void sapIdTokenWithClaims(Blackhole blackhole) {
+		SapIdToken token = new SapIdToken(iasTokenValue);
+		blackhole.consume(token.getClientId());
+		blackhole.consume(token.getExpiration());
+		blackhole.consume(token.getZoneId());
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		BenchmarkRunner.main(new String[] { TokenParsingBenchmark.class.getSimpleName() });
+	}
+}
@@ -0,0 +1,133 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.token.validation.validators;
+
+import static com.sap.cloud.security.token.TokenClaims.SAP_GLOBAL_USER_ID;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import com.sap.cloud.security.config.OAuth2ServiceConfiguration;
+import com.sap.cloud.security.config.OAuth2ServiceConfigurationBuilder;
+import com.sap.cloud.security.config.Service;
+import com.sap.cloud.security.test.JwtGenerator;
+import com.sap.cloud.security.test.RSAKeys;
+import com.sap.cloud.security.token.Token;
+import com.sap.cloud.security.token.XsuaaToken;
+import com.sap.cloud.security.token.validation.CombiningValidator;
+import com.sap.cloud.security.token.validation.ValidationResult;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the validation of a batch of XSUAA tokens, e.g. of received
+ * messages, one after the other with
+ * {@link CombiningValidator#validateAll(List, java.util.concurrent.Executor)}
+ * on a {@link ForkJoinPool} with the given parallelism. Each operation parses
+ * and validates the tokens of the batch; the claims are parsed lazily during
+ * the validation. The throughput is reported in tokens per second.
+ *
+ * Run {@link #main(String[])} to see how the throughput scales with the
+ * parallelism, i.e. the number of cores used.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+@OperationsPerInvocation(BatchValidationBenchmark.BATCH_SIZE)
+public class BatchValidationBenchmark {
+
+	static final int BATCH_SIZE = 256;
+	private static final String CLIENT_ID = "sb-benchmark!t0815";
+
+	@Param({ "1", "2", "4", "8" })
+	public int parallelism;
+
+	private final List<String> tokenValues = new ArrayList<>(BATCH_SIZE);
+	private CombiningValidator<Token> validator;
+	private ForkJoinPool executor;
+
+	@Setup
+	public void setup() throws Exception {
+		RSAKeys keys = RSAKeys.fromKeyFiles("/publicKey.txt", "/privateKey.txt");
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			tokenValues.add(JwtGenerator.getInstance(Service.XSUAA, CLIENT_ID)
+					.withPrivateKey(keys.getPrivate())
+					.withClaimValue(SAP_GLOBAL_USER_ID, "user-" + i)
+					.createToken().getTokenValue());
+		}
+		String jwks = new JSONObject().put("keys", new JSONArray().put(new JSONObject()
+				.put("kty", "RSA")
+				.put("alg", "RS256")
+				.put("kid", JwtGenerator.DEFAULT_KEY_ID)
+				.put("value", Base64.getEncoder().encodeToString(keys.getPublic().getEncoded())))).toString();
+
+		OAuth2ServiceConfiguration configuration = OAuth2ServiceConfigurationBuilder.forService(Service.XSUAA)
+				.withClientId(CLIENT_ID)
+				.build();
+		validator = new CombiningValidator<>(
+				new JwtTimestampValidator(),
+				new JwtSignatureValidator(configuration,
+						OAuth2TokenKeyServiceWithCache.getInstance()
+								.withTokenKeyService((tokenKeysEndpointUri, zoneId) -> jwks),
+						OidcConfigurationServiceWithCache.getInstance()),
+				new JwtAudienceValidator(CLIENT_ID));
+		executor = new ForkJoinPool(parallelism);
+		if (validateAll() != BATCH_SIZE) {
+			throw new IllegalStateException("The tokens of the batch are expected to be valid");
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		executor.shutdown();
+	}
+
+	@Benchmark
+	public int sequential() {
+		int valid = 0;
+		for (String tokenValue : tokenValues) {
+			if (validator.validate(new XsuaaToken(tokenValue)).isValid()) {
+				valid++;
+			}
+		}
+		return valid;
+	}
+
+	@Benchmark
+	public int validateAll() {
+		List<Token> tokens = new ArrayList<>(BATCH_SIZE);
+		for (String tokenValue : tokenValues) {
+			tokens.add(new XsuaaToken(tokenValue));
+		}
+		int valid = 0;
+		for (ValidationResult result : validator.validateAll(tokens, executor)) {
+			if (result.isValid()) {
+				valid++;
+			}
+		}
+		return valid;
+	}
+
+	public static void main(String[] args) throws Exception {
+		Options options = new OptionsBuilder()
+				.include(BatchValidationBenchmark.class.getSimpleName())
+				.resultFormat(ResultFormatType.JSON)
+				.result("target/" + BatchValidationBenchmark.class.getSimpleName() + ".json")
+				.build();
+		new Runner(options).run();
+	}
+}
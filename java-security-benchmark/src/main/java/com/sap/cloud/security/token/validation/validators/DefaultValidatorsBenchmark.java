@@ -0,0 +1,133 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.token.validation.validators;
+
+import java.util.concurrent.TimeUnit;
+
+import com.sap.cloud.security.BenchmarkFixtures;
+import com.sap.cloud.security.BenchmarkRunner;
+import com.sap.cloud.security.config.OAuth2ServiceConfiguration;
+import com.sap.cloud.security.token.SapIdToken;
+import com.sap.cloud.security.token.Token;
+import com.sap.cloud.security.token.XsuaaToken;
+import com.sap.cloud.security.token.validation.CombiningValidator;
+import com.sap.cloud.security.token.validation.ValidationResult;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.RunnerException;
+
+/**
+ * Measures each validator of the default chain of {@link JwtValidatorBuilder}
+ * separately and the chains of XSUAA and IAS as a whole. The tokens are parsed
+ * once during setup and the token keys are retrieved once from memory, i.e.
+ * the benchmarks measure the validation with cached token keys as it happens
+ * for almost every request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DefaultValidatorsBenchmark {
+
+	private Token xsuaaToken;
+	private Token iasToken;
+
+	private JwtTimestampValidator timestampValidator;
+	private XsuaaJkuValidator jkuValidator;
+	private JwtIssuerValidator issuerValidator;
+	private JwtAudienceValidator audienceValidator;
+	private JwtSignatureValidator xsuaaSignatureValidator;
+	private JwtSignatureValidator iasSignatureValidator;
+	private CombiningValidator<Token> xsuaaValidators;
+	private CombiningValidator<Token> iasValidators;
+
+	@Setup
+	public void setup() throws Exception {
+		BenchmarkFixtures fixtures = new BenchmarkFixtures();
+		xsuaaToken = new XsuaaToken(fixtures.xsuaaTokenGenerator().createToken().getTokenValue());
+		iasToken = new SapIdToken(fixtures.iasTokenGenerator().createToken().getTokenValue());
+
+		OAuth2ServiceConfiguration xsuaaConfiguration = fixtures.xsuaaConfiguration();
+		OAuth2ServiceConfiguration iasConfiguration = fixtures.iasConfiguration();
+		timestampValidator = new JwtTimestampValidator();
+		jkuValidator = new XsuaaJkuValidator(BenchmarkFixtures.UAA_DOMAIN);
+		issuerValidator = new JwtIssuerValidator(iasConfiguration.getDomains());
+		audienceValidator = new JwtAudienceValidator(BenchmarkFixtures.XSUAA_CLIENT_ID);
+		audienceValidator.configureTrustedClientId(BenchmarkFixtures.XSUAA_APP_ID);
+		xsuaaSignatureValidator = findSignatureValidator(fixtures.validatorBuilder(xsuaaConfiguration).build());
+		iasSignatureValidator = findSignatureValidator(fixtures.validatorBuilder(iasConfiguration).build());
+		xsuaaValidators = fixtures.validatorBuilder(xsuaaConfiguration).build();
+		iasValidators = fixtures.validatorBuilder(iasConfiguration).build();
+
+		assertValid(timestampValidator.validate(xsuaaToken));
+		assertValid(jkuValidator.validate(xsuaaToken));
+		assertValid(issuerValidator.validate(iasToken));
+		assertValid(audienceValidator.validate(xsuaaToken));
+		assertValid(xsuaaSignatureValidator.validate(xsuaaToken));
+		assertValid(iasSignatureValidator.validate(iasToken));
+		assertValid(xsuaaValidators.validate(xsuaaToken));
+		assertValid(iasValidators.validate(iasToken));
+	}
+
+	private static JwtSignatureValidator findSignatureValidator(CombiningValidator<Token> combiningValidator) {
+		return combiningValidator.getValidators().stream()
+				.filter(JwtSignatureValidator.class::isInstance)
+				.map(JwtSignatureValidator.class::cast)
+				.findFirst()
+				.orElseThrow(() -> new IllegalStateException("No JwtSignatureValidator in default validators"));
+	}
+
+	private static void assertValid(ValidationResult result) {
+		if (result.isErroneous()) {
+			throw new IllegalStateException("The benchmark token is invalid: " + result.getErrorDescription());
+		}
+	}
+
+	@Benchmark
+	public ValidationResult timestampValidator() {
+		return timestampValidator.validate(xsuaaToken);
+	}
+
+	@Benchmark
+	public ValidationResult xsuaaJkuValidator() {
+		return jkuValidator.validate(xsuaaToken);
+	}
+
+	@Benchmark
+	public ValidationResult issuerValidator() {
+		return issuerValidator.validate(iasToken);
+	}
+
+	@Benchmark
+	public ValidationResult audienceValidator() {
+		return audienceValidator.validate(xsuaaToken);
+	}
+
+	@Benchmark
+	public ValidationResult xsuaaSignatureValidator() {
+		return xsuaaSignatureValidator.validate(xsuaaToken);
+	}
+
+	@Benchmark
+	public ValidationResult iasSignatureValidator() {
+		return iasSignatureValidator.validate(iasToken);
+	}
+
+	@Benchmark
+	public ValidationResult xsuaaDefaultValidators() {
+		return xsuaaValidators.validate(xsuaaToken);
+	}
+
+	@Benchmark
+	public ValidationResult iasDefaultValidators() {
+		return iasValidators.validate(iasToken);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		BenchmarkRunner.main(new String[] { DefaultValidatorsBenchmark.class.getSimpleName() });
+	}
+}
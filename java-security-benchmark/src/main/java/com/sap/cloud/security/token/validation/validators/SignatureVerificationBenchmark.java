@@ -0,0 +1,81 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.token.validation.validators;
+
+import static com.sap.cloud.security.token.validation.validators.JwtSignatureAlgorithm.RS256;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.concurrent.TimeUnit;
+
+import com.sap.cloud.security.test.RSAKeys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the RSA signature verification with a new {@link Signature} per
+ * token, as it was done before, with the thread-confined verifiers of
+ * {@link SignatureVerifierPool}.
+ *
+ * Run {@link #main(String[])} to compare both at 1, 8 and 32 threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SignatureVerificationBenchmark {
+
+	private static final int[] THREADS = { 1, 8, 32 };
+
+	private PublicKey publicKey;
+	private byte[] headerAndPayload;
+	private byte[] signature;
+
+	@Setup
+	public void setup() throws Exception {
+		RSAKeys keys = RSAKeys.fromKeyFiles("/publicKey.txt", "/privateKey.txt");
+		publicKey = keys.getPublic();
+		headerAndPayload = "eyJhbGciOiJSUzI1NiJ9.eyJzdWIiOiJiZW5jaG1hcmsifQ".getBytes(UTF_8);
+		Signature signer = Signature.getInstance(RS256.javaSignature());
+		signer.initSign(keys.getPrivate());
+		signer.update(headerAndPayload);
+		signature = signer.sign();
+	}
+
+	@Benchmark
+	public boolean newSignaturePerToken() throws Exception {
+		Signature verifier = Signature.getInstance(RS256.javaSignature());
+		verifier.initVerify(publicKey);
+		verifier.update(headerAndPayload);
+		return verifier.verify(signature);
+	}
+
+	@Benchmark
+	public boolean pooledSignature() throws Exception {
+		Signature verifier = SignatureVerifierPool.getVerifier(RS256, publicKey);
+		verifier.update(headerAndPayload);
+		return verifier.verify(signature);
+	}
+
+	public static void main(String[] args) throws Exception {
+		for (int threads : THREADS) {
+			Options options = new OptionsBuilder()
+					.include(SignatureVerificationBenchmark.class.getSimpleName())
+					.threads(threads)
+					.resultFormat(ResultFormatType.JSON)
+					.result("target/" + SignatureVerificationBenchmark.class.getSimpleName() + "-" + threads
+							+ "-threads.json")
+					.build();
+			new Runner(options).run();
+		}
+	}
+}
@@ -0,0 +1,80 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.xsuaa.client;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sap.cloud.security.BenchmarkFixtures;
+import com.sap.cloud.security.BenchmarkRunner;
+import com.sap.cloud.security.config.ClientCredentials;
+import com.sap.cloud.security.config.ClientIdentity;
+import com.sap.cloud.security.xsuaa.http.HttpHeaders;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.RunnerException;
+
+/**
+ * Measures the cache-hit path of {@link AbstractOAuth2TokenService}, i.e. the
+ * retrieval of an access token via client credentials and jwt bearer token
+ * grant that was requested before. The token endpoint is served from memory
+ * and is expected to be called only once per grant.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenCacheBenchmark {
+
+	private static final URI TOKEN_ENDPOINT = URI.create("https://benchmark.authentication.sap.hana.ondemand.com"
+			+ "/oauth/token");
+
+	private final AtomicInteger tokenRequests = new AtomicInteger();
+	private final ClientIdentity clientIdentity = new ClientCredentials(BenchmarkFixtures.XSUAA_CLIENT_ID,
+			"benchmark-secret");
+	private AbstractOAuth2TokenService tokenService;
+	private String userToken;
+
+	@Setup
+	public void setup() throws Exception {
+		userToken = new BenchmarkFixtures().xsuaaTokenGenerator().createToken().getTokenValue();
+		tokenService = new AbstractOAuth2TokenService() {
+			@Override
+			protected OAuth2TokenResponse requestAccessToken(URI tokenEndpointUri, HttpHeaders headers,
+					Map<String, String> parameters) {
+				tokenRequests.incrementAndGet();
+				return new OAuth2TokenResponse(userToken, TimeUnit.HOURS.toSeconds(12), null);
+			}
+		};
+	}
+
+	@TearDown
+	public void tearDown() {
+		if (tokenRequests.get() > 2) {
+			throw new IllegalStateException("Expected cache hits, but the token endpoint was called "
+					+ tokenRequests.get() + " times");
+		}
+	}
+
+	@Benchmark
+	public OAuth2TokenResponse clientCredentialsGrant() throws OAuth2ServiceException {
+		return tokenService.retrieveAccessTokenViaClientCredentialsGrant(TOKEN_ENDPOINT, clientIdentity, null,
+				"benchmark", null, false);
+	}
+
+	@Benchmark
+	public OAuth2TokenResponse jwtBearerTokenGrant() throws OAuth2ServiceException {
+		return tokenService.retrieveAccessTokenViaJwtBearerTokenGrant(TOKEN_ENDPOINT, clientIdentity, userToken,
+				"benchmark", null, false);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		BenchmarkRunner.main(new String[] { TokenCacheBenchmark.class.getSimpleName() });
+	}
+}
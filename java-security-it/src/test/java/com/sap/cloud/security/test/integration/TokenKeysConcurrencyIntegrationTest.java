@@ -0,0 +1,113 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.test.integration;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.stubbing.StubMapping;
+import com.sap.cloud.security.config.OAuth2ServiceConfiguration;
+import com.sap.cloud.security.config.OAuth2ServiceConfigurationBuilder;
+import com.sap.cloud.security.config.Service;
+import com.sap.cloud.security.config.cf.CFConstants;
+import com.sap.cloud.security.test.extension.SecurityTestExtension;
+import com.sap.cloud.security.token.Token;
+import com.sap.cloud.security.token.validation.CombiningValidator;
+import com.sap.cloud.security.token.validation.ValidationResult;
+import com.sap.cloud.security.token.validation.validators.JwtValidatorBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.sap.cloud.security.test.SecurityTest.DEFAULT_CLIENT_ID;
+import static com.sap.cloud.security.test.SecurityTest.DEFAULT_DOMAIN;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Validates a token concurrently while the token keys are not yet cached and
+ * checks that the token keys endpoint is requested only once.
+ */
+public class TokenKeysConcurrencyIntegrationTest {
+
+	private static final String TOKEN_KEYS_PATH = "/token_keys";
+	private static final int THREADS = 32;
+
+	@RegisterExtension
+	static SecurityTestExtension extension = SecurityTestExtension.forService(Service.XSUAA)
+			.setKeys("/publicKey.txt", "/privateKey.txt");
+
+	private final OAuth2ServiceConfiguration configuration = OAuth2ServiceConfigurationBuilder
+			.forService(Service.XSUAA)
+			.withProperty(CFConstants.XSUAA.UAA_DOMAIN, DEFAULT_DOMAIN)
+			.withClientId(DEFAULT_CLIENT_ID)
+			.build();
+	private WireMockServer wireMockServer;
+
+	@BeforeEach
+	public void setUp() {
+		wireMockServer = extension.getContext().getWireMockServer();
+		wireMockServer.resetRequests();
+	}
+
+	@Test
+	public void coldCache_tokenKeysAreRequestedOnce() throws Exception {
+		CombiningValidator<Token> tokenValidator = JwtValidatorBuilder.getInstance(configuration).build();
+		Token token = extension.getContext().getPreconfiguredJwtGenerator().createToken();
+
+		List<ValidationResult> results = validateConcurrently(tokenValidator, token);
+
+		assertThat(results).allMatch(ValidationResult::isValid);
+		wireMockServer.verify(1, getRequestedFor(urlEqualTo(TOKEN_KEYS_PATH)));
+	}
+
+	@Test
+	public void rotatedKeys_tokenKeysAreRequestedOnce() throws Exception {
+		CombiningValidator<Token> tokenValidator = JwtValidatorBuilder.getInstance(configuration).build();
+		Token token = extension.getContext().getPreconfiguredJwtGenerator().createToken();
+		StubMapping keysBeforeRotation = wireMockServer.stubFor(get(urlEqualTo(TOKEN_KEYS_PATH))
+				.willReturn(aResponse().withBody("{\"keys\": []}")));
+		assertThat(tokenValidator.validate(token).isValid()).isFalse(); // caches the key set without the key
+		wireMockServer.removeStub(keysBeforeRotation);
+		wireMockServer.resetRequests();
+
+		List<ValidationResult> results = validateConcurrently(tokenValidator, token);
+
+		assertThat(results).allMatch(ValidationResult::isValid);
+		wireMockServer.verify(1, getRequestedFor(urlEqualTo(TOKEN_KEYS_PATH)));
+	}
+
+	private static List<ValidationResult> validateConcurrently(CombiningValidator<Token> tokenValidator, Token token)
+			throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			Callable<ValidationResult> validation = () -> {
+				start.await();
+				return tokenValidator.validate(token);
+			};
+			List<Future<ValidationResult>> futures = new ArrayList<>();
+			for (Callable<ValidationResult> task : Collections.nCopies(THREADS, validation)) {
+				futures.add(executor.submit(task));
+			}
+			start.countDown();
+			List<ValidationResult> results = new ArrayList<>();
+			for (Future<ValidationResult> future : futures) {
+				results.add(future.get());
+			}
+			return results;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
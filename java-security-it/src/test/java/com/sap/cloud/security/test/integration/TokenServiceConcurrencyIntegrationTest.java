@@ -0,0 +1,126 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.test.integration;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.sap.cloud.security.config.ClientCredentials;
+import com.sap.cloud.security.config.ClientIdentity;
+import com.sap.cloud.security.xsuaa.client.DefaultOAuth2TokenService;
+import com.sap.cloud.security.xsuaa.client.OAuth2TokenResponse;
+import com.sap.cloud.security.xsuaa.client.OAuth2TokenService;
+import com.sap.cloud.security.xsuaa.tokenflows.TokenCacheConfiguration;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static com.github.tomakehurst.wiremock.stubbing.Scenario.STARTED;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Requests a client credentials token concurrently while it is not cached or
+ * needs to be refreshed and checks that the token endpoint is requested only
+ * once.
+ */
+public class TokenServiceConcurrencyIntegrationTest {
+
+	private static final String TOKEN_PATH = "/oauth/token";
+	private static final int THREADS = 32;
+	private static final int RESPONSE_DELAY_MILLIS = 300;
+
+	private final ClientIdentity clientIdentity = new ClientCredentials("clientId", "clientSecret");
+	private WireMockServer wireMockServer;
+	private URI tokenEndpoint;
+
+	@BeforeEach
+	public void setUp() {
+		wireMockServer = new WireMockServer(options().dynamicPort());
+		wireMockServer.start();
+		tokenEndpoint = URI.create(wireMockServer.baseUrl() + TOKEN_PATH);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		wireMockServer.stop();
+	}
+
+	@Test
+	public void coldCache_tokenIsRequestedOnce() throws Exception {
+		wireMockServer.stubFor(post(urlEqualTo(TOKEN_PATH)).willReturn(tokenResponse("token", 3600)));
+		OAuth2TokenService tokenService = new DefaultOAuth2TokenService(HttpClients.createDefault(),
+				TokenCacheConfiguration.defaultConfiguration());
+
+		List<OAuth2TokenResponse> responses = requestConcurrently(tokenService);
+
+		assertThat(responses).extracting(OAuth2TokenResponse::getAccessToken).containsOnly("token");
+		wireMockServer.verify(1, postRequestedFor(urlEqualTo(TOKEN_PATH)));
+	}
+
+	@Test
+	public void tokenWithinExpirationDelta_tokenIsRefreshedOnce() throws Exception {
+		wireMockServer.stubFor(post(urlEqualTo(TOKEN_PATH)).inScenario("refresh")
+				.whenScenarioStateIs(STARTED).willSetStateTo("refreshed")
+				.willReturn(tokenResponse("token", 90))); // cached, but within the expiration delta
+		wireMockServer.stubFor(post(urlEqualTo(TOKEN_PATH)).inScenario("refresh")
+				.whenScenarioStateIs("refreshed")
+				.willReturn(tokenResponse("refreshedToken", 3600)));
+		OAuth2TokenService tokenService = new DefaultOAuth2TokenService(HttpClients.createDefault(),
+				TokenCacheConfiguration.getInstance(Duration.ofMinutes(15), 10, Duration.ofSeconds(120)));
+		assertThat(tokenService.retrieveAccessTokenViaClientCredentialsGrant(tokenEndpoint, clientIdentity, null,
+				null, null, false).getAccessToken()).isEqualTo("token");
+
+		List<OAuth2TokenResponse> responses = requestConcurrently(tokenService);
+
+		// callers that arrive while the token is being refreshed keep using the cached one
+		assertThat(responses).extracting(OAuth2TokenResponse::getAccessToken)
+				.contains("token", "refreshedToken").isSubsetOf("token", "refreshedToken");
+		wireMockServer.verify(2, postRequestedFor(urlEqualTo(TOKEN_PATH)));
+	}
+
+	private static ResponseDefinitionBuilder tokenResponse(String accessToken, int expiresIn) {
+		return aResponse().withFixedDelay(RESPONSE_DELAY_MILLIS)
+				.withHeader("Content-Type", "application/json")
+				.withBody("{\"access_token\": \"" + accessToken + "\", \"expires_in\": " + expiresIn + "}");
+	}
+
+	private List<OAuth2TokenResponse> requestConcurrently(OAuth2TokenService tokenService) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			Callable<OAuth2TokenResponse> request = () -> {
+				start.await();
+				return tokenService.retrieveAccessTokenViaClientCredentialsGrant(tokenEndpoint, clientIdentity,
+						null, null, null, false);
+			};
+			List<Future<OAuth2TokenResponse>> futures = new ArrayList<>();
+			for (Callable<OAuth2TokenResponse> task : Collections.nCopies(THREADS, request)) {
+				futures.add(executor.submit(task));
+			}
+			start.countDown();
+			List<OAuth2TokenResponse> responses = new ArrayList<>();
+			for (Future<OAuth2TokenResponse> future : futures) {
+				responses.add(future.get());
+			}
+			return responses;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
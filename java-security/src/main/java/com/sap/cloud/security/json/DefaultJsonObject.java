@@ -37,6 +37,25 @@ public class DefaultJsonObject implements JsonObject {
 		this.jsonObject = createJsonObject(jsonString);
 	}
 
+	/**
+	 * Creates a view on an already parsed json object, e.g. a nested object of
+	 * another {@link DefaultJsonObject}. The json object is shared and must not
+	 * be modified.
+	 *
+	 * @param jsonObject
+	 *            the parsed json object
+	 */
+	DefaultJsonObject(JSONObject jsonObject) {
+		this.jsonObject = jsonObject;
+	}
+
+	/**
+	 * For subclasses that parse the json string on demand, see
+	 * {@link #getJsonObject()}.
+	 */
+	DefaultJsonObject() {
+	}
+
 	@Override
 	public boolean contains(String key) {
 		return getJsonObject().has(key);
@@ -109,7 +128,6 @@ public class DefaultJsonObject implements JsonObject {
 				throw new JsonParsingException(e.getMessage());
 			}
 			return Optional.ofNullable(newJsonObject)
-					.map(Object::toString)
 					.map(DefaultJsonObject::new)
 					.orElse(null);
 		}
@@ -129,7 +147,7 @@ public class DefaultJsonObject implements JsonObject {
 		Iterator<String> keysItr = getJsonObject().keys();
 		while (keysItr.hasNext()) {
 			String key = keysItr.next();
-			Object value = jsonObject.get(key);
+			Object value = getJsonObject().get(key);
 			if (value instanceof String) {
 				map.put(key, String.valueOf(value));
 			}
@@ -139,14 +157,14 @@ public class DefaultJsonObject implements JsonObject {
 
 	@Override
 	public String asJsonString() {
-		return jsonObject.toString();
+		return getJsonObject().toString();
 	}
 
 	private List<JsonObject> convertToJsonObjects(JSONArray jsonArray) {
 		List<JsonObject> jsonObjects = new ArrayList<>();
 		jsonArray.forEach(jsonArrayObject -> {
 			if (jsonArrayObject instanceof JSONObject) {
-				jsonObjects.add(new DefaultJsonObject(jsonArrayObject.toString()));
+				jsonObjects.add(new DefaultJsonObject((JSONObject) jsonArrayObject));
 			} else {
 				throw new JsonParsingException("Array does not only contain json objects!");
 			}
@@ -162,7 +180,7 @@ public class DefaultJsonObject implements JsonObject {
 		}
 	}
 
-	private Instant convertToInstant(long epochSeconds) {
+	Instant convertToInstant(long epochSeconds) {
 		try {
 			return Instant.ofEpochSecond(epochSeconds);
 		} catch (DateTimeException | NumberFormatException e) {
@@ -170,7 +188,7 @@ public class DefaultJsonObject implements JsonObject {
 		}
 	}
 
-	private <T> List<T> castToListOfType(JSONArray jsonArray, Class<T> type) {
+	<T> List<T> castToListOfType(JSONArray jsonArray, Class<T> type) {
 		List<T> valuesAsList = new ArrayList<>(jsonArray.length());
 		for (int i = 0; i < jsonArray.length(); i++) {
 			Object value = jsonArray.get(i);
@@ -194,12 +212,12 @@ public class DefaultJsonObject implements JsonObject {
 		return Optional.empty();
 	}
 
-	private JSONObject getJsonObject() {
+	JSONObject getJsonObject() {
 		return jsonObject;
 	}
 
 	@java.lang.SuppressWarnings("squid:S2139")
-	private JSONObject createJsonObject(String jsonString) {
+	JSONObject createJsonObject(String jsonString) {
 		try {
 			return new JSONObject(jsonString);
 		} catch (JSONException e) {
@@ -210,6 +228,6 @@ public class DefaultJsonObject implements JsonObject {
 
 	@Override
 	public String toString() {
-		return jsonObject.toString(2);
+		return getJsonObject().toString(2);
 	}
 }
@@ -0,0 +1,596 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.json;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import javax.annotation.Nullable;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Use this class to access the header or the payload of a token. In contrast
+ * to {@link DefaultJsonObject} the json string is not parsed into a complete
+ * object tree up front. Instead, the json string is scanned once and the
+ * positions of the top-level properties are kept in a compact index. A value is
+ * only materialized when the property is requested.<br>
+ *
+ * The behavior is the same as of {@link DefaultJsonObject}. Strings and
+ * integral numbers are read directly from the json string, all other values and
+ * operations that need the whole structure, like {@link #getKeyValueMap()},
+ * fall back to the parsed {@link JSONObject}. This also applies to json strings
+ * that are not strictly formatted, e.g. with unquoted keys. The whole json
+ * string, including nested objects and arrays, is validated by the scan, json
+ * that it can not prove to be well-formed is parsed right away, hence invalid
+ * json is rejected on creation like with {@link DefaultJsonObject}.<br>
+ *
+ * Nested objects, as returned by {@link #getJsonObject(String)} and
+ * {@link #getJsonObjects(String)}, are views on the same json string, which
+ * are indexed on first access. The json string is never copied.
+ */
+public class LazyJsonObject extends DefaultJsonObject {
+
+	private final String json;
+	private final int from;
+	private final int to;
+	@Nullable
+	private final Index index; // null if the json is not strictly formatted
+	private final Object[] values; // materialized strings, longs and nested objects
+	private volatile JSONObject jsonObject;
+
+	/**
+	 * Create an instance
+	 *
+	 * @param jsonString
+	 *            the content in json format that should be parsed.
+	 */
+	public LazyJsonObject(String jsonString) {
+		this(jsonString, 0, jsonString == null ? 0 : jsonString.length());
+	}
+
+	private LazyJsonObject(String json, int from, int to) {
+		this.json = json;
+		this.from = from;
+		this.to = to;
+		this.index = json == null ? null : Index.scan(json, from, to);
+		if (index == null) {
+			this.jsonObject = createJsonObject(getJsonString()); // fails like DefaultJsonObject if json is invalid
+			this.values = new Object[0];
+		} else {
+			this.values = new Object[index.size];
+		}
+	}
+
+	@Override
+	public boolean contains(String key) {
+		if (index == null) {
+			return super.contains(key);
+		}
+		return index.indexOf(key) >= 0;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		if (index == null) {
+			return super.isEmpty();
+		}
+		return index.size == 0;
+	}
+
+	@Override
+	public <T> List<T> getAsList(String name, Class<T> type) {
+		int i = index == null ? -1 : index.indexOf(name);
+		if (index != null && i < 0) {
+			return Collections.emptyList();
+		}
+		if (i < 0 || json.charAt(index.valueStart(i)) != '[') {
+			return super.getAsList(name, type);
+		}
+		try {
+			return castToListOfType(new JSONArray(index.value(i)), type);
+		} catch (JSONException e) {
+			throw new JsonParsingException(e.getMessage());
+		}
+	}
+
+	@Override
+	public List<String> getAsStringList(String name) {
+		int i = index == null ? -1 : index.indexOf(name);
+		if (i < 0 || json.charAt(index.valueStart(i)) != '"') {
+			return super.getAsStringList(name);
+		}
+		List<String> list = new ArrayList<>(1);
+		list.add(getAsString(name));
+		return list;
+	}
+
+	@Override
+	@Nullable
+	public String getAsString(String name) {
+		int i = index == null ? -1 : index.indexOf(name);
+		if (i < 0) {
+			return super.getAsString(name);
+		}
+		if (values[i] instanceof String) {
+			return (String) values[i];
+		}
+		String value = json.charAt(index.valueStart(i)) == '"'
+				? Index.readString(json, index.valueStart(i), index.valueEnd(i))
+				: null;
+		if (value == null) {
+			return super.getAsString(name); // not a string, fails like DefaultJsonObject
+		}
+		values[i] = value;
+		return value;
+	}
+
+	@Override
+	@Nullable
+	public Instant getAsInstant(String name) {
+		Long epochSeconds = getAsLong(name);
+		return epochSeconds == null ? null : convertToInstant(epochSeconds);
+	}
+
+	@Nullable
+	@Override
+	public Long getAsLong(String name) {
+		int i = index == null ? -1 : index.indexOf(name);
+		if (i < 0) {
+			return super.getAsLong(name);
+		}
+		if (values[i] instanceof Long) {
+			return (Long) values[i];
+		}
+		Long value = Index.readLong(json, index.valueStart(i), index.valueEnd(i));
+		if (value == null) {
+			return super.getAsLong(name); // e.g. numeric string, handled like DefaultJsonObject
+		}
+		values[i] = value;
+		return value;
+	}
+
+	@Override
+	@Nullable
+	public JsonObject getJsonObject(String name) {
+		int i = index == null ? -1 : index.indexOf(name);
+		if (i < 0 || json.charAt(index.valueStart(i)) != '{') {
+			return super.getJsonObject(name);
+		}
+		Object value = values[i];
+		if (!(value instanceof JsonObject)) {
+			value = new LazyJsonObject(json, index.valueStart(i), index.valueEnd(i));
+			values[i] = value;
+		}
+		return (JsonObject) value;
+	}
+
+	@Override
+	public List<JsonObject> getJsonObjects(String name) {
+		int i = index == null ? -1 : index.indexOf(name);
+		if (index != null && i < 0) {
+			return new ArrayList<>();
+		}
+		int[] elements = i < 0 ? null : Index.scanArray(json, index.valueStart(i), index.valueEnd(i));
+		if (elements == null) {
+			return super.getJsonObjects(name);
+		}
+		List<JsonObject> jsonObjects = new ArrayList<>(elements.length / 2);
+		for (int e = 0; e < elements.length; e += 2) {
+			if (json.charAt(elements[e]) != '{') {
+				throw new JsonParsingException("Array does not only contain json objects!");
+			}
+			jsonObjects.add(new LazyJsonObject(json, elements[e], elements[e + 1]));
+		}
+		return jsonObjects;
+	}
+
+	@Override
+	JSONObject getJsonObject() {
+		JSONObject parsedJsonObject = jsonObject;
+		if (parsedJsonObject == null) {
+			parsedJsonObject = createJsonObject(getJsonString());
+			jsonObject = parsedJsonObject;
+		}
+		return parsedJsonObject;
+	}
+
+	private String getJsonString() {
+		return json == null || from == 0 && to == json.length() ? json : json.substring(from, to);
+	}
+
+	/**
+	 * Positions of the top-level properties of a json object. For every property
+	 * the name and the start and end offset of the value within the json string
+	 * are kept.
+	 */
+	private static final class Index {
+		private static final int MAX_DEPTH = 128; // deeper nesting is left to JSONObject
+
+		private final String json;
+		private String[] names = new String[16];
+		private int[] offsets = new int[32];
+		private int size;
+
+		private Index(String json) {
+			this.json = json;
+		}
+
+		/**
+		 * Scans the json object within the given range of the json string.
+		 *
+		 * @return the index or null, if the json is not strictly formatted or invalid
+		 */
+		@Nullable
+		static Index scan(String json, int from, int to) {
+			Index index = new Index(json);
+			int pos = skipWhitespace(json, from, to);
+			if (pos >= to || json.charAt(pos) != '{') {
+				return null;
+			}
+			pos = skipWhitespace(json, pos + 1, to);
+			if (pos < to && json.charAt(pos) == '}') {
+				return index;
+			}
+			while (pos < to && json.charAt(pos) == '"') {
+				int nameEnd = skipString(json, pos, to);
+				String name = nameEnd < 0 ? null : readString(json, pos, nameEnd);
+				if (name == null || index.indexOf(name) >= 0) {
+					return null; // duplicate keys are rejected by JSONObject
+				}
+				pos = skipWhitespace(json, nameEnd, to);
+				if (pos >= to || json.charAt(pos) != ':') {
+					return null;
+				}
+				int valueStart = skipWhitespace(json, pos + 1, to);
+				int valueEnd = skipValue(json, valueStart, to);
+				if (valueEnd < 0) {
+					return null;
+				}
+				index.add(name, valueStart, valueEnd);
+				pos = skipWhitespace(json, valueEnd, to);
+				if (pos < to && json.charAt(pos) == '}') {
+					return index;
+				}
+				if (pos >= to || json.charAt(pos) != ',') {
+					return null;
+				}
+				pos = skipWhitespace(json, pos + 1, to);
+			}
+			return null;
+		}
+
+		/**
+		 * Scans the json array within the given range of the json string.
+		 *
+		 * @return the start and end offsets of the array elements or null, if the
+		 *         json is not a strictly formatted array
+		 */
+		@Nullable
+		static int[] scanArray(String json, int from, int to) {
+			int[] elements = new int[8];
+			int size = 0;
+			int pos = skipWhitespace(json, from, to);
+			if (pos >= to || json.charAt(pos) != '[') {
+				return null;
+			}
+			pos = skipWhitespace(json, pos + 1, to);
+			if (pos < to && json.charAt(pos) == ']') {
+				return new int[0];
+			}
+			while (pos < to) {
+				int end = skipValue(json, pos, to);
+				if (end < 0) {
+					return null;
+				}
+				if (size == elements.length) {
+					elements = Arrays.copyOf(elements, 2 * size);
+				}
+				elements[size++] = pos;
+				elements[size++] = end;
+				pos = skipWhitespace(json, end, to);
+				if (pos < to && json.charAt(pos) == ']') {
+					return Arrays.copyOf(elements, size);
+				}
+				if (pos >= to || json.charAt(pos) != ',') {
+					return null;
+				}
+				pos = skipWhitespace(json, pos + 1, to);
+			}
+			return null;
+		}
+
+		int indexOf(String name) {
+			for (int i = 0; i < size; i++) {
+				if (names[i].equals(name)) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		int valueStart(int i) {
+			return offsets[2 * i];
+		}
+
+		int valueEnd(int i) {
+			return offsets[2 * i + 1];
+		}
+
+		String value(int i) {
+			return json.substring(valueStart(i), valueEnd(i));
+		}
+
+		private void add(String name, int valueStart, int valueEnd) {
+			if (size == names.length) {
+				names = Arrays.copyOf(names, 2 * size);
+				offsets = Arrays.copyOf(offsets, 4 * size);
+			}
+			names[size] = name;
+			offsets[2 * size] = valueStart;
+			offsets[2 * size + 1] = valueEnd;
+			size++;
+		}
+
+		private static int skipWhitespace(String json, int pos, int to) {
+			while (pos < to) {
+				char c = json.charAt(pos);
+				if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+					break;
+				}
+				pos++;
+			}
+			return pos;
+		}
+
+		private static int skipValue(String json, int pos, int to) {
+			return skipValue(json, pos, to, 0);
+		}
+
+		/**
+		 * Skips a strictly formatted json value. Nested objects and arrays are
+		 * validated completely, so that malformed json is rejected when the
+		 * instance is created.
+		 *
+		 * @return the end offset of the value or -1, in which case the json is left
+		 *         to JSONObject, e.g. unquoted strings
+		 */
+		private static int skipValue(String json, int pos, int to, int depth) {
+			if (pos >= to) {
+				return -1;
+			}
+			char c = json.charAt(pos);
+			switch (c) {
+			case '"':
+				return skipString(json, pos, to);
+			case '{':
+				return skipObject(json, pos, to, depth + 1);
+			case '[':
+				return skipArray(json, pos, to, depth + 1);
+			case 't':
+				return skipLiteral(json, pos, to, "true");
+			case 'f':
+				return skipLiteral(json, pos, to, "false");
+			case 'n':
+				return skipLiteral(json, pos, to, "null");
+			default:
+				return c == '-' || c >= '0' && c <= '9' ? skipNumber(json, pos, to) : -1;
+			}
+		}
+
+		private static int skipObject(String json, int pos, int to, int depth) {
+			if (depth > MAX_DEPTH) {
+				return -1;
+			}
+			pos = skipWhitespace(json, pos + 1, to);
+			if (pos < to && json.charAt(pos) == '}') {
+				return pos + 1;
+			}
+			while (pos < to && json.charAt(pos) == '"') {
+				pos = skipString(json, pos, to);
+				if (pos < 0) {
+					return -1;
+				}
+				pos = skipWhitespace(json, pos, to);
+				if (pos >= to || json.charAt(pos) != ':') {
+					return -1;
+				}
+				pos = skipValue(json, skipWhitespace(json, pos + 1, to), to, depth);
+				if (pos < 0) {
+					return -1;
+				}
+				pos = skipWhitespace(json, pos, to);
+				if (pos < to && json.charAt(pos) == '}') {
+					return pos + 1;
+				}
+				if (pos >= to || json.charAt(pos) != ',') {
+					return -1;
+				}
+				pos = skipWhitespace(json, pos + 1, to);
+			}
+			return -1;
+		}
+
+		private static int skipArray(String json, int pos, int to, int depth) {
+			if (depth > MAX_DEPTH) {
+				return -1;
+			}
+			pos = skipWhitespace(json, pos + 1, to);
+			if (pos < to && json.charAt(pos) == ']') {
+				return pos + 1;
+			}
+			while (pos < to) {
+				pos = skipValue(json, pos, to, depth);
+				if (pos < 0) {
+					return -1;
+				}
+				pos = skipWhitespace(json, pos, to);
+				if (pos < to && json.charAt(pos) == ']') {
+					return pos + 1;
+				}
+				if (pos >= to || json.charAt(pos) != ',') {
+					return -1;
+				}
+				pos = skipWhitespace(json, pos + 1, to);
+			}
+			return -1;
+		}
+
+		private static int skipLiteral(String json, int pos, int to, String literal) {
+			return pos + literal.length() <= to && json.startsWith(literal, pos) ? pos + literal.length() : -1;
+		}
+
+		/**
+		 * Skips a number as defined by the json grammar, i.e. an optional minus,
+		 * an integer without leading zeros, an optional fraction and an optional
+		 * exponent.
+		 */
+		private static int skipNumber(String json, int pos, int to) {
+			if (json.charAt(pos) == '-') {
+				pos++;
+			}
+			if (pos < to && json.charAt(pos) == '0') {
+				pos++;
+			} else {
+				int start = pos;
+				pos = skipDigits(json, pos, to);
+				if (pos == start) {
+					return -1;
+				}
+			}
+			if (pos < to && json.charAt(pos) == '.') {
+				int start = ++pos;
+				pos = skipDigits(json, pos, to);
+				if (pos == start) {
+					return -1;
+				}
+			}
+			if (pos < to && (json.charAt(pos) == 'e' || json.charAt(pos) == 'E')) {
+				pos++;
+				if (pos < to && (json.charAt(pos) == '+' || json.charAt(pos) == '-')) {
+					pos++;
+				}
+				int start = pos;
+				pos = skipDigits(json, pos, to);
+				if (pos == start) {
+					return -1;
+				}
+			}
+			return pos;
+		}
+
+		private static int skipDigits(String json, int pos, int to) {
+			while (pos < to && json.charAt(pos) >= '0' && json.charAt(pos) <= '9') {
+				pos++;
+			}
+			return pos;
+		}
+
+		/**
+		 * @return the offset after the closing quote or -1
+		 */
+		private static int skipString(String json, int pos, int to) {
+			for (int i = pos + 1; i < to; i++) {
+				char c = json.charAt(i);
+				if (c == '\\') {
+					i++;
+				} else if (c == '"') {
+					return i + 1;
+				} else if (c == '\n' || c == '\r') {
+					return -1;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Reads a string value, given the offsets of the opening and after the
+		 * closing quote.
+		 *
+		 * @return the unescaped string or null, in case of an illegal escape sequence
+		 */
+		@Nullable
+		static String readString(String json, int start, int end) {
+			int backslash = json.indexOf('\\', start + 1);
+			if (backslash < 0 || backslash >= end) {
+				return json.substring(start + 1, end - 1);
+			}
+			StringBuilder sb = new StringBuilder(end - start);
+			for (int i = start + 1; i < end - 1; i++) {
+				char c = json.charAt(i);
+				if (c != '\\') {
+					sb.append(c);
+					continue;
+				}
+				char escaped = json.charAt(++i);
+				switch (escaped) {
+				case '"':
+				case '\\':
+				case '/':
+					sb.append(escaped);
+					break;
+				case 'b':
+					sb.append('\b');
+					break;
+				case 'f':
+					sb.append('\f');
+					break;
+				case 'n':
+					sb.append('\n');
+					break;
+				case 'r':
+					sb.append('\r');
+					break;
+				case 't':
+					sb.append('\t');
+					break;
+				case 'u':
+					if (i + 4 >= end - 1) {
+						return null;
+					}
+					try {
+						sb.append((char) Integer.parseInt(json.substring(i + 1, i + 5), 16));
+					} catch (NumberFormatException e) {
+						return null;
+					}
+					i += 4;
+					break;
+				default:
+					return null;
+				}
+			}
+			return sb.toString();
+		}
+
+		/**
+		 * Reads an integral number value that fits into a long.
+		 *
+		 * @return the number or null, if the value is of another format
+		 */
+		@Nullable
+		static Long readLong(String json, int start, int end) {
+			boolean negative = json.charAt(start) == '-';
+			int pos = negative ? start + 1 : start;
+			int digits = end - pos;
+			if (digits < 1 || digits > 18 || digits > 1 && json.charAt(pos) == '0') {
+				return null;
+			}
+			long value = 0;
+			for (; pos < end; pos++) {
+				char c = json.charAt(pos);
+				if (c < '0' || c > '9') {
+					return null;
+				}
+				value = value * 10 + (c - '0');
+			}
+			return negative ? -value : value;
+		}
+	}
+}
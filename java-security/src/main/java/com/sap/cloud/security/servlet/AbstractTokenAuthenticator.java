@@ -38,6 +38,8 @@ public abstract class AbstractTokenAuthenticator implements TokenAuthenticator {
 	protected CloseableHttpClient httpClient;
 	protected OAuth2ServiceConfiguration serviceConfiguration;
 	private CacheConfiguration tokenKeyCacheConfiguration;
+	private CacheConfiguration validationResultCacheConfiguration;
+	private int warmUpIterations;
 
 	@Override
 	public TokenAuthenticationResult validateRequest(ServletRequest request, ServletResponse response) {
@@ -70,6 +72,36 @@ public abstract class AbstractTokenAuthenticator implements TokenAuthenticator {
 		return this;
 	}
 
+	/**
+	 * Use to enable the cache of successfully validated tokens, see
+	 * {@link JwtValidatorBuilder#withValidationResultCache(CacheConfiguration)}.
+	 *
+	 * @param cacheConfiguration
+	 *            the cache configuration
+	 * @return this authenticator
+	 */
+	public AbstractTokenAuthenticator withValidationResultCache(CacheConfiguration cacheConfiguration) {
+		this.validationResultCacheConfiguration = cacheConfiguration;
+		return this;
+	}
+
+	/**
+	 * Creates the token validator right away and warms it up, see
+	 * {@link JwtValidatorBuilder#withWarmUp(int)}. Call it after the
+	 * authenticator is configured, e.g. while the application starts, so that
+	 * the first request does not pay for the initialization of the validator.
+	 *
+	 * @param iterations
+	 *            how often a synthetic token is validated
+	 * @return this authenticator
+	 */
+	public AbstractTokenAuthenticator withWarmUp(int iterations) {
+		this.warmUpIterations = iterations;
+		this.tokenValidator = null;
+		getOrCreateTokenValidator();
+		return this;
+	}
+
 	/**
 	 * Use to configure the HttpClient that is used to retrieve token keys or to
 	 * perform a token-exchange.
@@ -145,9 +177,12 @@ public abstract class AbstractTokenAuthenticator implements TokenAuthenticator {
 	Validator<Token> getOrCreateTokenValidator() {
 		if (tokenValidator == null) {
 			JwtValidatorBuilder jwtValidatorBuilder = JwtValidatorBuilder.getInstance(getServiceConfiguration())
-					.withHttpClient(httpClient);
+					.withHttpClient(httpClient)
+					.withWarmUp(warmUpIterations);
 			jwtValidatorBuilder.configureAnotherServiceInstance(getOtherServiceConfiguration());
 			Optional.ofNullable(tokenKeyCacheConfiguration).ifPresent(jwtValidatorBuilder::withCacheConfiguration);
+			Optional.ofNullable(validationResultCacheConfiguration)
+					.ifPresent(jwtValidatorBuilder::withValidationResultCache);
 			validationListeners.forEach(jwtValidatorBuilder::withValidatorListener);
 			tokenValidator = jwtValidatorBuilder.build();
 		}
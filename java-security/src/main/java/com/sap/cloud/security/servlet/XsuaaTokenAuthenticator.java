@@ -32,6 +32,7 @@ public class XsuaaTokenAuthenticator extends AbstractTokenAuthenticator {
 	private static final Logger LOGGER = LoggerFactory.getLogger(XsuaaTokenAuthenticator.class);
 	private static final String IAS_XSUAA_ENABLED = "IAS_XSUAA_XCHANGE_ENABLED";
 	private IasXsuaaExchangeBroker exchangeBroker;
+	private volatile ScopeConverter scopeConverter;
 
 	public XsuaaTokenAuthenticator() {
 		serviceConfiguration = Environments.getCurrent().getXsuaaConfiguration();
@@ -47,6 +48,7 @@ public class XsuaaTokenAuthenticator extends AbstractTokenAuthenticator {
 	@Override
 	public AbstractTokenAuthenticator withServiceConfiguration(OAuth2ServiceConfiguration serviceConfiguration) {
 		super.withServiceConfiguration(serviceConfiguration);
+		scopeConverter = null;
 		buildDependencies();
 		return this;
 	}
@@ -131,8 +133,12 @@ public class XsuaaTokenAuthenticator extends AbstractTokenAuthenticator {
 	}
 
 	private ScopeConverter getScopeConverter() {
-		return new XsuaaScopeConverter(
-				getServiceConfiguration().getProperty(CFConstants.XSUAA.APP_ID));
+		ScopeConverter converter = scopeConverter;
+		if (converter == null) {
+			converter = new XsuaaScopeConverter(getServiceConfiguration().getProperty(CFConstants.XSUAA.APP_ID));
+			scopeConverter = converter;
+		}
+		return converter;
 	}
 
 	/**
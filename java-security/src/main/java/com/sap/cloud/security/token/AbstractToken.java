@@ -7,6 +7,7 @@ package com.sap.cloud.security.token;
 
 import com.sap.cloud.security.json.DefaultJsonObject;
 import com.sap.cloud.security.json.JsonObject;
+import com.sap.cloud.security.json.LazyJsonObject;
 import com.sap.cloud.security.xsuaa.Assertions;
 import com.sap.cloud.security.xsuaa.jwt.Base64JwtDecoder;
 import com.sap.cloud.security.xsuaa.jwt.DecodedJwt;
@@ -39,8 +40,8 @@ public abstract class AbstractToken implements Token {
 	protected final DefaultJsonObject tokenBody;
 
 	public AbstractToken(@Nonnull DecodedJwt decodedJwt) {
-		this.tokenHeader = new DefaultJsonObject(decodedJwt.getHeader());
-		this.tokenBody = new DefaultJsonObject(decodedJwt.getPayload());
+		this.tokenHeader = new LazyJsonObject(decodedJwt.getHeader());
+		this.tokenBody = new LazyJsonObject(decodedJwt.getPayload());
 		this.decodedJwt = decodedJwt;
 	}
 
@@ -115,6 +116,16 @@ public abstract class AbstractToken implements Token {
 		return decodedJwt.getEncodedToken();
 	}
 
+	/**
+	 * Returns the decoded form of this token, e.g. to verify its signature without
+	 * decoding the encoded token again.
+	 *
+	 * @return the decoded jwt
+	 */
+	public DecodedJwt getDecodedJwt() {
+		return decodedJwt;
+	}
+
 	@Override
 	public Set<String> getAudiences() {
 		Set<String> audiences = new LinkedHashSet<>();
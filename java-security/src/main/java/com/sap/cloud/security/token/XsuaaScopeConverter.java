@@ -10,15 +10,15 @@ import com.sap.cloud.security.xsuaa.Assertions;
 import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * This utility class translates XSUAA scopes that are specified in global form
  * and prefixed with the "appId.", to local ones.
+ *
+ * Instances are immutable and can be shared across threads.
  */
 public class XsuaaScopeConverter implements ScopeConverter {
-	private final Pattern globalScopePattern;
+	private final String globalScopePrefix;
 
 	/**
 	 * Creates an instance of the converter.
@@ -28,27 +28,18 @@ public class XsuaaScopeConverter implements ScopeConverter {
 	 */
 	public XsuaaScopeConverter(String appId) {
 		Assertions.assertHasText(appId, "appId must not be null or empty.");
-		this.globalScopePattern = Pattern.compile(appId + "\\.(.+)");
+		this.globalScopePrefix = appId + ".";
 	}
 
 	@Override
 	public Set<String> convert(Collection<String> scopes) {
 		Set<String> convertedScopes = new LinkedHashSet<>();
 		for (String scope : scopes) {
-			String convertedScope = convertToLocalScope(scope);
-			if (convertedScope != null) {
-				convertedScopes.add(convertedScope);
+			if (scope.length() > globalScopePrefix.length() && scope.startsWith(globalScopePrefix)) {
+				convertedScopes.add(scope.substring(globalScopePrefix.length()));
 			}
 		}
 		return convertedScopes;
 	}
 
-	private String convertToLocalScope(String scope) {
-		Matcher matcher = globalScopePattern.matcher(scope);
-		if (matcher.matches()) {
-			return matcher.group(matcher.groupCount());
-		}
-		return null;
-	}
-
 }
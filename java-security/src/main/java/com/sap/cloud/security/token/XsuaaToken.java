@@ -31,6 +31,7 @@ public class XsuaaToken extends AbstractToken implements AccessToken {
 	static final String UNIQUE_CLIENT_NAME_FORMAT = "client/%s"; // client/<clientid>
 	private static final Logger LOGGER = LoggerFactory.getLogger(XsuaaToken.class);
 	private ScopeConverter scopeConverter;
+	private volatile Set<String> localScopes;
 
 	/**
 	 * Creates an instance.
@@ -96,6 +97,7 @@ public class XsuaaToken extends AbstractToken implements AccessToken {
 	 */
 	public XsuaaToken withScopeConverter(@Nullable ScopeConverter converter) {
 		this.scopeConverter = converter;
+		this.localScopes = null;
 		return this;
 	}
 
@@ -134,7 +136,8 @@ public class XsuaaToken extends AbstractToken implements AccessToken {
 	/**
 	 * Check if a local scope is available in the authentication token. <br>
 	 * Requires a {@link ScopeConverter} to be configured with
-	 * {@link #withScopeConverter(ScopeConverter)}.
+	 * {@link #withScopeConverter(ScopeConverter)}. The scopes are converted once
+	 * per token and scope converter.
 	 *
 	 * @param scope
 	 *            name of local scope (without the appId)
@@ -144,7 +147,12 @@ public class XsuaaToken extends AbstractToken implements AccessToken {
 	public boolean hasLocalScope(@Nonnull String scope) {
 		Assertions.assertNotNull(scopeConverter,
 				"hasLocalScope() method requires a scopeConverter, which must not be null");
-		return scopeConverter.convert(getScopes()).contains(scope);
+		Set<String> convertedScopes = localScopes;
+		if (convertedScopes == null) {
+			convertedScopes = scopeConverter.convert(getScopes());
+			localScopes = convertedScopes;
+		}
+		return convertedScopes.contains(scope);
 	}
 
 	@Override
@@ -5,11 +5,20 @@
  */
 package com.sap.cloud.security.token.validation;
 
+import com.sap.cloud.security.config.Service;
+import com.sap.cloud.security.token.Token;
 import com.sap.cloud.security.xsuaa.Assertions;
+import com.sap.cloud.security.xsuaa.metrics.SecurityMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * This is a special validator that combines several validators into one. By
@@ -36,6 +45,9 @@ public class CombiningValidator<T> implements Validator<T> {
 
 	@Override
 	public ValidationResult validate(T t) {
+		if (SecurityMetrics.isEnabled()) {
+			return validateTimed(t);
+		}
 		for (Validator<T> validator : validators) {
 			ValidationResult result = validator.validate(t);
 			if (result.isErroneous()) {
@@ -47,6 +59,140 @@ public class CombiningValidator<T> implements Validator<T> {
 		return createValidationResult();
 	}
 
+	private ValidationResult validateTimed(T t) {
+		long start = System.nanoTime();
+		for (Validator<T> validator : validators) {
+			long validatorStart = System.nanoTime();
+			ValidationResult result = validator.validate(t);
+			SecurityMetrics.recordValidator(validator, result.isValid(), validatorStart);
+			if (result.isErroneous()) {
+				debugLog(t, validator);
+				validationListeners.forEach(listener -> listener.onValidationError(result));
+				SecurityMetrics.recordValidation(getService(t), false, start);
+				return result;
+			}
+		}
+		ValidationResult result = createValidationResult();
+		SecurityMetrics.recordValidation(getService(t), result.isValid(), start);
+		return result;
+	}
+
+	@Nullable
+	private static Service getService(Object t) {
+		return t instanceof Token ? ((Token) t).getService() : null;
+	}
+
+	/**
+	 * Validates the object asynchronously, see
+	 * {@link #validateAsync(Object, Executor)}. Blocking retrievals are performed
+	 * on the {@link ForkJoinPool#commonPool()}.
+	 *
+	 * @param t
+	 *            the object to be validated
+	 * @return the future validation result
+	 */
+	public CompletionStage<ValidationResult> validateAsync(T t) {
+		return validateAsync(t, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Validates the object asynchronously. The validators are applied one after
+	 * the other, as with {@link #validate(Object)}, but each with
+	 * {@link Validator#validateAsync(Object, Executor)}. Hence, a validator that
+	 * needs to retrieve data, e.g. the token keys of the identity service, does
+	 * not block the calling thread. The validation stops after the first invalid
+	 * result and the validation listeners are notified about the result.
+	 *
+	 * @param t
+	 *            the object to be validated
+	 * @param executor
+	 *            the executor that performs blocking retrievals
+	 * @return the future validation result
+	 */
+	@Override
+	public CompletionStage<ValidationResult> validateAsync(T t, Executor executor) {
+		Assertions.assertNotNull(executor, "executor must not be null.");
+		if (!SecurityMetrics.isEnabled()) {
+			return validateAsync(t, executor, 0, false);
+		}
+		long start = System.nanoTime();
+		return validateAsync(t, executor, 0, true).thenApply(result -> {
+			SecurityMetrics.recordValidation(getService(t), result.isValid(), start);
+			return result;
+		});
+	}
+
+	private CompletionStage<ValidationResult> validateAsync(T t, Executor executor, int index, boolean timed) {
+		if (index == validators.size()) {
+			return CompletableFuture.completedFuture(createValidationResult());
+		}
+		Validator<T> validator = validators.get(index);
+		long validatorStart = timed ? System.nanoTime() : 0;
+		return validator.validateAsync(t, executor).thenCompose(result -> {
+			if (timed) {
+				SecurityMetrics.recordValidator(validator, result.isValid(), validatorStart);
+			}
+			if (result.isErroneous()) {
+				debugLog(t, validator);
+				validationListeners.forEach(listener -> listener.onValidationError(result));
+				return CompletableFuture.completedFuture(result);
+			}
+			return validateAsync(t, executor, index + 1, timed);
+		});
+	}
+
+	/**
+	 * Validates a batch of objects, e.g. the tokens of received messages, in
+	 * parallel on the {@link ForkJoinPool#commonPool()}. See
+	 * {@link #validateAll(List, Executor)}.
+	 *
+	 * @param objects
+	 *            the objects to be validated
+	 * @return the validation results in the order of the objects
+	 */
+	public List<ValidationResult> validateAll(List<T> objects) {
+		return validateAll(objects, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Validates a batch of objects, e.g. the tokens of received messages, in
+	 * parallel on the given executor. Each object is validated as with
+	 * {@link #validate(Object)}, including the notification of the validation
+	 * listeners. Concurrent validations of tokens that refer to the same token
+	 * keys share a single retrieval of the keys.<br>
+	 * In case a validator fails with an exception, the result of the object is
+	 * invalid, while the other objects are still validated.
+	 *
+	 * @param objects
+	 *            the objects to be validated
+	 * @param executor
+	 *            the executor that runs the validations
+	 * @return the validation results in the order of the objects
+	 */
+	public List<ValidationResult> validateAll(List<T> objects, Executor executor) {
+		Assertions.assertNotNull(objects, "objects must not be null.");
+		Assertions.assertNotNull(executor, "executor must not be null.");
+		List<CompletableFuture<ValidationResult>> validations = new ArrayList<>(objects.size());
+		for (T t : objects) {
+			validations.add(CompletableFuture.supplyAsync(() -> validate(t), executor));
+		}
+		List<ValidationResult> results = new ArrayList<>(objects.size());
+		for (CompletableFuture<ValidationResult> validation : validations) {
+			results.add(getResult(validation));
+		}
+		return results;
+	}
+
+	private static ValidationResult getResult(CompletableFuture<ValidationResult> validation) {
+		try {
+			return validation.join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause() != null ? e.getCause() : e;
+			LOGGER.debug("Validation of batch element failed", cause);
+			return ValidationResults.createInvalid("Error occurred during validation: {}", cause.getMessage());
+		}
+	}
+
 	public List<Validator<T>> getValidators() {
 		return validators;
 	}
@@ -92,7 +238,7 @@ public class CombiningValidator<T> implements Validator<T> {
 		}
 	}
 
-	private ValidationResult createValidationResult() {
+	protected ValidationResult createValidationResult() {
 		if (validators.isEmpty()) {
 			ValidationResult result = ValidationResults
 					.createInvalid("CombiningValidator must contain at least one validator!");
@@ -5,6 +5,10 @@
  */
 package com.sap.cloud.security.token.validation;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
 /**
  * Generic validator interface over type {@link T}.
  * 
@@ -21,4 +25,26 @@ public interface Validator<T> {
 	 * @return the validation result as {@link ValidationResult}.
 	 */
 	ValidationResult validate(T t);
+
+	/**
+	 * Validates the given object asynchronously. Validators that need to retrieve
+	 * data from a remote service, e.g. the token keys of the identity service, do
+	 * so on the given executor instead of the calling thread. By default the
+	 * object is validated right away with {@link #validate(Object)}.
+	 *
+	 * @param t
+	 *            the object of type {@link T} to be validated.
+	 * @param executor
+	 *            the executor that performs blocking retrievals.
+	 * @return the future validation result.
+	 */
+	default CompletionStage<ValidationResult> validateAsync(T t, Executor executor) {
+		CompletableFuture<ValidationResult> result = new CompletableFuture<>();
+		try {
+			result.complete(validate(t));
+		} catch (RuntimeException e) {
+			result.completeExceptionally(e);
+		}
+		return result;
+	}
 }
@@ -0,0 +1,186 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.token.validation.validators;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.sap.cloud.security.config.CacheConfiguration;
+import com.sap.cloud.security.token.Token;
+import com.sap.cloud.security.token.validation.CombiningValidator;
+import com.sap.cloud.security.token.validation.ValidationResult;
+import com.sap.cloud.security.token.validation.Validator;
+import com.sap.cloud.security.xsuaa.Assertions;
+import com.sap.cloud.security.xsuaa.metrics.SecurityMetrics;
+import com.sap.cloud.security.xsuaa.tokenflows.Cacheable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link CombiningValidator} that remembers the tokens that were successfully
+ * validated, so that a token which is presented again does not run through the
+ * whole validation chain, including the signature check, another time.<br>
+ *
+ * Cache entries are keyed by the SHA-256 digest of the encoded token. They
+ * expire at the expiration time ({@code exp}) of the token or, if this is
+ * earlier, after the configured cache duration. Invalid tokens are never
+ * cached.
+ */
+class CachingCombiningValidator extends CombiningValidator<Token> implements Cacheable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(CachingCombiningValidator.class);
+
+	private final CacheConfiguration cacheConfiguration;
+	private final Cache<String, Instant> cache;
+
+	CachingCombiningValidator(List<Validator<Token>> validators, CacheConfiguration cacheConfiguration) {
+		this(validators, cacheConfiguration, Ticker.systemTicker());
+	}
+
+	/**
+	 * For testing only!
+	 */
+	CachingCombiningValidator(List<Validator<Token>> validators, CacheConfiguration cacheConfiguration,
+			Ticker cacheTicker) {
+		super(validators);
+		Assertions.assertNotNull(cacheConfiguration, "CacheConfiguration must not be null!");
+		this.cacheConfiguration = cacheConfiguration;
+		Caffeine<String, Instant> cacheBuilder = Caffeine.newBuilder()
+				.ticker(cacheTicker)
+				.maximumSize(cacheConfiguration.getCacheSize())
+				.expireAfter(new UntilTokenExpires(cacheConfiguration.getCacheDuration()));
+		if (cacheConfiguration.isCacheStatisticsEnabled()) {
+			cacheBuilder.recordStats();
+		}
+		this.cache = cacheBuilder.build();
+		SecurityMetrics.registerCache(SecurityMetrics.CACHE_VALIDATION_RESULTS, cache);
+		LOGGER.debug("Configured validation result cache with cacheDuration={} seconds and cacheSize={}",
+				cacheConfiguration.getCacheDuration().getSeconds(), cacheConfiguration.getCacheSize());
+	}
+
+	@Override
+	public ValidationResult validate(Token token) {
+		if (token == null || cacheConfiguration.isCacheDisabled()) {
+			return super.validate(token);
+		}
+		long start = SecurityMetrics.isEnabled() ? System.nanoTime() : 0;
+		String cacheKey = getCacheKey(token);
+		if (isCached(cacheKey, token, start)) {
+			return createValidationResult();
+		}
+		ValidationResult validationResult = super.validate(token);
+		cacheIfValid(cacheKey, token, validationResult);
+		return validationResult;
+	}
+
+	@Override
+	public CompletionStage<ValidationResult> validateAsync(Token token, Executor executor) {
+		if (token == null || cacheConfiguration.isCacheDisabled()) {
+			return super.validateAsync(token, executor);
+		}
+		long start = SecurityMetrics.isEnabled() ? System.nanoTime() : 0;
+		String cacheKey = getCacheKey(token);
+		if (isCached(cacheKey, token, start)) {
+			return CompletableFuture.completedFuture(createValidationResult());
+		}
+		return super.validateAsync(token, executor).thenApply(validationResult -> {
+			cacheIfValid(cacheKey, token, validationResult);
+			return validationResult;
+		});
+	}
+
+	private boolean isCached(String cacheKey, Token token, long start) {
+		boolean cached = cache.getIfPresent(cacheKey) != null;
+		SecurityMetrics.recordCacheAccess(SecurityMetrics.CACHE_VALIDATION_RESULTS, cached);
+		if (cached) {
+			LOGGER.debug("Token was already validated successfully, skip validation.");
+			SecurityMetrics.recordValidation(token.getService(), true, start);
+		}
+		return cached;
+	}
+
+	private void cacheIfValid(String cacheKey, Token token, ValidationResult validationResult) {
+		Instant expiration = token.getExpiration();
+		if (validationResult.isValid() && expiration != null) {
+			cache.put(cacheKey, expiration);
+		}
+	}
+
+	@Nonnull
+	@Override
+	public CacheConfiguration getCacheConfiguration() {
+		return cacheConfiguration;
+	}
+
+	@Override
+	public void clearCache() {
+		cache.invalidateAll();
+	}
+
+	@Nullable
+	@Override
+	public Object getCacheStatistics() {
+		return cacheConfiguration.isCacheStatisticsEnabled() ? cache.stats() : null;
+	}
+
+	private static String getCacheKey(Token token) {
+		try {
+			MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+			byte[] digest = messageDigest.digest(token.getTokenValue().getBytes(US_ASCII));
+			return Base64.getEncoder().encodeToString(digest);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not supported by this JVM.", e); // should never happen
+		}
+	}
+
+	/**
+	 * Lets an entry expire at the token expiration time ({@code exp}), but not
+	 * later than the configured cache duration after it was written.
+	 */
+	private static class UntilTokenExpires implements Expiry<String, Instant> {
+		private final Duration maxDuration;
+
+		UntilTokenExpires(Duration maxDuration) {
+			this.maxDuration = maxDuration;
+		}
+
+		@Override
+		public long expireAfterCreate(@Nonnull String key, @Nonnull Instant expiration, long currentTime) {
+			Duration untilExpiration = Duration.between(Instant.now(), expiration);
+			if (untilExpiration.isNegative()) {
+				return 0;
+			}
+			return untilExpiration.compareTo(maxDuration) < 0 ? untilExpiration.toNanos() : maxDuration.toNanos();
+		}
+
+		@Override
+		public long expireAfterUpdate(@Nonnull String key, @Nonnull Instant expiration, long currentTime,
+				long currentDuration) {
+			return expireAfterCreate(key, expiration, currentTime);
+		}
+
+		@Override
+		public long expireAfterRead(@Nonnull String key, @Nonnull Instant expiration, long currentTime,
+				long currentDuration) {
+			return currentDuration;
+		}
+	}
+}
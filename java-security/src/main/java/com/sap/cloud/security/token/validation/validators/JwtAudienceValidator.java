@@ -26,12 +26,21 @@ import java.util.*;
  *
  * Validates whether there is one audience that matches one of the configured
  * OAuth2 client ids.
+ *
+ * The configured client ids are indexed when they are configured, so that the
+ * audiences, the authorized party and the scopes of the token are matched
+ * in-place, without deriving the audiences into a new collection.
  */
 public class JwtAudienceValidator implements Validator<Token> {
 	private static final Logger logger = LoggerFactory.getLogger(JwtAudienceValidator.class);
 	private static final char DOT = '.';
+	private static final char BROKER_CLONE_SEPARATOR = '|';
+	private static final String[] NO_CLIENT_IDS = new String[0];
 
 	private final Set<String> trustedClientIds = new LinkedHashSet<>();
+	// index of trustedClientIds: all of them, and the ones of xsuaa brokers
+	private String[] clientIds = NO_CLIENT_IDS;
+	private String[] brokerClientIds = NO_CLIENT_IDS;
 
 	JwtAudienceValidator(String clientId) {
 		configureTrustedClientId(clientId);
@@ -40,6 +49,8 @@ public class JwtAudienceValidator implements Validator<Token> {
 	JwtAudienceValidator configureTrustedClientId(String clientId) {
 		assertHasText(clientId, "JwtAudienceValidator requires a clientId.");
 		trustedClientIds.add(clientId);
+		clientIds = trustedClientIds.toArray(NO_CLIENT_IDS);
+		brokerClientIds = trustedClientIds.stream().filter(id -> id.contains("!b")).toArray(String[]::new);
 		logger.info("configured JwtAudienceValidator with clientId {}.", clientId);
 
 		return this;
@@ -47,34 +58,87 @@ public class JwtAudienceValidator implements Validator<Token> {
 
 	@Override
 	public ValidationResult validate(Token token) {
-		Set<String> allowedAudiences = extractAudiencesFromToken(token);
-
-		if (validateDefault(allowedAudiences)
-				|| validateAudienceOfXsuaaBrokerClone(allowedAudiences)) {
+		if (matchesAnyAudience(token)) {
 			return ValidationResults.createValid();
 		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("The audiences that are derived from the token: {}.", extractAudiencesFromToken(token));
+		}
 		return ValidationResults.createInvalid(
 				"Jwt token with audience {} is not issued for these clientIds: {}.",
 				token.getAudiences(), trustedClientIds);
 	}
 
-	private boolean validateDefault(Set<String> allowedAudiences) {
-		for (String configuredClientId : trustedClientIds) {
-			if (allowedAudiences.contains(configuredClientId)) {
+	/**
+	 * Matches the audiences of the token, as derived by
+	 * {@link #extractAudiencesFromToken(Token)}, with the trusted client ids.
+	 */
+	private boolean matchesAnyAudience(Token token) {
+		boolean isXsuaa = Service.XSUAA.equals(token.getService());
+		if (isXsuaa && token.hasClaim(TokenClaims.AUTHORIZATION_PARTY)) {
+			String clientId = token.getClientId();
+			if (clientId != null && matches(clientId, 0, clientId.length())) {
 				return true;
 			}
 		}
+		Set<String> audiences = token.getAudiences();
+		for (String audience : audiences) {
+			int dot = audience.indexOf(DOT);
+			if (dot < 0) {
+				if (matches(audience, 0, audience.length())) {
+					return true;
+				}
+			} else if (matchesAppId(audience, dot)) {
+				// CF UAA derives the audiences from the scopes.
+				// In case the scopes contains namespaces, these needs to be removed.
+				return true;
+			}
+		}
+		if (isXsuaa && audiences.isEmpty()) {
+			// extract audience (app-id) from scopes
+			for (String scope : token.getClaimAsStringList(TokenClaims.XSUAA.SCOPES)) {
+				int dot = scope.indexOf(DOT);
+				if (dot >= 0 && matchesAppId(scope, dot)) {
+					return true;
+				}
+			}
+		}
 		return false;
 	}
 
-	private boolean validateAudienceOfXsuaaBrokerClone(Set<String> allowedAudiences) {
-		for (String configuredClientId : trustedClientIds) {
-			if (configuredClientId.contains("!b")) {
-				for (String audience : allowedAudiences) {
-					if (audience.endsWith("|" + configuredClientId)) {
-						return true;
-					}
-				}
+	/**
+	 * Matches the app id of a scope or audience, i.e. the trimmed part before the
+	 * first dot, see {@link #extractAppId(String)}.
+	 */
+	private boolean matchesAppId(String scopeOrAudience, int dot) {
+		int begin = 0;
+		int end = dot;
+		while (begin < end && scopeOrAudience.charAt(begin) <= ' ') {
+			begin++;
+		}
+		while (end > begin && scopeOrAudience.charAt(end - 1) <= ' ') {
+			end--;
+		}
+		return matches(scopeOrAudience, begin, end);
+	}
+
+	/**
+	 * Checks whether the given region of the audience equals one of the trusted
+	 * client ids, or whether it ends with {@code |<client id>} of a trusted xsuaa
+	 * broker.
+	 */
+	private boolean matches(String audience, int begin, int end) {
+		int length = end - begin;
+		for (String clientId : clientIds) {
+			if (clientId.length() == length && audience.regionMatches(begin, clientId, 0, length)) {
+				return true;
+			}
+		}
+		for (String brokerClientId : brokerClientIds) {
+			int offset = end - brokerClientId.length();
+			if (offset > begin && audience.charAt(offset - 1) == BROKER_CLONE_SEPARATOR
+					&& audience.regionMatches(offset, brokerClientId, 0, brokerClientId.length())) {
+				return true;
 			}
 		}
 		return false;
@@ -115,7 +179,6 @@ public class JwtAudienceValidator implements Validator<Token> {
 				}
 			}
 		}
-		logger.info("The audiences that are derived from the token: {}.", audiences);
 		return audiences;
 	}
 
@@ -12,7 +12,6 @@ import static com.sap.cloud.security.token.validation.validators.JsonWebKey.DEFA
 import static com.sap.cloud.security.token.validation.validators.JsonWebKeyConstants.*;
 import static com.sap.cloud.security.xsuaa.Assertions.assertHasText;
 import static com.sap.cloud.security.xsuaa.Assertions.assertNotNull;
-import static java.nio.charset.StandardCharsets.*;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -22,17 +21,22 @@ import java.security.NoSuchAlgorithmException;
 import java.security.PublicKey;
 import java.security.Signature;
 import java.security.spec.InvalidKeySpecException;
-import java.util.Base64;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 
 import com.sap.cloud.security.config.OAuth2ServiceConfiguration;
 import com.sap.cloud.security.config.Service;
+import com.sap.cloud.security.token.AbstractToken;
 import com.sap.cloud.security.token.Token;
 import com.sap.cloud.security.token.validation.ValidationResult;
 import com.sap.cloud.security.token.validation.Validator;
 
 import com.sap.cloud.security.xsuaa.client.DefaultOidcConfigurationService;
 import com.sap.cloud.security.xsuaa.client.OAuth2ServiceException;
+import com.sap.cloud.security.xsuaa.jwt.Base64JwtDecoder;
+import com.sap.cloud.security.xsuaa.jwt.DecodedJwt;
 
 /**
  * Validates whether the jwt was signed with the public key of the trust-worthy
@@ -41,7 +45,9 @@ import com.sap.cloud.security.xsuaa.client.OAuth2ServiceException;
  * - creates a PublicKey for the json web key with the respective id and type.
  * <br>
  * - checks whether the jwt is unchanged and signed with a private key that
- * matches the PublicKey.
+ * matches the PublicKey.<br>
+ * {@link #validateAsync(Token, Executor)} retrieves the oidc configuration and
+ * the json web token keys on the given executor, in case they are not cached.
  */
 class JwtSignatureValidator implements Validator<Token> {
 	private final OAuth2TokenKeyServiceWithCache tokenKeyService;
@@ -74,7 +80,7 @@ class JwtSignatureValidator implements Validator<Token> {
 				fallbackPublicKey = configuration.getProperty("verificationkey");
 			}
 			keyId = getOrDefaultKeyId(token);
-			return validate(token.getTokenValue(),
+			return validate(getDecodedJwt(token),
 					getOrDefaultSignatureAlgorithm(token),
 					keyId,
 					jwksUri,
@@ -85,6 +91,81 @@ class JwtSignatureValidator implements Validator<Token> {
 		}
 	}
 
+	/**
+	 * Validates the token asynchronously. The oidc configuration and the json web
+	 * token keys that are not cached yet are retrieved on the given executor,
+	 * afterwards the signature is validated with the cached key. Hence, the
+	 * calling thread is never blocked by a request to the identity service.
+	 */
+	@Override
+	public CompletionStage<ValidationResult> validateAsync(Token token, Executor executor) {
+		if (Service.IAS == configuration.getService() && token.getZoneId() == null) {
+			return CompletableFuture.completedFuture(validate(token));
+		}
+		URI discoveryEndpointUri = getDiscoveryEndpointUri(token);
+		if (discoveryEndpointUri == null) {
+			return validateAsyncWithJwksUri(token, executor);
+		}
+		return oidcConfigurationService.getOrRetrieveEndpointsAsync(discoveryEndpointUri, executor)
+				.handle((endpoints, e) -> getCause(e))
+				.thenCompose(e -> e == null ? validateAsyncWithJwksUri(token, executor)
+						: CompletableFuture.completedFuture(
+								createInvalid("Error occurred during jwks uri determination: {}", e.getMessage())));
+	}
+
+	/**
+	 * Retrieves the token keys asynchronously, once the jwks uri can be
+	 * determined without a request.
+	 */
+	private CompletableFuture<ValidationResult> validateAsyncWithJwksUri(Token token, Executor executor) {
+		CompletableFuture<PublicKey> publicKey;
+		try {
+			publicKey = tokenKeyService.getPublicKeyAsync(
+					JwtSignatureAlgorithm.fromValue(getOrDefaultSignatureAlgorithm(token)),
+					getOrDefaultKeyId(token),
+					URI.create(getOrRequestJwksUri(token)),
+					token.getZoneId(),
+					executor);
+		} catch (OAuth2ServiceException | IllegalArgumentException e) {
+			return CompletableFuture.completedFuture(
+					createInvalid("Error occurred during jwks uri determination: {}", e.getMessage()));
+		}
+		return publicKey.handle((key, e) -> e == null ? validate(token) : createRetrievalError(token, getCause(e)));
+	}
+
+	private ValidationResult createRetrievalError(Token token, Throwable cause) {
+		if (configuration.hasProperty("verificationkey")) {
+			try {
+				PublicKey fallbackPublicKey = JsonWebKeyImpl.createPublicKeyFromPemEncodedPublicKey(
+						JwtSignatureAlgorithm.RS256, configuration.getProperty("verificationkey"));
+				return validateSignature(getDecodedJwt(token), fallbackPublicKey, JwtSignatureAlgorithm.RS256);
+			} catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+				return createInvalid(
+						"Error occurred during signature validation: ({}). Fallback with configured 'verificationkey' was not successful.",
+						e.getMessage());
+			}
+		}
+		if (cause instanceof OAuth2ServiceException) {
+			return createInvalid("Error retrieving Json Web Keys from Identity Service: {}.", cause.getMessage());
+		}
+		return createInvalid("Error creating PublicKey from Json Web Key: {}.", cause.getMessage());
+	}
+
+	@Nullable
+	private static Throwable getCause(@Nullable Throwable throwable) {
+		if (throwable instanceof CompletionException && throwable.getCause() != null) {
+			return throwable.getCause();
+		}
+		return throwable;
+	}
+
+	private static DecodedJwt getDecodedJwt(Token token) {
+		if (token instanceof AbstractToken) {
+			return ((AbstractToken) token).getDecodedJwt();
+		}
+		return Base64JwtDecoder.getInstance().decode(token.getTokenValue());
+	}
+
 	@Nonnull
 	private String getOrDefaultKeyId(Token token) {
 		if (configuration.isLegacyMode()) {
@@ -118,11 +199,8 @@ class JwtSignatureValidator implements Validator<Token> {
 			// 'jku' was validated by XsuaaJkuValidator
 			return token.getHeaderParameterAsString(KEYS_URL_PARAMETER_NAME);
 		}
-		if (configuration.getService() != Service.XSUAA && token.hasClaim(ISSUER)) {
-			// 'iss' claim was validated by JwtIssuerValidator
-			// don't call in case of XSA Auth Code tokens as issuer is not valid there
-			// as XSUAA issuer contains often localhost this was not validated as well
-			URI discoveryUri = DefaultOidcConfigurationService.getDiscoveryEndpointUri(token.getClaimAsString(ISSUER));
+		URI discoveryUri = getDiscoveryEndpointUri(token);
+		if (discoveryUri != null) {
 			URI jkuUri = oidcConfigurationService
 					.getOrRetrieveEndpoints(discoveryUri)
 					.getJwksUri();
@@ -134,6 +212,17 @@ class JwtSignatureValidator implements Validator<Token> {
 				"Token signature can not be validated as jwks uri can not be determined: Token does not provide the required 'jku' header or 'issuer' claim.");
 	}
 
+	@Nullable
+	private URI getDiscoveryEndpointUri(Token token) {
+		if (!configuration.isLegacyMode() && configuration.getService() != Service.XSUAA && token.hasClaim(ISSUER)) {
+			// 'iss' claim was validated by JwtIssuerValidator
+			// don't call in case of XSA Auth Code tokens as issuer is not valid there
+			// as XSUAA issuer contains often localhost this was not validated as well
+			return DefaultOidcConfigurationService.getDiscoveryEndpointUri(token.getClaimAsString(ISSUER));
+		}
+		return null;
+	}
+
 	// for testing
 	ValidationResult validate(String token, String tokenAlgorithm, String tokenKeyId, String tokenKeysUrl,
 			@Nullable String fallbackPublicKey, @Nullable String zoneId) {
@@ -142,14 +231,33 @@ class JwtSignatureValidator implements Validator<Token> {
 		assertHasText(tokenKeyId, "tokenKeyId must not be null or empty.");
 		assertHasText(tokenKeysUrl, "tokenKeysUrl must not be null or empty.");
 
-		return Validation.getInstance().validate(tokenKeyService, token, tokenAlgorithm, tokenKeyId,
+		DecodedJwt decodedJwt;
+		try {
+			decodedJwt = Base64JwtDecoder.getInstance().decode(token);
+		} catch (IllegalArgumentException e) {
+			return createInvalid("Error occurred during Json Web Signature Validation: {}", e.getMessage());
+		}
+		return validate(decodedJwt, tokenAlgorithm, tokenKeyId, tokenKeysUrl, fallbackPublicKey, zoneId);
+	}
+
+	/**
+	 * Verifies the signature of the jwt with the given public key, without
+	 * retrieving any token keys.
+	 */
+	static ValidationResult validateSignature(DecodedJwt decodedJwt, PublicKey publicKey,
+			JwtSignatureAlgorithm jwtSignatureAlgorithm) {
+		return Validation.validateTokenSignature(decodedJwt, publicKey, jwtSignatureAlgorithm);
+	}
+
+	private ValidationResult validate(DecodedJwt decodedJwt, String tokenAlgorithm, String tokenKeyId,
+			String tokenKeysUrl, @Nullable String fallbackPublicKey, @Nullable String zoneId) {
+		return Validation.getInstance().validate(tokenKeyService, decodedJwt, tokenAlgorithm, tokenKeyId,
 				URI.create(tokenKeysUrl), fallbackPublicKey, zoneId);
 	}
 
 	private static class Validation {
 		JwtSignatureAlgorithm jwtSignatureAlgorithm;
 		PublicKey publicKey;
-		Signature publicSignature;
 
 		private Validation() {
 		}
@@ -158,7 +266,7 @@ class JwtSignatureValidator implements Validator<Token> {
 			return new Validation();
 		}
 
-		ValidationResult validate(OAuth2TokenKeyServiceWithCache tokenKeyService, String token,
+		ValidationResult validate(OAuth2TokenKeyServiceWithCache tokenKeyService, DecodedJwt decodedJwt,
 				String tokenAlgorithm, String tokenKeyId, URI tokenKeysUrl, @Nullable String fallbackPublicKey,
 				@Nullable String zoneId) {
 			ValidationResult validationResult;
@@ -183,12 +291,7 @@ class JwtSignatureValidator implements Validator<Token> {
 					return validationResult;
 				}
 			}
-			validationResult = setPublicSignatureForKeyType();
-			if (validationResult.isErroneous()) {
-				return validationResult;
-			}
-
-			return validateTokenSignature(token, publicKey, publicSignature);
+			return validateTokenSignature(decodedJwt, publicKey, jwtSignatureAlgorithm);
 		}
 
 		private ValidationResult setSupportedJwtAlgorithm(String tokenAlgorithm) {
@@ -220,38 +323,25 @@ class JwtSignatureValidator implements Validator<Token> {
 			return createValid();
 		}
 
-		private ValidationResult setPublicSignatureForKeyType() {
+		static ValidationResult validateTokenSignature(DecodedJwt decodedJwt, PublicKey publicKey,
+				JwtSignatureAlgorithm jwtSignatureAlgorithm) {
+			Signature publicSignature;
 			try {
-				publicSignature = Signature.getInstance(jwtSignatureAlgorithm.javaSignature());
-				return createValid();
+				publicSignature = SignatureVerifierPool.getVerifier(jwtSignatureAlgorithm, publicKey);
 			} catch (NoSuchAlgorithmException e) {
-				// should never happen
-			}
-			return createInvalid("Jwt token with signature algorithm '{}' can not be verified.",
-					jwtSignatureAlgorithm.javaSignature());
-		}
-
-		private static final Pattern DOT = Pattern.compile("\\.", 0);
-
-		static ValidationResult validateTokenSignature(String token, PublicKey publicKey, Signature publicSignature) {
-			String[] tokenHeaderPayloadSignature = DOT.split(token);
-			if (tokenHeaderPayloadSignature.length != 3) {
-				return createInvalid("Jwt token does not consist of 'header'.'payload'.'signature'.");
+				return createInvalid("Jwt token with signature algorithm '{}' can not be verified.",
+						jwtSignatureAlgorithm.javaSignature());
+			} catch (Exception e) {
+				return createInvalid("Error occurred during Json Web Signature Validation: {}.", e.getMessage());
 			}
-			String headerAndPayload = new StringBuilder(tokenHeaderPayloadSignature[0]).append(".")
-					.append(tokenHeaderPayloadSignature[1]).toString();
 			try {
-				publicSignature.initVerify(publicKey);
-				publicSignature.update(headerAndPayload.getBytes(UTF_8)); // provide data
-
-				byte[] decodedSignatureBytes = Base64.getUrlDecoder().decode(tokenHeaderPayloadSignature[2]);
-
-				if (publicSignature.verify(decodedSignatureBytes)) {
+				if (decodedJwt.verifySignature(publicSignature)) {
 					return createValid();
 				}
 				return createInvalid(
 						"Signature of Jwt Token is not valid: the identity provided by the JSON Web Token Key can not be verified.");
 			} catch (Exception e) {
+				SignatureVerifierPool.discardVerifier(jwtSignatureAlgorithm);
 				return createInvalid("Error occurred during Json Web Signature Validation: {}.", e.getMessage());
 			}
 		}
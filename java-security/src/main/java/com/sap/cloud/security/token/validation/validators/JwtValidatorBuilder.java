@@ -17,6 +17,8 @@ import com.sap.cloud.security.xsuaa.client.*;
 import org.apache.http.impl.client.CloseableHttpClient;
 
 import javax.annotation.Nullable;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
 
 import static com.sap.cloud.security.config.Service.IAS;
@@ -38,6 +40,15 @@ public class JwtValidatorBuilder {
 	private OAuth2TokenKeyService tokenKeyService = null;
 	private Validator<Token> customAudienceValidator;
 	private CacheConfiguration tokenKeyCacheConfiguration;
+	private CacheConfiguration validationResultCacheConfiguration;
+	private Duration tokenKeyRefreshAheadTime;
+	private Duration staleIfErrorGracePeriod;
+	private Path tokenKeySnapshotDirectory;
+	private Duration tokenKeyNegativeCacheDuration;
+	private Duration tokenKeyRefreshMinimumInterval;
+	private int tokenKeyRefreshMaxBurst;
+	private Duration tokenKeyRefreshRefillInterval;
+	private int warmUpIterations;
 
 	private JwtValidatorBuilder() {
 		// use getInstance factory method
@@ -85,6 +96,147 @@ public class JwtValidatorBuilder {
 		return this;
 	}
 
+	/**
+	 * Enables the refresh-ahead mode of the token key cache. A json web key set
+	 * that is requested within the given time before it expires is reloaded in
+	 * the background, while the cached keys are still used. This avoids that a
+	 * request waits for the keys to be retrieved from the identity service. By
+	 * default the keys are retrieved synchronously after they expired.
+	 *
+	 * @param refreshAheadTime
+	 *            time before expiration in which the keys get reloaded, must be
+	 *            shorter than the cache duration of the token key cache
+	 * @return this builder
+	 */
+	public JwtValidatorBuilder withTokenKeyRefreshAhead(Duration refreshAheadTime) {
+		this.tokenKeyRefreshAheadTime = refreshAheadTime;
+		return this;
+	}
+
+	/**
+	 * Enables snapshots of the token keys in a local directory. The json web key
+	 * sets retrieved by the validators are written to this directory. Validators
+	 * that are built later, e.g. after a restart of the application, preload
+	 * their token key cache from there, instead of requesting the keys from the
+	 * identity service. The snapshots expire as if they were retrieved by the
+	 * new validators.
+	 *
+	 * @param snapshotDirectory
+	 *            local directory of the snapshots
+	 * @return this builder
+	 */
+	public JwtValidatorBuilder withTokenKeySnapshotDirectory(Path snapshotDirectory) {
+		this.tokenKeySnapshotDirectory = snapshotDirectory;
+		return this;
+	}
+
+	/**
+	 * Overwrites how long the token key cache remembers a key id as unknown, after
+	 * the json web key set was retrieved again and did not contain it (default: 30
+	 * seconds). Tokens with this key id are rejected without a request to the
+	 * identity service meanwhile. Use {@link Duration#ZERO} to disable it.
+	 *
+	 * @param negativeCacheDuration
+	 *            time to remember unknown key ids, must not be negative
+	 * @return this builder
+	 */
+	public JwtValidatorBuilder withTokenKeyNegativeCacheDuration(Duration negativeCacheDuration) {
+		this.tokenKeyNegativeCacheDuration = negativeCacheDuration;
+		return this;
+	}
+
+	/**
+	 * Overwrites how often the token key cache retrieves the json web key set of
+	 * a jwks URI again, because a token refers to an unknown key id. Two such
+	 * retrievals are at least the minimum interval apart (default: 5 seconds), at
+	 * most {@code maxBurst} retrievals (default: 3) are performed in a row and one
+	 * more is allowed per refill interval (default: 60 seconds).
+	 *
+	 * @param minimumInterval
+	 *            minimum time between two retrievals, must not be negative
+	 * @param maxBurst
+	 *            maximum number of retrievals in a row, must be positive
+	 * @param refillInterval
+	 *            time after which one more retrieval is allowed, must be
+	 *            positive
+	 * @return this builder
+	 */
+	public JwtValidatorBuilder withTokenKeyRefreshRateLimit(Duration minimumInterval, int maxBurst,
+			Duration refillInterval) {
+		this.tokenKeyRefreshMinimumInterval = minimumInterval;
+		this.tokenKeyRefreshMaxBurst = maxBurst;
+		this.tokenKeyRefreshRefillInterval = refillInterval;
+		return this;
+	}
+
+	/**
+	 * Enables the stale-if-error mode of the token key cache and the cache of the
+	 * oidc configuration. The last json web key set and oidc configuration that
+	 * were retrieved successfully are still used for the given time after they
+	 * expired, as long as they can not be retrieved again, e.g. during an outage
+	 * of the identity service. Meanwhile they are retrieved again in the
+	 * background with an exponential backoff.
+	 *
+	 * @param gracePeriod
+	 *            time after expiration in which the last retrieved keys and oidc
+	 *            configuration are still used, must be positive
+	 * @return this builder
+	 */
+	public JwtValidatorBuilder withStaleIfError(Duration gracePeriod) {
+		Assertions.assertNotNull(gracePeriod, "gracePeriod must not be null");
+		if (gracePeriod.isZero() || gracePeriod.isNegative()) {
+			throw new IllegalArgumentException("The stale-if-error grace period must be positive.");
+		}
+		this.staleIfErrorGracePeriod = gracePeriod;
+		return this;
+	}
+
+	/**
+	 * Enables the warm-up of the validators when they are built. Instead of the
+	 * first token, {@link #build()} pays for the retrieval of the token keys of
+	 * the tenant of the XSUAA service binding, respectively of the oidc
+	 * configuration of the IAS service binding, which also opens the connections
+	 * of the http client to it. Tokens of other tenants or zones still retrieve
+	 * their token keys with the first request. Afterwards, a
+	 * synthetic token that is signed with a generated key is parsed and validated
+	 * for the given number of iterations, which initializes the signature
+	 * provider and gives the JIT compiler the chance to compile the validation
+	 * path. Validation listeners are not notified about the synthetic token.
+	 * Failures during the warm-up are logged only. By default the validators are
+	 * not warmed up.
+	 *
+	 * @param iterations
+	 *            how often the synthetic token is validated, 0 disables the
+	 *            warm-up
+	 * @return this builder
+	 */
+	public JwtValidatorBuilder withWarmUp(int iterations) {
+		if (iterations < 0) {
+			throw new IllegalArgumentException("The number of warm-up iterations must not be negative.");
+		}
+		this.warmUpIterations = iterations;
+		return this;
+	}
+
+	/**
+	 * Enables a cache of successfully validated tokens. A token that is found in
+	 * the cache is not validated again until it expires. The cache duration of the
+	 * configuration limits how long a token is cached at most and the cache size
+	 * limits the number of cached tokens. By default no validation results are
+	 * cached.<br>
+	 * Cache statistics can be obtained via
+	 * {@link com.sap.cloud.security.xsuaa.tokenflows.Cacheable#getCacheStatistics()}
+	 * of the built validator.
+	 *
+	 * @param validationResultCacheConfiguration
+	 *            the cache configuration
+	 * @return this builder
+	 */
+	public JwtValidatorBuilder withValidationResultCache(CacheConfiguration validationResultCacheConfiguration) {
+		this.validationResultCacheConfiguration = validationResultCacheConfiguration;
+		return this;
+	}
+
 	/**
 	 * Sets / overwrites the default audience validator.
 	 *
@@ -181,7 +333,9 @@ public class JwtValidatorBuilder {
 		List<Validator<Token>> allValidators = createDefaultValidators();
 		allValidators.addAll(validators);
 
-		CombiningValidator<Token> combiningValidator = new CombiningValidator<>(allValidators);
+		CombiningValidator<Token> combiningValidator = validationResultCacheConfiguration != null
+				? new CachingCombiningValidator(allValidators, validationResultCacheConfiguration)
+				: new CombiningValidator<>(allValidators);
 		validationListeners.forEach(combiningValidator::registerValidationListener);
 		return combiningValidator;
 	}
@@ -201,10 +355,21 @@ public class JwtValidatorBuilder {
 		}
 		OAuth2TokenKeyServiceWithCache tokenKeyServiceWithCache = getTokenKeyServiceWithCache();
 		Optional.ofNullable(tokenKeyCacheConfiguration).ifPresent(tokenKeyServiceWithCache::withCacheConfiguration);
+		Optional.ofNullable(tokenKeyRefreshAheadTime).ifPresent(tokenKeyServiceWithCache::withRefreshAhead);
+		Optional.ofNullable(staleIfErrorGracePeriod).ifPresent(tokenKeyServiceWithCache::withStaleIfError);
+		Optional.ofNullable(tokenKeySnapshotDirectory).ifPresent(tokenKeyServiceWithCache::withSnapshotDirectory);
+		Optional.ofNullable(tokenKeyNegativeCacheDuration)
+				.ifPresent(tokenKeyServiceWithCache::withNegativeCacheDuration);
+		if (tokenKeyRefreshMinimumInterval != null || tokenKeyRefreshRefillInterval != null) {
+			tokenKeyServiceWithCache.withRefreshRateLimit(tokenKeyRefreshMinimumInterval, tokenKeyRefreshMaxBurst,
+					tokenKeyRefreshRefillInterval);
+		}
+		OidcConfigurationServiceWithCache oidcConfigurationServiceWithCache = getOidcConfigurationServiceWithCache();
+		Optional.ofNullable(staleIfErrorGracePeriod).ifPresent(oidcConfigurationServiceWithCache::withStaleIfError);
 		JwtSignatureValidator signatureValidator = new JwtSignatureValidator(
 				configuration,
 				tokenKeyServiceWithCache,
-				getOidcConfigurationServiceWithCache());
+				oidcConfigurationServiceWithCache);
 		defaultValidators.add(signatureValidator);
 
 		Optional.ofNullable(customAudienceValidator).ifPresent(defaultValidators::add);
@@ -212,6 +377,12 @@ public class JwtValidatorBuilder {
 			defaultValidators.add(createAudienceValidator());
 		}
 
+		if (warmUpIterations > 0) {
+			List<Validator<Token>> warmUpValidators = new ArrayList<>(defaultValidators);
+			warmUpValidators.remove(signatureValidator); // the synthetic token is verified with the generated key
+			new JwtValidatorWarmUp(configuration, tokenKeyServiceWithCache, oidcConfigurationServiceWithCache,
+					warmUpValidators).run(warmUpIterations);
+		}
 		return defaultValidators;
 	}
 
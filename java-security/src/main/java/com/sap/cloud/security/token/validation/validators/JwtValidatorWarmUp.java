@@ -0,0 +1,178 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.token.validation.validators;
+
+import static com.sap.cloud.security.token.TokenClaims.*;
+import static com.sap.cloud.security.token.validation.validators.JsonWebKeyConstants.*;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.sap.cloud.security.config.OAuth2ServiceConfiguration;
+import com.sap.cloud.security.config.Service;
+import com.sap.cloud.security.config.cf.CFConstants;
+import com.sap.cloud.security.token.AbstractToken;
+import com.sap.cloud.security.token.SapIdToken;
+import com.sap.cloud.security.token.Token;
+import com.sap.cloud.security.token.TokenClaims;
+import com.sap.cloud.security.token.XsuaaToken;
+import com.sap.cloud.security.token.validation.Validator;
+import com.sap.cloud.security.xsuaa.client.DefaultOidcConfigurationService;
+import com.sap.cloud.security.xsuaa.client.OAuth2ServiceException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Warms up a token validator before it validates the first token of a
+ * request:<br>
+ * - in case of XSUAA, retrieves the json web key set of the tenant of the
+ * service binding, i.e. of its url and identity zone id. Tokens of this tenant
+ * are validated with the prefetched keys, tokens of other tenants still
+ * retrieve the keys of their subdomain and zone with the first request.<br>
+ * - in case of IAS, retrieves the oidc configuration of the configured identity
+ * service, that is used by the tokens it issued. The json web key set is not
+ * retrieved, as it is cached per zone of the tokens.<br>
+ * - parses and validates a synthetic token, which is signed with a key pair
+ * generated for the warm-up, for the given number of iterations. This loads
+ * and initializes the classes, the signature provider and the verifier pool
+ * and gives the JIT compiler the chance to compile the validation path.<br>
+ *
+ * Failures are logged only, as a validator that was not warmed up still
+ * validates tokens correctly.
+ */
+class JwtValidatorWarmUp {
+	private static final Logger LOGGER = LoggerFactory.getLogger(JwtValidatorWarmUp.class);
+
+	private static final String WARM_UP_KEY_ID = "warm-up";
+	private static final String TOKEN_KEYS_PATH = "/token_keys";
+
+	private final OAuth2ServiceConfiguration configuration;
+	private final OAuth2TokenKeyServiceWithCache tokenKeyService;
+	private final OidcConfigurationServiceWithCache oidcConfigurationService;
+	private final List<Validator<Token>> validators;
+
+	/**
+	 * @param validators
+	 *            the validators that are applied to the synthetic token, they
+	 *            must not call the identity service
+	 */
+	JwtValidatorWarmUp(OAuth2ServiceConfiguration configuration, OAuth2TokenKeyServiceWithCache tokenKeyService,
+			OidcConfigurationServiceWithCache oidcConfigurationService, List<Validator<Token>> validators) {
+		this.configuration = configuration;
+		this.tokenKeyService = tokenKeyService;
+		this.oidcConfigurationService = oidcConfigurationService;
+		this.validators = validators;
+	}
+
+	/**
+	 * Runs the warm-up.
+	 *
+	 * @param iterations
+	 *            how often the synthetic token is parsed and validated
+	 * @return the number of iterations in which the signature of the synthetic
+	 *         token was verified successfully
+	 */
+	int run(int iterations) {
+		long start = System.nanoTime();
+		if (configuration.getService() == Service.IAS) {
+			retrieveOidcConfiguration();
+		} else {
+			retrieveTokenKeys();
+		}
+		int verifiedSignatures = 0;
+		try {
+			KeyPair keyPair = KeyPairGenerator.getInstance(JwtSignatureAlgorithm.RS256.type()).generateKeyPair();
+			String syntheticToken = createSyntheticToken(keyPair.getPrivate());
+			for (int i = 0; i < iterations; i++) {
+				Token token = configuration.getService() == Service.IAS ? new SapIdToken(syntheticToken)
+						: new XsuaaToken(syntheticToken);
+				validators.forEach(validator -> validator.validate(token));
+				if (JwtSignatureValidator.validateSignature(((AbstractToken) token).getDecodedJwt(),
+						keyPair.getPublic(), JwtSignatureAlgorithm.RS256).isValid()) {
+					verifiedSignatures++;
+				}
+			}
+		} catch (GeneralSecurityException | RuntimeException e) {
+			LOGGER.warn("Failed to validate the synthetic token during warm-up: {}", e.getMessage());
+		}
+		LOGGER.info("Warmed up token validation for {} with {} iteration(s) in {} ms", configuration.getUrl(),
+				iterations, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		return verifiedSignatures;
+	}
+
+	/**
+	 * Retrieves the token keys the same way as the signature validator does for
+	 * tokens of the tenant of the service binding: the jku of these tokens is
+	 * the token keys endpoint of the url and their zone is the identity zone.
+	 */
+	private void retrieveTokenKeys() {
+		if (configuration.getUrl() == null) {
+			LOGGER.debug("Token keys are not retrieved during warm-up as the url is not configured");
+			return;
+		}
+		try {
+			tokenKeyService.prefetchTokenKeys(URI.create(configuration.getUrl() + TOKEN_KEYS_PATH),
+					configuration.getProperty(CFConstants.XSUAA.IDENTITY_ZONE_ID));
+		} catch (OAuth2ServiceException | GeneralSecurityException | IllegalArgumentException e) {
+			LOGGER.warn("Failed to retrieve the token keys of {} during warm-up: {}", configuration.getUrl(),
+					e.getMessage());
+		}
+	}
+
+	private void retrieveOidcConfiguration() {
+		if (configuration.getUrl() == null) {
+			LOGGER.debug("Oidc configuration is not retrieved during warm-up as the url is not configured");
+			return;
+		}
+		try {
+			oidcConfigurationService.getOrRetrieveEndpoints(
+					DefaultOidcConfigurationService.getDiscoveryEndpointUri(configuration.getUrl().toString()));
+		} catch (OAuth2ServiceException | IllegalArgumentException e) {
+			LOGGER.warn("Failed to retrieve the oidc configuration of {} during warm-up: {}",
+					configuration.getUrl(), e.getMessage());
+		}
+	}
+
+	private String createSyntheticToken(PrivateKey privateKey) throws GeneralSecurityException {
+		JSONObject header = new JSONObject()
+				.put(ALGORITHM_PARAMETER_NAME, JwtSignatureAlgorithm.RS256.value())
+				.put(KEY_ID_PARAMETER_NAME, WARM_UP_KEY_ID);
+		if (configuration.getService() == Service.XSUAA && configuration.getUrl() != null) {
+			header.put(KEYS_URL_PARAMETER_NAME, configuration.getUrl() + TOKEN_KEYS_PATH);
+		}
+		long now = Instant.now().getEpochSecond();
+		JSONObject payload = new JSONObject()
+				.put(ISSUER, configuration.getUrl() != null ? configuration.getUrl().toString() : WARM_UP_KEY_ID)
+				.put(AUDIENCE, Collections.singletonList(configuration.getClientId()))
+				.put(AUTHORIZATION_PARTY, configuration.getClientId())
+				.put(TokenClaims.XSUAA.CLIENT_ID, configuration.getClientId())
+				.put(SAP_GLOBAL_ZONE_ID, WARM_UP_KEY_ID)
+				.put(TokenClaims.XSUAA.ISSUED_AT, now)
+				.put(EXPIRATION, now + TimeUnit.MINUTES.toSeconds(5));
+
+		String headerAndPayload = encode(header.toString().getBytes(StandardCharsets.UTF_8)) + "."
+				+ encode(payload.toString().getBytes(StandardCharsets.UTF_8));
+		Signature signature = Signature.getInstance(JwtSignatureAlgorithm.RS256.javaSignature());
+		signature.initSign(privateKey);
+		signature.update(headerAndPayload.getBytes(StandardCharsets.UTF_8));
+		return headerAndPayload + "." + encode(signature.sign());
+	}
+
+	private static String encode(byte[] bytes) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+	}
+}
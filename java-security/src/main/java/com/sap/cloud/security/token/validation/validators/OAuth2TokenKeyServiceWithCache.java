@@ -15,32 +15,101 @@ import java.net.URI;
 import java.security.NoSuchAlgorithmException;
 import java.security.PublicKey;
 import java.security.spec.InvalidKeySpecException;
+import java.nio.file.Path;
+import java.time.Clock;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.sap.cloud.security.config.CacheConfiguration;
+import com.sap.cloud.security.token.validation.validators.TokenKeySnapshotStore.Snapshot;
 import com.sap.cloud.security.xsuaa.Assertions;
 import com.github.benmanes.caffeine.cache.Ticker;
+import com.sap.cloud.security.xsuaa.client.CacheableResponse;
 import com.sap.cloud.security.xsuaa.client.DefaultOAuth2TokenKeyService;
 import com.sap.cloud.security.xsuaa.client.OAuth2ServiceException;
 import com.sap.cloud.security.xsuaa.client.OAuth2TokenKeyService;
+import com.sap.cloud.security.xsuaa.metrics.SecurityMetrics;
 import com.sap.cloud.security.xsuaa.tokenflows.Cacheable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Decorates {@link OAuth2TokenKeyService} with a cache, which gets looked up
- * before the identity service is requested via http.
+ * before the identity service is requested via http.<br>
+ *
+ * The cache holds the complete key set per jwks URI and zone. A key set that
+ * is retrieved again replaces the previous one as a whole, hence concurrent
+ * lookups never see a mix of old and new keys. Concurrent lookups that require
+ * the key set of the same jwks URI and zone to be retrieved, e.g. after startup
+ * or a key rotation, share a single request to the identity service. With
+ * {@link #withRefreshAhead(Duration)} a key set is reloaded in the background
+ * shortly before it expires, while the current keys are still served.<br>
+ *
+ * A key id that is still unknown after the key set was retrieved again is
+ * remembered for a short time, see {@link #withNegativeCacheDuration(Duration)}.
+ * Further retrievals because of unknown key ids are rate-limited per jwks URI,
+ * see {@link #withRefreshRateLimit(Duration, int, Duration)}. Hence, tokens with
+ * arbitrary key ids do not cause a request to the identity service each.<br>
+ *
+ * A key set is cached for the max-age of the {@code Cache-Control} header of
+ * the response, within the minimum of 600 seconds and the configured cache
+ * duration. When the {@link DefaultOAuth2TokenKeyService} is used, a key set is
+ * retrieved again with a conditional request, hence an unchanged key set is
+ * neither transferred nor parsed again.<br>
+ *
+ * With {@link #withSnapshotDirectory(Path)} the key sets are written to a local
+ * directory and preloaded from there after a restart.<br>
+ *
+ * With {@link #withStaleIfError(Duration)} an expired key set is still used
+ * for a grace period, while it can not be retrieved again.<br>
+ *
+ * {@link #getPublicKeyAsync(JwtSignatureAlgorithm, String, URI, String, Executor)}
+ * returns a cached key right away and retrieves missing keys on the given
+ * executor, so that the calling thread is not blocked.
  */
 class OAuth2TokenKeyServiceWithCache implements Cacheable {
 	private static final Logger LOGGER = LoggerFactory.getLogger(OAuth2TokenKeyServiceWithCache.class);
 
+	private static final Duration MIN_CACHE_DURATION = Duration.ofSeconds(600);
+
 	private OAuth2TokenKeyService tokenKeyService; // access via getter
-	private Cache<String, PublicKey> cache; // access via getter
+	private volatile LoadingCache<KeySetId, KeySet> cache; // access via getter
+	private Cache<KeySetId, KeySet> retrievedKeySets; // access via getter, validators for conditional requests
 	private CacheConfiguration cacheConfiguration = TokenKeyCacheConfiguration.defaultConfiguration();
+	private Duration refreshAheadTime;
 	private Ticker cacheTicker;
+	private Executor refreshExecutor;
+	private Clock clock;
+	private TokenKeySnapshotStore snapshotStore;
+	private Map<KeySetId, KeySet> snapshotKeySets; // read from the snapshot store, until the cache is created
+	private final Map<KeySetId, CompletableFuture<Map<Integer, PublicKey>>> inFlightRetrievals //
+			= new ConcurrentHashMap<>();
+	private final Set<KeySetId> inFlightRefreshes = ConcurrentHashMap.newKeySet();
+	private Duration negativeCacheDuration = Duration.ofSeconds(30);
+	private Cache<UnknownKeyId, Boolean> unknownKeyIds; // access via getter
+	private Duration refreshMinimumInterval = Duration.ofSeconds(5);
+	private int refreshMaxBurst = 3;
+	private Duration refreshRefillInterval = Duration.ofMinutes(1);
+	private RefreshRateLimiter refreshRateLimiter; // access via getter
+	private Duration staleIfErrorGracePeriod;
+	private StaleIfErrorCache<KeySetId, Map<Integer, PublicKey>> staleKeys; // access via getter
 
 	private OAuth2TokenKeyServiceWithCache() {
 		// use getInstance factory method
@@ -52,9 +121,7 @@ class OAuth2TokenKeyServiceWithCache implements Cacheable {
 	 * @return the new instance.
 	 */
 	public static OAuth2TokenKeyServiceWithCache getInstance() {
-		OAuth2TokenKeyServiceWithCache instance = new OAuth2TokenKeyServiceWithCache();
-		instance.cacheTicker = Ticker.systemTicker();
-		return instance;
+		return getInstance(Ticker.systemTicker(), ForkJoinPool.commonPool());
 	}
 
 	/**
@@ -66,8 +133,43 @@ class OAuth2TokenKeyServiceWithCache implements Cacheable {
 	 * @return the new instance.
 	 */
 	static OAuth2TokenKeyServiceWithCache getInstance(Ticker cacheTicker) {
+		return getInstance(cacheTicker, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a new instance and sets the cache ticker and the executor for
+	 * background refreshes. This is used for testing.
+	 *
+	 * @param cacheTicker
+	 *            ticker the cache uses to determine time
+	 * @param refreshExecutor
+	 *            executor that reloads the key sets in refresh-ahead mode
+	 *
+	 * @return the new instance.
+	 */
+	static OAuth2TokenKeyServiceWithCache getInstance(Ticker cacheTicker, Executor refreshExecutor) {
+		return getInstance(cacheTicker, refreshExecutor, Clock.systemUTC());
+	}
+
+	/**
+	 * Creates a new instance and sets the cache ticker, the executor for
+	 * background refreshes and the clock that determines the age of key set
+	 * snapshots. This is used for testing.
+	 *
+	 * @param cacheTicker
+	 *            ticker the cache uses to determine time
+	 * @param refreshExecutor
+	 *            executor that reloads the key sets in refresh-ahead mode
+	 * @param clock
+	 *            clock that determines when a key set was retrieved
+	 *
+	 * @return the new instance.
+	 */
+	static OAuth2TokenKeyServiceWithCache getInstance(Ticker cacheTicker, Executor refreshExecutor, Clock clock) {
 		OAuth2TokenKeyServiceWithCache instance = new OAuth2TokenKeyServiceWithCache();
 		instance.cacheTicker = cacheTicker;
+		instance.refreshExecutor = refreshExecutor;
+		instance.clock = clock;
 		return instance;
 	}
 
@@ -122,6 +224,136 @@ class OAuth2TokenKeyServiceWithCache implements Cacheable {
 		return this;
 	}
 
+	/**
+	 * Enables the refresh-ahead mode. A key set that is requested within the
+	 * given time before it expires is reloaded in the background. Until the
+	 * reload completed, the current keys are served. If the reload fails, the
+	 * current keys are kept until they expire.
+	 *
+	 * The expiration is the one of the key set itself, i.e. it takes the max-age
+	 * of the response into account. A key set with a time to live that is not
+	 * longer than twice the refresh-ahead time is reloaded after half of its
+	 * time to live.
+	 *
+	 * Note that the refresh-ahead time must be shorter than the cache duration,
+	 * otherwise it is ignored.
+	 *
+	 * @param refreshAheadTime
+	 *            time before expiration of a key set in which it gets reloaded
+	 * @return this tokenKeyServiceWithCache
+	 */
+	public OAuth2TokenKeyServiceWithCache withRefreshAhead(Duration refreshAheadTime) {
+		Assertions.assertNotNull(refreshAheadTime, "refreshAheadTime must not be null!");
+		Duration cacheDuration = getCacheConfiguration().getCacheDuration();
+		if (refreshAheadTime.isZero() || refreshAheadTime.isNegative()
+				|| refreshAheadTime.compareTo(cacheDuration) >= 0) {
+			LOGGER.error("Tried to set refresh-ahead time to {} seconds but it must be positive and shorter than"
+					+ " the cache duration of {} seconds. Refresh-ahead is not enabled.",
+					refreshAheadTime.getSeconds(), cacheDuration.getSeconds());
+			return this;
+		}
+		this.refreshAheadTime = refreshAheadTime;
+		LOGGER.debug("Enabled refresh-ahead of token keys {} seconds before they expire",
+				refreshAheadTime.getSeconds());
+		return this;
+	}
+
+	/**
+	 * Enables the stale-if-error mode. A key set that expired is still used for
+	 * the given grace period, in case it can not be retrieved again, e.g. because
+	 * the identity service is not reachable. Meanwhile, the key set is retrieved
+	 * in the background with an exponential backoff. Lookups do not wait for the
+	 * identity service until one of the retries succeeded.
+	 *
+	 * @param gracePeriod
+	 *            time after expiration of a key set in which it is still used, if
+	 *            it can not be retrieved, must be positive
+	 * @return this tokenKeyServiceWithCache
+	 */
+	public OAuth2TokenKeyServiceWithCache withStaleIfError(Duration gracePeriod) {
+		Assertions.assertNotNull(gracePeriod, "gracePeriod must not be null!");
+		if (gracePeriod.isZero() || gracePeriod.isNegative()) {
+			throw new IllegalArgumentException("The stale-if-error grace period must be positive.");
+		}
+		this.staleIfErrorGracePeriod = gracePeriod;
+		LOGGER.debug("Enabled stale-if-error for token keys with a grace period of {} seconds",
+				gracePeriod.getSeconds());
+		return this;
+	}
+
+	/**
+	 * Enables snapshots of the token keys in the given local directory. The last
+	 * retrieved json web key set per jwks URI and zone is written to a file in
+	 * the background. The snapshots are read right away, e.g. after a restart,
+	 * and the cache is created with them, before it is used by the first lookup.
+	 * They expire as if they were retrieved by this instance and are refreshed
+	 * in refresh-ahead mode like any other key set. Snapshots that are older
+	 * than the cache duration are only used for conditional requests.
+	 *
+	 * @param snapshotDirectory
+	 *            local directory of the snapshots, is created if it does not exist
+	 * @return this tokenKeyServiceWithCache
+	 */
+	public OAuth2TokenKeyServiceWithCache withSnapshotDirectory(Path snapshotDirectory) {
+		this.snapshotStore = new TokenKeySnapshotStore(snapshotDirectory);
+		this.snapshotKeySets = readSnapshots();
+		return this;
+	}
+
+	/**
+	 * Overwrites how long a key id is remembered as unknown, after the key set was
+	 * retrieved again and did not contain it (default: 30 seconds). Within this
+	 * time, lookups of the key id are answered without a request to the identity
+	 * service. Use {@link Duration#ZERO} to disable the negative cache.
+	 *
+	 * @param negativeCacheDuration
+	 *            time to remember unknown key ids
+	 * @return this tokenKeyServiceWithCache
+	 */
+	public OAuth2TokenKeyServiceWithCache withNegativeCacheDuration(Duration negativeCacheDuration) {
+		Assertions.assertNotNull(negativeCacheDuration, "negativeCacheDuration must not be null!");
+		if (negativeCacheDuration.isNegative()) {
+			LOGGER.error("Tried to set negative cache duration to {} seconds but it must not be negative."
+					+ " Negative cache duration will remain at: {} seconds",
+					negativeCacheDuration.getSeconds(), this.negativeCacheDuration.getSeconds());
+			return this;
+		}
+		this.negativeCacheDuration = negativeCacheDuration;
+		return this;
+	}
+
+	/**
+	 * Overwrites how often the key set of a jwks URI is retrieved again, because a
+	 * token refers to an unknown key id. Two such retrievals are at least the
+	 * minimum interval apart (default: 5 seconds). Additionally, at most
+	 * {@code maxBurst} retrievals (default: 3) are performed in a row, and one more
+	 * is allowed per refill interval (default: 60 seconds).
+	 *
+	 * @param minimumInterval
+	 *            minimum time between two retrievals, must not be negative
+	 * @param maxBurst
+	 *            maximum number of retrievals in a row, must be positive
+	 * @param refillInterval
+	 *            time after which one more retrieval is allowed, must be
+	 *            positive
+	 * @return this tokenKeyServiceWithCache
+	 */
+	public OAuth2TokenKeyServiceWithCache withRefreshRateLimit(Duration minimumInterval, int maxBurst,
+			Duration refillInterval) {
+		Assertions.assertNotNull(minimumInterval, "minimumInterval must not be null!");
+		Assertions.assertNotNull(refillInterval, "refillInterval must not be null!");
+		if (minimumInterval.isNegative() || maxBurst < 1 || refillInterval.isZero() || refillInterval.isNegative()) {
+			LOGGER.error("Tried to set refresh rate limit to minimumInterval={} seconds, maxBurst={} and"
+					+ " refillInterval={} seconds but the values must be positive. Rate limit remains unchanged.",
+					minimumInterval.getSeconds(), maxBurst, refillInterval.getSeconds());
+			return this;
+		}
+		this.refreshMinimumInterval = minimumInterval;
+		this.refreshMaxBurst = maxBurst;
+		this.refreshRefillInterval = refillInterval;
+		return this;
+	}
+
 	/**
 	 * Overwrites the service to be used to request the Json web keys.
 	 *
@@ -193,13 +425,96 @@ class OAuth2TokenKeyServiceWithCache implements Cacheable {
 		assertHasText(keyId, "keyId must not be null.");
 		assertNotNull(keyUri, "keyUrl must not be null.");
 
-		String cacheKey = getUniqueCacheKey(keyAlgorithm, keyId, keyUri, zoneId);
+		KeySetId keySetId = new KeySetId(keyUri, zoneId);
+		int uniqueKeyId = JsonWebKeyImpl.calculateUniqueId(keyAlgorithm, keyId);
+
+		KeySet keySet = getCache().getIfPresent(keySetId);
+		SecurityMetrics.recordCacheAccess(SecurityMetrics.CACHE_TOKEN_KEYS,
+				keySet != null && keySet.keys.containsKey(uniqueKeyId));
+		Map<Integer, PublicKey> keys;
+		if (keySet == null) {
+			keys = loadOrGetStaleTokenKeys(keySetId);
+		} else if (!keySet.keys.containsKey(uniqueKeyId)) {
+			keys = reloadTokenKeys(keySetId, keySet, uniqueKeyId); // key might have been rotated
+		} else {
+			keys = keySet.keys;
+			refreshAheadIfDue(keySetId, keySet);
+		}
+		return keys == null ? null : keys.get(uniqueKeyId);
+	}
+
+	/**
+	 * Returns the cached key by id and type or requests the keys from the jwks URI
+	 * of the identity service asynchronously. A cached key is returned as a
+	 * completed future, otherwise the keys are retrieved on the given executor,
+	 * as with {@link #getPublicKey(JwtSignatureAlgorithm, String, URI, String)}.
+	 * Hence, the calling thread is never blocked by a request to the identity
+	 * service.
+	 *
+	 * @param keyAlgorithm
+	 *            the Key Algorithm of the Access Token.
+	 * @param keyId
+	 *            the Key Id of the Access Token.
+	 * @param keyUri
+	 *            the Token Key Uri (jwks) of the Access Token (can be tenant
+	 *            specific).
+	 * @param zoneId
+	 *            the Zone Id of the tenant
+	 * @param executor
+	 *            the executor that retrieves the keys on a cache miss
+	 * @return the future PublicKey, which completes with null if there is no key
+	 *         with the id and type, or exceptionally with the
+	 *         {@link OAuth2ServiceException}, {@link InvalidKeySpecException} or
+	 *         {@link NoSuchAlgorithmException} of the retrieval.
+	 */
+	public CompletableFuture<PublicKey> getPublicKeyAsync(JwtSignatureAlgorithm keyAlgorithm, String keyId,
+			URI keyUri, @Nullable String zoneId, Executor executor) {
+		assertNotNull(keyAlgorithm, "keyAlgorithm must not be null.");
+		assertHasText(keyId, "keyId must not be null.");
+		assertNotNull(keyUri, "keyUrl must not be null.");
+		assertNotNull(executor, "executor must not be null.");
 
-		PublicKey publicKey = getCache().getIfPresent(cacheKey);
-		if (publicKey == null) {
-			retrieveTokenKeysAndFillCache(keyUri, zoneId);
+		KeySetId keySetId = new KeySetId(keyUri, zoneId);
+		KeySet keySet = getCache().getIfPresent(keySetId);
+		PublicKey publicKey = keySet == null ? null
+				: keySet.keys.get(JsonWebKeyImpl.calculateUniqueId(keyAlgorithm, keyId));
+		if (publicKey != null) {
+			SecurityMetrics.recordCacheAccess(SecurityMetrics.CACHE_TOKEN_KEYS, true);
+			refreshAheadIfDue(keySetId, keySet);
+			return CompletableFuture.completedFuture(publicKey);
+		}
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return getPublicKey(keyAlgorithm, keyId, keyUri, zoneId);
+			} catch (OAuth2ServiceException | InvalidKeySpecException | NoSuchAlgorithmException e) {
+				throw new CompletionException(e);
+			}
+		}, executor);
+	}
+
+	/**
+	 * Loads the key set of the jwks URI into the cache, unless it is cached
+	 * already. Used to retrieve the keys before the first token is validated.
+	 *
+	 * @param keyUri
+	 *            the Token Key Uri (jwks)
+	 * @param zoneId
+	 *            the Zone Id of the tenant
+	 * @throws OAuth2ServiceException
+	 *             in case the call to the jwks endpoint of the identity service
+	 *             failed.
+	 * @throws InvalidKeySpecException
+	 *             in case the PublicKey generation for the json web key failed.
+	 * @throws NoSuchAlgorithmException
+	 *             in case the algorithm of the json web key is not supported.
+	 */
+	void prefetchTokenKeys(URI keyUri, @Nullable String zoneId)
+			throws OAuth2ServiceException, InvalidKeySpecException, NoSuchAlgorithmException {
+		assertNotNull(keyUri, "keyUrl must not be null.");
+		KeySetId keySetId = new KeySetId(keyUri, zoneId);
+		if (getCache().getIfPresent(keySetId) == null) {
+			loadOrGetStaleTokenKeys(keySetId);
 		}
-		return getCache().getIfPresent(cacheKey);
 	}
 
 	private TokenKeyCacheConfiguration getCheckedConfiguration(CacheConfiguration cacheConfiguration) {
@@ -212,7 +527,7 @@ class OAuth2TokenKeyServiceWithCache implements Cacheable {
 					+ " Cache size will remain at: {}", size, currentSize);
 			size = currentSize;
 		}
-		if (duration.getSeconds() < 600) {
+		if (duration.compareTo(MIN_CACHE_DURATION) < 0) {
 			Duration currentDuration = getCacheConfiguration().getCacheDuration();
 			LOGGER.error(
 					"Tried to set cache duration to {} seconds but the cache duration must be at least 600 seconds."
@@ -223,31 +538,360 @@ class OAuth2TokenKeyServiceWithCache implements Cacheable {
 		return TokenKeyCacheConfiguration.getInstance(duration, size, cacheConfiguration.isCacheStatisticsEnabled());
 	}
 
-	private void retrieveTokenKeysAndFillCache(URI jwksUri, String zoneId)
+	@Nullable
+	private Map<Integer, PublicKey> loadOrGetStaleTokenKeys(KeySetId keySetId)
 			throws OAuth2ServiceException, InvalidKeySpecException, NoSuchAlgorithmException {
-		JsonWebKeySet keySet = JsonWebKeySetFactory
-				.createFromJson(getTokenKeyService().retrieveTokenKeys(jwksUri, zoneId));
-		if (keySet == null) {
+		if (getStaleKeys() == null) {
+			return loadTokenKeys(keySetId);
+		}
+		Map<Integer, PublicKey> staleKeys = getStaleKeys().getWhileFailing(keySetId, () -> {
+			KeySet keySet = retrieveTokenKeys(keySetId);
+			if (keySet == null) {
+				return null;
+			}
+			getCache().put(keySetId, keySet);
+			return keySet.keys;
+		});
+		if (staleKeys != null) {
+			return staleKeys;
+		}
+		try {
+			return loadTokenKeys(keySetId);
+		} catch (OAuth2ServiceException e) {
+			staleKeys = getStaleKeys().getOnError(keySetId);
+			if (staleKeys == null) {
+				throw e;
+			}
+			return staleKeys;
+		}
+	}
+
+	@Nullable
+	private Map<Integer, PublicKey> loadTokenKeys(KeySetId keySetId)
+			throws OAuth2ServiceException, InvalidKeySpecException, NoSuchAlgorithmException {
+		try {
+			KeySet keySet = getCache().get(keySetId); // concurrent loads of the same key set are performed once
+			return keySet == null ? null : keySet.keys;
+		} catch (CompletionException e) {
+			throw unwrap(e);
+		}
+	}
+
+	/**
+	 * Retrieves the key set again, as the cached one does not contain the
+	 * requested key. Only one thread per key set retrieves the keys, concurrent
+	 * callers wait for its result. The cached keys are returned without a request,
+	 * if the key id is known to be unknown or the retrieval is rate-limited.
+	 */
+	@Nullable
+	private Map<Integer, PublicKey> reloadTokenKeys(KeySetId keySetId, KeySet cachedKeySet, int uniqueKeyId)
+			throws OAuth2ServiceException, InvalidKeySpecException, NoSuchAlgorithmException {
+		CompletableFuture<Map<Integer, PublicKey>> retrieval = new CompletableFuture<>();
+		CompletableFuture<Map<Integer, PublicKey>> inFlightRetrieval = inFlightRetrievals.putIfAbsent(keySetId,
+				retrieval);
+		if (inFlightRetrieval != null) {
+			LOGGER.debug("Token keys of {} are already being retrieved, wait for the result", keySetId);
+			return awaitTokenKeys(inFlightRetrieval);
+		}
+		try {
+			KeySet keySet = getCache().getIfPresent(keySetId);
+			if (keySet == cachedKeySet && isRefreshSuppressed(keySetId, uniqueKeyId)) {
+				retrieval.complete(cachedKeySet.keys);
+				return cachedKeySet.keys;
+			}
+			if (keySet == null || keySet == cachedKeySet) { // otherwise replaced in the meantime
+				keySet = retrieveTokenKeys(keySetId);
+				if (keySet != null) {
+					getCache().put(keySetId, keySet);
+				}
+			}
+			Map<Integer, PublicKey> keys = keySet == null ? null : keySet.keys;
+			if (keys == null || !keys.containsKey(uniqueKeyId)) {
+				getUnknownKeyIds().put(new UnknownKeyId(keySetId, uniqueKeyId), Boolean.TRUE);
+			}
+			retrieval.complete(keys);
+			return keys;
+		} catch (OAuth2ServiceException | InvalidKeySpecException | NoSuchAlgorithmException | RuntimeException e) {
+			retrieval.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlightRetrievals.remove(keySetId, retrieval);
+		}
+	}
+
+	/**
+	 * Reloads the key set in the background in refresh-ahead mode, if it expires
+	 * within the refresh-ahead time, at the latest after half of its time to live.
+	 * Only one reload per key set is performed at a time.
+	 */
+	private void refreshAheadIfDue(KeySetId keySetId, KeySet keySet) {
+		if (refreshAheadTime == null) {
+			return;
+		}
+		OptionalLong expiresAfterNanos = getCache().policy().expireVariably()
+				.map(expiration -> expiration.getExpiresAfter(keySetId, TimeUnit.NANOSECONDS))
+				.orElse(OptionalLong.empty());
+		long refreshAheadNanos = Math.min(refreshAheadTime.toNanos(), getTimeToLive(keySet).toNanos() / 2);
+		if (!expiresAfterNanos.isPresent() || expiresAfterNanos.getAsLong() >= refreshAheadNanos
+				|| !inFlightRefreshes.add(keySetId)) {
 			return;
 		}
-		Set<JsonWebKey> jwks = keySet.getAll();
-		for (JsonWebKey jwk : jwks) {
-			getCache().put(getUniqueCacheKey(jwk.getKeyAlgorithm(), jwk.getId(), jwksUri, zoneId), jwk.getPublicKey());
+		try {
+			refreshExecutor.execute(() -> refreshTokenKeys(keySetId));
+		} catch (RejectedExecutionException e) {
+			inFlightRefreshes.remove(keySetId);
+			LOGGER.warn("Refresh-ahead of token keys of {} was rejected: {}", keySetId, e.getMessage());
+		}
+	}
+
+	private void refreshTokenKeys(KeySetId keySetId) {
+		try {
+			LOGGER.debug("Refreshing token keys of {} ahead of their expiration", keySetId);
+			KeySet keySet = retrieveTokenKeys(keySetId);
+			if (keySet != null) {
+				getCache().put(keySetId, keySet);
+			}
+		} catch (OAuth2ServiceException | InvalidKeySpecException | NoSuchAlgorithmException | RuntimeException e) {
+			LOGGER.warn("Refresh-ahead of token keys of {} failed, the current keys are used until they expire: {}",
+					keySetId, e.getMessage());
+		} finally {
+			inFlightRefreshes.remove(keySetId);
+		}
+	}
+
+	private boolean isRefreshSuppressed(KeySetId keySetId, int uniqueKeyId) {
+		if (getUnknownKeyIds().getIfPresent(new UnknownKeyId(keySetId, uniqueKeyId)) != null) {
+			SecurityMetrics.recordSuppressedRefresh(SecurityMetrics.REASON_NEGATIVE_CACHE);
+			LOGGER.debug("Key id is known to be unknown for {}, token keys are not retrieved again", keySetId);
+			return true;
+		}
+		if (!getRefreshRateLimiter().tryAcquire(keySetId.jwksUri)) {
+			SecurityMetrics.recordSuppressedRefresh(SecurityMetrics.REASON_RATE_LIMITED);
+			LOGGER.warn("Retrieval of token keys from {} is rate-limited, token refers to an unknown key id",
+					keySetId.jwksUri);
+			return true;
+		}
+		return false;
+	}
+
+	@Nullable
+	private static Map<Integer, PublicKey> awaitTokenKeys(CompletableFuture<Map<Integer, PublicKey>> retrieval)
+			throws OAuth2ServiceException, InvalidKeySpecException, NoSuchAlgorithmException {
+		try {
+			return retrieval.join();
+		} catch (CompletionException e) {
+			throw unwrap(e);
+		}
+	}
+
+	private static RuntimeException unwrap(CompletionException e)
+			throws OAuth2ServiceException, InvalidKeySpecException, NoSuchAlgorithmException {
+		Throwable cause = e.getCause();
+		if (cause instanceof OAuth2ServiceException) {
+			throw (OAuth2ServiceException) cause;
+		}
+		if (cause instanceof InvalidKeySpecException) {
+			throw (InvalidKeySpecException) cause;
+		}
+		if (cause instanceof NoSuchAlgorithmException) {
+			throw (NoSuchAlgorithmException) cause;
+		}
+		if (cause instanceof RuntimeException) {
+			return (RuntimeException) cause;
+		}
+		return e;
+	}
+
+	/**
+	 * Retrieves the key set. The {@link DefaultOAuth2TokenKeyService} sends the
+	 * validators of the previous response, so that an unchanged key set is not
+	 * transferred and parsed again.
+	 */
+	@Nullable
+	private KeySet retrieveTokenKeys(KeySetId keySetId)
+			throws OAuth2ServiceException, InvalidKeySpecException, NoSuchAlgorithmException {
+		KeySet keySet;
+		if (getTokenKeyService() instanceof DefaultOAuth2TokenKeyService) {
+			KeySet previousKeySet = getRetrievedKeySets().getIfPresent(keySetId);
+			CacheableResponse<String> response = ((DefaultOAuth2TokenKeyService) getTokenKeyService())
+					.retrieveTokenKeys(keySetId.jwksUri, keySetId.zoneId,
+							previousKeySet != null ? previousKeySet.response : null);
+			if (response.isNotModified() && previousKeySet != null) {
+				LOGGER.debug("Token keys of {} were not modified", keySetId);
+				keySet = new KeySet(previousKeySet.keys, response, clock.instant());
+			} else {
+				keySet = createKeySet(response.getBody(), response, clock.instant());
+			}
+		} else {
+			String jwks = getTokenKeyService().retrieveTokenKeys(keySetId.jwksUri, keySetId.zoneId);
+			keySet = createKeySet(jwks, jwks != null ? CacheableResponse.of(jwks) : null, clock.instant());
+		}
+		if (keySet == null) {
+			return null;
+		}
+		getRetrievedKeySets().put(keySetId, keySet);
+		if (getStaleKeys() != null) {
+			getStaleKeys().put(keySetId, keySet.keys);
+		}
+		if (snapshotStore != null && keySet.response != null) {
+			Snapshot snapshot = new Snapshot(keySetId.jwksUri, keySetId.zoneId, keySet.response, keySet.fetchedAt);
+			refreshExecutor.execute(() -> snapshotStore.write(snapshot));
+		}
+		return keySet;
+	}
+
+	/**
+	 * Reads and parses the snapshots of the token keys.
+	 */
+	private Map<KeySetId, KeySet> readSnapshots() {
+		Map<KeySetId, KeySet> keySets = new HashMap<>();
+		for (Snapshot snapshot : snapshotStore.readAll()) {
+			KeySetId keySetId = new KeySetId(snapshot.jwksUri, snapshot.zoneId);
+			try {
+				KeySet keySet = createKeySet(snapshot.response.getBody(), snapshot.response, snapshot.fetchedAt);
+				if (keySet != null) {
+					keySets.put(keySetId, keySet);
+				}
+			} catch (InvalidKeySpecException | NoSuchAlgorithmException | RuntimeException e) {
+				LOGGER.warn("Ignoring token key snapshot of {}: {}", keySetId, e.getMessage());
+			}
+		}
+		return keySets;
+	}
+
+	/**
+	 * Preloads the given cache with the snapshots of the token keys. Only key sets
+	 * within their time to live are cached, older ones are kept for conditional
+	 * requests.
+	 */
+	private void preloadSnapshots(LoadingCache<KeySetId, KeySet> cache) {
+		for (Map.Entry<KeySetId, KeySet> snapshot : snapshotKeySets.entrySet()) {
+			KeySetId keySetId = snapshot.getKey();
+			KeySet keySet = snapshot.getValue();
+			getRetrievedKeySets().put(keySetId, keySet);
+			if (getTimeToLiveNanos(keySet) > 0) {
+				cache.put(keySetId, keySet);
+				LOGGER.debug("Preloaded token keys of {} retrieved at {}", keySetId, keySet.fetchedAt);
+			}
+		}
+		snapshotKeySets = null;
+	}
+
+	@Nullable
+	private static KeySet createKeySet(String jwks, @Nullable CacheableResponse<String> response, Instant fetchedAt)
+			throws InvalidKeySpecException, NoSuchAlgorithmException {
+		JsonWebKeySet keySet = JsonWebKeySetFactory.createFromJson(jwks);
+		if (keySet == null) {
+			return null;
+		}
+		Map<Integer, PublicKey> keys = new HashMap<>();
+		for (JsonWebKey jwk : keySet.getAll()) {
+			keys.put(JsonWebKeyImpl.calculateUniqueId(jwk.getKeyAlgorithm(), jwk.getId()), jwk.getPublicKey());
+		}
+		return new KeySet(Collections.unmodifiableMap(keys), response, fetchedAt);
+	}
+
+	/**
+	 * Returns how long a key set is cached: the max-age of the response, within
+	 * the minimum of 600 seconds and the configured cache duration.
+	 */
+	private Duration getTimeToLive(KeySet keySet) {
+		Duration cacheDuration = getCacheConfiguration().getCacheDuration();
+		Duration maxAge = keySet.response != null ? keySet.response.getMaxAge() : null;
+		if (maxAge == null || maxAge.compareTo(cacheDuration) > 0) {
+			return cacheDuration;
+		}
+		return maxAge.compareTo(MIN_CACHE_DURATION) < 0 ? MIN_CACHE_DURATION : maxAge;
+	}
+
+	/**
+	 * Returns how long a key set is still cached: its time to live minus the time
+	 * since it was retrieved.
+	 */
+	private long getTimeToLiveNanos(KeySet keySet) {
+		Duration timeToLive = getTimeToLive(keySet);
+		Duration age = Duration.between(keySet.fetchedAt, clock.instant());
+		return age.isNegative() ? timeToLive.toNanos() : Math.max(0, timeToLive.minus(age).toNanos());
+	}
+
+	private LoadingCache<KeySetId, KeySet> getCache() {
+		if (cache == null) {
+			createCache(); // once, otherwise concurrent callers would not share their loads
 		}
+		return cache;
 	}
 
-	private Cache<String, PublicKey> getCache() {
+	private synchronized void createCache() {
 		if (cache == null) {
-			Caffeine<Object, Object> cacheBuilder = Caffeine.newBuilder()
+			Caffeine<KeySetId, KeySet> cacheBuilder = Caffeine.newBuilder()
 					.ticker(cacheTicker)
-					.expireAfterWrite(getCacheConfiguration().getCacheDuration())
-					.maximumSize(getCacheConfiguration().getCacheSize());
+					.executor(refreshExecutor)
+					.maximumSize(getCacheConfiguration().getCacheSize())
+					.expireAfter(new Expiry<KeySetId, KeySet>() {
+						@Override
+						public long expireAfterCreate(KeySetId keySetId, KeySet keySet, long currentTime) {
+							return getTimeToLiveNanos(keySet);
+						}
+
+						@Override
+						public long expireAfterUpdate(KeySetId keySetId, KeySet keySet, long currentTime,
+								long currentDuration) {
+							return getTimeToLiveNanos(keySet);
+						}
+
+						@Override
+						public long expireAfterRead(KeySetId keySetId, KeySet keySet, long currentTime,
+								long currentDuration) {
+							return currentDuration;
+						}
+					});
 			if (getCacheConfiguration().isCacheStatisticsEnabled()) {
 				cacheBuilder.recordStats();
 			}
-			cache = cacheBuilder.build();
+			LoadingCache<KeySetId, KeySet> newCache = cacheBuilder.build(this::retrieveTokenKeys);
+			if (snapshotKeySets != null) {
+				preloadSnapshots(newCache); // before publishing, lookups must not miss preloaded keys
+			}
+			cache = newCache;
+			SecurityMetrics.registerCache(SecurityMetrics.CACHE_TOKEN_KEYS, cache);
 		}
-		return cache;
+	}
+
+	private synchronized Cache<KeySetId, KeySet> getRetrievedKeySets() {
+		if (retrievedKeySets == null) {
+			retrievedKeySets = Caffeine.newBuilder()
+					.maximumSize(getCacheConfiguration().getCacheSize())
+					.build();
+		}
+		return retrievedKeySets;
+	}
+
+	private synchronized Cache<UnknownKeyId, Boolean> getUnknownKeyIds() {
+		if (unknownKeyIds == null) {
+			unknownKeyIds = Caffeine.newBuilder()
+					.ticker(cacheTicker)
+					.expireAfterWrite(negativeCacheDuration)
+					.maximumSize(getCacheConfiguration().getCacheSize())
+					.build();
+		}
+		return unknownKeyIds;
+	}
+
+	private synchronized RefreshRateLimiter getRefreshRateLimiter() {
+		if (refreshRateLimiter == null) {
+			refreshRateLimiter = new RefreshRateLimiter(refreshMinimumInterval, refreshMaxBurst,
+					refreshRefillInterval, getCacheConfiguration().getCacheSize(), cacheTicker);
+		}
+		return refreshRateLimiter;
+	}
+
+	@Nullable
+	private synchronized StaleIfErrorCache<KeySetId, Map<Integer, PublicKey>> getStaleKeys() {
+		if (staleKeys == null && staleIfErrorGracePeriod != null) {
+			staleKeys = new StaleIfErrorCache<>(getCacheConfiguration().getCacheDuration(), staleIfErrorGracePeriod,
+					getCacheConfiguration().getCacheSize(), cacheTicker, refreshExecutor);
+		}
+		return staleKeys;
 	}
 
 	private OAuth2TokenKeyService getTokenKeyService() {
@@ -268,6 +912,15 @@ class OAuth2TokenKeyServiceWithCache implements Cacheable {
 		if (cache != null) {
 			cache.invalidateAll();
 		}
+		if (unknownKeyIds != null) {
+			unknownKeyIds.invalidateAll();
+		}
+		if (staleKeys != null) {
+			staleKeys.clear();
+		}
+		if (retrievedKeySets != null) {
+			retrievedKeySets.invalidateAll();
+		}
 	}
 
 	@Override
@@ -275,9 +928,85 @@ class OAuth2TokenKeyServiceWithCache implements Cacheable {
 		return getCacheConfiguration().isCacheStatisticsEnabled() ? getCache().stats() : null;
 	}
 
-	public static String getUniqueCacheKey(JwtSignatureAlgorithm keyAlgorithm, String keyId, URI jwksUri,
-			String zoneId) {
-		return jwksUri + String.valueOf(JsonWebKeyImpl.calculateUniqueId(keyAlgorithm, keyId)) + zoneId;
+	/**
+	 * Identifies the key set of a jwks URI and zone.
+	 */
+	private static class KeySetId {
+		private final URI jwksUri;
+		private final String zoneId;
+
+		KeySetId(URI jwksUri, String zoneId) {
+			this.jwksUri = jwksUri;
+			this.zoneId = zoneId;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			KeySetId that = (KeySetId) o;
+			return jwksUri.equals(that.jwksUri) && Objects.equals(zoneId, that.zoneId);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(jwksUri, zoneId);
+		}
+
+		@Override
+		public String toString() {
+			return jwksUri + " (zone " + zoneId + ")";
+		}
+	}
+
+	/**
+	 * The keys of a key set together with the http caching information of the
+	 * response they were retrieved with and the time of retrieval.
+	 */
+	private static class KeySet {
+		private final Map<Integer, PublicKey> keys;
+		private final CacheableResponse<String> response;
+		private final Instant fetchedAt;
+
+		KeySet(Map<Integer, PublicKey> keys, @Nullable CacheableResponse<String> response, Instant fetchedAt) {
+			this.keys = keys;
+			this.response = response;
+			this.fetchedAt = fetchedAt;
+		}
+	}
+
+	/**
+	 * Identifies a key id that is not part of the key set of a jwks URI and zone.
+	 */
+	private static class UnknownKeyId {
+		private final KeySetId keySetId;
+		private final int uniqueKeyId;
+
+		UnknownKeyId(KeySetId keySetId, int uniqueKeyId) {
+			this.keySetId = keySetId;
+			this.uniqueKeyId = uniqueKeyId;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			UnknownKeyId that = (UnknownKeyId) o;
+			return uniqueKeyId == that.uniqueKeyId && keySetId.equals(that.keySetId);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * keySetId.hashCode() + uniqueKeyId;
+		}
 	}
 
 }
@@ -10,25 +10,53 @@ import static com.sap.cloud.security.xsuaa.Assertions.assertNotNull;
 import javax.annotation.Nullable;
 
 import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.sap.cloud.security.xsuaa.client.CacheableResponse;
 import com.sap.cloud.security.xsuaa.client.DefaultOidcConfigurationService;
 import com.sap.cloud.security.xsuaa.client.OAuth2ServiceEndpointsProvider;
 import com.sap.cloud.security.xsuaa.client.OAuth2ServiceException;
 import com.sap.cloud.security.xsuaa.client.OidcConfigurationService;
+import com.sap.cloud.security.xsuaa.metrics.SecurityMetrics;
 
 /**
  * Decorates {@link OidcConfigurationService} with a cache, which gets looked up
- * before the identity service is requested via http.
+ * before the identity service is requested via http. The oidc configuration is
+ * cached for the max-age of the {@code Cache-Control} header of the response,
+ * within the minimum of 600 seconds and the configured cache time. When the
+ * {@link DefaultOidcConfigurationService} is used, it is retrieved again with a
+ * conditional request. With
+ * {@link #withStaleIfError(Duration)} an expired oidc configuration is still
+ * used for a grace period, while it can not be retrieved again. Concurrent
+ * retrievals of the same oidc configuration are performed once.
+ * {@link #getOrRetrieveEndpointsAsync(URI, Executor)} retrieves it without
+ * blocking the calling thread.
  */
 public class OidcConfigurationServiceWithCache {
 	private OidcConfigurationService oidcConfigurationService; // access via getter
-	private Cache<String, OAuth2ServiceEndpointsProvider> cache;
+	private Cache<String, CacheableResponse<OAuth2ServiceEndpointsProvider>> cache;
+	private Cache<String, CacheableResponse<OAuth2ServiceEndpointsProvider>> retrievedResponses; // access via getter
 	private long cacheValidityInSeconds = 600; // old keys should expire after 10 minutes
+	private static final long MIN_CACHE_VALIDITY_IN_SECONDS = 600;
 	private static final long MAX_CACHE_VALIDITY_IN_SECONDS = 900; // time-to-live shouldn't exceed 15 minutes
 	private long cacheSize = 1000;
+	private Duration staleIfErrorGracePeriod;
+	private StaleIfErrorCache<String, OAuth2ServiceEndpointsProvider> staleEndpoints; // access via getter
+	private Ticker cacheTicker;
+	private Executor retryExecutor;
+	private final Map<String, CompletableFuture<OAuth2ServiceEndpointsProvider>> inFlightRetrievals //
+			= new ConcurrentHashMap<>();
 
 	private OidcConfigurationServiceWithCache() {
 		// use getInstance factory method
@@ -40,7 +68,25 @@ public class OidcConfigurationServiceWithCache {
 	 * @return the new instance.
 	 */
 	public static OidcConfigurationServiceWithCache getInstance() {
-		return new OidcConfigurationServiceWithCache();
+		return getInstance(Ticker.systemTicker(), ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a new instance and sets the cache ticker and the executor for
+	 * background retries. This is used for testing.
+	 *
+	 * @param cacheTicker
+	 *            ticker the cache uses to determine time
+	 * @param retryExecutor
+	 *            executor that retries failed retrievals in stale-if-error mode
+	 *
+	 * @return the new instance.
+	 */
+	static OidcConfigurationServiceWithCache getInstance(Ticker cacheTicker, Executor retryExecutor) {
+		OidcConfigurationServiceWithCache instance = new OidcConfigurationServiceWithCache();
+		instance.cacheTicker = cacheTicker;
+		instance.retryExecutor = retryExecutor;
+		return instance;
 	}
 
 	/**
@@ -65,7 +111,7 @@ public class OidcConfigurationServiceWithCache {
 	 * @return this
 	 */
 	public OidcConfigurationServiceWithCache withCacheTime(int timeInSeconds) {
-		if (timeInSeconds < 600 || timeInSeconds > MAX_CACHE_VALIDITY_IN_SECONDS) {
+		if (timeInSeconds < MIN_CACHE_VALIDITY_IN_SECONDS || timeInSeconds > MAX_CACHE_VALIDITY_IN_SECONDS) {
 			throw new IllegalArgumentException("The cache validity must be between 600 and 900 seconds.");
 		}
 		this.cacheValidityInSeconds = timeInSeconds;
@@ -88,6 +134,26 @@ public class OidcConfigurationServiceWithCache {
 		return this;
 	}
 
+	/**
+	 * Enables the stale-if-error mode. An oidc configuration that expired is still
+	 * used for the given grace period, in case it can not be retrieved again, e.g.
+	 * because the identity service is not reachable. Meanwhile, it is retrieved
+	 * in the background with an exponential backoff.
+	 *
+	 * @param gracePeriod
+	 *            time after expiration in which the oidc configuration is still
+	 *            used, if it can not be retrieved
+	 * @return this
+	 */
+	public OidcConfigurationServiceWithCache withStaleIfError(Duration gracePeriod) {
+		assertNotNull(gracePeriod, "gracePeriod must not be null.");
+		if (gracePeriod.isZero() || gracePeriod.isNegative()) {
+			throw new IllegalArgumentException("The stale-if-error grace period must be positive.");
+		}
+		this.staleIfErrorGracePeriod = gracePeriod;
+		return this;
+	}
+
 	/**
 	 * Returns the cached key by id and type or requests the keys from the jwks URI
 	 * of the identity service.
@@ -104,23 +170,202 @@ public class OidcConfigurationServiceWithCache {
 			throws OAuth2ServiceException {
 		assertNotNull(discoveryEndpointUri, "discoveryEndpointUri must not be null.");
 		String cacheKey = discoveryEndpointUri.toString();
-		OAuth2ServiceEndpointsProvider endpointsProvider = getCache().getIfPresent(cacheKey);
-		if (endpointsProvider == null) {
-			endpointsProvider = getOidcConfigurationService().retrieveEndpoints(discoveryEndpointUri);
+		CacheableResponse<OAuth2ServiceEndpointsProvider> response = getCache().getIfPresent(cacheKey);
+		SecurityMetrics.recordCacheAccess(SecurityMetrics.CACHE_OIDC_CONFIGURATIONS, response != null);
+		if (response != null) {
+			return response.getBody();
+		}
+		if (getStaleEndpoints() != null) {
+			return getOrRetrieveStaleEndpoints(discoveryEndpointUri);
+		}
+		return retrieveEndpoints(discoveryEndpointUri);
+	}
+
+	/**
+	 * Returns the cached endpoints or requests them from the discovery endpoint
+	 * of the identity service asynchronously. Cached endpoints are returned as a
+	 * completed future, otherwise they are retrieved on the given executor, as
+	 * with {@link #getOrRetrieveEndpoints(URI)}. Hence, the calling thread is
+	 * never blocked by a request to the identity service.
+	 *
+	 * @param discoveryEndpointUri
+	 *            the discovery endpoint URI.
+	 * @param executor
+	 *            the executor that retrieves the endpoints on a cache miss
+	 * @return the future endpoints provider, which completes exceptionally with
+	 *         the {@link OAuth2ServiceException} of the retrieval.
+	 */
+	public CompletableFuture<OAuth2ServiceEndpointsProvider> getOrRetrieveEndpointsAsync(URI discoveryEndpointUri,
+			Executor executor) {
+		assertNotNull(discoveryEndpointUri, "discoveryEndpointUri must not be null.");
+		assertNotNull(executor, "executor must not be null.");
+		CacheableResponse<OAuth2ServiceEndpointsProvider> response = getCache()
+				.getIfPresent(discoveryEndpointUri.toString());
+		if (response != null) {
+			SecurityMetrics.recordCacheAccess(SecurityMetrics.CACHE_OIDC_CONFIGURATIONS, true);
+			return CompletableFuture.completedFuture(response.getBody());
+		}
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return getOrRetrieveEndpoints(discoveryEndpointUri);
+			} catch (OAuth2ServiceException e) {
+				throw new CompletionException(e);
+			}
+		}, executor);
+	}
+
+	@Nullable
+	private OAuth2ServiceEndpointsProvider getOrRetrieveStaleEndpoints(URI discoveryEndpointUri)
+			throws OAuth2ServiceException {
+		String cacheKey = discoveryEndpointUri.toString();
+		OAuth2ServiceEndpointsProvider endpointsProvider = getStaleEndpoints().getWhileFailing(cacheKey,
+				() -> retrieveEndpoints(discoveryEndpointUri));
+		if (endpointsProvider != null) {
+			return endpointsProvider;
+		}
+		try {
+			return retrieveEndpoints(discoveryEndpointUri);
+		} catch (OAuth2ServiceException e) {
+			endpointsProvider = getStaleEndpoints().getOnError(cacheKey);
+			if (endpointsProvider == null) {
+				throw e;
+			}
+			return endpointsProvider;
+		}
+	}
+
+	/**
+	 * Retrieves the oidc configuration. Only one thread per discovery endpoint
+	 * retrieves it, concurrent callers wait for its result.
+	 */
+	@Nullable
+	private OAuth2ServiceEndpointsProvider retrieveEndpoints(URI discoveryEndpointUri)
+			throws OAuth2ServiceException {
+		String cacheKey = discoveryEndpointUri.toString();
+		CompletableFuture<OAuth2ServiceEndpointsProvider> retrieval = new CompletableFuture<>();
+		CompletableFuture<OAuth2ServiceEndpointsProvider> inFlightRetrieval = inFlightRetrievals
+				.putIfAbsent(cacheKey, retrieval);
+		if (inFlightRetrieval != null) {
+			return awaitEndpoints(inFlightRetrieval);
+		}
+		try {
+			// might have been retrieved by another thread in the meantime
+			CacheableResponse<OAuth2ServiceEndpointsProvider> response = getCache().getIfPresent(cacheKey);
+			OAuth2ServiceEndpointsProvider endpointsProvider = response != null ? response.getBody()
+					: requestEndpoints(discoveryEndpointUri);
+			retrieval.complete(endpointsProvider);
+			return endpointsProvider;
+		} catch (OAuth2ServiceException | RuntimeException e) {
+			retrieval.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlightRetrievals.remove(cacheKey, retrieval);
+		}
+	}
+
+	@Nullable
+	private static OAuth2ServiceEndpointsProvider awaitEndpoints(
+			CompletableFuture<OAuth2ServiceEndpointsProvider> retrieval) throws OAuth2ServiceException {
+		try {
+			return retrieval.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof OAuth2ServiceException) {
+				throw (OAuth2ServiceException) e.getCause();
+			}
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Requests the oidc configuration. The {@link DefaultOidcConfigurationService}
+	 * sends the validators of the previous response, so that an unchanged
+	 * configuration is not transferred and parsed again.
+	 */
+	@Nullable
+	private OAuth2ServiceEndpointsProvider requestEndpoints(URI discoveryEndpointUri)
+			throws OAuth2ServiceException {
+		String cacheKey = discoveryEndpointUri.toString();
+		CacheableResponse<OAuth2ServiceEndpointsProvider> response;
+		if (getOidcConfigurationService() instanceof DefaultOidcConfigurationService) {
+			response = ((DefaultOidcConfigurationService) getOidcConfigurationService())
+					.retrieveEndpoints(discoveryEndpointUri, getRetrievedResponses().getIfPresent(cacheKey));
+		} else {
+			OAuth2ServiceEndpointsProvider endpointsProvider = getOidcConfigurationService()
+					.retrieveEndpoints(discoveryEndpointUri);
 			if (endpointsProvider == null) {
 				return null;
 			}
-			getCache().put(cacheKey, endpointsProvider);
+			response = CacheableResponse.of(endpointsProvider);
 		}
-		return getCache().getIfPresent(cacheKey);
+		getCache().put(cacheKey, response);
+		getRetrievedResponses().put(cacheKey, response);
+		if (getStaleEndpoints() != null) {
+			getStaleEndpoints().put(cacheKey, response.getBody());
+		}
+		return response.getBody();
+	}
+
+	/**
+	 * Returns how long an oidc configuration is cached: the max-age of the
+	 * response, within the minimum of 600 seconds and the configured cache time.
+	 */
+	private long getTimeToLiveNanos(CacheableResponse<OAuth2ServiceEndpointsProvider> response) {
+		Duration maxAge = response.getMaxAge();
+		if (maxAge == null || maxAge.getSeconds() > cacheValidityInSeconds) {
+			return TimeUnit.SECONDS.toNanos(cacheValidityInSeconds);
+		}
+		return TimeUnit.SECONDS.toNanos(Math.max(maxAge.getSeconds(), MIN_CACHE_VALIDITY_IN_SECONDS));
+	}
+
+	@Nullable
+	private synchronized StaleIfErrorCache<String, OAuth2ServiceEndpointsProvider> getStaleEndpoints() {
+		if (staleEndpoints == null && staleIfErrorGracePeriod != null) {
+			staleEndpoints = new StaleIfErrorCache<>(Duration.ofSeconds(cacheValidityInSeconds),
+					staleIfErrorGracePeriod, cacheSize, cacheTicker, retryExecutor);
+		}
+		return staleEndpoints;
 	}
 
-	private Cache<String, OAuth2ServiceEndpointsProvider> getCache() {
+	private synchronized Cache<String, CacheableResponse<OAuth2ServiceEndpointsProvider>> getRetrievedResponses() {
+		if (retrievedResponses == null) {
+			retrievedResponses = Caffeine.newBuilder()
+					.maximumSize(cacheSize)
+					.build();
+		}
+		return retrievedResponses;
+	}
+
+	private Cache<String, CacheableResponse<OAuth2ServiceEndpointsProvider>> getCache() {
 		if (cache == null) {
 			cache = Caffeine.newBuilder()
-					.expireAfterWrite(cacheValidityInSeconds, TimeUnit.SECONDS)
+					.ticker(cacheTicker)
+					.expireAfter(new Expiry<String, CacheableResponse<OAuth2ServiceEndpointsProvider>>() {
+						@Override
+						public long expireAfterCreate(String key,
+								CacheableResponse<OAuth2ServiceEndpointsProvider> response, long currentTime) {
+							return getTimeToLiveNanos(response);
+						}
+
+						@Override
+						public long expireAfterUpdate(String key,
+								CacheableResponse<OAuth2ServiceEndpointsProvider> response, long currentTime,
+								long currentDuration) {
+							return getTimeToLiveNanos(response);
+						}
+
+						@Override
+						public long expireAfterRead(String key,
+								CacheableResponse<OAuth2ServiceEndpointsProvider> response, long currentTime,
+								long currentDuration) {
+							return currentDuration;
+						}
+					})
 					.maximumSize(cacheSize)
 					.build();
+			SecurityMetrics.registerCache(SecurityMetrics.CACHE_OIDC_CONFIGURATIONS, cache);
 		}
 		return cache;
 	}
@@ -136,6 +381,12 @@ public class OidcConfigurationServiceWithCache {
 		if (cache != null) {
 			cache.invalidateAll();
 		}
+		if (staleEndpoints != null) {
+			staleEndpoints.clear();
+		}
+		if (retrievedResponses != null) {
+			retrievedResponses.invalidateAll();
+		}
 	}
 
 }
@@ -0,0 +1,95 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.token.validation.validators;
+
+import java.net.URI;
+import java.time.Duration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.sap.cloud.security.xsuaa.Assertions;
+
+/**
+ * Limits how often the token keys of a jwks URI are retrieved again, because a
+ * token refers to a key id that is not part of the cached key set.<br>
+ *
+ * Per jwks URI, two refreshes must be at least the minimum interval apart.
+ * Additionally, a token bucket allows a burst of up to {@code maxBurst}
+ * refreshes and regains one permit per refill interval. The state of at most
+ * {@code maxSize} jwks URIs is kept.
+ */
+class RefreshRateLimiter {
+
+	private final long minimumIntervalNanos;
+	private final int maxBurst;
+	private final long refillIntervalNanos;
+	private final Ticker ticker;
+	private final Cache<URI, Bucket> buckets;
+
+	RefreshRateLimiter(Duration minimumInterval, int maxBurst, Duration refillInterval, int maxSize,
+			Ticker ticker) {
+		Assertions.assertNotNull(minimumInterval, "minimumInterval must not be null!");
+		Assertions.assertNotNull(refillInterval, "refillInterval must not be null!");
+		if (maxBurst < 1 || refillInterval.isZero() || refillInterval.isNegative()) {
+			throw new IllegalArgumentException("maxBurst and refillInterval must be positive!");
+		}
+		this.minimumIntervalNanos = minimumInterval.toNanos();
+		this.maxBurst = maxBurst;
+		this.refillIntervalNanos = refillInterval.toNanos();
+		this.ticker = ticker;
+		this.buckets = Caffeine.newBuilder()
+				.ticker(ticker)
+				.maximumSize(maxSize)
+				.expireAfterAccess(refillInterval.multipliedBy(maxBurst).plus(minimumInterval))
+				.build();
+	}
+
+	/**
+	 * Acquires the permission to refresh the token keys of the given jwks URI.
+	 *
+	 * @param jwksUri
+	 *            the jwks URI
+	 * @return true, if the keys may be retrieved; false, if the refresh must be
+	 *         suppressed
+	 */
+	boolean tryAcquire(URI jwksUri) {
+		long now = ticker.read();
+		Bucket bucket = buckets.get(jwksUri, uri -> new Bucket(now));
+		synchronized (bucket) {
+			return bucket.tryAcquire(now);
+		}
+	}
+
+	private class Bucket {
+		private int permits = maxBurst;
+		private long lastRefill;
+		private long lastAcquired;
+		private boolean acquired;
+
+		Bucket(long now) {
+			this.lastRefill = now;
+		}
+
+		boolean tryAcquire(long now) {
+			if (acquired && now - lastAcquired < minimumIntervalNanos) {
+				return false;
+			}
+			long refills = (now - lastRefill) / refillIntervalNanos;
+			if (refills > 0) {
+				permits = (int) Math.min(maxBurst, permits + refills);
+				lastRefill += refills * refillIntervalNanos;
+			}
+			if (permits == 0) {
+				return false;
+			}
+			permits--;
+			lastAcquired = now;
+			acquired = true;
+			return true;
+		}
+	}
+}
@@ -0,0 +1,70 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.token.validation.validators;
+
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Provides {@link Signature} instances for signature verification, which are
+ * confined to the current thread and reused across requests. This avoids the
+ * provider lookup and allocation of {@link Signature#getInstance(String)} for
+ * every token.<br>
+ *
+ * A {@link Signature} is not thread-safe, hence there is one instance per
+ * thread and signature algorithm. It is (re-)initialized with the given public
+ * key on every {@link #getVerifier(JwtSignatureAlgorithm, PublicKey)} call.
+ */
+final class SignatureVerifierPool {
+
+	// only JDK types are kept as thread local values to not leak this class loader
+	private static final ThreadLocal<Map<String, Signature>> VERIFIERS = ThreadLocal.withInitial(HashMap::new);
+
+	private SignatureVerifierPool() {
+		// utility
+	}
+
+	/**
+	 * Returns the {@link Signature} of the current thread for the given algorithm,
+	 * initialized for verification with the given public key.
+	 *
+	 * @param algorithm
+	 *            the signature algorithm
+	 * @param publicKey
+	 *            the public key used for verification
+	 * @return the signature instance, which must only be used by the current thread
+	 * @throws NoSuchAlgorithmException
+	 *             in case the algorithm is not supported by any provider
+	 * @throws InvalidKeyException
+	 *             in case the key is not suitable for the algorithm
+	 */
+	static Signature getVerifier(JwtSignatureAlgorithm algorithm, PublicKey publicKey)
+			throws NoSuchAlgorithmException, InvalidKeyException {
+		Map<String, Signature> verifiers = VERIFIERS.get();
+		Signature verifier = verifiers.get(algorithm.javaSignature());
+		if (verifier == null) {
+			verifier = Signature.getInstance(algorithm.javaSignature());
+			verifiers.put(algorithm.javaSignature(), verifier);
+		}
+		verifier.initVerify(publicKey); // resets any state left over from a failed verification
+		return verifier;
+	}
+
+	/**
+	 * Removes the {@link Signature} of the current thread for the given algorithm,
+	 * e.g. in case it is in an undefined state after an unexpected error.
+	 *
+	 * @param algorithm
+	 *            the signature algorithm
+	 */
+	static void discardVerifier(JwtSignatureAlgorithm algorithm) {
+		VERIFIERS.get().remove(algorithm.javaSignature());
+	}
+}
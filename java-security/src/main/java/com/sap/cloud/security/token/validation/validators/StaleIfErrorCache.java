@@ -0,0 +1,185 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.token.validation.validators;
+
+import javax.annotation.Nullable;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the last successfully retrieved value per key beyond the cache duration
+ * for a grace period. The value is only served, when it could not be retrieved
+ * again, e.g. because the identity service is not reachable.<br>
+ *
+ * While the retrieval fails, the value is served without another request in the
+ * foreground. Instead, it is retrieved again in the background with an
+ * exponential backoff, starting with {@link #INITIAL_BACKOFF} and doubled up to
+ * {@link #MAX_BACKOFF} after each failed attempt. The retries are triggered by
+ * lookups of the value.
+ *
+ * @param <K>
+ *            the type of the keys
+ * @param <V>
+ *            the type of the values
+ */
+class StaleIfErrorCache<K, V> {
+	private static final Logger LOGGER = LoggerFactory.getLogger(StaleIfErrorCache.class);
+
+	static final Duration INITIAL_BACKOFF = Duration.ofSeconds(1);
+	static final Duration MAX_BACKOFF = Duration.ofMinutes(2);
+
+	private final Cache<K, Entry<V>> lastGoodValues;
+	private final Ticker ticker;
+	private final Executor retryExecutor;
+
+	/**
+	 * Retrieves the value again. It is expected to {@link #put(Object, Object)}
+	 * the value on success.
+	 *
+	 * @param <V>
+	 *            the type of the value
+	 */
+	@FunctionalInterface
+	interface Retrieval<V> {
+		@Nullable
+		V retrieve() throws Exception;
+	}
+
+	StaleIfErrorCache(Duration cacheDuration, Duration gracePeriod, long cacheSize, Ticker ticker,
+			Executor retryExecutor) {
+		this.ticker = ticker;
+		this.retryExecutor = retryExecutor;
+		this.lastGoodValues = Caffeine.newBuilder()
+				.ticker(ticker)
+				.expireAfterWrite(cacheDuration.plus(gracePeriod))
+				.maximumSize(cacheSize)
+				.build();
+	}
+
+	/**
+	 * Remembers a successfully retrieved value.
+	 *
+	 * @param key
+	 *            the key
+	 * @param value
+	 *            the retrieved value
+	 */
+	void put(K key, V value) {
+		lastGoodValues.put(key, new Entry<>(value));
+	}
+
+	/**
+	 * Returns the last good value after its retrieval failed. From now on, the
+	 * value is served by {@link #getWhileFailing(Object, Retrieval)}.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the last good value or null, if there is none within the grace
+	 *         period
+	 */
+	@Nullable
+	V getOnError(K key) {
+		Entry<V> entry = lastGoodValues.getIfPresent(key);
+		if (entry == null) {
+			return null;
+		}
+		synchronized (entry) {
+			if (!entry.failing) {
+				entry.failing = true;
+				entry.backoffNanos = INITIAL_BACKOFF.toNanos();
+				entry.nextRetryNanos = ticker.read() + entry.backoffNanos;
+			}
+		}
+		LOGGER.warn("Serving stale value for {} as it could not be retrieved again", key);
+		return entry.value;
+	}
+
+	/**
+	 * Returns the last good value, as long as its retrieval fails. If a retry is
+	 * due, the value is retrieved again in the background.
+	 *
+	 * @param key
+	 *            the key
+	 * @param retrieval
+	 *            retrieves the value again
+	 * @return the last good value or null, if the retrieval did not fail or the
+	 *         grace period is over
+	 */
+	@Nullable
+	V getWhileFailing(K key, Retrieval<V> retrieval) {
+		Entry<V> entry = lastGoodValues.getIfPresent(key);
+		if (entry == null) {
+			return null;
+		}
+		synchronized (entry) {
+			if (!entry.failing) {
+				return null;
+			}
+			long now = ticker.read();
+			if (!entry.retrying && now - entry.nextRetryNanos >= 0) {
+				entry.retrying = true;
+				retryInBackground(key, entry, retrieval);
+			}
+		}
+		return entry.value;
+	}
+
+	void clear() {
+		lastGoodValues.invalidateAll();
+	}
+
+	private void retryInBackground(K key, Entry<V> entry, Retrieval<V> retrieval) {
+		try {
+			retryExecutor.execute(() -> retry(key, entry, retrieval));
+		} catch (RejectedExecutionException e) {
+			LOGGER.warn("Retry for {} was rejected: {}", key, e.getMessage());
+			failed(entry);
+		}
+	}
+
+	private void retry(K key, Entry<V> entry, Retrieval<V> retrieval) {
+		try {
+			if (retrieval.retrieve() != null) {
+				LOGGER.info("Retrieved {} again after it failed", key);
+				synchronized (entry) {
+					entry.retrying = false;
+				}
+				return;
+			}
+		} catch (Exception e) {
+			LOGGER.debug("Retry for {} failed: {}", key, e.getMessage());
+		}
+		failed(entry);
+	}
+
+	private void failed(Entry<V> entry) {
+		synchronized (entry) {
+			entry.retrying = false;
+			entry.backoffNanos = Math.min(entry.backoffNanos * 2, MAX_BACKOFF.toNanos());
+			entry.nextRetryNanos = ticker.read() + entry.backoffNanos;
+		}
+	}
+
+	private static class Entry<V> {
+		private final V value;
+		private boolean failing;
+		private boolean retrying;
+		private long backoffNanos;
+		private long nextRetryNanos;
+
+		Entry(V value) {
+			this.value = value;
+		}
+	}
+}
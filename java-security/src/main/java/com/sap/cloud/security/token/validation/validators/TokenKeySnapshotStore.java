@@ -0,0 +1,177 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.token.validation.validators;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.sap.cloud.security.xsuaa.Assertions;
+import com.sap.cloud.security.xsuaa.client.CacheableResponse;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores the last retrieved json web key set per jwks URI and zone as a file in
+ * a local directory, so that the token key cache can be preloaded after a
+ * restart. A snapshot is written to a temporary file first, which then replaces
+ * the previous snapshot atomically. Hence, a crash never leaves a partially
+ * written snapshot behind.
+ */
+class TokenKeySnapshotStore {
+	private static final Logger LOGGER = LoggerFactory.getLogger(TokenKeySnapshotStore.class);
+
+	private static final String FILE_SUFFIX = ".jwks.json";
+	private static final String JWKS_URI = "jwks_uri";
+	private static final String ZONE_ID = "zone_id";
+	private static final String FETCHED_AT = "fetched_at";
+	private static final String ETAG = "etag";
+	private static final String LAST_MODIFIED = "last_modified";
+	private static final String MAX_AGE = "max_age";
+	private static final String JWKS = "jwks";
+
+	private final Path directory;
+
+	TokenKeySnapshotStore(Path directory) {
+		Assertions.assertNotNull(directory, "directory must not be null!");
+		this.directory = directory;
+	}
+
+	/**
+	 * Writes the snapshot of a json web key set. Failures are logged only, as the
+	 * snapshot is not required for token validation.
+	 *
+	 * @param snapshot
+	 *            the snapshot
+	 */
+	void write(Snapshot snapshot) {
+		JSONObject json = new JSONObject()
+				.put(JWKS_URI, snapshot.jwksUri.toString())
+				.put(ZONE_ID, snapshot.zoneId)
+				.put(FETCHED_AT, snapshot.fetchedAt.toEpochMilli())
+				.put(ETAG, snapshot.response.getETag())
+				.put(LAST_MODIFIED, snapshot.response.getLastModified())
+				.put(JWKS, snapshot.response.getBody());
+		if (snapshot.response.getMaxAge() != null) {
+			json.put(MAX_AGE, snapshot.response.getMaxAge().getSeconds());
+		}
+		Path file = directory.resolve(getFileName(snapshot.jwksUri, snapshot.zoneId));
+		Path temporaryFile = null;
+		try {
+			Files.createDirectories(directory);
+			temporaryFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+			Files.write(temporaryFile, json.toString().getBytes(StandardCharsets.UTF_8));
+			moveAtomically(temporaryFile, file);
+		} catch (IOException | RuntimeException e) {
+			LOGGER.warn("Failed to write token key snapshot {}: {}", file, e.getMessage());
+			deleteQuietly(temporaryFile);
+		}
+	}
+
+	/**
+	 * Reads all snapshots of the directory. Files that can not be read are
+	 * skipped.
+	 *
+	 * @return the snapshots
+	 */
+	List<Snapshot> readAll() {
+		List<Snapshot> snapshots = new ArrayList<>();
+		if (!Files.isDirectory(directory)) {
+			return snapshots;
+		}
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + FILE_SUFFIX)) {
+			for (Path file : files) {
+				Snapshot snapshot = read(file);
+				if (snapshot != null) {
+					snapshots.add(snapshot);
+				}
+			}
+		} catch (IOException e) {
+			LOGGER.warn("Failed to read token key snapshots of {}: {}", directory, e.getMessage());
+		}
+		return snapshots;
+	}
+
+	@Nullable
+	private static Snapshot read(Path file) {
+		try {
+			JSONObject json = new JSONObject(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+			Duration maxAge = json.has(MAX_AGE) ? Duration.ofSeconds(json.getLong(MAX_AGE)) : null;
+			CacheableResponse<String> response = CacheableResponse.of(json.getString(JWKS),
+					json.optString(ETAG, null), json.optString(LAST_MODIFIED, null), maxAge);
+			return new Snapshot(URI.create(json.getString(JWKS_URI)), json.optString(ZONE_ID, null), response,
+					Instant.ofEpochMilli(json.getLong(FETCHED_AT)));
+		} catch (IOException | JSONException | IllegalArgumentException e) {
+			LOGGER.warn("Ignoring token key snapshot {} as it can not be read: {}", file, e.getMessage());
+			return null;
+		}
+	}
+
+	private static void moveAtomically(Path source, Path target) throws IOException {
+		try {
+			Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private static void deleteQuietly(@Nullable Path file) {
+		if (file != null) {
+			try {
+				Files.deleteIfExists(file);
+			} catch (IOException e) {
+				LOGGER.debug("Failed to delete {}: {}", file, e.getMessage());
+			}
+		}
+	}
+
+	static String getFileName(URI jwksUri, @Nullable String zoneId) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256")
+					.digest((jwksUri + "|" + zoneId).getBytes(StandardCharsets.UTF_8));
+			StringBuilder fileName = new StringBuilder(digest.length * 2 + FILE_SUFFIX.length());
+			for (byte b : digest) {
+				fileName.append(String.format("%02x", b));
+			}
+			return fileName.append(FILE_SUFFIX).toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not supported", e);
+		}
+	}
+
+	/**
+	 * The json web key set of a jwks URI and zone, together with the time it was
+	 * retrieved.
+	 */
+	static class Snapshot {
+		final URI jwksUri;
+		final String zoneId;
+		final CacheableResponse<String> response;
+		final Instant fetchedAt;
+
+		Snapshot(URI jwksUri, @Nullable String zoneId, CacheableResponse<String> response, Instant fetchedAt) {
+			this.jwksUri = jwksUri;
+			this.zoneId = zoneId;
+			this.response = response;
+			this.fetchedAt = fetchedAt;
+		}
+	}
+}
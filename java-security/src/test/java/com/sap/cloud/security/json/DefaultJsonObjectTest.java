@@ -170,6 +170,17 @@ public class DefaultJsonObjectTest {
 		assertThat(jsonObject.getAsString(KEY_1)).isNotNull();
 	}
 
+	@Test
+	public void getJsonObject_nestedObject_keepsProperties() {
+		cut = new DefaultJsonObject("{\"ext_attr\": {\"zdn\": \"subdomain\", \"attrs\": {\"a\": [\"b\"]}}}");
+
+		JsonObject jsonObject = cut.getJsonObject("ext_attr");
+
+		assertThat(jsonObject.getAsString("zdn")).isEqualTo("subdomain");
+		assertThat(jsonObject.getJsonObject("attrs").getAsStringList("a")).containsExactly("b");
+		assertThat(jsonObject.asJsonString()).isEqualTo(new DefaultJsonObject(jsonObject.asJsonString()).asJsonString());
+	}
+
 	@Test
 	public void getJsonObjects_propertyExists_returnsJsonObjects() {
 		cut = createJsonParser(KEY_1, "[" + createJsonObjectString(KEY_1, STRING_VALUE) + "]");
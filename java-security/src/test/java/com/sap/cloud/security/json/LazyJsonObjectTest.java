@@ -0,0 +1,181 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.json;
+
+import org.junit.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LazyJsonObjectTest {
+
+	private static final String JSON = "{\n"
+			+ "  \"string\": \"string text\",\n"
+			+ "  \"escaped\": \"a\\\"b\\\\c\\/d\\u00e4\\n\",\n"
+			+ "  \"number\": 1617235200,\n"
+			+ "  \"negative\": -42,\n"
+			+ "  \"decimal\": 1.5,\n"
+			+ "  \"numericString\": \"1617235200\",\n"
+			+ "  \"list\": [\"a\", \"b\", \"c\"],\n"
+			+ "  \"object\": {\"key\": \"value\", \"list\": [\"}\", \"]\"]},\n"
+			+ "  \"objects\": [{\"key\": \"value\"}],\n"
+			+ "  \"boolean\": true,\n"
+			+ "  \"null\": null\n"
+			+ "}";
+
+	private final LazyJsonObject cut = new LazyJsonObject(JSON);
+	private final DefaultJsonObject parsed = new DefaultJsonObject(JSON);
+
+	@Test
+	public void contains() {
+		assertThat(cut.contains("string")).isTrue();
+		assertThat(cut.contains("null")).isTrue();
+		assertThat(cut.contains("key")).isFalse();
+		assertThat(cut.contains("doesNotExist")).isFalse();
+	}
+
+	@Test
+	public void isEmpty() {
+		assertThat(cut.isEmpty()).isFalse();
+		assertThat(new LazyJsonObject("{}").isEmpty()).isTrue();
+		assertThat(new LazyJsonObject(" { } ").isEmpty()).isTrue();
+	}
+
+	@Test
+	public void getAsString_sameAsDefaultJsonObject() {
+		assertThat(cut.getAsString("string")).isEqualTo("string text");
+		assertThat(cut.getAsString("escaped")).isEqualTo(parsed.getAsString("escaped")).isEqualTo("a\"b\\c/dä\n");
+		assertThat(cut.getAsString("numericString")).isEqualTo("1617235200");
+		assertThat(cut.getAsString("doesNotExist")).isNull();
+	}
+
+	@Test
+	public void getAsString_notAString_throwsException() {
+		assertThatThrownBy(() -> cut.getAsString("number")).isInstanceOf(JsonParsingException.class);
+		assertThatThrownBy(() -> cut.getAsString("list")).isInstanceOf(JsonParsingException.class);
+		assertThatThrownBy(() -> cut.getAsString("null")).isInstanceOf(JsonParsingException.class);
+	}
+
+	@Test
+	public void getAsLong_sameAsDefaultJsonObject() {
+		assertThat(cut.getAsLong("number")).isEqualTo(1617235200L);
+		assertThat(cut.getAsLong("negative")).isEqualTo(-42L);
+		assertThat(cut.getAsLong("decimal")).isEqualTo(parsed.getAsLong("decimal"));
+		assertThat(cut.getAsLong("numericString")).isEqualTo(1617235200L);
+		assertThat(cut.getAsLong("doesNotExist")).isNull();
+		assertThatThrownBy(() -> cut.getAsLong("string")).isInstanceOf(JsonParsingException.class);
+	}
+
+	@Test
+	public void getAsInstant() {
+		assertThat(cut.getAsInstant("number")).isEqualTo(Instant.ofEpochSecond(1617235200L));
+		assertThat(cut.getAsInstant("numericString")).isEqualTo(Instant.ofEpochSecond(1617235200L));
+		assertThat(cut.getAsInstant("doesNotExist")).isNull();
+	}
+
+	@Test
+	public void getAsStringList() {
+		assertThat(cut.getAsStringList("list")).containsExactly("a", "b", "c");
+		assertThat(cut.getAsStringList("string")).containsExactly("string text");
+		assertThat(cut.getAsStringList("doesNotExist")).isEmpty();
+		assertThat(cut.getAsList("list", String.class)).containsExactly("a", "b", "c");
+		assertThatThrownBy(() -> cut.getAsList("list", Integer.class)).isInstanceOf(JsonParsingException.class);
+		assertThatThrownBy(() -> cut.getAsStringList("number")).isInstanceOf(JsonParsingException.class);
+	}
+
+	@Test
+	public void getJsonObject() {
+		assertThat(cut.getJsonObject("object").getAsString("key")).isEqualTo("value");
+		assertThat(cut.getJsonObject("object").getAsStringList("list")).containsExactly("}", "]");
+		assertThat(cut.getJsonObjects("objects")).hasSize(1);
+		assertThatThrownBy(() -> cut.getJsonObject("string")).isInstanceOf(JsonParsingException.class);
+	}
+
+	@Test
+	public void getJsonObject_isViewOnSameJson() {
+		JsonObject nested = cut.getJsonObject("object");
+
+		assertThat(nested).isInstanceOf(LazyJsonObject.class).isSameAs(cut.getJsonObject("object"));
+		assertThat(nested.getKeyValueMap()).isEqualTo(parsed.getJsonObject("object").getKeyValueMap());
+		assertThat(nested.asJsonString()).isEqualTo(parsed.getJsonObject("object").asJsonString());
+	}
+
+	@Test
+	public void getJsonObjects_areViewsOnSameJson() {
+		LazyJsonObject json = new LazyJsonObject("{\"objects\": [ {\"key\": \"a\"}, {\"key\": \"b\"} ], "
+				+ "\"empty\": [], \"mixed\": [{\"key\": \"a\"}, \"b\"]}");
+
+		assertThat(json.getJsonObjects("objects")).hasSize(2).allMatch(LazyJsonObject.class::isInstance);
+		assertThat(json.getJsonObjects("objects").get(1).getAsString("key")).isEqualTo("b");
+		assertThat(json.getJsonObjects("empty")).isEmpty();
+		assertThat(json.getJsonObjects("doesNotExist")).isEmpty();
+		assertThatThrownBy(() -> json.getJsonObjects("mixed")).isInstanceOf(JsonParsingException.class);
+	}
+
+	@Test
+	public void getKeyValueMap_sameAsDefaultJsonObject() {
+		assertThat(cut.getKeyValueMap()).isEqualTo(parsed.getKeyValueMap());
+		assertThat(cut.asJsonString()).isEqualTo(parsed.asJsonString());
+		assertThat(cut.toString()).isEqualTo(parsed.toString());
+	}
+
+	@Test
+	public void notStrictlyFormattedJson_isParsedLikeDefaultJsonObject() {
+		LazyJsonObject lenient = new LazyJsonObject("{key: 'value', number: '42'}");
+
+		assertThat(lenient.contains("key")).isTrue();
+		assertThat(lenient.getAsString("key")).isEqualTo("value");
+		assertThat(lenient.getAsLong("number")).isEqualTo(42L);
+	}
+
+	@Test
+	public void createWithMalformedJsonString_throwsException() {
+		assertThatThrownBy(() -> new LazyJsonObject("")).isInstanceOf(JsonParsingException.class);
+		assertThatThrownBy(() -> new LazyJsonObject("{\"key\": }")).isInstanceOf(JsonParsingException.class);
+		assertThatThrownBy(() -> new LazyJsonObject("{\"key\": \"value\"")).isInstanceOf(JsonParsingException.class);
+	}
+
+	@Test
+	public void createWithMalformedNestedJson_throwsException() {
+		assertThatThrownBy(() -> new LazyJsonObject("{\"aud\":[\"a\",\"b\"},\"exp\":1}"))
+				.isInstanceOf(JsonParsingException.class);
+		assertThatThrownBy(() -> new LazyJsonObject("{\"x\":{\"a\":1]}")).isInstanceOf(JsonParsingException.class);
+		assertThatThrownBy(() -> new LazyJsonObject("{\"x\":{\"a\" 1}}")).isInstanceOf(JsonParsingException.class);
+	}
+
+	@Test
+	public void createWithNotStrictlyFormattedValues_behavesLikeDefaultJsonObject() {
+		for (String json : new String[] { "{\"exp\":1x}", "{\"x\":[1,]}", "{\"x\":[01]}", "{\"x\":[1.]}" }) {
+			JsonObject lazyJsonObject;
+			try {
+				lazyJsonObject = new LazyJsonObject(json);
+			} catch (JsonParsingException e) {
+				assertThatThrownBy(() -> new DefaultJsonObject(json)).as(json)
+						.isInstanceOf(JsonParsingException.class);
+				continue;
+			}
+			DefaultJsonObject defaultJsonObject = new DefaultJsonObject(json);
+			assertThat(lazyJsonObject.getKeyValueMap()).as(json).isEqualTo(defaultJsonObject.getKeyValueMap());
+			assertThat(lazyJsonObject.asJsonString()).as(json).isEqualTo(defaultJsonObject.asJsonString());
+		}
+	}
+
+	@Test
+	public void createWithValidNestedJson_isIndexed() {
+		LazyJsonObject json = new LazyJsonObject("{\"x\": {\"a\": [1.5e-3, -0, 2E+10, true, false, null, {}]}}");
+
+		assertThat(json.getJsonObject("x").getAsList("a", Object.class)).hasSize(7);
+		assertThat(json.getAsList("doesNotExist", String.class)).isEmpty();
+	}
+
+	@Test
+	public void createWithDuplicateKeys_throwsException() {
+		assertThatThrownBy(() -> new LazyJsonObject("{\"key\": 1, \"key\": 2}"))
+				.isInstanceOf(JsonParsingException.class);
+	}
+}
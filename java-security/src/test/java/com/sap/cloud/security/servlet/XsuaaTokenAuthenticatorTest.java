@@ -160,6 +160,27 @@ public class XsuaaTokenAuthenticatorTest {
 		assertThat(((XsuaaToken) response.getToken()).hasLocalScope("test")).isFalse();
 	}
 
+	@Test
+	public void withWarmUp_retrievesTokenKeysBeforeFirstRequest() throws IOException {
+		OAuth2ServiceConfiguration configuration = OAuth2ServiceConfigurationBuilder
+				.forService(Service.XSUAA)
+				.withDomains("auth.com")
+				.withProperty(XSUAA.APP_ID, "appId")
+				.withClientId("clientId")
+				.withUrl("http://auth.com") // the token keys are prefetched for the jku of the token
+				.build();
+		cut = new XsuaaTokenAuthenticator()
+				.withHttpClient(mockHttpClient)
+				.withServiceConfiguration(configuration)
+				.withWarmUp(2);
+
+		Mockito.verify(mockHttpClient, times(1)).execute(any(HttpGet.class));
+
+		HttpServletRequest httpRequest = createRequestWithToken(xsuaaToken.getTokenValue());
+		assertThat(cut.validateRequest(httpRequest, HTTP_RESPONSE).isAuthenticated()).isTrue();
+		Mockito.verify(mockHttpClient, times(1)).execute(any(HttpGet.class));
+	}
+
 	@Test
 	public void validateRequest_validToken_listenerIsCalled() {
 		HttpServletRequest httpRequest = createRequestWithToken(xsuaaToken.getTokenValue());
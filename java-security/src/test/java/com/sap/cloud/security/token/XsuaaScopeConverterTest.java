@@ -62,6 +62,24 @@ public class XsuaaScopeConverterTest {
 		assertThat(translatedScope).containsExactly("Read.Context", "Write.Context");
 	}
 
+	@Test
+	public void ignoresScopesWithoutLocalName() {
+		Collection<String> scope = newArrayList("myAppId!t1785.", "myAppId!t1785", "otherAppId!t1785.Read");
+
+		Collection<String> translatedScope = cut.convert(scope);
+
+		assertThat(translatedScope).isEmpty();
+	}
+
+	@Test
+	public void appIdIsMatchedLiterally() {
+		Collection<String> scope = newArrayList("my.app!t1.Read", "myXapp!t1.Read");
+
+		Collection<String> translatedScope = new XsuaaScopeConverter("my.app!t1").convert(scope);
+
+		assertThat(translatedScope).containsExactly("Read");
+	}
+
 	@Test
 	public void noScopes_emptyCollection() {
 		Collection<String> scope = newArrayList();
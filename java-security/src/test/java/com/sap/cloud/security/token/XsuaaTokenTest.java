@@ -66,6 +66,19 @@ public class XsuaaTokenTest {
 		assertThat(clientCredentialsToken.hasLocalScope("resource")).isTrue();
 	}
 
+	@Test
+	public void hasLocalScope_convertsScopesOncePerScopeConverter() {
+		ScopeConverter converter = Mockito.spy(new XsuaaScopeConverter("uaa"));
+		clientCredentialsToken.withScopeConverter(converter);
+
+		assertThat(clientCredentialsToken.hasLocalScope("resource")).isTrue();
+		assertThat(clientCredentialsToken.hasLocalScope("other")).isFalse();
+		Mockito.verify(converter, Mockito.times(1)).convert(Mockito.anyCollection());
+
+		clientCredentialsToken.withScopeConverter(new XsuaaScopeConverter("other"));
+		assertThat(clientCredentialsToken.hasLocalScope("resource")).isFalse();
+	}
+
 	@Test
 	public void getUserPrincipal() {
 		assertThat(userToken.getClaimAsString(TokenClaims.USER_NAME)).isEqualTo("testUser");
@@ -6,10 +6,17 @@
 package com.sap.cloud.security.token.validation;
 
 import com.sap.cloud.security.token.Token;
+import com.sap.cloud.security.xsuaa.metrics.SecurityMeterBinder;
+import com.sap.cloud.security.xsuaa.metrics.SecurityMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Test;
 import org.mockito.Mockito;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
@@ -116,4 +123,116 @@ public class CombiningValidatorTest {
 
 		assertThat(cut.getValidators()).containsExactly(validator1, validator2);
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void validateAll_returnsResultsInOrderOfObjects() {
+		CombiningValidator<String> cut = new CombiningValidator<>(
+				(Validator<String>) s -> s.startsWith("valid") ? ValidationResults.createValid()
+						: ValidationResults.createInvalid(s));
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<ValidationResult> results = cut.validateAll(
+					Arrays.asList("valid-1", "invalid-2", "valid-3", "invalid-4", "valid-5"), executor);
+
+			assertThat(results).extracting(ValidationResult::isValid).containsExactly(true, false, true, false, true);
+			assertThat(results.get(1).getErrorDescription()).isEqualTo("invalid-2");
+			assertThat(results.get(3).getErrorDescription()).isEqualTo("invalid-4");
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void validateAll_validatorThrowsException_onlyThisResultIsInvalid() {
+		CombiningValidator<String> cut = new CombiningValidator<>((Validator<String>) s -> {
+			if (s.isEmpty()) {
+				throw new IllegalArgumentException("empty");
+			}
+			return ValidationResults.createValid();
+		});
+
+		List<ValidationResult> results = cut.validateAll(Arrays.asList("a", "", "b"));
+
+		assertThat(results).extracting(ValidationResult::isValid).containsExactly(true, false, true);
+		assertThat(results.get(1).getErrorDescription()).contains("empty");
+	}
+
+	@Test
+	public void validateAll_callsListenerForEachObject() {
+		CombiningValidator<Token> cut = new CombiningValidator<>(TokenTestValidator.createValid());
+		ValidationListener validationListenerMock = Mockito.mock(ValidationListener.class);
+		cut.registerValidationListener(validationListenerMock);
+
+		cut.validateAll(Arrays.asList(TOKEN, TOKEN, TOKEN));
+
+		Mockito.verify(validationListenerMock, times(3)).onValidationSuccess();
+	}
+
+	@Test
+	public void validateAsync_stopsAfterFirstInvalidResult() {
+		Validator<Token> lastValidator = Mockito.mock(Validator.class);
+		CombiningValidator<Token> cut = new CombiningValidator<>(TokenTestValidator.createValid(),
+				TokenTestValidator.createInvalid(FIRST_ERROR_MESSAGE), lastValidator);
+		ValidationListener validationListenerMock = Mockito.mock(ValidationListener.class);
+		cut.registerValidationListener(validationListenerMock);
+
+		ValidationResult result = cut.validateAsync(TOKEN).toCompletableFuture().join();
+
+		assertThat(result.getErrorDescription()).isEqualTo(FIRST_ERROR_MESSAGE);
+		Mockito.verify(validationListenerMock, times(1)).onValidationError(result);
+		Mockito.verifyNoInteractions(lastValidator);
+	}
+
+	@Test
+	public void validateAsync_validValidators_callsOnValidationSuccess() {
+		CombiningValidator<Token> cut = new CombiningValidator<>(TokenTestValidator.createValid(),
+				TokenTestValidator.createValid());
+		ValidationListener validationListenerMock = Mockito.mock(ValidationListener.class);
+		cut.registerValidationListener(validationListenerMock);
+
+		assertThat(cut.validateAsync(TOKEN).toCompletableFuture().join().isValid()).isTrue();
+		Mockito.verify(validationListenerMock, times(1)).onValidationSuccess();
+	}
+
+	@Test
+	public void validate_meterBinderBound_recordsValidationAndValidatorTimers() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		new SecurityMeterBinder().bindTo(registry);
+		try {
+			Validator<Token> invalidValidator = TokenTestValidator.createInvalid(FIRST_ERROR_MESSAGE);
+			CombiningValidator<Token> cut = new CombiningValidator<>(TokenTestValidator.createValid(),
+					invalidValidator);
+
+			assertThat(cut.validate(TOKEN).isErroneous()).isTrue();
+
+			assertThat(registry.get(SecurityMetrics.TOKEN_VALIDATIONS)
+					.tags("service", "unknown", "result", "invalid").timer().count()).isEqualTo(1);
+			assertThat(registry.get(SecurityMetrics.TOKEN_VALIDATORS)
+					.tags("validator", invalidValidator.getClass().getSimpleName(), "result", "invalid").timer()
+					.count()).isEqualTo(1);
+			assertThat(registry.find(SecurityMetrics.TOKEN_VALIDATORS).timers()).hasSize(2);
+		} finally {
+			SecurityMeterBinder.unbind();
+		}
+	}
+
+	@Test
+	public void validateAsync_meterBinderBound_recordsValidationAndValidatorTimers() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		new SecurityMeterBinder().bindTo(registry);
+		try {
+			Validator<Token> validValidator = TokenTestValidator.createValid();
+			CombiningValidator<Token> cut = new CombiningValidator<>(validValidator);
+
+			assertThat(cut.validateAsync(TOKEN).toCompletableFuture().join().isValid()).isTrue();
+
+			assertThat(registry.get(SecurityMetrics.TOKEN_VALIDATIONS)
+					.tags("service", "unknown", "result", "valid").timer().count()).isEqualTo(1);
+			assertThat(registry.get(SecurityMetrics.TOKEN_VALIDATORS)
+					.tags("validator", validValidator.getClass().getSimpleName(), "result", "valid").timer()
+					.count()).isEqualTo(1);
+		} finally {
+			SecurityMeterBinder.unbind();
+		}
+	}
+}
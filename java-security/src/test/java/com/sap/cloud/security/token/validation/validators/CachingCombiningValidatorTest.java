@@ -0,0 +1,208 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.token.validation.validators;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.sap.cloud.security.config.CacheConfiguration;
+import com.sap.cloud.security.token.Token;
+import com.sap.cloud.security.token.validation.ValidationListener;
+import com.sap.cloud.security.token.validation.ValidationResults;
+import com.sap.cloud.security.token.validation.Validator;
+import com.sap.cloud.security.xsuaa.metrics.SecurityMeterBinder;
+import com.sap.cloud.security.xsuaa.metrics.SecurityMetrics;
+import com.sap.cloud.security.xsuaa.tokenflows.TokenCacheConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CachingCombiningValidatorTest {
+
+	private static final CacheConfiguration CACHE_CONFIGURATION = TokenCacheConfiguration
+			.getInstance(Duration.ofMinutes(5), 100, Duration.ZERO, true);
+
+	private Validator<Token> validatorMock;
+	private TestCacheTicker testCacheTicker;
+	private CachingCombiningValidator cut;
+
+	@Before
+	public void setUp() {
+		validatorMock = mock(Validator.class);
+		when(validatorMock.validate(any())).thenReturn(ValidationResults.createValid());
+		testCacheTicker = new TestCacheTicker();
+		cut = new CachingCombiningValidator(Collections.singletonList(validatorMock), CACHE_CONFIGURATION,
+				testCacheTicker);
+	}
+
+	@Test
+	public void validate_sameToken_validatedOnlyOnce() {
+		Token token = createToken("token-1", Duration.ofHours(1));
+
+		assertThat(cut.validate(token).isValid()).isTrue();
+		assertThat(cut.validate(token).isValid()).isTrue();
+
+		verify(validatorMock, times(1)).validate(token);
+	}
+
+	@Test
+	public void validateAsync_sameToken_validatedOnlyOnce() {
+		when(validatorMock.validateAsync(any(), any())).thenCallRealMethod();
+		Token token = createToken("token-1", Duration.ofHours(1));
+
+		assertThat(cut.validateAsync(token).toCompletableFuture().join().isValid()).isTrue();
+		assertThat(cut.validateAsync(token).toCompletableFuture().join().isValid()).isTrue();
+		assertThat(cut.validate(token).isValid()).isTrue();
+
+		verify(validatorMock, times(1)).validate(token);
+	}
+
+	@Test
+	public void validate_differentTokens_validatedSeparately() {
+		Token token1 = createToken("token-1", Duration.ofHours(1));
+		Token token2 = createToken("token-2", Duration.ofHours(1));
+
+		cut.validate(token1);
+		cut.validate(token2);
+
+		verify(validatorMock, times(1)).validate(token1);
+		verify(validatorMock, times(1)).validate(token2);
+	}
+
+	@Test
+	public void validate_invalidToken_isNotCached() {
+		Token token = createToken("token-1", Duration.ofHours(1));
+		when(validatorMock.validate(token)).thenReturn(ValidationResults.createInvalid("invalid"));
+
+		assertThat(cut.validate(token).isErroneous()).isTrue();
+		assertThat(cut.validate(token).isErroneous()).isTrue();
+
+		verify(validatorMock, times(2)).validate(token);
+	}
+
+	@Test
+	public void validate_afterCacheDuration_validatedAgain() {
+		Token token = createToken("token-1", Duration.ofHours(1));
+
+		cut.validate(token);
+		testCacheTicker.advance(CACHE_CONFIGURATION.getCacheDuration());
+		cut.validate(token);
+
+		verify(validatorMock, times(2)).validate(token);
+	}
+
+	@Test
+	public void validate_afterTokenExpiration_validatedAgain() {
+		Token token = createToken("token-1", Duration.ofMinutes(1));
+
+		cut.validate(token);
+		testCacheTicker.advance(Duration.ofSeconds(59));
+		cut.validate(token);
+		testCacheTicker.advance(Duration.ofSeconds(2));
+		cut.validate(token);
+
+		verify(validatorMock, times(2)).validate(token);
+	}
+
+	@Test
+	public void validate_cacheHit_notifiesListener() {
+		ValidationListener listenerMock = mock(ValidationListener.class);
+		cut.registerValidationListener(listenerMock);
+		Token token = createToken("token-1", Duration.ofHours(1));
+
+		cut.validate(token);
+		cut.validate(token);
+
+		verify(listenerMock, times(2)).onValidationSuccess();
+		verifyNoMoreInteractions(listenerMock);
+	}
+
+	@Test
+	public void validate_cacheHit_isRecordedAsValidation() {
+		when(validatorMock.validateAsync(any(), any())).thenCallRealMethod();
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		new SecurityMeterBinder().bindTo(registry);
+		try {
+			Token token = createToken("token-1", Duration.ofHours(1));
+
+			cut.validate(token);
+			cut.validate(token);
+			cut.validateAsync(token).toCompletableFuture().join();
+
+			assertThat(registry.get(SecurityMetrics.TOKEN_VALIDATIONS)
+					.tags("service", "unknown", "result", "valid").timer().count()).isEqualTo(3);
+			assertThat(registry.get(SecurityMetrics.CACHE_REQUESTS)
+					.tags("cache", SecurityMetrics.CACHE_VALIDATION_RESULTS, "result", "hit").counter().count())
+							.isEqualTo(2);
+			verify(validatorMock, times(1)).validate(token);
+		} finally {
+			SecurityMeterBinder.unbind();
+		}
+	}
+
+	@Test
+	public void validate_cacheDisabled_alwaysValidates() {
+		cut = new CachingCombiningValidator(Collections.singletonList(validatorMock),
+				TokenCacheConfiguration.cacheDisabled(), testCacheTicker);
+		Token token = createToken("token-1", Duration.ofHours(1));
+
+		cut.validate(token);
+		cut.validate(token);
+
+		verify(validatorMock, times(2)).validate(token);
+	}
+
+	@Test
+	public void getCacheStatistics() {
+		Token token = createToken("token-1", Duration.ofHours(1));
+
+		cut.validate(token);
+		cut.validate(token);
+		cut.validate(token);
+
+		CacheStats stats = (CacheStats) cut.getCacheStatistics();
+		assertThat(stats.missCount()).isEqualTo(1);
+		assertThat(stats.hitCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void clearCache() {
+		Token token = createToken("token-1", Duration.ofHours(1));
+
+		cut.validate(token);
+		cut.clearCache();
+		cut.validate(token);
+
+		verify(validatorMock, times(2)).validate(token);
+	}
+
+	private static Token createToken(String tokenValue, Duration expiresIn) {
+		Token token = mock(Token.class);
+		when(token.getTokenValue()).thenReturn(tokenValue);
+		when(token.getExpiration()).thenReturn(Instant.now().plus(expiresIn));
+		return token;
+	}
+
+	private static class TestCacheTicker implements Ticker {
+		long elapsed = 0;
+
+		@Override
+		public long read() {
+			return elapsed;
+		}
+
+		public void advance(Duration duration) {
+			this.elapsed = elapsed + duration.toNanos();
+		}
+	}
+}
@@ -176,6 +176,38 @@ public class JwtAudienceValidatorTest {
 				.isEqualTo("Jwt token with audience [] is not issued for these clientIds: [any].");
 	}
 
+	@Test
+	public void validate_trimmedAppIdOfAudienceMatchesClientId() {
+		Mockito.when(token.getAudiences()).thenReturn(Sets.newLinkedHashSet(" sb-test4!t1 .data"));
+		Mockito.when(token.getClientId()).thenReturn("other");
+
+		assertThat(new JwtAudienceValidator("sb-test4!t1").validate(token).isValid()).isTrue();
+		assertThat(new JwtAudienceValidator("sb-test4").validate(token).isValid()).isFalse();
+	}
+
+	@Test
+	public void validate_appIdOfScopeMatchesTrustedBrokerClientId() {
+		Mockito.when(token.getAudiences()).thenReturn(Collections.emptySet());
+		Mockito.when(token.hasClaim(TokenClaims.AUTHORIZATION_PARTY)).thenReturn(false);
+		Mockito.when(token.getClaimAsStringList(TokenClaims.XSUAA.SCOPES))
+				.thenReturn(Collections.singletonList("sb-clone-app-id!b123|" + XSUAA_BROKER_XSAPPNAME + ".read"));
+
+		assertThat(new JwtAudienceValidator(XSUAA_BROKER_XSAPPNAME).validate(token).isValid()).isTrue();
+		assertThat(new JwtAudienceValidator("sb-clone-app-id!b123").validate(token).isValid()).isFalse();
+	}
+
+	@Test
+	public void validate_brokerCloneAudienceRequiresSeparator() {
+		Mockito.when(token.getAudiences())
+				.thenReturn(Sets.newLinkedHashSet("|" + XSUAA_BROKER_XSAPPNAME, "x" + XSUAA_BROKER_XSAPPNAME));
+		Mockito.when(token.getClientId()).thenReturn("x" + XSUAA_BROKER_XSAPPNAME);
+
+		assertThat(new JwtAudienceValidator(XSUAA_BROKER_XSAPPNAME).validate(token).isValid()).isTrue();
+
+		Mockito.when(token.getAudiences()).thenReturn(Sets.newLinkedHashSet("x" + XSUAA_BROKER_XSAPPNAME));
+		assertThat(new JwtAudienceValidator(XSUAA_BROKER_XSAPPNAME).validate(token).isValid()).isFalse();
+	}
+
 	@Test
 	public void extractAudiencesFromTokenScopes() {
 		ArrayList<String> scopes = new ArrayList();
@@ -9,6 +9,7 @@ import com.sap.cloud.security.config.OAuth2ServiceConfiguration;
 import com.sap.cloud.security.config.Service;
 import com.sap.cloud.security.token.SapIdToken;
 import com.sap.cloud.security.token.Token;
+import com.sap.cloud.security.token.validation.CombiningValidator;
 import com.sap.cloud.security.token.validation.ValidationResult;
 import com.sap.cloud.security.xsuaa.client.*;
 import org.apache.commons.io.IOUtils;
@@ -18,6 +19,12 @@ import org.mockito.Mockito;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Pattern;
 
 import static java.nio.charset.StandardCharsets.*;
@@ -26,6 +33,9 @@ import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class JwtSignatureValidatorTest {
@@ -36,6 +46,7 @@ public class JwtSignatureValidatorTest {
 
 	private JwtSignatureValidator cut;
 	private OAuth2TokenKeyService tokenKeyServiceMock;
+	private OidcConfigurationService oidcConfigServiceMock;
 
 	@Before
 	public void setup() throws IOException {
@@ -55,7 +66,7 @@ public class JwtSignatureValidatorTest {
 		OAuth2ServiceEndpointsProvider endpointsProviderMock = Mockito.mock(OAuth2ServiceEndpointsProvider.class);
 		when(endpointsProviderMock.getJwksUri()).thenReturn(DUMMY_JKU_URI);
 
-		OidcConfigurationService oidcConfigServiceMock = Mockito.mock(OidcConfigurationService.class);
+		oidcConfigServiceMock = Mockito.mock(OidcConfigurationService.class);
 		when(oidcConfigServiceMock.retrieveEndpoints(any())).thenReturn(endpointsProviderMock);
 
 		cut = new JwtSignatureValidator(
@@ -106,6 +117,82 @@ public class JwtSignatureValidatorTest {
 		assertTrue(cut.validate(iasToken).isValid());
 	}
 
+	@Test
+	public void validateAll_retrievesKeysAndOidcConfigurationOncePerBatch() throws OAuth2ServiceException {
+		List<Token> tokens = Collections.nCopies(100, iasToken);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<ValidationResult> results = new CombiningValidator<>(cut).validateAll(tokens, executor);
+
+			assertTrue(results.stream().allMatch(ValidationResult::isValid));
+			verify(oidcConfigServiceMock, times(1)).retrieveEndpoints(any());
+			verify(tokenKeyServiceMock, times(1)).retrieveTokenKeys(any(), any());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void validateAsync_retrievesKeysOnExecutor() throws OAuth2ServiceException, IOException {
+		AtomicReference<Thread> retrievingThread = new AtomicReference<>();
+		String jwks = IOUtils.resourceToString("/iasJsonWebTokenKeys.json", UTF_8);
+		when(tokenKeyServiceMock.retrieveTokenKeys(any(), any())).thenAnswer(invocation -> {
+			retrievingThread.set(Thread.currentThread());
+			return jwks;
+		});
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			ValidationResult result = cut.validateAsync(iasToken, executor).toCompletableFuture().join();
+
+			assertTrue(result.isValid());
+			assertThat(retrievingThread.get(), not(Thread.currentThread()));
+			CompletableFuture<ValidationResult> cachedResult = cut.validateAsync(iasToken, executor)
+					.toCompletableFuture();
+			assertTrue(cachedResult.isDone()); // keys are cached, no retrieval
+			assertTrue(cachedResult.join().isValid());
+			verify(tokenKeyServiceMock, times(1)).retrieveTokenKeys(any(), any());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void validateAsync_retrievalFails_invalidResult() throws OAuth2ServiceException {
+		when(tokenKeyServiceMock.retrieveTokenKeys(any(), any())).thenThrow(new OAuth2ServiceException("down"));
+
+		ValidationResult result = cut.validateAsync(iasToken, Runnable::run).toCompletableFuture().join();
+
+		assertTrue(result.isErroneous());
+		assertThat(result.getErrorDescription(),
+				startsWith("Error retrieving Json Web Keys from Identity Service: down"));
+	}
+
+	@Test
+	public void validateAsync_oidcConfigurationCanNotBeRetrieved_invalidResult() throws OAuth2ServiceException {
+		when(oidcConfigServiceMock.retrieveEndpoints(any())).thenThrow(new OAuth2ServiceException("down"));
+
+		ValidationResult result = cut.validateAsync(iasToken, Runnable::run).toCompletableFuture().join();
+
+		assertTrue(result.isErroneous());
+		assertThat(result.getErrorDescription(), startsWith("Error occurred during jwks uri determination: down"));
+	}
+
+	@Test
+	public void validateAsync_jwksUriCanNotBeDetermined_invalidResult() throws OAuth2ServiceException {
+		OAuth2ServiceEndpointsProvider endpointsProviderMock = Mockito.mock(OAuth2ServiceEndpointsProvider.class);
+		when(oidcConfigServiceMock.retrieveEndpoints(any())).thenReturn(endpointsProviderMock);
+
+		CompletableFuture<ValidationResult> result = cut.validateAsync(iasToken, Runnable::run)
+				.toCompletableFuture();
+
+		assertTrue(result.isDone());
+		assertTrue(result.join().isErroneous());
+		assertThat(result.join().getErrorDescription(),
+				startsWith("Error occurred during jwks uri determination: Token signature can not be validated"));
+		verify(oidcConfigServiceMock, times(1)).retrieveEndpoints(any());
+		verify(tokenKeyServiceMock, never()).retrieveTokenKeys(any(), any());
+	}
+
 	@Test
 	public void validationFails_whenJwtPayloadModified() {
 		String[] tokenHeaderPayloadSignature = iasToken.getTokenValue().split(Pattern.quote("."));
@@ -128,7 +215,7 @@ public class JwtSignatureValidatorTest {
 				DUMMY_JKU_URI.toString(), null, null);
 		assertThat(result.isErroneous(), is(true));
 		assertThat(result.getErrorDescription(),
-				containsString("Jwt token does not consist of 'header'.'payload'.'signature'."));
+				containsString("does not consist of 'header'.'payload'.'signature'."));
 	}
 
 	@Test
@@ -10,6 +10,8 @@ import com.sap.cloud.security.config.OAuth2ServiceConfigurationBuilder;
 import com.sap.cloud.security.config.cf.CFConstants;
 import com.sap.cloud.security.token.Token;
 import com.sap.cloud.security.token.validation.*;
+import com.sap.cloud.security.xsuaa.tokenflows.Cacheable;
+import com.sap.cloud.security.xsuaa.tokenflows.TokenCacheConfiguration;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -17,6 +19,7 @@ import org.junit.runner.RunWith;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -24,6 +27,7 @@ import java.util.List;
 import static com.sap.cloud.security.config.Service.IAS;
 import static com.sap.cloud.security.config.Service.XSUAA;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @RunWith(MockitoJUnitRunner.class)
 public class JwtValidatorBuilderTest {
@@ -120,6 +124,30 @@ public class JwtValidatorBuilderTest {
 				.contains(tokenValidator);
 	}
 
+	@Test
+	public void withValidationResultCache_buildsCacheableValidator() {
+		JwtValidatorBuilder builder = JwtValidatorBuilder.getInstance(xsuaaConfigBuilder.build());
+
+		CombiningValidator<Token> validator = builder
+				.withValidationResultCache(TokenCacheConfiguration.defaultConfiguration())
+				.build();
+		assertThat(validator).isInstanceOf(Cacheable.class);
+
+		validator = builder.withValidationResultCache(null).build();
+		assertThat(validator).isNotInstanceOf(Cacheable.class);
+	}
+
+	@Test
+	public void withStaleIfError_notPositive_throwsException() {
+		JwtValidatorBuilder builder = JwtValidatorBuilder.getInstance(xsuaaConfigBuilder.build());
+
+		assertThatThrownBy(() -> builder.withStaleIfError(null)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> builder.withStaleIfError(Duration.ZERO))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageContaining("grace period");
+		assertThatThrownBy(() -> builder.withStaleIfError(Duration.ofSeconds(-1)))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
 	@Test
 	public void configureOtherServiceInstances() {
 		Collection clientIds = new ArrayList();
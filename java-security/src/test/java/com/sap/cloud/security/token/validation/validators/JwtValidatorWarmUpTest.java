@@ -0,0 +1,130 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.token.validation.validators;
+
+import static com.sap.cloud.security.config.Service.IAS;
+import static com.sap.cloud.security.config.Service.XSUAA;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.sap.cloud.security.config.OAuth2ServiceConfiguration;
+import com.sap.cloud.security.config.OAuth2ServiceConfigurationBuilder;
+import com.sap.cloud.security.token.Token;
+import com.sap.cloud.security.token.validation.ValidationListener;
+import com.sap.cloud.security.token.validation.Validator;
+import com.sap.cloud.security.xsuaa.client.OAuth2ServiceEndpointsProvider;
+import com.sap.cloud.security.xsuaa.client.OAuth2ServiceException;
+import com.sap.cloud.security.xsuaa.client.OAuth2TokenKeyService;
+import com.sap.cloud.security.xsuaa.client.OidcConfigurationService;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JwtValidatorWarmUpTest {
+
+	private static final URI XSUAA_TOKEN_KEYS_URI = URI.create("https://paas.auth.com/token_keys");
+	private static final URI IAS_DISCOVERY_URI = URI
+			.create("https://application.myauth.com/.well-known/openid-configuration");
+	private static final URI IAS_JWKS_URI = URI.create("https://application.myauth.com/oauth2/certs");
+
+	private OAuth2TokenKeyService tokenKeyServiceMock;
+	private OidcConfigurationService oidcConfigurationServiceMock;
+	private OAuth2ServiceConfiguration xsuaaConfiguration;
+
+	@Before
+	public void setup() throws IOException {
+		String jwks = IOUtils.resourceToString("/jsonWebTokenKeys.json", StandardCharsets.UTF_8);
+		tokenKeyServiceMock = mock(OAuth2TokenKeyService.class);
+		when(tokenKeyServiceMock.retrieveTokenKeys(any(), any())).thenReturn(jwks);
+
+		OAuth2ServiceEndpointsProvider endpointsProviderMock = mock(OAuth2ServiceEndpointsProvider.class);
+		when(endpointsProviderMock.getJwksUri()).thenReturn(IAS_JWKS_URI);
+		oidcConfigurationServiceMock = mock(OidcConfigurationService.class);
+		when(oidcConfigurationServiceMock.retrieveEndpoints(IAS_DISCOVERY_URI)).thenReturn(endpointsProviderMock);
+
+		xsuaaConfiguration = OAuth2ServiceConfigurationBuilder.forService(XSUAA)
+				.withUrl("https://paas.auth.com")
+				.withProperty("uaadomain", "auth.com")
+				.withProperty("identityzoneid", "paas-zone")
+				.withClientId("sb-warm-up!t1")
+				.build();
+	}
+
+	@Test
+	public void xsuaa_retrievesTokenKeysAndVerifiesSyntheticToken() throws OAuth2ServiceException {
+		List<Validator<Token>> validators = new ArrayList<>();
+		validators.add(new JwtTimestampValidator());
+		validators.add(new XsuaaJkuValidator("auth.com"));
+		validators.add(new JwtAudienceValidator("sb-warm-up!t1"));
+
+		assertThat(createCut(xsuaaConfiguration, validators).run(3)).isEqualTo(3);
+		verify(tokenKeyServiceMock, times(1)).retrieveTokenKeys(XSUAA_TOKEN_KEYS_URI, "paas-zone");
+		verifyNoInteractions(oidcConfigurationServiceMock);
+	}
+
+	@Test
+	public void ias_retrievesOidcConfigurationOnly() throws OAuth2ServiceException {
+		OAuth2ServiceConfiguration iasConfiguration = OAuth2ServiceConfigurationBuilder.forService(IAS)
+				.withUrl("https://application.myauth.com")
+				.withClientId("warm-up")
+				.build();
+
+		assertThat(createCut(iasConfiguration, Collections.emptyList()).run(2)).isEqualTo(2);
+		verify(oidcConfigurationServiceMock, times(1)).retrieveEndpoints(IAS_DISCOVERY_URI);
+		verifyNoInteractions(tokenKeyServiceMock); // token keys are cached per zone of the tokens
+	}
+
+	@Test
+	public void tokenKeysCanNotBeRetrieved_verifiesSyntheticTokenAnyway() throws OAuth2ServiceException {
+		when(tokenKeyServiceMock.retrieveTokenKeys(any(), any())).thenThrow(new OAuth2ServiceException("down"));
+
+		assertThat(createCut(xsuaaConfiguration, Collections.emptyList()).run(2)).isEqualTo(2);
+	}
+
+	@Test
+	public void builder_warmsUpWithoutNotifyingListeners() throws OAuth2ServiceException {
+		ValidationListener listenerMock = mock(ValidationListener.class);
+		OAuth2ServiceConfiguration configuration = OAuth2ServiceConfigurationBuilder.forService(XSUAA)
+				.withUrl("https://warm-up.auth.com")
+				.withProperty("uaadomain", "auth.com")
+				.withClientId("sb-warm-up-builder!t1")
+				.build();
+
+		JwtValidatorBuilder.getInstance(configuration)
+				.withOAuth2TokenKeyService(tokenKeyServiceMock)
+				.withValidatorListener(listenerMock)
+				.withWarmUp(5)
+				.build();
+
+		verify(tokenKeyServiceMock, times(1)).retrieveTokenKeys(URI.create("https://warm-up.auth.com/token_keys"),
+				null);
+		verifyNoInteractions(listenerMock);
+	}
+
+	@Test
+	public void builder_negativeIterations_throwsException() {
+		assertThatThrownBy(() -> JwtValidatorBuilder.getInstance(xsuaaConfiguration).withWarmUp(-1))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private JwtValidatorWarmUp createCut(OAuth2ServiceConfiguration configuration,
+			List<Validator<Token>> validators) {
+		return new JwtValidatorWarmUp(configuration,
+				OAuth2TokenKeyServiceWithCache.getInstance().withTokenKeyService(tokenKeyServiceMock),
+				OidcConfigurationServiceWithCache.getInstance()
+						.withOidcConfigurationService(oidcConfigurationServiceMock),
+				validators);
+	}
+}
@@ -18,15 +18,35 @@ import java.nio.charset.StandardCharsets;
 import java.security.NoSuchAlgorithmException;
 import java.security.PublicKey;
 import java.security.spec.InvalidKeySpecException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
 import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import com.github.benmanes.caffeine.cache.Ticker;
 import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.sap.cloud.security.xsuaa.client.CacheableResponse;
+import com.sap.cloud.security.xsuaa.client.DefaultOAuth2TokenKeyService;
 import com.sap.cloud.security.xsuaa.client.OAuth2ServiceException;
 import com.sap.cloud.security.xsuaa.client.OAuth2TokenKeyService;
+import com.sap.cloud.security.xsuaa.metrics.SecurityMeterBinder;
+import com.sap.cloud.security.xsuaa.metrics.SecurityMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.commons.io.IOUtils;
+import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class OAuth2TokenKeyServiceWithCacheTest {
 
@@ -38,6 +58,10 @@ public class OAuth2TokenKeyServiceWithCacheTest {
 	URI TOKEN_KEYS_URI = URI.create("https://myauth.com/jwks_uri");
 	String ZONE_ID = "zone_uuid";
 	private TestCacheTicker testCacheTicker;
+	private SimpleMeterRegistry meterRegistry;
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
 
 	@Before
 	public void setup() throws IOException {
@@ -47,6 +71,13 @@ public class OAuth2TokenKeyServiceWithCacheTest {
 
 		testCacheTicker = new TestCacheTicker();
 		cut = createCut(CACHE_CONFIGURATION);
+		meterRegistry = new SimpleMeterRegistry();
+		new SecurityMeterBinder().bindTo(meterRegistry);
+	}
+
+	@After
+	public void tearDown() {
+		SecurityMeterBinder.unbind();
 	}
 
 	@Test
@@ -166,13 +197,363 @@ public class OAuth2TokenKeyServiceWithCacheTest {
 		verify(tokenKeyServiceMock, times(2)).retrieveTokenKeys(any(), eq(ZONE_ID));
 	}
 
+	@Test
+	public void retrieveTokenKeys_replacesKeySetAsWhole()
+			throws IOException, InvalidKeySpecException, NoSuchAlgorithmException {
+		cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID);
+		when(tokenKeyServiceMock.retrieveTokenKeys(eq(TOKEN_KEYS_URI), any()))
+				.thenReturn(IOUtils.resourceToString("/iasJsonWebTokenKeys.json", StandardCharsets.UTF_8));
+
+		PublicKey rotatedKey = cut.getPublicKey(JwtSignatureAlgorithm.RS256, "default-kid-ias", TOKEN_KEYS_URI,
+				ZONE_ID);
+		testCacheTicker.advance(Duration.ofSeconds(5)); // minimum interval between retrievals for unknown key ids
+		PublicKey removedKey = cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-1", TOKEN_KEYS_URI, ZONE_ID);
+
+		assertThat(rotatedKey).isNotNull();
+		assertThat(removedKey).isNull();
+		verify(tokenKeyServiceMock, times(3)).retrieveTokenKeys(any(), eq(ZONE_ID));
+	}
+
+	@Test
+	public void retrieveTokenKeysForNewKeyId_concurrently_requestsKeysOnce() throws Exception {
+		cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID);
+		String rotatedKeys = IOUtils.resourceToString("/iasJsonWebTokenKeys.json", StandardCharsets.UTF_8);
+		when(tokenKeyServiceMock.retrieveTokenKeys(eq(TOKEN_KEYS_URI), any())).thenAnswer(invocation -> {
+			Thread.sleep(100);
+			return rotatedKeys;
+		});
+
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		try {
+			List<Callable<PublicKey>> lookups = Collections.nCopies(16,
+					() -> cut.getPublicKey(JwtSignatureAlgorithm.RS256, "default-kid-ias", TOKEN_KEYS_URI, ZONE_ID));
+			for (Future<PublicKey> key : executor.invokeAll(lookups)) {
+				assertThat(key.get()).isNotNull();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		verify(tokenKeyServiceMock, times(2)).retrieveTokenKeys(any(), eq(ZONE_ID));
+	}
+
+	@Test
+	public void unknownKeyId_isNegativeCached()
+			throws OAuth2ServiceException, InvalidKeySpecException, NoSuchAlgorithmException {
+		cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID);
+
+		assertThat(cut.getPublicKey(JwtSignatureAlgorithm.RS256, "unknown", TOKEN_KEYS_URI, ZONE_ID)).isNull();
+		testCacheTicker.advance(Duration.ofSeconds(10));
+		assertThat(cut.getPublicKey(JwtSignatureAlgorithm.RS256, "unknown", TOKEN_KEYS_URI, ZONE_ID)).isNull();
+		verify(tokenKeyServiceMock, times(2)).retrieveTokenKeys(any(), eq(ZONE_ID));
+		assertThat(suppressedRefreshes(SecurityMetrics.REASON_NEGATIVE_CACHE)).isEqualTo(1.0);
+
+		testCacheTicker.advance(Duration.ofSeconds(30));
+		cut.getPublicKey(JwtSignatureAlgorithm.RS256, "unknown", TOKEN_KEYS_URI, ZONE_ID);
+		verify(tokenKeyServiceMock, times(3)).retrieveTokenKeys(any(), eq(ZONE_ID));
+		assertThat(suppressedRefreshes(SecurityMetrics.REASON_RATE_LIMITED)).isZero();
+	}
+
+	@Test
+	public void unknownKeyIds_retrievalsAreRateLimited()
+			throws OAuth2ServiceException, InvalidKeySpecException, NoSuchAlgorithmException {
+		cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID);
+
+		cut.getPublicKey(JwtSignatureAlgorithm.RS256, "unknown-1", TOKEN_KEYS_URI, ZONE_ID);
+		cut.getPublicKey(JwtSignatureAlgorithm.RS256, "unknown-2", TOKEN_KEYS_URI, ZONE_ID); // minimum interval
+		verify(tokenKeyServiceMock, times(2)).retrieveTokenKeys(any(), eq(ZONE_ID));
+
+		for (int i = 3; i <= 5; i++) {
+			testCacheTicker.advance(Duration.ofSeconds(5));
+			cut.getPublicKey(JwtSignatureAlgorithm.RS256, "unknown-" + i, TOKEN_KEYS_URI, ZONE_ID);
+		}
+		verify(tokenKeyServiceMock, times(4)).retrieveTokenKeys(any(), eq(ZONE_ID)); // burst of 3 exhausted
+		assertThat(suppressedRefreshes(SecurityMetrics.REASON_RATE_LIMITED)).isEqualTo(2.0);
+		assertThat(cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID)).isNotNull();
+
+		testCacheTicker.advance(Duration.ofMinutes(1));
+		cut.getPublicKey(JwtSignatureAlgorithm.RS256, "unknown-6", TOKEN_KEYS_URI, ZONE_ID);
+		verify(tokenKeyServiceMock, times(5)).retrieveTokenKeys(any(), eq(ZONE_ID));
+	}
+
+	@Test
+	public void unknownKeyIds_customRateLimit()
+			throws OAuth2ServiceException, InvalidKeySpecException, NoSuchAlgorithmException {
+		cut = createCut(CACHE_CONFIGURATION)
+				.withNegativeCacheDuration(Duration.ZERO)
+				.withRefreshRateLimit(Duration.ZERO, 2, Duration.ofMinutes(10))
+				.withRefreshRateLimit(Duration.ofSeconds(-1), 0, Duration.ZERO); // ignored
+
+		for (int i = 0; i < 4; i++) { // initial retrieval, burst of 2, rate-limited
+			cut.getPublicKey(JwtSignatureAlgorithm.RS256, "unknown", TOKEN_KEYS_URI, ZONE_ID);
+		}
+		cut.getPublicKey(JwtSignatureAlgorithm.RS256, "unknown", URI.create("http://another/url"), ZONE_ID);
+
+		verify(tokenKeyServiceMock, times(3)).retrieveTokenKeys(eq(TOKEN_KEYS_URI), eq(ZONE_ID));
+		assertThat(suppressedRefreshes(SecurityMetrics.REASON_NEGATIVE_CACHE)).isZero();
+		assertThat(suppressedRefreshes(SecurityMetrics.REASON_RATE_LIMITED)).isEqualTo(1.0);
+	}
+
+	@Test
+	public void refreshAhead_reloadsKeysBeforeExpiration()
+			throws OAuth2ServiceException, InvalidKeySpecException, NoSuchAlgorithmException {
+		cut = createCut(CACHE_CONFIGURATION).withRefreshAhead(Duration.ofMinutes(1));
+
+		PublicKey key = cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID);
+		testCacheTicker.advance(CACHE_CONFIGURATION.getCacheDuration().minusSeconds(30));
+		PublicKey currentKey = cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID);
+		verify(tokenKeyServiceMock, times(2)).retrieveTokenKeys(any(), eq(ZONE_ID));
+
+		testCacheTicker.advance(Duration.ofMinutes(1)); // expired, if it were not reloaded
+		PublicKey reloadedKey = cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID);
+
+		assertThat(currentKey).isSameAs(key);
+		assertThat(reloadedKey).isNotNull().isNotSameAs(key);
+		verify(tokenKeyServiceMock, times(2)).retrieveTokenKeys(any(), eq(ZONE_ID));
+	}
+
+	@Test
+	public void refreshAhead_reloadsKeysBeforeMaxAgeExpires() throws IOException, InvalidKeySpecException,
+			NoSuchAlgorithmException {
+		DefaultOAuth2TokenKeyService defaultTokenKeyServiceMock = mock(DefaultOAuth2TokenKeyService.class);
+		CacheableResponse<String> response = mockResponse(false, Duration.ofMinutes(10));
+		when(defaultTokenKeyServiceMock.retrieveTokenKeys(eq(TOKEN_KEYS_URI), any(), any())).thenReturn(response);
+		cut = createCut(TokenKeyCacheConfiguration.getInstance(Duration.ofHours(1), 1000, false))
+				.withTokenKeyService(defaultTokenKeyServiceMock)
+				.withRefreshAhead(Duration.ofMinutes(1));
+
+		PublicKey key = cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID);
+		testCacheTicker.advance(Duration.ofMinutes(9).plusSeconds(30));
+		PublicKey currentKey = cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID);
+		verify(defaultTokenKeyServiceMock, times(2)).retrieveTokenKeys(any(), any(), any());
+
+		testCacheTicker.advance(Duration.ofMinutes(1)); // expired by max-age, if it were not reloaded
+		PublicKey reloadedKey = cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID);
+
+		assertThat(currentKey).isSameAs(key);
+		assertThat(reloadedKey).isNotNull().isNotSameAs(key);
+		verify(defaultTokenKeyServiceMock, times(2)).retrieveTokenKeys(any(), any(), any());
+	}
+
+	@Test
+	public void refreshAhead_reloadFails_servesCurrentKeys()
+			throws OAuth2ServiceException, InvalidKeySpecException, NoSuchAlgorithmException {
+		cut = createCut(CACHE_CONFIGURATION).withRefreshAhead(Duration.ofMinutes(1));
+		PublicKey key = cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID);
+		when(tokenKeyServiceMock.retrieveTokenKeys(any(), any()))
+				.thenThrow(new OAuth2ServiceException("Currently unavailable"));
+
+		testCacheTicker.advance(CACHE_CONFIGURATION.getCacheDuration().minusSeconds(30));
+		PublicKey currentKey = cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID);
+
+		assertThat(currentKey).isSameAs(key);
+		verify(tokenKeyServiceMock, times(2)).retrieveTokenKeys(any(), eq(ZONE_ID));
+	}
+
+	@Test
+	public void refreshAhead_notShorterThanCacheDuration_isIgnored()
+			throws OAuth2ServiceException, InvalidKeySpecException, NoSuchAlgorithmException {
+		cut = createCut(CACHE_CONFIGURATION).withRefreshAhead(CACHE_CONFIGURATION.getCacheDuration());
+
+		cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID);
+		testCacheTicker.advance(CACHE_CONFIGURATION.getCacheDuration().minusSeconds(30));
+		cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID);
+
+		verify(tokenKeyServiceMock, times(1)).retrieveTokenKeys(any(), eq(ZONE_ID));
+	}
+
+	@Test
+	public void staleIfError_retrievalFails_servesExpiredKeys() throws IOException, InvalidKeySpecException,
+			NoSuchAlgorithmException {
+		cut = createCut(CACHE_CONFIGURATION).withStaleIfError(Duration.ofHours(1));
+		PublicKey key = cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID);
+		doThrow(new OAuth2ServiceException("Currently unavailable")).when(tokenKeyServiceMock)
+				.retrieveTokenKeys(any(), any());
+
+		testCacheTicker.advance(CACHE_CONFIGURATION.getCacheDuration().plusSeconds(1));
+		assertThat(cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID)).isSameAs(key);
+		assertThat(cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID)).isSameAs(key);
+		verify(tokenKeyServiceMock, times(2)).retrieveTokenKeys(any(), eq(ZONE_ID));
+
+		testCacheTicker.advance(Duration.ofSeconds(1)); // first retry
+		assertThat(cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID)).isSameAs(key);
+		testCacheTicker.advance(Duration.ofSeconds(1)); // backoff doubled
+		assertThat(cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID)).isSameAs(key);
+		verify(tokenKeyServiceMock, times(3)).retrieveTokenKeys(any(), eq(ZONE_ID));
+
+		doReturn(IOUtils.resourceToString("/jsonWebTokenKeys.json", StandardCharsets.UTF_8))
+				.when(tokenKeyServiceMock).retrieveTokenKeys(any(), any());
+		testCacheTicker.advance(Duration.ofSeconds(1));
+		assertThat(cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID)).isSameAs(key);
+		PublicKey retrievedKey = cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID);
+
+		assertThat(retrievedKey).isNotNull().isNotSameAs(key);
+		verify(tokenKeyServiceMock, times(4)).retrieveTokenKeys(any(), eq(ZONE_ID));
+	}
+
+	@Test
+	public void staleIfError_gracePeriodIsOver_throwsException()
+			throws OAuth2ServiceException, InvalidKeySpecException, NoSuchAlgorithmException {
+		cut = createCut(CACHE_CONFIGURATION).withStaleIfError(Duration.ofMinutes(5));
+		cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID);
+		doThrow(new OAuth2ServiceException("Currently unavailable")).when(tokenKeyServiceMock)
+				.retrieveTokenKeys(any(), any());
+
+		testCacheTicker.advance(CACHE_CONFIGURATION.getCacheDuration().plusMinutes(5));
+
+		assertThatThrownBy(() -> cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID))
+				.isInstanceOf(OAuth2ServiceException.class);
+	}
+
+	@Test
+	public void staleIfError_notEnabled_throwsException()
+			throws OAuth2ServiceException, InvalidKeySpecException, NoSuchAlgorithmException {
+		cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID);
+		doThrow(new OAuth2ServiceException("Currently unavailable")).when(tokenKeyServiceMock)
+				.retrieveTokenKeys(any(), any());
+
+		testCacheTicker.advance(CACHE_CONFIGURATION.getCacheDuration().plusSeconds(1));
+
+		assertThatThrownBy(() -> cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID))
+				.isInstanceOf(OAuth2ServiceException.class);
+		assertThatThrownBy(() -> cut.withStaleIfError(Duration.ZERO))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageContaining("grace period");
+	}
+
+	@Test
+	public void retrieveTokenKeys_cachedForMaxAgeWithinCacheDuration() throws IOException, InvalidKeySpecException,
+			NoSuchAlgorithmException {
+		DefaultOAuth2TokenKeyService defaultTokenKeyServiceMock = mock(DefaultOAuth2TokenKeyService.class);
+		CacheableResponse<String> response = mockResponse(false, Duration.ofMinutes(15));
+		when(defaultTokenKeyServiceMock.retrieveTokenKeys(eq(TOKEN_KEYS_URI), any(), any())).thenReturn(response);
+		cut = createCut(TokenKeyCacheConfiguration.getInstance(Duration.ofHours(1), 1000, false))
+				.withTokenKeyService(defaultTokenKeyServiceMock);
+
+		cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID);
+		testCacheTicker.advance(Duration.ofMinutes(15).minusSeconds(1));
+		cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID);
+		verify(defaultTokenKeyServiceMock, times(1)).retrieveTokenKeys(any(), any(), any());
+
+		when(response.getMaxAge()).thenReturn(Duration.ZERO); // raised to 600 seconds
+		testCacheTicker.advance(Duration.ofSeconds(1));
+		cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID);
+		testCacheTicker.advance(Duration.ofSeconds(599));
+		cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID);
+		verify(defaultTokenKeyServiceMock, times(2)).retrieveTokenKeys(any(), any(), any());
+	}
+
+	@Test
+	public void retrieveTokenKeys_notModified_reusesKeys() throws IOException, InvalidKeySpecException,
+			NoSuchAlgorithmException {
+		DefaultOAuth2TokenKeyService defaultTokenKeyServiceMock = mock(DefaultOAuth2TokenKeyService.class);
+		CacheableResponse<String> response = mockResponse(false, null);
+		CacheableResponse<String> notModifiedResponse = mockResponse(true, null);
+		when(defaultTokenKeyServiceMock.retrieveTokenKeys(eq(TOKEN_KEYS_URI), any(), any())).thenReturn(response);
+		when(defaultTokenKeyServiceMock.retrieveTokenKeys(TOKEN_KEYS_URI, ZONE_ID, response))
+				.thenReturn(notModifiedResponse);
+		cut = createCut(CACHE_CONFIGURATION).withTokenKeyService(defaultTokenKeyServiceMock);
+
+		PublicKey key = cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID);
+		testCacheTicker.advance(CACHE_CONFIGURATION.getCacheDuration());
+		PublicKey notModifiedKey = cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI,
+				ZONE_ID);
+
+		assertThat(notModifiedKey).isNotNull().isSameAs(key);
+		verify(defaultTokenKeyServiceMock).retrieveTokenKeys(TOKEN_KEYS_URI, ZONE_ID, null);
+		verify(defaultTokenKeyServiceMock).retrieveTokenKeys(TOKEN_KEYS_URI, ZONE_ID, response);
+	}
+
+	@Test
+	public void snapshot_afterRestart_preloadsKeysUntilExpiration() throws IOException, InvalidKeySpecException,
+			NoSuchAlgorithmException {
+		Path snapshotDirectory = temporaryFolder.getRoot().toPath().resolve("token-keys");
+		Instant startTime = Instant.parse("2021-07-21T08:00:00Z");
+		createCut(Clock.fixed(startTime, ZoneOffset.UTC)).withSnapshotDirectory(snapshotDirectory)
+				.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID);
+		assertThat(Files.list(snapshotDirectory)).hasSize(1);
+
+		cut = createCut(Clock.fixed(startTime.plus(Duration.ofMinutes(4)), ZoneOffset.UTC)) // restart
+				.withSnapshotDirectory(snapshotDirectory);
+		PublicKey preloadedKey = cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID);
+		testCacheTicker.advance(Duration.ofMinutes(6).minusSeconds(1));
+		cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID);
+		verify(tokenKeyServiceMock, times(1)).retrieveTokenKeys(any(), eq(ZONE_ID));
+
+		testCacheTicker.advance(Duration.ofSeconds(1)); // 10 minutes after the keys were retrieved
+		cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID);
+
+		assertThat(preloadedKey).isNotNull();
+		verify(tokenKeyServiceMock, times(2)).retrieveTokenKeys(any(), eq(ZONE_ID));
+	}
+
+	@Test
+	public void snapshot_withRefreshAhead_reloadsPreloadedKeysBeforeExpiration() throws IOException,
+			InvalidKeySpecException, NoSuchAlgorithmException {
+		Path snapshotDirectory = temporaryFolder.getRoot().toPath();
+		Instant startTime = Instant.parse("2021-07-21T08:00:00Z");
+		createCut(Clock.fixed(startTime, ZoneOffset.UTC)).withSnapshotDirectory(snapshotDirectory)
+				.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID);
+
+		cut = createCut(Clock.fixed(startTime.plus(Duration.ofMinutes(4)), ZoneOffset.UTC)) // restart
+				.withSnapshotDirectory(snapshotDirectory)
+				.withRefreshAhead(Duration.ofMinutes(1));
+		PublicKey preloadedKey = cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID);
+		testCacheTicker.advance(Duration.ofMinutes(5).plusSeconds(30));
+		PublicKey currentKey = cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID);
+		verify(tokenKeyServiceMock, times(2)).retrieveTokenKeys(any(), eq(ZONE_ID));
+
+		testCacheTicker.advance(Duration.ofMinutes(1)); // preloaded keys expired, if they were not reloaded
+		PublicKey reloadedKey = cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID);
+
+		assertThat(currentKey).isNotNull().isSameAs(preloadedKey);
+		assertThat(reloadedKey).isNotNull().isNotSameAs(preloadedKey);
+		verify(tokenKeyServiceMock, times(2)).retrieveTokenKeys(any(), eq(ZONE_ID));
+	}
+
+	@Test
+	public void snapshot_expiredBeforeRestart_isNotPreloaded() throws IOException, InvalidKeySpecException,
+			NoSuchAlgorithmException {
+		Path snapshotDirectory = temporaryFolder.getRoot().toPath();
+		Instant startTime = Instant.parse("2021-07-21T08:00:00Z");
+		createCut(Clock.fixed(startTime, ZoneOffset.UTC)).withSnapshotDirectory(snapshotDirectory)
+				.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID);
+		Files.write(snapshotDirectory.resolve("corrupted.jwks.json"), "{".getBytes(StandardCharsets.UTF_8));
+
+		cut = createCut(Clock.fixed(startTime.plus(CACHE_CONFIGURATION.getCacheDuration()), ZoneOffset.UTC))
+				.withSnapshotDirectory(snapshotDirectory);
+		PublicKey key = cut.getPublicKey(JwtSignatureAlgorithm.RS256, "key-id-0", TOKEN_KEYS_URI, ZONE_ID);
+
+		assertThat(key).isNotNull();
+		verify(tokenKeyServiceMock, times(2)).retrieveTokenKeys(any(), eq(ZONE_ID));
+	}
+
+	private OAuth2TokenKeyServiceWithCache createCut(Clock clock) {
+		return OAuth2TokenKeyServiceWithCache
+				.getInstance(testCacheTicker, Runnable::run, clock)
+				.withTokenKeyService(tokenKeyServiceMock)
+				.withCacheConfiguration(CACHE_CONFIGURATION);
+	}
+
+	private static CacheableResponse<String> mockResponse(boolean notModified, Duration maxAge) throws IOException {
+		CacheableResponse<String> response = mock(CacheableResponse.class);
+		when(response.getBody()).thenReturn(IOUtils.resourceToString("/jsonWebTokenKeys.json", StandardCharsets.UTF_8));
+		when(response.isNotModified()).thenReturn(notModified);
+		when(response.getMaxAge()).thenReturn(maxAge);
+		return response;
+	}
+
 	private OAuth2TokenKeyServiceWithCache createCut(TokenKeyCacheConfiguration cacheConfiguration) {
 		return OAuth2TokenKeyServiceWithCache
-				.getInstance(testCacheTicker)
+				.getInstance(testCacheTicker, Runnable::run)
 				.withTokenKeyService(tokenKeyServiceMock)
 				.withCacheConfiguration(cacheConfiguration);
 	}
 
+	private double suppressedRefreshes(String reason) {
+		Counter counter = meterRegistry.find(SecurityMetrics.TOKEN_KEY_SUPPRESSED_REFRESHES).tag("reason", reason)
+				.counter();
+		return counter == null ? 0 : counter.count();
+	}
+
 	private class TestCacheTicker implements Ticker {
 		long elapsed = 0;
 
@@ -7,6 +7,8 @@ package com.sap.cloud.security.token.validation.validators;
 
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.when;
 
@@ -14,7 +16,12 @@ import java.io.IOException;
 import java.net.URI;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
+import java.time.Duration;
 
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import com.sap.cloud.security.xsuaa.client.CacheableResponse;
+import com.sap.cloud.security.xsuaa.client.DefaultOidcConfigurationService;
 import com.sap.cloud.security.xsuaa.client.OAuth2ServiceEndpointsProvider;
 import com.sap.cloud.security.xsuaa.client.OAuth2ServiceException;
 import com.sap.cloud.security.xsuaa.client.OidcConfigurationService;
@@ -28,6 +35,7 @@ public class OidcConfigurationServiceWithCacheTest {
 	OidcConfigurationService oidcConfigServiceMock;
 	OAuth2ServiceEndpointsProvider oidcEndpointsProviderMock;
 	URI DISCOVERY_URI = URI.create("https://myauth.com/.well-known/oidc-config");
+	TestCacheTicker testCacheTicker = new TestCacheTicker();
 
 	@Before
 	public void setup() throws IOException {
@@ -124,4 +132,79 @@ public class OidcConfigurationServiceWithCacheTest {
 				.retrieveEndpoints(any());
 	}
 
+	@Test
+	public void staleIfError_retrievalFails_servesExpiredEndpoints() throws OAuth2ServiceException {
+		cut = OidcConfigurationServiceWithCache.getInstance(testCacheTicker, Runnable::run)
+				.withOidcConfigurationService(oidcConfigServiceMock)
+				.withStaleIfError(Duration.ofHours(1));
+		cut.getOrRetrieveEndpoints(DISCOVERY_URI);
+		doThrow(new OAuth2ServiceException("Currently unavailable")).when(oidcConfigServiceMock)
+				.retrieveEndpoints(any());
+
+		testCacheTicker.advance(Duration.ofSeconds(601));
+		Assertions.assertThat(cut.getOrRetrieveEndpoints(DISCOVERY_URI)).isSameAs(oidcEndpointsProviderMock);
+		Assertions.assertThat(cut.getOrRetrieveEndpoints(DISCOVERY_URI)).isSameAs(oidcEndpointsProviderMock);
+		Mockito.verify(oidcConfigServiceMock, times(2)).retrieveEndpoints(DISCOVERY_URI);
+
+		OAuth2ServiceEndpointsProvider retrievedEndpointsProvider = Mockito.mock(OAuth2ServiceEndpointsProvider.class);
+		doReturn(retrievedEndpointsProvider).when(oidcConfigServiceMock).retrieveEndpoints(any());
+		testCacheTicker.advance(Duration.ofSeconds(1)); // retry in background
+		Assertions.assertThat(cut.getOrRetrieveEndpoints(DISCOVERY_URI)).isSameAs(oidcEndpointsProviderMock);
+		Assertions.assertThat(cut.getOrRetrieveEndpoints(DISCOVERY_URI)).isSameAs(retrievedEndpointsProvider);
+		Mockito.verify(oidcConfigServiceMock, times(3)).retrieveEndpoints(DISCOVERY_URI);
+	}
+
+	@Test
+	public void staleIfError_gracePeriodIsOver_throwsException() throws OAuth2ServiceException {
+		cut = OidcConfigurationServiceWithCache.getInstance(testCacheTicker, Runnable::run)
+				.withOidcConfigurationService(oidcConfigServiceMock)
+				.withStaleIfError(Duration.ofMinutes(5));
+		cut.getOrRetrieveEndpoints(DISCOVERY_URI);
+		doThrow(new OAuth2ServiceException("Currently unavailable")).when(oidcConfigServiceMock)
+				.retrieveEndpoints(any());
+
+		testCacheTicker.advance(Duration.ofSeconds(900));
+
+		assertThatThrownBy(() -> cut.getOrRetrieveEndpoints(DISCOVERY_URI))
+				.isInstanceOf(OAuth2ServiceException.class);
+		assertThatThrownBy(() -> cut.withStaleIfError(Duration.ZERO))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageContaining("grace period");
+	}
+
+	@Test
+	public void retrieveEndpoints_cachedForMaxAge_retrievedAgainConditionally() throws OAuth2ServiceException {
+		DefaultOidcConfigurationService defaultOidcConfigServiceMock = Mockito
+				.mock(DefaultOidcConfigurationService.class);
+		CacheableResponse<OAuth2ServiceEndpointsProvider> response = Mockito.mock(CacheableResponse.class);
+		when(response.getBody()).thenReturn(oidcEndpointsProviderMock);
+		when(response.getMaxAge()).thenReturn(Duration.ofSeconds(700));
+		when(defaultOidcConfigServiceMock.retrieveEndpoints(DISCOVERY_URI, null)).thenReturn(response);
+		when(defaultOidcConfigServiceMock.retrieveEndpoints(DISCOVERY_URI, response)).thenReturn(response);
+		cut = OidcConfigurationServiceWithCache.getInstance(testCacheTicker, Runnable::run)
+				.withOidcConfigurationService(defaultOidcConfigServiceMock)
+				.withCacheTime(900);
+
+		cut.getOrRetrieveEndpoints(DISCOVERY_URI);
+		testCacheTicker.advance(Duration.ofSeconds(699));
+		cut.getOrRetrieveEndpoints(DISCOVERY_URI);
+		Mockito.verify(defaultOidcConfigServiceMock, times(1)).retrieveEndpoints(any(), any());
+
+		testCacheTicker.advance(Duration.ofSeconds(1));
+		Assertions.assertThat(cut.getOrRetrieveEndpoints(DISCOVERY_URI)).isSameAs(oidcEndpointsProviderMock);
+		Mockito.verify(defaultOidcConfigServiceMock).retrieveEndpoints(DISCOVERY_URI, response);
+	}
+
+	private static class TestCacheTicker implements Ticker {
+		long elapsed = 0;
+
+		@Override
+		public long read() {
+			return elapsed;
+		}
+
+		public void advance(Duration duration) {
+			this.elapsed = elapsed + duration.toNanos();
+		}
+	}
+
 }
@@ -0,0 +1,61 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.token.validation.validators;
+
+import static com.sap.cloud.security.token.validation.validators.JwtSignatureAlgorithm.RS256;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class SignatureVerifierPoolTest {
+
+	private PublicKey publicKey;
+
+	@Before
+	public void setUp() throws Exception {
+		KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+		keyPairGenerator.initialize(1024);
+		publicKey = keyPairGenerator.generateKeyPair().getPublic();
+	}
+
+	@Test
+	public void getVerifier_sameThread_reusesInstance() throws Exception {
+		Signature verifier = SignatureVerifierPool.getVerifier(RS256, publicKey);
+
+		assertThat(verifier.getAlgorithm()).isEqualTo(RS256.javaSignature());
+		assertThat(SignatureVerifierPool.getVerifier(RS256, publicKey)).isSameAs(verifier);
+	}
+
+	@Test
+	public void getVerifier_otherThread_differentInstance() throws Exception {
+		Signature verifier = SignatureVerifierPool.getVerifier(RS256, publicKey);
+
+		Signature otherThreadVerifier = CompletableFuture.supplyAsync(() -> {
+			try {
+				return SignatureVerifierPool.getVerifier(RS256, publicKey);
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		}).get();
+
+		assertThat(otherThreadVerifier).isNotSameAs(verifier);
+	}
+
+	@Test
+	public void discardVerifier_createsNewInstance() throws Exception {
+		Signature verifier = SignatureVerifierPool.getVerifier(RS256, publicKey);
+
+		SignatureVerifierPool.discardVerifier(RS256);
+
+		assertThat(SignatureVerifierPool.getVerifier(RS256, publicKey)).isNotSameAs(verifier);
+	}
+}
@@ -0,0 +1,83 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.token.validation.validators;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import com.sap.cloud.security.token.validation.validators.TokenKeySnapshotStore.Snapshot;
+import com.sap.cloud.security.xsuaa.client.CacheableResponse;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TokenKeySnapshotStoreTest {
+
+	private static final URI JWKS_URI = URI.create("https://myauth.com/token_keys");
+	private static final Instant FETCHED_AT = Instant.parse("2021-07-21T08:00:00Z");
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private Path directory;
+	private TokenKeySnapshotStore cut;
+
+	@Before
+	public void setUp() {
+		directory = temporaryFolder.getRoot().toPath();
+		cut = new TokenKeySnapshotStore(directory);
+	}
+
+	@Test
+	public void writeAndReadAll() {
+		cut.write(new Snapshot(JWKS_URI, "zone", CacheableResponse.of("{\"keys\": []}", "\"v1\"",
+				"Wed, 21 Jul 2021 07:28:00 GMT", Duration.ofMinutes(15)), FETCHED_AT));
+		cut.write(new Snapshot(JWKS_URI, null, CacheableResponse.of("{\"keys\": []}"), FETCHED_AT));
+
+		List<Snapshot> snapshots = new TokenKeySnapshotStore(directory).readAll(); // after restart
+
+		assertThat(snapshots).hasSize(2);
+		Snapshot snapshot = snapshots.stream().filter(s -> s.zoneId != null).findFirst().get();
+		assertThat(snapshot.jwksUri).isEqualTo(JWKS_URI);
+		assertThat(snapshot.zoneId).isEqualTo("zone");
+		assertThat(snapshot.fetchedAt).isEqualTo(FETCHED_AT);
+		assertThat(snapshot.response.getBody()).isEqualTo("{\"keys\": []}");
+		assertThat(snapshot.response.getETag()).isEqualTo("\"v1\"");
+		assertThat(snapshot.response.getLastModified()).isEqualTo("Wed, 21 Jul 2021 07:28:00 GMT");
+		assertThat(snapshot.response.getMaxAge()).isEqualTo(Duration.ofMinutes(15));
+	}
+
+	@Test
+	public void write_replacesPreviousSnapshot() throws IOException {
+		cut.write(new Snapshot(JWKS_URI, "zone", CacheableResponse.of("{\"keys\": []}"), FETCHED_AT));
+		cut.write(new Snapshot(JWKS_URI, "zone", CacheableResponse.of("{\"keys\": [{}]}"), FETCHED_AT.plusSeconds(1)));
+
+		List<Snapshot> snapshots = cut.readAll();
+
+		assertThat(snapshots).hasSize(1);
+		assertThat(snapshots.get(0).response.getBody()).isEqualTo("{\"keys\": [{}]}");
+		assertThat(snapshots.get(0).response.getMaxAge()).isNull();
+		assertThat(Files.list(directory)).hasSize(1); // no temporary files left
+	}
+
+	@Test
+	public void readAll_skipsUnreadableSnapshots() throws IOException {
+		Files.write(directory.resolve("corrupted.jwks.json"), "{\"jwks_uri\":".getBytes(StandardCharsets.UTF_8));
+		Files.write(directory.resolve("incomplete.jwks.json"), "{}".getBytes(StandardCharsets.UTF_8));
+
+		assertThat(cut.readAll()).isEmpty();
+		assertThat(new TokenKeySnapshotStore(directory.resolve("doesNotExist")).readAll()).isEmpty();
+	}
+}
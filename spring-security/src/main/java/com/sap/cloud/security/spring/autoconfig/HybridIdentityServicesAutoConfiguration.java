@@ -14,6 +14,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.*;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.reactive.ReactiveOAuth2ResourceServerAutoConfiguration;
 import org.springframework.boot.autoconfigure.security.oauth2.resource.servlet.OAuth2ResourceServerAutoConfiguration;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
@@ -21,13 +22,16 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
 
+import static org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type.REACTIVE;
 import static org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type.SERVLET;
 
 /**
  * {@link EnableAutoConfiguration} exposes a {@link JwtDecoder}, which has the
  * standard Spring Security Jwt validators as well as the SCP identity
- * provider-specific validators.
+ * provider-specific validators. In a reactive web application a
+ * {@link ReactiveJwtDecoder} with the same validators is exposed instead.
  *
  * Activates when there is a bean of type {@link Jwt} configured in the context.
  *
@@ -41,8 +45,9 @@ import static org.springframework.boot.autoconfigure.condition.ConditionalOnWebA
 @ConditionalOnProperty(name = "sap.spring.security.hybrid.auto", havingValue = "true", matchIfMissing = true)
 @EnableConfigurationProperties({ XsuaaServiceConfiguration.class, IdentityServiceConfiguration.class,
 		XsuaaServiceConfigurations.class })
-@AutoConfigureBefore(OAuth2ResourceServerAutoConfiguration.class) // imports OAuth2ResourceServerJwtConfiguration which
-																	// specifies JwtDecoder
+// OAuth2ResourceServerAutoConfiguration imports OAuth2ResourceServerJwtConfiguration which specifies JwtDecoder
+@AutoConfigureBefore({ OAuth2ResourceServerAutoConfiguration.class,
+		ReactiveOAuth2ResourceServerAutoConfiguration.class })
 class HybridIdentityServicesAutoConfiguration {
 	private static final Logger LOGGER = LoggerFactory.getLogger(HybridIdentityServicesAutoConfiguration.class);
 
@@ -93,4 +98,49 @@ class HybridIdentityServicesAutoConfiguration {
 		}
 	}
 
+	@Configuration
+	@ConditionalOnClass(name = "reactor.core.publisher.Mono")
+	@ConditionalOnMissingBean({ ReactiveJwtDecoder.class })
+	@ConditionalOnWebApplication(type = REACTIVE)
+	static class ReactiveJwtDecoderConfigurations {
+		XsuaaServiceConfigurations xsuaaConfigs;
+
+		ReactiveJwtDecoderConfigurations(XsuaaServiceConfigurations xsuaaConfigs) {
+			this.xsuaaConfigs = xsuaaConfigs;
+		}
+
+		@Bean
+		@ConditionalOnProperty("sap.security.services.xsuaa.uaadomain")
+		public ReactiveJwtDecoder reactiveHybridJwtDecoder(XsuaaServiceConfiguration xsuaaConfig,
+				IdentityServiceConfiguration identityConfig) {
+			LOGGER.debug("auto-configures ReactiveHybridJwtDecoder.");
+			return new JwtDecoderBuilder()
+					.withIasServiceConfiguration(identityConfig)
+					.withXsuaaServiceConfiguration(xsuaaConfig)
+					.buildReactive();
+		}
+
+		@Bean
+		@Primary
+		@ConditionalOnProperty("sap.security.services.xsuaa[0].uaadomain")
+		public ReactiveJwtDecoder reactiveHybridJwtDecoderMultiXsuaaServices(
+				IdentityServiceConfiguration identityConfig) {
+			LOGGER.debug("auto-configures ReactiveHybridJwtDecoder when bound to multiple xsuaa service instances.");
+			return new JwtDecoderBuilder()
+					.withIasServiceConfiguration(identityConfig)
+					.withXsuaaServiceConfigurations(xsuaaConfigs.getConfigurations())
+					.buildReactive();
+		}
+
+		@Bean
+		@ConditionalOnProperty("sap.security.services.identity.domains")
+		@ConditionalOnMissingBean(ReactiveJwtDecoder.class)
+		public ReactiveJwtDecoder reactiveIasJwtDecoder(IdentityServiceConfiguration identityConfig) {
+			LOGGER.debug("auto-configures ReactiveHybridJwtDecoder for ias tokens only.");
+			return new JwtDecoderBuilder()
+					.withIasServiceConfiguration(identityConfig)
+					.buildReactive();
+		}
+	}
+
 }
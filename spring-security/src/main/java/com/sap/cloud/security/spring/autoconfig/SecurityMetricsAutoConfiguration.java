@@ -0,0 +1,37 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.spring.autoconfig;
+
+import com.sap.cloud.security.xsuaa.metrics.SecurityMeterBinder;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * {@link EnableAutoConfiguration} exposes a {@link SecurityMeterBinder}, which
+ * publishes token validation, cache and identity service request metrics to
+ * every Micrometer {@code MeterRegistry} of the application context.
+ *
+ * <p>
+ * Activates when Micrometer is on the classpath. Can be disabled with
+ * {@code @EnableAutoConfiguration(exclude={SecurityMetricsAutoConfiguration.class})}
+ * or with property {@code sap.spring.security.metrics.auto = false}.
+ */
+@Configuration
+@ConditionalOnClass(MeterBinder.class)
+@ConditionalOnProperty(name = "sap.spring.security.metrics.auto", havingValue = "true", matchIfMissing = true)
+public class SecurityMetricsAutoConfiguration {
+
+	@Bean
+	@ConditionalOnMissingBean
+	public SecurityMeterBinder securityMeterBinder() {
+		return new SecurityMeterBinder();
+	}
+}
@@ -1,5 +1,6 @@
 package com.sap.cloud.security.spring.autoconfig;
 
+import com.sap.cloud.security.client.HttpClientConfiguration;
 import com.sap.cloud.security.client.HttpClientFactory;
 import com.sap.cloud.security.config.ClientIdentity;
 import org.slf4j.Logger;
@@ -31,11 +32,13 @@ class SpringHttpClient {
 	 *
 	 * @param clientIdentity
 	 *            ClientIdentity of Xsuaa Service
+	 * @param configuration
+	 *            connection pool and timeout settings of the http client
 	 * @return RestTemplate instance
 	 */
-	public RestTemplate create(@Nullable ClientIdentity clientIdentity) {
+	public RestTemplate create(@Nullable ClientIdentity clientIdentity, HttpClientConfiguration configuration) {
 		HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory();
-		requestFactory.setHttpClient(HttpClientFactory.create(clientIdentity));
+		requestFactory.setHttpClient(HttpClientFactory.create(clientIdentity, configuration));
 		return new RestTemplate(requestFactory);
 	}
 }
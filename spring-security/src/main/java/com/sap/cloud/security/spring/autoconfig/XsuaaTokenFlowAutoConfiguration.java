@@ -7,6 +7,7 @@ package com.sap.cloud.security.spring.autoconfig;
 
 import com.sap.cloud.security.config.ClientIdentity;
 import com.sap.cloud.security.config.CredentialType;
+import com.sap.cloud.security.spring.config.HttpClientProperties;
 import com.sap.cloud.security.spring.config.XsuaaServiceConfiguration;
 import com.sap.cloud.security.spring.config.XsuaaServiceConfigurations;
 import com.sap.cloud.security.xsuaa.client.OAuth2ServiceEndpointsProvider;
@@ -22,6 +23,7 @@ import org.springframework.boot.autoconfigure.condition.AnyNestedCondition;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.*;
 import org.springframework.core.type.AnnotatedTypeMetadata;
 import org.springframework.web.client.RestOperations;
@@ -45,6 +47,7 @@ import javax.annotation.Nonnull;
 @ConditionalOnClass(XsuaaTokenFlows.class)
 @ConditionalOnProperty(name = "sap.spring.security.xsuaa.flows.auto", havingValue = "true", matchIfMissing = true)
 @AutoConfigureAfter(HybridIdentityServicesAutoConfiguration.class)
+@EnableConfigurationProperties(HttpClientProperties.class)
 @ConditionalOnMissingBean(XsuaaTokenFlows.class)
 class XsuaaTokenFlowAutoConfiguration {
 	private final Logger logger = LoggerFactory.getLogger(getClass());
@@ -83,7 +86,8 @@ class XsuaaTokenFlowAutoConfiguration {
 
 	/**
 	 * Creates a certificate based {@link RestOperations} instance if the
-	 * application has not defined any.
+	 * application has not defined any. Its connection pool and timeouts are
+	 * configured with the {@code sap.spring.security.http-client} properties.
 	 *
 	 * @return the {@link RestOperations} instance.
 	 */
@@ -91,9 +95,10 @@ class XsuaaTokenFlowAutoConfiguration {
 	@ConditionalOnProperty(prefix = "sap.security.services.xsuaa", name = "credential-type", havingValue = "x509")
 	@ConditionalOnClass(name = "org.apache.http.impl.client.CloseableHttpClient")
 	@ConditionalOnMissingBean
-	public RestOperations mtlsRestOperations(XsuaaServiceConfiguration xsuaaConfig) {
-		logger.warn("In productive environment provide a well configured certificate based RestOperations bean");
-		return SpringHttpClient.getInstance().create(xsuaaConfig.getClientIdentity());
+	public RestOperations mtlsRestOperations(XsuaaServiceConfiguration xsuaaConfig,
+			HttpClientProperties httpClientProperties) {
+		return SpringHttpClient.getInstance().create(xsuaaConfig.getClientIdentity(),
+				httpClientProperties.toHttpClientConfiguration());
 	}
 
 	private static class OnNotX509CredentialTypeCondition implements Condition {
@@ -0,0 +1,113 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.spring.config;
+
+import com.sap.cloud.security.client.HttpClientConfiguration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Maps the connection pool and timeout settings of the http client, that is
+ * auto-configured for certificate based communication with the identity
+ * service. Properties that are not set default to the system properties, see
+ * {@link HttpClientConfiguration}.
+ */
+@ConfigurationProperties("sap.spring.security.http-client")
+public class HttpClientProperties {
+
+	private int maxConnections;
+	private int maxConnectionsPerRoute;
+	private Duration connectTimeout;
+	private Duration connectionRequestTimeout;
+	private Duration socketTimeout;
+	private Duration keepAlive;
+	private Duration idleTimeout;
+
+	public HttpClientProperties() {
+		HttpClientConfiguration defaults = HttpClientConfiguration.fromSystemProperties();
+		maxConnections = defaults.getMaxConnections();
+		maxConnectionsPerRoute = defaults.getMaxConnectionsPerRoute();
+		connectTimeout = defaults.getConnectTimeout();
+		connectionRequestTimeout = defaults.getConnectionRequestTimeout();
+		socketTimeout = defaults.getSocketTimeout();
+		keepAlive = defaults.getKeepAlive();
+		idleTimeout = defaults.getIdleTimeout();
+	}
+
+	/**
+	 * Creates the configuration of the http client from the properties.
+	 *
+	 * @return the http client configuration
+	 */
+	public HttpClientConfiguration toHttpClientConfiguration() {
+		return HttpClientConfiguration.builder()
+				.maxConnections(maxConnections)
+				.maxConnectionsPerRoute(maxConnectionsPerRoute)
+				.connectTimeout(connectTimeout)
+				.connectionRequestTimeout(connectionRequestTimeout)
+				.socketTimeout(socketTimeout)
+				.keepAlive(keepAlive)
+				.idleTimeout(idleTimeout)
+				.build();
+	}
+
+	public int getMaxConnections() {
+		return maxConnections;
+	}
+
+	public void setMaxConnections(int maxConnections) {
+		this.maxConnections = maxConnections;
+	}
+
+	public int getMaxConnectionsPerRoute() {
+		return maxConnectionsPerRoute;
+	}
+
+	public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+		this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+	}
+
+	public Duration getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	public void setConnectTimeout(Duration connectTimeout) {
+		this.connectTimeout = connectTimeout;
+	}
+
+	public Duration getConnectionRequestTimeout() {
+		return connectionRequestTimeout;
+	}
+
+	public void setConnectionRequestTimeout(Duration connectionRequestTimeout) {
+		this.connectionRequestTimeout = connectionRequestTimeout;
+	}
+
+	public Duration getSocketTimeout() {
+		return socketTimeout;
+	}
+
+	public void setSocketTimeout(Duration socketTimeout) {
+		this.socketTimeout = socketTimeout;
+	}
+
+	public Duration getKeepAlive() {
+		return keepAlive;
+	}
+
+	public void setKeepAlive(Duration keepAlive) {
+		this.keepAlive = keepAlive;
+	}
+
+	public Duration getIdleTimeout() {
+		return idleTimeout;
+	}
+
+	public void setIdleTimeout(Duration idleTimeout) {
+		this.idleTimeout = idleTimeout;
+	}
+}
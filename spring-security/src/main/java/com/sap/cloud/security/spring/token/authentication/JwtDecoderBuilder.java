@@ -7,12 +7,17 @@ package com.sap.cloud.security.spring.token.authentication;
 
 import com.sap.cloud.security.config.CacheConfiguration;
 import com.sap.cloud.security.config.OAuth2ServiceConfiguration;
+import com.sap.cloud.security.token.Token;
+import com.sap.cloud.security.token.validation.CombiningValidator;
 import com.sap.cloud.security.token.validation.ValidationListener;
 import com.sap.cloud.security.token.validation.validators.JwtValidatorBuilder;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
 import org.springframework.util.Assert;
 
+import javax.annotation.Nullable;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -31,6 +36,11 @@ public class JwtDecoderBuilder {
 	private final List<ValidationListener> validationListeners = new ArrayList<>();
 	protected CloseableHttpClient httpClient;
 	private CacheConfiguration tokenKeyCacheConfiguration;
+	private CacheConfiguration validationResultCacheConfiguration;
+	private Duration tokenKeyNegativeCacheDuration;
+	private Duration tokenKeyRefreshMinimumInterval;
+	private int tokenKeyRefreshMaxBurst;
+	private Duration tokenKeyRefreshRefillInterval;
 
 	/**
 	 * Use to configure the token key cache.
@@ -44,6 +54,53 @@ public class JwtDecoderBuilder {
 		return this;
 	}
 
+	/**
+	 * Use to enable the cache of successfully validated tokens, see
+	 * {@link JwtValidatorBuilder#withValidationResultCache(CacheConfiguration)}.
+	 *
+	 * @param cacheConfiguration
+	 *            the cache configuration
+	 * @return this jwt decoder builder
+	 */
+	public JwtDecoderBuilder withValidationResultCache(CacheConfiguration cacheConfiguration) {
+		this.validationResultCacheConfiguration = cacheConfiguration;
+		return this;
+	}
+
+	/**
+	 * Use to configure how long unknown key ids are remembered by the token key
+	 * cache, see {@link JwtValidatorBuilder#withTokenKeyNegativeCacheDuration(Duration)}.
+	 *
+	 * @param negativeCacheDuration
+	 *            time to remember unknown key ids
+	 * @return this jwt decoder builder
+	 */
+	public JwtDecoderBuilder withTokenKeyNegativeCacheDuration(Duration negativeCacheDuration) {
+		this.tokenKeyNegativeCacheDuration = negativeCacheDuration;
+		return this;
+	}
+
+	/**
+	 * Use to configure how often the token keys are retrieved again for unknown
+	 * key ids, see
+	 * {@link JwtValidatorBuilder#withTokenKeyRefreshRateLimit(Duration, int, Duration)}.
+	 *
+	 * @param minimumInterval
+	 *            minimum time between two retrievals
+	 * @param maxBurst
+	 *            maximum number of retrievals in a row
+	 * @param refillInterval
+	 *            time after which one more retrieval is allowed
+	 * @return this jwt decoder builder
+	 */
+	public JwtDecoderBuilder withTokenKeyRefreshRateLimit(Duration minimumInterval, int maxBurst,
+			Duration refillInterval) {
+		this.tokenKeyRefreshMinimumInterval = minimumInterval;
+		this.tokenKeyRefreshMaxBurst = maxBurst;
+		this.tokenKeyRefreshRefillInterval = refillInterval;
+		return this;
+	}
+
 	/**
 	 * Use to configure the HttpClient that is used to retrieve token keys.
 	 *
@@ -117,28 +174,64 @@ public class JwtDecoderBuilder {
 	 * @return JwtDecoder
 	 */
 	public JwtDecoder build() {
+		CombiningValidator<Token> iasValidator = buildIasValidator();
+		CombiningValidator<Token> xsuaaValidator = buildXsuaaValidator();
+		if (xsuaaValidator != null) {
+			return new HybridJwtDecoder(xsuaaValidator, iasValidator);
+		}
+		return new IasJwtDecoder(iasValidator);
+	}
+
+	/**
+	 * Assembles a ReactiveJwtDecoder, e.g. for Spring WebFlux applications, that
+	 * retrieves the token keys without blocking the calling thread.
+	 *
+	 * @return ReactiveJwtDecoder
+	 */
+	public ReactiveJwtDecoder buildReactive() {
+		CombiningValidator<Token> iasValidator = buildIasValidator();
+		return new ReactiveHybridJwtDecoder(buildXsuaaValidator(), iasValidator);
+	}
+
+	private CombiningValidator<Token> buildIasValidator() {
 		JwtValidatorBuilder iasValidatorBuilder = JwtValidatorBuilder.getInstance(iasConfiguration)
 				.withCacheConfiguration(tokenKeyCacheConfiguration)
+				.withValidationResultCache(validationResultCacheConfiguration)
 				.withHttpClient(httpClient);
+		configureTokenKeyCache(iasValidatorBuilder);
 		for (ValidationListener listener : validationListeners) {
 			iasValidatorBuilder.withValidatorListener(listener);
 		}
-		if (xsuaaConfigurations != null && !xsuaaConfigurations.isEmpty()) {
-			int index = 0;
-			JwtValidatorBuilder xsuaaValidatorBuilder = JwtValidatorBuilder.getInstance(xsuaaConfigurations.get(index))
-					.withCacheConfiguration(tokenKeyCacheConfiguration)
-					.withHttpClient(httpClient);
-			for (OAuth2ServiceConfiguration xsuaaConfig : xsuaaConfigurations) {
-				if (index++ != 0) {
-					xsuaaValidatorBuilder.configureAnotherServiceInstance(xsuaaConfig);
-				}
-			}
-			for (ValidationListener listener : validationListeners) {
-				xsuaaValidatorBuilder.withValidatorListener(listener);
+		return iasValidatorBuilder.build();
+	}
+
+	private void configureTokenKeyCache(JwtValidatorBuilder validatorBuilder) {
+		validatorBuilder.withTokenKeyNegativeCacheDuration(tokenKeyNegativeCacheDuration);
+		if (tokenKeyRefreshMinimumInterval != null || tokenKeyRefreshRefillInterval != null) {
+			validatorBuilder.withTokenKeyRefreshRateLimit(tokenKeyRefreshMinimumInterval, tokenKeyRefreshMaxBurst,
+					tokenKeyRefreshRefillInterval);
+		}
+	}
+
+	@Nullable
+	private CombiningValidator<Token> buildXsuaaValidator() {
+		if (xsuaaConfigurations == null || xsuaaConfigurations.isEmpty()) {
+			return null;
+		}
+		int index = 0;
+		JwtValidatorBuilder xsuaaValidatorBuilder = JwtValidatorBuilder.getInstance(xsuaaConfigurations.get(index))
+				.withCacheConfiguration(tokenKeyCacheConfiguration)
+				.withValidationResultCache(validationResultCacheConfiguration)
+				.withHttpClient(httpClient);
+		configureTokenKeyCache(xsuaaValidatorBuilder);
+		for (OAuth2ServiceConfiguration xsuaaConfig : xsuaaConfigurations) {
+			if (index++ != 0) {
+				xsuaaValidatorBuilder.configureAnotherServiceInstance(xsuaaConfig);
 			}
-			return new HybridJwtDecoder(xsuaaValidatorBuilder.build(),
-					iasValidatorBuilder.build());
 		}
-		return new IasJwtDecoder(iasValidatorBuilder.build());
+		for (ValidationListener listener : validationListeners) {
+			xsuaaValidatorBuilder.withValidatorListener(listener);
+		}
+		return xsuaaValidatorBuilder.build();
 	}
 }
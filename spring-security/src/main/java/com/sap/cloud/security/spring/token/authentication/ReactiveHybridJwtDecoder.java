@@ -0,0 +1,120 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.spring.token.authentication;
+
+import com.sap.cloud.security.token.Token;
+import com.sap.cloud.security.token.validation.CombiningValidator;
+import com.sap.cloud.security.token.validation.ValidationResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.Executor;
+
+/**
+ * Internal class that decodes and validates the provided encoded token using
+ * {@code java-security} client library in a non-blocking way, e.g. for Spring
+ * WebFlux applications.<br>
+ * In case of successful validation, the token gets parsed and returned as
+ * {@link Jwt}.
+ *
+ * The validators are executed with
+ * {@link CombiningValidator#validateAsync(Object, Executor)}. Tokens whose
+ * keys are cached get validated on the subscribing thread, only the retrieval
+ * of the json web keys or the oidc configuration is done on the given
+ * {@link Scheduler}, by default {@link Schedulers#boundedElastic()}.
+ *
+ * Supports tokens issued by ias or xsuaa identity service.
+ */
+public class ReactiveHybridJwtDecoder implements ReactiveJwtDecoder {
+	CombiningValidator<Token> xsuaaTokenValidators;
+	CombiningValidator<Token> iasTokenValidators;
+	Executor executor;
+	Logger logger = LoggerFactory.getLogger(getClass());
+
+	/**
+	 * Creates instance with a set of validators for validating the access / oidc
+	 * token issued by the dedicated identity service.
+	 *
+	 * @param xsuaaValidator
+	 *            set of validators that should be used to validate a xsuaa access
+	 *            token, or {@code null} in case only ias oidc tokens are
+	 *            accepted.
+	 * @param iasValidator
+	 *            set of validators that should be used to validate an ias oidc
+	 *            token.
+	 */
+	public ReactiveHybridJwtDecoder(@Nullable CombiningValidator<Token> xsuaaValidator,
+			CombiningValidator<Token> iasValidator) {
+		this(xsuaaValidator, iasValidator, Schedulers.boundedElastic());
+	}
+
+	/**
+	 * Creates instance with a set of validators for validating the access / oidc
+	 * token issued by the dedicated identity service.
+	 *
+	 * @param xsuaaValidator
+	 *            set of validators that should be used to validate a xsuaa access
+	 *            token, or {@code null} in case only ias oidc tokens are
+	 *            accepted.
+	 * @param iasValidator
+	 *            set of validators that should be used to validate an ias oidc
+	 *            token.
+	 * @param scheduler
+	 *            the scheduler on which json web keys and the oidc configuration
+	 *            are retrieved from the identity service.
+	 */
+	public ReactiveHybridJwtDecoder(@Nullable CombiningValidator<Token> xsuaaValidator,
+			CombiningValidator<Token> iasValidator, Scheduler scheduler) {
+		Assert.notNull(iasValidator, "iasValidator must not be null.");
+		Assert.notNull(scheduler, "scheduler must not be null.");
+		xsuaaTokenValidators = xsuaaValidator;
+		iasTokenValidators = iasValidator;
+		executor = scheduler::schedule;
+	}
+
+	@Override
+	public Mono<Jwt> decode(String encodedToken) {
+		if (encodedToken == null || encodedToken.trim().isEmpty()) {
+			return Mono.error(new IllegalArgumentException("encodedToken must neither be null nor empty String."));
+		}
+		return Mono.fromCallable(() -> Token.create(encodedToken))
+				.flatMap(token -> validate(token).map(validationResult -> {
+					if (validationResult.isErroneous()) {
+						throw new BadJwtException("The token is invalid: " + validationResult.getErrorDescription());
+					}
+					logger.debug("The token of service {} was successfully validated.", token.getService());
+					return HybridJwtDecoder.parseJwt(token);
+				}));
+	}
+
+	private Mono<ValidationResult> validate(Token token) {
+		CombiningValidator<Token> validators;
+		switch (token.getService()) {
+		case IAS:
+			validators = iasTokenValidators;
+			break;
+		case XSUAA:
+			validators = xsuaaTokenValidators;
+			break;
+		default:
+			validators = null;
+		}
+		if (validators == null) {
+			return Mono.error(
+					new BadJwtException("The token of service " + token.getService() + " is not supported."));
+		}
+		return Mono.fromCompletionStage(validators.validateAsync(token, executor));
+	}
+
+}
@@ -7,9 +7,11 @@ package com.sap.cloud.security.spring.autoconfig;
 
 import com.sap.cloud.security.spring.token.authentication.HybridJwtDecoder;
 import com.sap.cloud.security.spring.token.authentication.IasJwtDecoder;
+import com.sap.cloud.security.spring.token.authentication.ReactiveHybridJwtDecoder;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ReactiveWebApplicationContextRunner;
 import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -126,6 +128,42 @@ class HybridIdentityServicesAutoConfigurationTest {
 		runner.run(context -> assertNotNull(context.getBean("iasJwtDecoder", IasJwtDecoder.class)));
 	}
 
+	@Test
+	void reactiveAutoConfigurationActive() {
+		reactiveRunner().run(context -> {
+			assertNotNull(context.getBean("reactiveHybridJwtDecoder", ReactiveHybridJwtDecoder.class));
+			assertFalse(context.containsBean("hybridJwtDecoder"));
+		});
+	}
+
+	@Test
+	void reactiveAutoConfigurationDisabledByProperty() {
+		reactiveRunner().withPropertyValues("sap.spring.security.hybrid.auto:false")
+				.run((context) -> assertFalse(context.containsBean("reactiveHybridJwtDecoder")));
+	}
+
+	@Test
+	void reactiveAutoConfigurationIdentityServiceOnly() {
+		new ReactiveWebApplicationContextRunner()
+				.withPropertyValues("sap.security.services.identity.url:http://localhost",
+						"sap.security.services.identity.domains:localhost",
+						"sap.security.services.identity.clientid:cid")
+				.withConfiguration(AutoConfigurations.of(HybridIdentityServicesAutoConfiguration.class))
+				.run(context -> assertNotNull(
+						context.getBean("reactiveIasJwtDecoder", ReactiveHybridJwtDecoder.class)));
+	}
+
+	@Test
+	void servletAutoConfigurationDoesNotExposeReactiveJwtDecoder() {
+		runner.run(context -> assertFalse(context.containsBean("reactiveHybridJwtDecoder")));
+	}
+
+	private ReactiveWebApplicationContextRunner reactiveRunner() {
+		return new ReactiveWebApplicationContextRunner()
+				.withPropertyValues(properties.toArray(new String[0]))
+				.withConfiguration(AutoConfigurations.of(HybridIdentityServicesAutoConfiguration.class));
+	}
+
 	@Configuration
 	static class UserConfiguration {
 
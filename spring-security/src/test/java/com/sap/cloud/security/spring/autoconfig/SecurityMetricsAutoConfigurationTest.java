@@ -0,0 +1,38 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.spring.autoconfig;
+
+import com.sap.cloud.security.xsuaa.metrics.SecurityMeterBinder;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.FilteredClassLoader;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SecurityMetricsAutoConfigurationTest {
+
+	private final ApplicationContextRunner runner = new ApplicationContextRunner()
+			.withConfiguration(AutoConfigurations.of(SecurityMetricsAutoConfiguration.class));
+
+	@Test
+	void autoConfigurationActive() {
+		runner.run(context -> assertNotNull(context.getBean("securityMeterBinder", SecurityMeterBinder.class)));
+	}
+
+	@Test
+	void autoConfigurationDisabledByProperty() {
+		runner.withPropertyValues("sap.spring.security.metrics.auto:false")
+				.run((context) -> assertFalse(context.containsBean("securityMeterBinder")));
+	}
+
+	@Test
+	void autoConfigurationInactiveWithoutMicrometer() {
+		runner.withClassLoader(new FilteredClassLoader(MeterBinder.class))
+				.run((context) -> assertFalse(context.containsBean("securityMeterBinder")));
+	}
+}
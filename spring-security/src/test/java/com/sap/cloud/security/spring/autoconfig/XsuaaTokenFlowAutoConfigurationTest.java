@@ -5,6 +5,8 @@
  */
 package com.sap.cloud.security.spring.autoconfig;
 
+import com.sap.cloud.security.client.HttpClientConfiguration;
+import com.sap.cloud.security.spring.config.HttpClientProperties;
 import com.sap.cloud.security.xsuaa.tokenflows.XsuaaTokenFlows;
 import org.apache.commons.io.IOUtils;
 import org.apache.http.impl.client.CloseableHttpClient;
@@ -23,6 +25,7 @@ import org.springframework.web.client.RestTemplate;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -83,6 +86,21 @@ class XsuaaTokenFlowAutoConfigurationTest {
 				});
 	}
 
+	@Test
+	void configures_httpClientProperties() {
+		runner
+				.withPropertyValues("sap.spring.security.http-client.max-connections:7")
+				.withPropertyValues("sap.spring.security.http-client.socket-timeout:2s")
+				.run((context) -> {
+					HttpClientConfiguration configuration = context.getBean(HttpClientProperties.class)
+							.toHttpClientConfiguration();
+					assertThat(configuration.getMaxConnections()).isEqualTo(7);
+					assertThat(configuration.getSocketTimeout()).isEqualTo(Duration.ofSeconds(2));
+					assertThat(configuration.getMaxConnectionsPerRoute())
+							.isEqualTo(HttpClientConfiguration.defaultConfiguration().getMaxConnectionsPerRoute());
+				});
+	}
+
 	@Test
 	void autoConfigurationDisabledByProperty() {
 		runner.withPropertyValues("sap.spring.security.xsuaa.flows.auto:false")
@@ -15,6 +15,7 @@ import org.apache.http.impl.client.CloseableHttpClient;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -80,4 +81,32 @@ class JwtDecoderBuilderTest {
 		JwtDecoder decoder = cut.build();
 		assertTrue(decoder instanceof HybridJwtDecoder);
 	}
-}
\ No newline at end of file
+
+	@Test
+	void buildReactive() {
+		OAuth2ServiceConfiguration iasConfiguration = OAuth2ServiceConfigurationBuilder
+				.forService(Service.IAS)
+				.withClientId("clientId")
+				.withProperty(CFConstants.URL, "https://domain.myauth.com")
+				.build();
+
+		cut.withIasServiceConfiguration(iasConfiguration);
+		cut.withXsuaaServiceConfiguration(iasConfiguration);
+		ReactiveJwtDecoder decoder = cut.buildReactive();
+		assertTrue(decoder instanceof ReactiveHybridJwtDecoder);
+		assertNotNull(((ReactiveHybridJwtDecoder) decoder).xsuaaTokenValidators);
+	}
+
+	@Test
+	void buildReactiveWithoutXsuaaConfiguration() {
+		OAuth2ServiceConfiguration iasConfiguration = OAuth2ServiceConfigurationBuilder
+				.forService(Service.IAS)
+				.withClientId("clientId")
+				.withProperty(CFConstants.URL, "https://domain.myauth.com")
+				.build();
+
+		cut.withIasServiceConfiguration(iasConfiguration);
+		ReactiveHybridJwtDecoder decoder = (ReactiveHybridJwtDecoder) cut.buildReactive();
+		assertNull(decoder.xsuaaTokenValidators);
+	}
+}
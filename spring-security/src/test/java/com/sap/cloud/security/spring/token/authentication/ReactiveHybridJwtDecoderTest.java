@@ -0,0 +1,110 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.spring.token.authentication;
+
+import com.sap.cloud.security.test.JwtGenerator;
+import com.sap.cloud.security.token.Token;
+import com.sap.cloud.security.token.TokenClaims;
+import com.sap.cloud.security.token.validation.CombiningValidator;
+import com.sap.cloud.security.token.validation.ValidationResult;
+import com.sap.cloud.security.token.validation.ValidationResults;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static com.sap.cloud.security.config.Service.IAS;
+import static com.sap.cloud.security.config.Service.XSUAA;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+class ReactiveHybridJwtDecoderTest {
+	JwtGenerator jwtGenerator = JwtGenerator.getInstance(IAS, "theClientId");
+	CombiningValidator<Token> combiningValidator;
+	ReactiveHybridJwtDecoder cut;
+
+	@BeforeEach
+	void setup() {
+		combiningValidator = Mockito.mock(CombiningValidator.class);
+		when(combiningValidator.validateAsync(any(), any(Executor.class)))
+				.thenReturn(CompletableFuture.completedFuture(ValidationResults.createValid()));
+
+		cut = new ReactiveHybridJwtDecoder(combiningValidator, combiningValidator);
+	}
+
+	@Test
+	void decodeIasTokenWithoutValidators() {
+		String encodedToken = jwtGenerator.createToken().getTokenValue();
+
+		StepVerifier.create(cut.decode(encodedToken))
+				.assertNext(jwt -> assertEquals("theClientId", jwt.getClaim(TokenClaims.AUTHORIZATION_PARTY)))
+				.verifyComplete();
+	}
+
+	@Test
+	void decodeXsuaaTokenWithoutValidators() {
+		String encodedToken = JwtGenerator.getInstance(XSUAA, "theClientId").createToken().getTokenValue();
+
+		StepVerifier.create(cut.decode(encodedToken))
+				.assertNext(jwt -> assertEquals("theClientId", jwt.getClaim(TokenClaims.AUTHORIZATION_PARTY)))
+				.verifyComplete();
+	}
+
+	@Test
+	void decodeXsuaaTokenWithoutXsuaaValidators_emitsBadJwtException() {
+		cut = new ReactiveHybridJwtDecoder(null, combiningValidator);
+		String encodedToken = JwtGenerator.getInstance(XSUAA, "theClientId").createToken().getTokenValue();
+
+		StepVerifier.create(cut.decode(encodedToken))
+				.expectError(BadJwtException.class)
+				.verify();
+	}
+
+	@Test
+	void decodeInvalidToken_emitsBadJwtException() {
+		when(combiningValidator.validateAsync(any(), any(Executor.class)))
+				.thenReturn(CompletableFuture.completedFuture(ValidationResults.createInvalid("error")));
+		String encodedToken = jwtGenerator.createToken().getTokenValue();
+
+		StepVerifier.create(cut.decode(encodedToken))
+				.expectErrorMatches(e -> e instanceof BadJwtException && e.getMessage().contains("error"))
+				.verify();
+	}
+
+	@Test
+	void decodeDoesNotBlockWhileTokenIsValidated() {
+		CompletableFuture<ValidationResult> result = new CompletableFuture<>();
+		when(combiningValidator.validateAsync(any(), any(Executor.class))).thenReturn(result);
+		cut = new ReactiveHybridJwtDecoder(combiningValidator, combiningValidator, Schedulers.immediate());
+		String encodedToken = jwtGenerator.createToken().getTokenValue();
+
+		StepVerifier.create(cut.decode(encodedToken))
+				.then(() -> result.complete(ValidationResults.createValid()))
+				.expectNextCount(1)
+				.verifyComplete();
+	}
+
+	@Test
+	void decodeEmptyToken_emitsIllegalArgumentException() {
+		StepVerifier.create(cut.decode(""))
+				.expectError(IllegalArgumentException.class)
+				.verify();
+	}
+
+	@Test
+	void decodeMalformedToken_emitsErrorInsteadOfThrowing() {
+		assertDoesNotThrow(() -> cut.decode("invalid"));
+		StepVerifier.create(cut.decode("invalid"))
+				.expectError()
+				.verify();
+	}
+}
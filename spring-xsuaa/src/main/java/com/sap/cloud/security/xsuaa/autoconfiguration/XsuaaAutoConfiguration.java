@@ -17,6 +17,7 @@ import org.springframework.boot.autoconfigure.condition.AllNestedConditions;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.*;
 import org.springframework.core.type.AnnotatedTypeMetadata;
 import org.springframework.security.oauth2.jwt.Jwt;
@@ -39,6 +40,7 @@ import javax.annotation.Nonnull;
 @Configuration
 @ConditionalOnClass(Jwt.class)
 @ConditionalOnProperty(prefix = "spring.xsuaa", name = "auto", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(HttpClientProperties.class)
 public class XsuaaAutoConfiguration {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(XsuaaAutoConfiguration.class);
@@ -93,7 +95,8 @@ public class XsuaaAutoConfiguration {
 
 	/**
 	 * Creates a certificate based {@link RestOperations} instance if the
-	 * application has not defined any.
+	 * application has not defined any. Its connection pool and timeouts are
+	 * configured with the {@code spring.xsuaa.http-client} properties.
 	 *
 	 * @return the {@link RestOperations} instance.
 	 */
@@ -101,9 +104,10 @@ public class XsuaaAutoConfiguration {
 	@ConditionalOnProperty(prefix = "xsuaa", name = "credential-type", havingValue = "x509")
 	@ConditionalOnMissingBean
 	@ConditionalOnClass(name = "org.apache.http.impl.client.CloseableHttpClient")
-	public RestOperations xsuaaMtlsRestOperations(XsuaaServiceConfiguration xsuaaServiceConfiguration) {
-		LOGGER.warn("In productive environment provide a well configured certificate based RestOperations bean");
-		return SpringHttpClient.getInstance().create(xsuaaServiceConfiguration.getClientIdentity());
+	public RestOperations xsuaaMtlsRestOperations(XsuaaServiceConfiguration xsuaaServiceConfiguration,
+			HttpClientProperties httpClientProperties) {
+		return SpringHttpClient.getInstance().create(xsuaaServiceConfiguration.getClientIdentity(),
+				httpClientProperties.toHttpClientConfiguration());
 	}
 
 	private static class OnNotX509CredentialTypeCondition implements Condition {
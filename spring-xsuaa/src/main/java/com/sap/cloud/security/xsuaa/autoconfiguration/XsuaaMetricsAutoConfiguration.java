@@ -0,0 +1,46 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.xsuaa.autoconfiguration;
+
+import com.sap.cloud.security.xsuaa.metrics.SecurityMeterBinder;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * {@link EnableAutoConfiguration Auto-configuration} that publishes token
+ * validation, cache and XSUAA request metrics of the XSUAA client library to
+ * Micrometer.
+ * <p>
+ * Activates when there is a class of type {@link MeterBinder} on the
+ * classpath.
+ *
+ * <p>
+ * can be disabled
+ * with @EnableAutoConfiguration(exclude={XsuaaMetricsAutoConfiguration.class})
+ * or with property spring.xsuaa.metrics.auto = false
+ */
+@Configuration
+@ConditionalOnClass(MeterBinder.class)
+@ConditionalOnProperty(prefix = "spring.xsuaa.metrics", name = "auto", havingValue = "true", matchIfMissing = true)
+public class XsuaaMetricsAutoConfiguration {
+
+	/**
+	 * Creates a {@link SecurityMeterBinder} bean, which gets bound by Spring Boot
+	 * actuator to every {@code MeterRegistry}.
+	 *
+	 * @return the {@link SecurityMeterBinder}
+	 */
+	@Bean
+	@ConditionalOnMissingBean
+	public SecurityMeterBinder securityMeterBinder() {
+		return new SecurityMeterBinder();
+	}
+}
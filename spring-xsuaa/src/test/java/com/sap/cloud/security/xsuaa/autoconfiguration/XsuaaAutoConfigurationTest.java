@@ -30,12 +30,14 @@ import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.web.client.RestOperations;
 import org.springframework.web.client.RestTemplate;
 
+import com.sap.cloud.security.client.HttpClientConfiguration;
 import com.sap.cloud.security.xsuaa.DummyXsuaaServiceConfiguration;
 import com.sap.cloud.security.xsuaa.XsuaaServiceConfiguration;
 import com.sap.cloud.security.xsuaa.XsuaaServiceConfigurationDefault;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest(classes = { XsuaaAutoConfiguration.class, DummyXsuaaServiceConfiguration.class })
@@ -88,6 +90,21 @@ public class XsuaaAutoConfigurationTest {
 				});
 	}
 
+	@Test
+	public void configures_httpClientProperties() {
+		contextRunner
+				.withPropertyValues("spring.xsuaa.http-client.max-connections:7")
+				.withPropertyValues("spring.xsuaa.http-client.socket-timeout:2s")
+				.run((context) -> {
+					HttpClientConfiguration configuration = context.getBean(HttpClientProperties.class)
+							.toHttpClientConfiguration();
+					assertThat(configuration.getMaxConnections()).isEqualTo(7);
+					assertThat(configuration.getSocketTimeout()).isEqualTo(Duration.ofSeconds(2));
+					assertThat(configuration.getMaxConnectionsPerRoute())
+							.isEqualTo(HttpClientConfiguration.defaultConfiguration().getMaxConnectionsPerRoute());
+				});
+	}
+
 	@Test
 	public void configures_xsuaaServiceConfiguration_withProperties() {
 		contextRunner.withClassLoader(new FilteredClassLoader(CloseableHttpClient.class))
@@ -0,0 +1,41 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.xsuaa.autoconfiguration;
+
+import com.sap.cloud.security.xsuaa.metrics.SecurityMeterBinder;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.FilteredClassLoader;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class XsuaaMetricsAutoConfigurationTest {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			.withConfiguration(AutoConfigurations.of(XsuaaMetricsAutoConfiguration.class));
+
+	@Test
+	public void configures_securityMeterBinder() {
+		contextRunner.run((context) -> {
+			assertThat(context).hasSingleBean(SecurityMeterBinder.class);
+			assertThat(context).hasBean("securityMeterBinder");
+		});
+	}
+
+	@Test
+	public void autoConfigurationDisabledByProperty() {
+		contextRunner.withPropertyValues("spring.xsuaa.metrics.auto:false")
+				.run((context) -> assertThat(context).doesNotHaveBean(SecurityMeterBinder.class));
+	}
+
+	@Test
+	public void autoConfigurationInactiveWithoutMicrometer() {
+		contextRunner.withClassLoader(new FilteredClassLoader(MeterBinder.class))
+				.run((context) -> assertThat(context).doesNotHaveBean(SecurityMeterBinder.class));
+	}
+}
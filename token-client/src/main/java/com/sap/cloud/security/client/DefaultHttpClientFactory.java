@@ -6,47 +6,75 @@
 package com.sap.cloud.security.client;
 
 import com.sap.cloud.security.config.ClientIdentity;
-import com.sap.cloud.security.mtls.SSLContextFactory;
-import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import com.sap.cloud.security.xsuaa.Assertions;
+import com.sap.cloud.security.xsuaa.metrics.SecurityMetrics;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClients;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.net.ssl.SSLContext;
-import java.io.IOException;
-import java.security.GeneralSecurityException;
-
 /**
  * Creates a {@link CloseableHttpClient} instance. Supports certificate based
  * communication.
+ *
+ * The clients use a connection pool, whose limits, timeouts, keep-alive and
+ * idle connection eviction are configured by a
+ * {@link HttpClientConfiguration}, by default the one given by the system
+ * properties ({@link HttpClientConfiguration#fromSystemProperties()}). The
+ * connection pools are reported by the
+ * {@value SecurityMetrics#HTTP_CONNECTIONS} metric.
+ *
+ * All clients with the same configuration and client certificate share one
+ * connection pool and {@link javax.net.ssl.SSLContext}, see
+ * {@link HttpClientRegistry}. Closing a client does not close the shared
+ * connection pool.
  */
 public class DefaultHttpClientFactory implements HttpClientFactory {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(DefaultHttpClientFactory.class);
 
+	private final HttpClientConfiguration configuration;
+
+	public DefaultHttpClientFactory() {
+		this(HttpClientConfiguration.fromSystemProperties());
+	}
+
+	/**
+	 * Creates a factory whose clients are configured with the given
+	 * configuration.
+	 *
+	 * @param configuration
+	 *            the connection pool and timeout settings
+	 */
+	public DefaultHttpClientFactory(HttpClientConfiguration configuration) {
+		Assertions.assertNotNull(configuration, "configuration must not be null.");
+		this.configuration = configuration;
+	}
+
 	public CloseableHttpClient createClient(ClientIdentity clientIdentity) throws HttpClientException {
-		LOGGER.warn("In productive environment provide well configured HttpClientFactory service");
-		if (clientIdentity != null && clientIdentity.isCertificateBased()) {
-			LOGGER.debug("Setting up HTTPS client with: certificate: {}\nprivate key: {}\n",
-					clientIdentity.getCertificate(), clientIdentity.getKey());
-
-			SSLContext sslContext;
-			try {
-				sslContext = SSLContextFactory.getInstance().create(clientIdentity.getCertificate(),
-						clientIdentity.getKey());
-			} catch (IOException | GeneralSecurityException e) {
-				throw new HttpClientException(
-						String.format("Couldn't set up https client for service provider. %s.",
-								e.getLocalizedMessage()));
-			}
-			SSLConnectionSocketFactory socketFactory = new SSLConnectionSocketFactory(sslContext);
-			return HttpClients.custom()
-					.setSSLContext(sslContext)
-					.setSSLSocketFactory(socketFactory)
-					.build();
-		}
-		LOGGER.debug("Setting up default http client");
-		return HttpClients.createDefault();
+		LOGGER.debug("Setting up {} client", clientIdentity != null && clientIdentity.isCertificateBased()
+				? "certificate based https" : "default http");
+		return HttpClients.custom()
+				.setConnectionManager(HttpClientRegistry.getInstance().getConnectionManager(configuration,
+						clientIdentity))
+				.setConnectionManagerShared(true)
+				.setDefaultRequestConfig(RequestConfig.custom()
+						.setConnectTimeout((int) configuration.getConnectTimeout().toMillis())
+						.setConnectionRequestTimeout((int) configuration.getConnectionRequestTimeout().toMillis())
+						.setSocketTimeout((int) configuration.getSocketTimeout().toMillis())
+						.build())
+				.setKeepAliveStrategy(createKeepAliveStrategy())
+				.build();
+	}
+
+	private ConnectionKeepAliveStrategy createKeepAliveStrategy() {
+		long maxKeepAlive = configuration.getKeepAlive().toMillis();
+		return (response, context) -> {
+			long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+			return keepAlive > 0 && keepAlive < maxKeepAlive ? keepAlive : maxKeepAlive;
+		};
 	}
 }
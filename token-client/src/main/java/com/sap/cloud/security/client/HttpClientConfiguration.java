@@ -0,0 +1,279 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.client;
+
+import com.sap.cloud.security.xsuaa.Assertions;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Data class to capture the connection pool and timeout settings of the http
+ * clients created by {@link DefaultHttpClientFactory}.
+ *
+ * The defaults can be overridden with the following system properties, the
+ * durations are given in milliseconds:
+ * <ul>
+ * <li>{@value #MAX_CONNECTIONS} (default 200)</li>
+ * <li>{@value #MAX_CONNECTIONS_PER_ROUTE} (default 20)</li>
+ * <li>{@value #CONNECT_TIMEOUT} (default 5000)</li>
+ * <li>{@value #CONNECTION_REQUEST_TIMEOUT} (default 5000)</li>
+ * <li>{@value #SOCKET_TIMEOUT} (default 30000)</li>
+ * <li>{@value #KEEP_ALIVE} (default 60000)</li>
+ * <li>{@value #IDLE_TIMEOUT} (default 30000)</li>
+ * </ul>
+ */
+public class HttpClientConfiguration {
+
+	public static final String MAX_CONNECTIONS = "sap.security.http-client.max-connections";
+	public static final String MAX_CONNECTIONS_PER_ROUTE = "sap.security.http-client.max-connections-per-route";
+	public static final String CONNECT_TIMEOUT = "sap.security.http-client.connect-timeout";
+	public static final String CONNECTION_REQUEST_TIMEOUT = "sap.security.http-client.connection-request-timeout";
+	public static final String SOCKET_TIMEOUT = "sap.security.http-client.socket-timeout";
+	public static final String KEEP_ALIVE = "sap.security.http-client.keep-alive";
+	public static final String IDLE_TIMEOUT = "sap.security.http-client.idle-timeout";
+
+	private static final HttpClientConfiguration DEFAULT = builder().build();
+
+	private final int maxConnections;
+	private final int maxConnectionsPerRoute;
+	private final Duration connectTimeout;
+	private final Duration connectionRequestTimeout;
+	private final Duration socketTimeout;
+	private final Duration keepAlive;
+	private final Duration idleTimeout;
+
+	private HttpClientConfiguration(Builder builder) {
+		this.maxConnections = builder.maxConnections;
+		this.maxConnectionsPerRoute = builder.maxConnectionsPerRoute;
+		this.connectTimeout = builder.connectTimeout;
+		this.connectionRequestTimeout = builder.connectionRequestTimeout;
+		this.socketTimeout = builder.socketTimeout;
+		this.keepAlive = builder.keepAlive;
+		this.idleTimeout = builder.idleTimeout;
+	}
+
+	/**
+	 * The default configuration, not taking the system properties into account.
+	 *
+	 * @return the default configuration
+	 */
+	public static HttpClientConfiguration defaultConfiguration() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Creates a configuration from the system properties, falling back to the
+	 * defaults for the ones that are not set.
+	 *
+	 * @return the configuration
+	 */
+	public static HttpClientConfiguration fromSystemProperties() {
+		return builder()
+				.maxConnections(Integer.getInteger(MAX_CONNECTIONS, DEFAULT.maxConnections))
+				.maxConnectionsPerRoute(Integer.getInteger(MAX_CONNECTIONS_PER_ROUTE, DEFAULT.maxConnectionsPerRoute))
+				.connectTimeout(durationProperty(CONNECT_TIMEOUT, DEFAULT.connectTimeout))
+				.connectionRequestTimeout(
+						durationProperty(CONNECTION_REQUEST_TIMEOUT, DEFAULT.connectionRequestTimeout))
+				.socketTimeout(durationProperty(SOCKET_TIMEOUT, DEFAULT.socketTimeout))
+				.keepAlive(durationProperty(KEEP_ALIVE, DEFAULT.keepAlive))
+				.idleTimeout(durationProperty(IDLE_TIMEOUT, DEFAULT.idleTimeout))
+				.build();
+	}
+
+	private static Duration durationProperty(String name, Duration defaultValue) {
+		return Duration.ofMillis(Long.getLong(name, defaultValue.toMillis()));
+	}
+
+	/**
+	 * Creates a builder that is initialized with the defaults.
+	 *
+	 * @return the builder
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * The maximum number of connections of the connection pool.
+	 *
+	 * @return the maximum number of connections
+	 */
+	public int getMaxConnections() {
+		return maxConnections;
+	}
+
+	/**
+	 * The maximum number of connections of the connection pool to the same host.
+	 *
+	 * @return the maximum number of connections per route
+	 */
+	public int getMaxConnectionsPerRoute() {
+		return maxConnectionsPerRoute;
+	}
+
+	/**
+	 * The timeout until a connection is established.
+	 *
+	 * @return the connect timeout
+	 */
+	public Duration getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	/**
+	 * The timeout until a connection is leased from the connection pool.
+	 *
+	 * @return the connection request timeout
+	 */
+	public Duration getConnectionRequestTimeout() {
+		return connectionRequestTimeout;
+	}
+
+	/**
+	 * The maximum inactivity between two data packets of a response.
+	 *
+	 * @return the socket timeout
+	 */
+	public Duration getSocketTimeout() {
+		return socketTimeout;
+	}
+
+	/**
+	 * How long a connection is kept in the pool for reuse. A shorter keep-alive
+	 * timeout sent by the server takes precedence.
+	 *
+	 * @return the keep-alive duration
+	 */
+	public Duration getKeepAlive() {
+		return keepAlive;
+	}
+
+	/**
+	 * How long a connection may be idle in the pool before it gets evicted by a
+	 * background thread.
+	 *
+	 * @return the idle timeout
+	 */
+	public Duration getIdleTimeout() {
+		return idleTimeout;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (o == null || getClass() != o.getClass())
+			return false;
+		HttpClientConfiguration that = (HttpClientConfiguration) o;
+		return maxConnections == that.maxConnections &&
+				maxConnectionsPerRoute == that.maxConnectionsPerRoute &&
+				connectTimeout.equals(that.connectTimeout) &&
+				connectionRequestTimeout.equals(that.connectionRequestTimeout) &&
+				socketTimeout.equals(that.socketTimeout) &&
+				keepAlive.equals(that.keepAlive) &&
+				idleTimeout.equals(that.idleTimeout);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(maxConnections, maxConnectionsPerRoute, connectTimeout, connectionRequestTimeout,
+				socketTimeout, keepAlive, idleTimeout);
+	}
+
+	@Override
+	public String toString() {
+		return "HttpClientConfiguration{" +
+				"maxConnections=" + maxConnections +
+				", maxConnectionsPerRoute=" + maxConnectionsPerRoute +
+				", connectTimeout=" + connectTimeout +
+				", connectionRequestTimeout=" + connectionRequestTimeout +
+				", socketTimeout=" + socketTimeout +
+				", keepAlive=" + keepAlive +
+				", idleTimeout=" + idleTimeout +
+				'}';
+	}
+
+	public static class Builder {
+		private int maxConnections = 200;
+		private int maxConnectionsPerRoute = 20;
+		private Duration connectTimeout = Duration.ofSeconds(5);
+		private Duration connectionRequestTimeout = Duration.ofSeconds(5);
+		private Duration socketTimeout = Duration.ofSeconds(30);
+		private Duration keepAlive = Duration.ofSeconds(60);
+		private Duration idleTimeout = Duration.ofSeconds(30);
+
+		private Builder() {
+		}
+
+		public Builder maxConnections(int maxConnections) {
+			this.maxConnections = maxConnections;
+			return this;
+		}
+
+		public Builder maxConnectionsPerRoute(int maxConnectionsPerRoute) {
+			this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+			return this;
+		}
+
+		public Builder connectTimeout(@Nonnull Duration connectTimeout) {
+			this.connectTimeout = connectTimeout;
+			return this;
+		}
+
+		public Builder connectionRequestTimeout(@Nonnull Duration connectionRequestTimeout) {
+			this.connectionRequestTimeout = connectionRequestTimeout;
+			return this;
+		}
+
+		public Builder socketTimeout(@Nonnull Duration socketTimeout) {
+			this.socketTimeout = socketTimeout;
+			return this;
+		}
+
+		public Builder keepAlive(@Nonnull Duration keepAlive) {
+			this.keepAlive = keepAlive;
+			return this;
+		}
+
+		public Builder idleTimeout(@Nonnull Duration idleTimeout) {
+			this.idleTimeout = idleTimeout;
+			return this;
+		}
+
+		/**
+		 * Creates the configuration.
+		 *
+		 * @return the configuration
+		 * @throws IllegalArgumentException
+		 *             in case a limit is not positive or a duration is negative
+		 */
+		public HttpClientConfiguration build() {
+			assertPositive(maxConnections, "maxConnections");
+			assertPositive(maxConnectionsPerRoute, "maxConnectionsPerRoute");
+			assertNotNegative(connectTimeout, "connectTimeout");
+			assertNotNegative(connectionRequestTimeout, "connectionRequestTimeout");
+			assertNotNegative(socketTimeout, "socketTimeout");
+			assertNotNegative(keepAlive, "keepAlive");
+			assertNotNegative(idleTimeout, "idleTimeout");
+			return new HttpClientConfiguration(this);
+		}
+
+		private static void assertPositive(int value, String name) {
+			if (value < 1) {
+				throw new IllegalArgumentException(name + " must be positive, but was " + value + ".");
+			}
+		}
+
+		private static void assertNotNegative(Duration value, String name) {
+			Assertions.assertNotNull(value, name + " must not be null.");
+			if (value.isNegative()) {
+				throw new IllegalArgumentException(name + " must not be negative, but was " + value + ".");
+			}
+		}
+	}
+}
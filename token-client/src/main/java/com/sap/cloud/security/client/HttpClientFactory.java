@@ -51,4 +51,27 @@ public interface HttpClientFactory {
 		return services.get(0).createClient(clientIdentity);
 	}
 
+	/**
+	 * Like {@link #create(ClientIdentity)}, but in case the
+	 * {@link DefaultHttpClientFactory} is the loaded service provider, the client
+	 * is configured with the given configuration instead of the system properties.
+	 *
+	 * @param clientIdentity
+	 *            for X.509 certificate based communication
+	 *            {@link ClientCertificate} implementation of ClientIdentity
+	 *            interface should be provided
+	 * @param configuration
+	 *            the connection pool and timeout settings of the default factory
+	 * @return HTTP or HTTPS client
+	 * @throws HttpClientException
+	 *             in case HTTPS Client could not be setup
+	 */
+	static CloseableHttpClient create(ClientIdentity clientIdentity, HttpClientConfiguration configuration)
+			throws HttpClientException {
+		if (!services.isEmpty() && services.get(0).getClass() == DefaultHttpClientFactory.class) {
+			return new DefaultHttpClientFactory(configuration).createClient(clientIdentity);
+		}
+		return create(clientIdentity);
+	}
+
 }
@@ -0,0 +1,200 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.client;
+
+import com.sap.cloud.security.config.ClientIdentity;
+import com.sap.cloud.security.mtls.SSLContextFactory;
+import com.sap.cloud.security.xsuaa.metrics.SecurityMetrics;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.IdleConnectionEvictor;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Process-wide registry of the connection pools and SSL contexts of the http
+ * clients created by {@link DefaultHttpClientFactory}.
+ *
+ * The clients of the same {@link HttpClientConfiguration} share one connection
+ * pool per client certificate, respectively one pool for all clients without
+ * certificate, as only the certificate and the key make a difference for the
+ * connections. The {@link SSLContext} is created once per certificate
+ * fingerprint, so that TLS sessions are resumed across all pools of the same
+ * certificate.
+ *
+ * Pools and SSL contexts are kept for the lifetime of the process, the number
+ * of service bindings, i.e. certificates, of an application is expected to be
+ * small.
+ */
+class HttpClientRegistry {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(HttpClientRegistry.class);
+	private static final HttpClientRegistry instance = new HttpClientRegistry();
+
+	private final Map<String, SSLContext> sslContexts = new ConcurrentHashMap<>();
+	private final Map<PoolKey, PoolingHttpClientConnectionManager> connectionManagers = new ConcurrentHashMap<>();
+
+	private HttpClientRegistry() {
+	}
+
+	static HttpClientRegistry getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Provides the connection pool for the given configuration and client
+	 * identity. The pool is shared, the clients have to be built with
+	 * {@code HttpClientBuilder#setConnectionManagerShared(true)}, so that closing
+	 * one of them does not shut down the pool.
+	 *
+	 * @param configuration
+	 *            the connection pool and timeout settings
+	 * @param clientIdentity
+	 *            the client identity, only certificate based identities get a
+	 *            dedicated pool
+	 * @return the shared connection pool
+	 * @throws HttpClientException
+	 *             in case the SSL context could not be set up
+	 */
+	PoolingHttpClientConnectionManager getConnectionManager(HttpClientConfiguration configuration,
+			@Nullable ClientIdentity clientIdentity) throws HttpClientException {
+		if (clientIdentity == null || !clientIdentity.isCertificateBased()) {
+			return connectionManagers.computeIfAbsent(new PoolKey(configuration, null),
+					key -> createConnectionManager(configuration, SSLConnectionSocketFactory.getSocketFactory()));
+		}
+		String fingerprint = fingerprint(clientIdentity);
+		PoolingHttpClientConnectionManager connectionManager = connectionManagers
+				.get(new PoolKey(configuration, fingerprint));
+		if (connectionManager != null) {
+			return connectionManager;
+		}
+		SSLContext sslContext = getSSLContext(clientIdentity, fingerprint);
+		return connectionManagers.computeIfAbsent(new PoolKey(configuration, fingerprint),
+				key -> createConnectionManager(configuration, new SSLConnectionSocketFactory(sslContext)));
+	}
+
+	SSLContext getSSLContext(ClientIdentity clientIdentity) throws HttpClientException {
+		return getSSLContext(clientIdentity, fingerprint(clientIdentity));
+	}
+
+	private SSLContext getSSLContext(ClientIdentity clientIdentity, String fingerprint)
+			throws HttpClientException {
+		SSLContext sslContext = sslContexts.get(fingerprint);
+		if (sslContext == null) {
+			LOGGER.debug("Setting up SSL context with: certificate: {}\nprivate key: {}\n",
+					clientIdentity.getCertificate(), clientIdentity.getKey());
+			try {
+				sslContext = SSLContextFactory.getInstance().create(clientIdentity.getCertificate(),
+						clientIdentity.getKey());
+			} catch (IOException | GeneralSecurityException e) {
+				throw new HttpClientException(
+						String.format("Couldn't set up https client for service provider. %s.",
+								e.getLocalizedMessage()));
+			}
+			SSLContext existing = sslContexts.putIfAbsent(fingerprint, sslContext);
+			if (existing != null) {
+				sslContext = existing;
+			}
+		}
+		return sslContext;
+	}
+
+	private static PoolingHttpClientConnectionManager createConnectionManager(HttpClientConfiguration configuration,
+			SSLConnectionSocketFactory socketFactory) {
+		LOGGER.debug("Setting up connection pool with {}", configuration);
+		MonitoredConnectionManager connectionManager = new MonitoredConnectionManager(
+				RegistryBuilder.<ConnectionSocketFactory>create()
+						.register("http", PlainConnectionSocketFactory.getSocketFactory())
+						.register("https", socketFactory)
+						.build());
+		connectionManager.setMaxTotal(configuration.getMaxConnections());
+		connectionManager.setDefaultMaxPerRoute(configuration.getMaxConnectionsPerRoute());
+		// closes expired connections as well as connections idle for longer than the idle timeout
+		new IdleConnectionEvictor(connectionManager, configuration.getIdleTimeout().toMillis(),
+				TimeUnit.MILLISECONDS).start();
+		SecurityMetrics.registerConnectionPool(connectionManager);
+		return connectionManager;
+	}
+
+	private static String fingerprint(ClientIdentity clientIdentity) {
+		try {
+			MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+			sha256.update(String.valueOf(clientIdentity.getCertificate()).getBytes(UTF_8));
+			sha256.update((byte) 0);
+			sha256.update(String.valueOf(clientIdentity.getKey()).getBytes(UTF_8));
+			return Base64.getEncoder().encodeToString(sha256.digest());
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not supported", e);
+		}
+	}
+
+	private static class PoolKey {
+		private final HttpClientConfiguration configuration;
+		@Nullable
+		private final String fingerprint;
+
+		PoolKey(HttpClientConfiguration configuration, @Nullable String fingerprint) {
+			this.configuration = configuration;
+			this.fingerprint = fingerprint;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o)
+				return true;
+			if (o == null || getClass() != o.getClass())
+				return false;
+			PoolKey poolKey = (PoolKey) o;
+			return configuration.equals(poolKey.configuration) && Objects.equals(fingerprint, poolKey.fingerprint);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(configuration, fingerprint);
+		}
+	}
+
+	private static class MonitoredConnectionManager extends PoolingHttpClientConnectionManager
+			implements SecurityMetrics.ConnectionPool {
+
+		MonitoredConnectionManager(Registry<ConnectionSocketFactory> socketFactoryRegistry) {
+			super(socketFactoryRegistry);
+		}
+
+		@Override
+		public int getLeasedConnections() {
+			return getTotalStats().getLeased();
+		}
+
+		@Override
+		public int getAvailableConnections() {
+			return getTotalStats().getAvailable();
+		}
+
+		@Override
+		public int getPendingConnections() {
+			return getTotalStats().getPending();
+		}
+	}
+}
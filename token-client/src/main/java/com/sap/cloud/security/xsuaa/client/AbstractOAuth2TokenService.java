@@ -7,12 +7,15 @@ package com.sap.cloud.security.xsuaa.client;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.github.benmanes.caffeine.cache.Ticker;
 import com.sap.cloud.security.config.ClientIdentity;
 import com.sap.cloud.security.xsuaa.Assertions;
+import com.sap.cloud.security.xsuaa.http.HttpHeader;
 import com.sap.cloud.security.xsuaa.http.HttpHeaders;
 import com.sap.cloud.security.xsuaa.http.HttpHeadersFactory;
 import com.sap.cloud.security.xsuaa.jwt.DecodedJwt;
+import com.sap.cloud.security.xsuaa.metrics.SecurityMetrics;
 import com.sap.cloud.security.xsuaa.tokenflows.Cacheable;
 import com.sap.cloud.security.xsuaa.tokenflows.TokenCacheConfiguration;
 import com.sap.cloud.security.xsuaa.util.UriUtil;
@@ -22,21 +25,39 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
 import java.util.Map;
-import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.sap.cloud.security.xsuaa.Assertions.assertNotNull;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static com.sap.cloud.security.xsuaa.client.OAuth2TokenServiceConstants.*;
 
 @java.lang.SuppressWarnings("squid:S1192")
 public abstract class AbstractOAuth2TokenService implements OAuth2TokenService, Cacheable {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(AbstractOAuth2TokenService.class);
+	private static final Duration REFRESH_THREAD_KEEP_ALIVE = Duration.ofMinutes(1);
 	private final Cache<CacheKey, OAuth2TokenResponse> responseCache;
 	private final TokenCacheConfiguration tokenCacheConfiguration;
+	private final Map<CacheKey, CompletableFuture<OAuth2TokenResponse>> inFlightRequests = new ConcurrentHashMap<>();
+	private final Map<CacheKey, ScheduledRefresh> scheduledRefreshes = new ConcurrentHashMap<>();
+	private Duration refreshAheadTime;
+	private ScheduledExecutorService refreshScheduler;
 
 	public AbstractOAuth2TokenService() {
 		this(TokenCacheConfiguration.defaultConfiguration(), Ticker.systemTicker(), false);
@@ -70,6 +91,7 @@ public abstract class AbstractOAuth2TokenService implements OAuth2TokenService,
 		Assertions.assertNotNull(tokenCacheConfiguration, "cacheConfiguration is required");
 		this.tokenCacheConfiguration = tokenCacheConfiguration;
 		this.responseCache = createResponseCache(cacheTicker, sameThreadCache);
+		SecurityMetrics.registerCache(SecurityMetrics.CACHE_ACCESS_TOKENS, responseCache);
 		if (isCacheDisabled()) {
 			LOGGER.debug("Configured token service with cache disabled");
 		} else {
@@ -77,9 +99,67 @@ public abstract class AbstractOAuth2TokenService implements OAuth2TokenService,
 		}
 	}
 
+	/**
+	 * Enables the refresh-ahead mode. A cached token is requested again in the
+	 * background, the given time before it would need to be refreshed, i.e.
+	 * before it reaches the {@link TokenCacheConfiguration#getTokenExpirationDelta()
+	 * token expiration delta} or the cache duration. Until then, callers are
+	 * served with the cached token. Tokens that were not requested since they
+	 * have been cached are not refreshed ahead, they are requested again on
+	 * demand. If the refresh fails, the cached token is kept.
+	 *
+	 * The refreshes run on daemon threads, which terminate when they have been
+	 * idle for a minute. Calling this method again replaces and shuts down the
+	 * previous scheduler, together with its pending refreshes.
+	 *
+	 * @param refreshAheadTime
+	 *            time before a cached token would need to be refreshed, in which
+	 *            it gets refreshed in the background
+	 * @param maxConcurrentRefreshes
+	 *            the maximum number of tokens that are refreshed concurrently
+	 * @return this token service
+	 */
+	public AbstractOAuth2TokenService withRefreshAhead(Duration refreshAheadTime, int maxConcurrentRefreshes) {
+		if (maxConcurrentRefreshes < 1) {
+			throw new IllegalArgumentException("maxConcurrentRefreshes must be positive");
+		}
+		AtomicInteger threadCount = new AtomicInteger();
+		ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(maxConcurrentRefreshes, runnable -> {
+			Thread thread = new Thread(runnable, "token-refresh-ahead-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.setRemoveOnCancelPolicy(true);
+		scheduler.setKeepAliveTime(REFRESH_THREAD_KEEP_ALIVE.toMillis(), TimeUnit.MILLISECONDS);
+		scheduler.allowCoreThreadTimeOut(true);
+		return withRefreshAhead(refreshAheadTime, scheduler);
+	}
+
+	AbstractOAuth2TokenService withRefreshAhead(Duration refreshAheadTime, ScheduledExecutorService scheduler) {
+		assertNotNull(refreshAheadTime, "refreshAheadTime must not be null!");
+		if (refreshAheadTime.isZero() || refreshAheadTime.isNegative()) {
+			throw new IllegalArgumentException("refreshAheadTime must be positive");
+		}
+		if (isCacheDisabled()) {
+			LOGGER.warn("Refresh-ahead is not enabled, as the token cache is disabled");
+			scheduler.shutdown();
+			return this;
+		}
+		if (refreshScheduler != null && refreshScheduler != scheduler) {
+			refreshScheduler.shutdownNow();
+			scheduledRefreshes.clear();
+		}
+		this.refreshAheadTime = refreshAheadTime;
+		this.refreshScheduler = scheduler;
+		LOGGER.debug("Enabled refresh-ahead of cached tokens {} seconds before they need to be refreshed",
+				refreshAheadTime.getSeconds());
+		return this;
+	}
+
 	@Override
 	public void clearCache() {
 		responseCache.invalidateAll();
+		scheduledRefreshes.clear(); // pending refreshes find nothing to refresh
 	}
 
 	@Override
@@ -256,25 +336,129 @@ public abstract class AbstractOAuth2TokenService implements OAuth2TokenService,
 			Map<String, String> parameters) throws OAuth2ServiceException {
 		LOGGER.debug("Token was requested for endpoint uri={} with headers={} and parameters={}", tokenEndpoint,
 				headers, parameters);
-		CacheKey cacheKey = new CacheKey(tokenEndpoint, headers, parameters);
+		TokenRequest tokenRequest = new TokenRequest(tokenEndpoint, headers, parameters);
+		CacheKey cacheKey = new CacheKey(tokenRequest);
 		OAuth2TokenResponse oAuth2TokenResponse = responseCache.getIfPresent(cacheKey);
 		if (oAuth2TokenResponse == null) {
 			LOGGER.debug("Token not found in cache, requesting a new one");
-			getAndCacheToken(cacheKey);
+			SecurityMetrics.recordCacheAccess(SecurityMetrics.CACHE_ACCESS_TOKENS, false);
+			oAuth2TokenResponse = requestAndCacheToken(cacheKey, tokenRequest, null);
 		} else {
 			LOGGER.debug("The token was found in cache");
 			// check if token in cache should be refreshed
-			Duration delta = getCacheConfiguration().getTokenExpirationDelta();
-			Instant expiration = oAuth2TokenResponse.getExpiredAt().minus(delta);
-			if (expiration.isBefore(Instant.now(getClock()))) {
+			boolean expired = needsRefresh(oAuth2TokenResponse);
+			SecurityMetrics.recordCacheAccess(SecurityMetrics.CACHE_ACCESS_TOKENS, !expired);
+			ScheduledRefresh scheduledRefresh = scheduledRefreshes.get(cacheKey);
+			if (scheduledRefresh != null) {
+				scheduledRefresh.used = true;
+			}
+			if (expired) {
 				// refresh (soon) expired token
 				LOGGER.debug("The cached token needs to be refreshed, requesting a new one");
-				getAndCacheToken(cacheKey);
+				oAuth2TokenResponse = requestAndCacheToken(cacheKey, tokenRequest, oAuth2TokenResponse);
+			}
+		}
+		logDebug(oAuth2TokenResponse);
+		return oAuth2TokenResponse;
+	}
+
+	private boolean needsRefresh(OAuth2TokenResponse response) {
+		Duration delta = getCacheConfiguration().getTokenExpirationDelta();
+		Instant expiration = response.getExpiredAt().minus(delta);
+		return expiration.isBefore(Instant.now(getClock()));
+	}
+
+	/**
+	 * Requests a token and caches it. Only one thread per cache key requests the
+	 * token, concurrent callers wait for its result. While a token that needs to
+	 * be refreshed is requested again, concurrent callers keep using the cached
+	 * one, as long as it is not expired yet.
+	 *
+	 * @param cacheKey
+	 *            the cache key of the token request
+	 * @param tokenRequest
+	 *            the token request
+	 * @param cachedResponse
+	 *            the cached token that needs to be refreshed, or {@code null} in
+	 *            case it is not cached.
+	 * @return the requested token, or the one requested by a concurrent caller
+	 */
+	private OAuth2TokenResponse requestAndCacheToken(CacheKey cacheKey, TokenRequest tokenRequest,
+			@Nullable OAuth2TokenResponse cachedResponse) throws OAuth2ServiceException {
+		CompletableFuture<OAuth2TokenResponse> request = new CompletableFuture<>();
+		CompletableFuture<OAuth2TokenResponse> inFlightRequest = inFlightRequests.putIfAbsent(cacheKey, request);
+		if (inFlightRequest != null) {
+			if (cachedResponse != null && cachedResponse.getExpiredAt().isAfter(Instant.now(getClock()))) {
+				LOGGER.debug("The cached token is already being refreshed, using the cached one");
+				return cachedResponse;
+			}
+			LOGGER.debug("The token is already being requested, wait for the result");
+			return awaitTokenResponse(inFlightRequest);
+		}
+		try {
+			OAuth2TokenResponse response = responseCache.asMap().get(cacheKey);
+			if (response == null || response == cachedResponse) { // otherwise requested in the meantime
+				response = requestAccessToken(tokenRequest.tokenEndpointUri, tokenRequest.headers,
+						tokenRequest.parameters);
+				responseCache.put(cacheKey, response);
+				scheduleRefresh(cacheKey, tokenRequest, response);
+			}
+			request.complete(response);
+			return response;
+		} catch (OAuth2ServiceException | RuntimeException e) {
+			request.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlightRequests.remove(cacheKey, request);
+		}
+	}
+
+	private void scheduleRefresh(CacheKey cacheKey, TokenRequest tokenRequest, OAuth2TokenResponse response) {
+		if (refreshScheduler == null) {
+			return;
+		}
+		Instant now = Instant.now(getClock());
+		Instant refreshAt = response.getExpiredAt().minus(getCacheConfiguration().getTokenExpirationDelta());
+		Instant cacheExpiration = now.plus(getCacheConfiguration().getCacheDuration());
+		if (cacheExpiration.isBefore(refreshAt)) {
+			refreshAt = cacheExpiration;
+		}
+		long delayMillis = Duration.between(now, refreshAt.minus(refreshAheadTime)).toMillis();
+		if (delayMillis > 0) {
+			ScheduledRefresh scheduledRefresh = new ScheduledRefresh(tokenRequest, response);
+			scheduledRefreshes.put(cacheKey, scheduledRefresh);
+			refreshScheduler.schedule(() -> refreshAhead(cacheKey, scheduledRefresh), delayMillis,
+					TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private void refreshAhead(CacheKey cacheKey, ScheduledRefresh scheduledRefresh) {
+		if (!scheduledRefreshes.remove(cacheKey, scheduledRefresh)
+				|| responseCache.asMap().get(cacheKey) != scheduledRefresh.response) {
+			return; // evicted or already replaced
+		}
+		if (!scheduledRefresh.used) {
+			LOGGER.debug("The cached token was not used since it was cached, it is not refreshed ahead");
+			return;
+		}
+		try {
+			LOGGER.debug("The cached token is refreshed ahead");
+			requestAndCacheToken(cacheKey, scheduledRefresh.tokenRequest, scheduledRefresh.response);
+		} catch (OAuth2ServiceException | RuntimeException e) {
+			LOGGER.warn("The cached token could not be refreshed ahead: {}", e.getMessage());
+		}
+	}
+
+	private static OAuth2TokenResponse awaitTokenResponse(CompletableFuture<OAuth2TokenResponse> request)
+			throws OAuth2ServiceException {
+		try {
+			return request.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof OAuth2ServiceException) {
+				throw (OAuth2ServiceException) e.getCause();
 			}
+			throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
 		}
-		OAuth2TokenResponse response = responseCache.getIfPresent(cacheKey);
-		logDebug(response);
-		return response;
 	}
 
 	private void logDebug(OAuth2TokenResponse response) {
@@ -300,20 +484,15 @@ public abstract class AbstractOAuth2TokenService implements OAuth2TokenService,
 		return Clock.systemUTC();
 	}
 
-	private void getAndCacheToken(CacheKey cacheKey) throws OAuth2ServiceException {
-		responseCache.put(cacheKey,
-				requestAccessToken(cacheKey.tokenEndpointUri, cacheKey.headers, cacheKey.parameters));
-	}
-
 	private boolean isCacheDisabled() {
 		return getCacheConfiguration().isCacheDisabled();
 	}
 
 	private Cache<CacheKey, OAuth2TokenResponse> createResponseCache(Ticker cacheTicker, boolean sameThreadCache) {
-		Caffeine<Object, Object> cacheBuilder = Caffeine.newBuilder()
+		Caffeine<CacheKey, OAuth2TokenResponse> cacheBuilder = Caffeine.newBuilder()
 				.maximumSize(getCacheConfiguration().getCacheSize())
 				.ticker(cacheTicker)
-				.expireAfterWrite(getCacheConfiguration().getCacheDuration());
+				.expireAfter(new TokenExpiry());
 		if (sameThreadCache) {
 			cacheBuilder.executor(Runnable::run);
 		}
@@ -328,17 +507,127 @@ public abstract class AbstractOAuth2TokenService implements OAuth2TokenService,
 		return getCacheConfiguration().isCacheStatisticsEnabled() ? responseCache.stats() : null;
 	}
 
-	private class CacheKey {
+	/**
+	 * Expires a cached token when it expires, but after the cache duration at the
+	 * latest. A token that reached the token expiration delta is still cached, so
+	 * that it is refreshed by a single caller, while concurrent callers keep using
+	 * it. The remaining lifetime of a token is derived from the time of the cache
+	 * ticker, which is related to the clock once, when the first token is cached.
+	 */
+	private class TokenExpiry implements Expiry<CacheKey, OAuth2TokenResponse> {
+		private volatile Instant tickerOrigin; // the time of the clock at which the ticker read 0
+
+		@Override
+		public long expireAfterCreate(CacheKey cacheKey, OAuth2TokenResponse response, long currentTime) {
+			Duration cacheDuration = getCacheConfiguration().getCacheDuration();
+			Duration timeToExpiry = Duration.between(toInstant(currentTime), response.getExpiredAt());
+			if (timeToExpiry.isNegative()) {
+				return 0;
+			}
+			return timeToExpiry.compareTo(cacheDuration) < 0 ? timeToExpiry.toNanos() : cacheDuration.toNanos();
+		}
+
+		private Instant toInstant(long currentTime) {
+			Instant origin = tickerOrigin;
+			if (origin == null) {
+				origin = Instant.now(getClock()).minusNanos(currentTime);
+				tickerOrigin = origin;
+			}
+			return origin.plusNanos(currentTime);
+		}
+
+		@Override
+		public long expireAfterUpdate(CacheKey cacheKey, OAuth2TokenResponse response, long currentTime,
+				long currentDuration) {
+			return expireAfterCreate(cacheKey, response, currentTime);
+		}
 
+		@Override
+		public long expireAfterRead(CacheKey cacheKey, OAuth2TokenResponse response, long currentTime,
+				long currentDuration) {
+			return currentDuration;
+		}
+	}
+
+	private static class ScheduledRefresh {
+		private final TokenRequest tokenRequest;
+		private final OAuth2TokenResponse response;
+		private volatile boolean used;
+
+		ScheduledRefresh(TokenRequest tokenRequest, OAuth2TokenResponse response) {
+			this.tokenRequest = tokenRequest;
+			this.response = response;
+		}
+	}
+
+	private static class TokenRequest {
 		private final URI tokenEndpointUri;
 		private final HttpHeaders headers;
 		private final Map<String, String> parameters;
 
-		public CacheKey(URI tokenEndpointUri, HttpHeaders headers, Map<String, String> parameters) {
+		TokenRequest(URI tokenEndpointUri, HttpHeaders headers, Map<String, String> parameters) {
 			this.tokenEndpointUri = tokenEndpointUri;
 			this.headers = headers;
 			this.parameters = parameters;
 		}
+	}
+
+	/**
+	 * The cache key of a token request. Instead of the request itself, which
+	 * contains the client secret or, e.g. for the jwt bearer token grant, the
+	 * whole user token, it keeps only a SHA-256 digest of the token endpoint, the
+	 * headers and the parameters, together with the precomputed hash code.
+	 */
+	private static final class CacheKey {
+		private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+			try {
+				return MessageDigest.getInstance("SHA-256");
+			} catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException("SHA-256 is not supported", e);
+			}
+		});
+		private static final Comparator<HttpHeader> HEADER_ORDER = Comparator
+				.comparing(HttpHeader::getName, Comparator.nullsFirst(Comparator.naturalOrder()))
+				.thenComparing(HttpHeader::getValue, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+		private final byte[] digest;
+		private final int hashCode;
+
+		CacheKey(TokenRequest tokenRequest) {
+			MessageDigest sha256 = SHA_256.get();
+			update(sha256, tokenRequest.tokenEndpointUri == null ? null : tokenRequest.tokenEndpointUri.toString());
+			if (tokenRequest.headers != null) {
+				HttpHeader[] headers = tokenRequest.headers.getHeaders().toArray(new HttpHeader[0]);
+				Arrays.sort(headers, HEADER_ORDER);
+				for (HttpHeader header : headers) {
+					update(sha256, header.getName());
+					update(sha256, header.getValue());
+				}
+			}
+			sha256.update((byte) 0xFF); // separates headers and parameters
+			if (tokenRequest.parameters != null) {
+				for (Map.Entry<String, String> parameter : new TreeMap<>(tokenRequest.parameters).entrySet()) {
+					update(sha256, parameter.getKey());
+					update(sha256, parameter.getValue());
+				}
+			}
+			this.digest = sha256.digest();
+			this.hashCode = Arrays.hashCode(digest);
+		}
+
+		private static void update(MessageDigest sha256, @Nullable String value) {
+			if (value == null) {
+				sha256.update((byte) 0);
+				return;
+			}
+			byte[] bytes = value.getBytes(UTF_8);
+			sha256.update((byte) 1);
+			sha256.update((byte) (bytes.length >>> 24));
+			sha256.update((byte) (bytes.length >>> 16));
+			sha256.update((byte) (bytes.length >>> 8));
+			sha256.update((byte) bytes.length);
+			sha256.update(bytes);
+		}
 
 		@Override
 		public boolean equals(Object o) {
@@ -347,23 +636,17 @@ public abstract class AbstractOAuth2TokenService implements OAuth2TokenService,
 			if (o == null || getClass() != o.getClass())
 				return false;
 			CacheKey cacheKey = (CacheKey) o;
-			return Objects.equals(tokenEndpointUri, cacheKey.tokenEndpointUri) &&
-					Objects.equals(headers, cacheKey.headers) &&
-					Objects.equals(parameters, cacheKey.parameters);
+			return hashCode == cacheKey.hashCode && Arrays.equals(digest, cacheKey.digest);
 		}
 
 		@Override
 		public int hashCode() {
-			return Objects.hash(tokenEndpointUri, headers, parameters);
+			return hashCode;
 		}
 
 		@Override
 		public String toString() {
-			return "CacheKey{" +
-					"tokenEndpointUri=" + tokenEndpointUri +
-					", headers=" + headers + // only list of references
-					", parameters=" + parameters +
-					'}';
+			return "CacheKey{" + Base64.getEncoder().encodeToString(digest) + '}';
 		}
 	}
 
@@ -0,0 +1,199 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.xsuaa.client;
+
+import com.sap.cloud.security.xsuaa.Assertions;
+import org.apache.http.Header;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+
+import static com.sap.cloud.security.xsuaa.http.HttpHeaders.*;
+
+/**
+ * The body of a response together with its http caching information: the
+ * validators {@code ETag} and {@code Last-Modified}, which are sent with the
+ * next request to the same resource, and the {@code max-age} of the
+ * {@code Cache-Control} header.<br>
+ *
+ * A response that was not modified ({@code 304}) carries the body of the
+ * previous response.
+ *
+ * @param <T>
+ *            the type of the body
+ */
+public class CacheableResponse<T> {
+
+	private static final String MAX_AGE = "max-age=";
+	private static final String NO_CACHE = "no-cache";
+	private static final String NO_STORE = "no-store";
+
+	private final T body;
+	private final boolean notModified;
+	private final String eTag;
+	private final String lastModified;
+	private final Duration maxAge;
+
+	private CacheableResponse(T body, boolean notModified, @Nullable String eTag, @Nullable String lastModified,
+			@Nullable Duration maxAge) {
+		this.body = body;
+		this.notModified = notModified;
+		this.eTag = eTag;
+		this.lastModified = lastModified;
+		this.maxAge = maxAge;
+	}
+
+	/**
+	 * Creates a response without caching information.
+	 *
+	 * @param body
+	 *            the body
+	 * @param <T>
+	 *            the type of the body
+	 * @return the response
+	 */
+	public static <T> CacheableResponse<T> of(@Nonnull T body) {
+		Assertions.assertNotNull(body, "body must not be null.");
+		return new CacheableResponse<>(body, false, null, null, null);
+	}
+
+	/**
+	 * Creates a response with the given caching information, e.g. to restore a
+	 * response that was persisted.
+	 *
+	 * @param body
+	 *            the body
+	 * @param eTag
+	 *            the value of the {@code ETag} header
+	 * @param lastModified
+	 *            the value of the {@code Last-Modified} header
+	 * @param maxAge
+	 *            the max-age of the {@code Cache-Control} header
+	 * @param <T>
+	 *            the type of the body
+	 * @return the response
+	 */
+	public static <T> CacheableResponse<T> of(@Nonnull T body, @Nullable String eTag, @Nullable String lastModified,
+			@Nullable Duration maxAge) {
+		Assertions.assertNotNull(body, "body must not be null.");
+		return new CacheableResponse<>(body, false, eTag, lastModified, maxAge);
+	}
+
+	static <T> CacheableResponse<T> of(@Nonnull T body, HttpResponse response) {
+		Assertions.assertNotNull(body, "body must not be null.");
+		return new CacheableResponse<>(body, false, getHeaderValue(response, ETAG),
+				getHeaderValue(response, LAST_MODIFIED), parseMaxAge(getHeaderValue(response, CACHE_CONTROL)));
+	}
+
+	/**
+	 * Creates the response for a {@code 304} status. Validators and max-age sent
+	 * with it replace those of the previous response.
+	 */
+	static <T> CacheableResponse<T> notModified(CacheableResponse<T> previousResponse, HttpResponse response) {
+		String eTag = getHeaderValue(response, ETAG);
+		String lastModified = getHeaderValue(response, LAST_MODIFIED);
+		String cacheControl = getHeaderValue(response, CACHE_CONTROL);
+		return new CacheableResponse<>(previousResponse.body, true,
+				eTag != null ? eTag : previousResponse.eTag,
+				lastModified != null ? lastModified : previousResponse.lastModified,
+				cacheControl != null ? parseMaxAge(cacheControl) : previousResponse.maxAge);
+	}
+
+	/**
+	 * Adds the conditional headers for the validators of the previous response.
+	 */
+	static void addConditionalHeaders(HttpRequest request, @Nullable CacheableResponse<?> previousResponse) {
+		if (previousResponse == null) {
+			return;
+		}
+		if (previousResponse.eTag != null) {
+			request.addHeader(IF_NONE_MATCH, previousResponse.eTag);
+		}
+		if (previousResponse.lastModified != null) {
+			request.addHeader(IF_MODIFIED_SINCE, previousResponse.lastModified);
+		}
+	}
+
+	/**
+	 * Parses the max-age directive of a {@code Cache-Control} header value.
+	 * {@code no-cache} and {@code no-store} result in a max-age of zero.
+	 *
+	 * @param cacheControl
+	 *            the header value
+	 * @return the max-age or null, if it is not specified or invalid
+	 */
+	@Nullable
+	static Duration parseMaxAge(@Nullable String cacheControl) {
+		if (cacheControl == null) {
+			return null;
+		}
+		for (String directive : cacheControl.split(",")) {
+			String trimmedDirective = directive.trim().toLowerCase();
+			if (trimmedDirective.equals(NO_CACHE) || trimmedDirective.equals(NO_STORE)) {
+				return Duration.ZERO;
+			}
+			if (trimmedDirective.startsWith(MAX_AGE)) {
+				try {
+					long seconds = Long.parseLong(trimmedDirective.substring(MAX_AGE.length()).replace("\"", ""));
+					return seconds < 0 ? null : Duration.ofSeconds(seconds);
+				} catch (NumberFormatException e) {
+					return null;
+				}
+			}
+		}
+		return null;
+	}
+
+	@Nullable
+	private static String getHeaderValue(HttpResponse response, String headerName) {
+		Header header = response.getFirstHeader(headerName);
+		return header != null ? header.getValue() : null;
+	}
+
+	/**
+	 * Returns the body of the response, which is the body of the previous response
+	 * in case it was not modified.
+	 *
+	 * @return the body
+	 */
+	@Nonnull
+	public T getBody() {
+		return body;
+	}
+
+	/**
+	 * Returns true, if the server responded that the resource was not modified
+	 * since the previous response.
+	 *
+	 * @return true, in case of a {@code 304} status
+	 */
+	public boolean isNotModified() {
+		return notModified;
+	}
+
+	@Nullable
+	public String getETag() {
+		return eTag;
+	}
+
+	@Nullable
+	public String getLastModified() {
+		return lastModified;
+	}
+
+	/**
+	 * Returns the max-age of the {@code Cache-Control} header.
+	 *
+	 * @return the max-age or null, if the server did not specify it
+	 */
+	@Nullable
+	public Duration getMaxAge() {
+		return maxAge;
+	}
+}
@@ -7,6 +7,7 @@ package com.sap.cloud.security.xsuaa.client;
 
 import com.sap.cloud.security.client.HttpClientFactory;
 import com.sap.cloud.security.xsuaa.Assertions;
+import com.sap.cloud.security.xsuaa.metrics.SecurityMetrics;
 import com.sap.cloud.security.xsuaa.util.HttpClientUtil;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.methods.CloseableHttpResponse;
@@ -15,6 +16,7 @@ import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.impl.client.CloseableHttpClient;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.net.URI;
 
@@ -35,14 +37,44 @@ public class DefaultOAuth2TokenKeyService implements OAuth2TokenKeyService {
 
 	@Override
 	public String retrieveTokenKeys(URI tokenKeysEndpointUri, String zoneId) throws OAuth2ServiceException {
+		return retrieveTokenKeys(tokenKeysEndpointUri, zoneId, null).getBody();
+	}
+
+	/**
+	 * Requests the token web key set from OAuth Server. In case a previous
+	 * response is given, the request is conditional and the server may respond
+	 * that the keys were not modified, which results in a response with the
+	 * previous body.
+	 *
+	 * @param tokenKeysEndpointUri
+	 *            the token endpoint URI (jku).
+	 * @param zoneId
+	 *            the zone uuid of the tenant.
+	 * @param previousResponse
+	 *            the previous response of the same endpoint and zone, whose
+	 *            validators are sent with the request.
+	 * @return the JSON Web Token (JWT) keys as JSON string together with the
+	 *         http caching information of the response.
+	 * @throws OAuth2ServiceException
+	 *             in case of an error during the http request.
+	 */
+	public CacheableResponse<String> retrieveTokenKeys(@Nonnull URI tokenKeysEndpointUri, @Nullable String zoneId,
+			@Nullable CacheableResponse<String> previousResponse) throws OAuth2ServiceException {
 		Assertions.assertNotNull(tokenKeysEndpointUri, "Token key endpoint must not be null!");
 		HttpUriRequest request = new HttpGet(tokenKeysEndpointUri);
 		request.addHeader(X_ZONE_UUID, zoneId != null ? zoneId : "");
+		CacheableResponse.addConditionalHeaders(request, previousResponse);
+		long start = System.nanoTime();
+		int statusCode = SecurityMetrics.IO_ERROR;
 		try (CloseableHttpResponse response = httpClient.execute(request)) {
+			statusCode = response.getStatusLine().getStatusCode();
+			SecurityMetrics.recordHttpRequest(SecurityMetrics.CLIENT_TOKEN_KEYS, statusCode, start);
+			if (statusCode == HttpStatus.SC_NOT_MODIFIED && previousResponse != null) {
+				return CacheableResponse.notModified(previousResponse, response);
+			}
 			String bodyAsString = HttpClientUtil.extractResponseBodyAsString(response);
-			int statusCode = response.getStatusLine().getStatusCode();
 			if (statusCode == HttpStatus.SC_OK) {
-				return bodyAsString;
+				return CacheableResponse.of(bodyAsString, response);
 			} else {
 				throw OAuth2ServiceException.builder("Error retrieving token keys for x-zone_uuid " + zoneId)
 						.withUri(tokenKeysEndpointUri)
@@ -52,6 +84,9 @@ public class DefaultOAuth2TokenKeyService implements OAuth2TokenKeyService {
 						.build();
 			}
 		} catch (IOException e) {
+			if (statusCode == SecurityMetrics.IO_ERROR) {
+				SecurityMetrics.recordHttpRequest(SecurityMetrics.CLIENT_TOKEN_KEYS, SecurityMetrics.IO_ERROR, start);
+			}
 			throw new OAuth2ServiceException("Error retrieving token keys: " + e.getMessage());
 		}
 	}
@@ -8,6 +8,7 @@ package com.sap.cloud.security.xsuaa.client;
 import com.sap.cloud.security.client.HttpClientFactory;
 import com.sap.cloud.security.xsuaa.Assertions;
 import com.sap.cloud.security.xsuaa.http.HttpHeaders;
+import com.sap.cloud.security.xsuaa.metrics.SecurityMetrics;
 import com.sap.cloud.security.xsuaa.tokenflows.TokenCacheConfiguration;
 import com.sap.cloud.security.xsuaa.util.HttpClientUtil;
 import org.apache.http.HttpResponse;
@@ -81,8 +82,11 @@ public class DefaultOAuth2TokenService extends AbstractOAuth2TokenService {
 	private OAuth2TokenResponse executeRequest(HttpPost httpPost) throws OAuth2ServiceException {
 		LOGGER.debug("Requesting access token from url {} with headers {}", httpPost.getURI(),
 				httpPost.getAllHeaders());
+		long start = System.nanoTime();
+		int statusCode = SecurityMetrics.IO_ERROR;
 		try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
-			int statusCode = response.getStatusLine().getStatusCode();
+			statusCode = response.getStatusLine().getStatusCode();
+			SecurityMetrics.recordHttpRequest(SecurityMetrics.CLIENT_TOKEN, statusCode, start);
 			LOGGER.debug("Received statusCode {}", statusCode);
 			if (statusCode == HttpStatus.SC_OK) {
 				return handleResponse(response);
@@ -98,6 +102,9 @@ public class DefaultOAuth2TokenService extends AbstractOAuth2TokenService {
 		} catch (OAuth2ServiceException e) {
 			throw e;
 		} catch (IOException e) {
+			if (statusCode == SecurityMetrics.IO_ERROR) {
+				SecurityMetrics.recordHttpRequest(SecurityMetrics.CLIENT_TOKEN, SecurityMetrics.IO_ERROR, start);
+			}
 			throw new OAuth2ServiceException("Unexpected error retrieving JWT token: " + e.getMessage());
 		}
 	}
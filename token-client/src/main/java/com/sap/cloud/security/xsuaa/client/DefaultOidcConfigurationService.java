@@ -7,6 +7,7 @@ package com.sap.cloud.security.xsuaa.client;
 
 import com.sap.cloud.security.client.HttpClientFactory;
 import com.sap.cloud.security.xsuaa.Assertions;
+import com.sap.cloud.security.xsuaa.metrics.SecurityMetrics;
 import com.sap.cloud.security.xsuaa.util.HttpClientUtil;
 import com.sap.cloud.security.xsuaa.util.UriUtil;
 import org.apache.http.HttpStatus;
@@ -17,6 +18,7 @@ import org.apache.http.impl.client.CloseableHttpClient;
 import org.json.JSONObject;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.net.URI;
 
@@ -45,14 +47,47 @@ public class DefaultOidcConfigurationService implements OidcConfigurationService
 	@Override
 	public OAuth2ServiceEndpointsProvider retrieveEndpoints(@Nonnull URI discoveryEndpointUri)
 			throws OAuth2ServiceException {
+		return retrieveEndpoints(discoveryEndpointUri, null).getBody();
+	}
+
+	/**
+	 * Requests an OpenID Provider Configuration Document from OAuth Server. In
+	 * case a previous response is given, the request is conditional and the
+	 * server may respond that the document was not modified, which results in a
+	 * response with the previous endpoints.
+	 *
+	 * @param discoveryEndpointUri
+	 *            the discovery endpoint URI.
+	 * @param previousResponse
+	 *            the previous response of the same endpoint, whose validators
+	 *            are sent with the request.
+	 * @return an object with access endpoints together with the http caching
+	 *         information of the response.
+	 * @throws OAuth2ServiceException
+	 *             in case of an error during the http request.
+	 */
+	public CacheableResponse<OAuth2ServiceEndpointsProvider> retrieveEndpoints(@Nonnull URI discoveryEndpointUri,
+			@Nullable CacheableResponse<OAuth2ServiceEndpointsProvider> previousResponse)
+			throws OAuth2ServiceException {
 		Assertions.assertNotNull(discoveryEndpointUri, "discoveryEndpointUri must not be null!");
 
 		HttpUriRequest request = new HttpGet(discoveryEndpointUri);
+		CacheableResponse.addConditionalHeaders(request, previousResponse);
+		long start = System.nanoTime();
+		int statusCode = SecurityMetrics.IO_ERROR;
 		try (CloseableHttpResponse response = httpClient.execute(request)) {
+			statusCode = response.getStatusLine().getStatusCode();
+			SecurityMetrics.recordHttpRequest(SecurityMetrics.CLIENT_OIDC_CONFIGURATION, statusCode, start);
+			if (statusCode == HttpStatus.SC_NOT_MODIFIED && previousResponse != null) {
+				return CacheableResponse.notModified(previousResponse, response);
+			}
 			String bodyAsString = HttpClientUtil.extractResponseBodyAsString(response);
-			int statusCode = response.getStatusLine().getStatusCode();
-			return handleResponse(bodyAsString, statusCode, discoveryEndpointUri);
+			return CacheableResponse.of(handleResponse(bodyAsString, statusCode, discoveryEndpointUri), response);
 		} catch (IOException e) {
+			if (statusCode == SecurityMetrics.IO_ERROR) {
+				SecurityMetrics.recordHttpRequest(SecurityMetrics.CLIENT_OIDC_CONFIGURATION, SecurityMetrics.IO_ERROR,
+						start);
+			}
 			throw OAuth2ServiceException.builder("Error retrieving configured oidc endpoints: " + e.getMessage())
 					.withUri(discoveryEndpointUri)
 					.build();
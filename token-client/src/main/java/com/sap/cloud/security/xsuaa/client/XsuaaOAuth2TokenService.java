@@ -6,6 +6,7 @@
 package com.sap.cloud.security.xsuaa.client;
 
 import com.sap.cloud.security.xsuaa.http.HttpHeaders;
+import com.sap.cloud.security.xsuaa.metrics.SecurityMetrics;
 import com.sap.cloud.security.xsuaa.tokenflows.TokenCacheConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -78,20 +79,26 @@ public class XsuaaOAuth2TokenService extends AbstractOAuth2TokenService {
 				springHeaders);
 		@SuppressWarnings("rawtypes")
 		ResponseEntity<Map> responseEntity;
+		long start = System.nanoTime();
 		try {
 			LOGGER.debug("Requesting access token from url='{}' and headers={}", requestUri, springHeaders);
 			responseEntity = restOperations.postForEntity(requestUri, requestEntity, Map.class);
+			SecurityMetrics.recordHttpRequest(SecurityMetrics.CLIENT_TOKEN, responseEntity.getStatusCodeValue(),
+					start);
 		} catch (HttpClientErrorException ex) {
+			SecurityMetrics.recordHttpRequest(SecurityMetrics.CLIENT_TOKEN, ex.getRawStatusCode(), start);
 			String warningMsg = String.format(
 					"Error retrieving JWT token. Received status code %s. Call to XSUAA was not successful: %s",
 					ex.getStatusCode(), ex.getResponseBodyAsString());
 			throw new OAuth2ServiceException(warningMsg);
 		} catch (HttpServerErrorException ex) {
+			SecurityMetrics.recordHttpRequest(SecurityMetrics.CLIENT_TOKEN, ex.getRawStatusCode(), start);
 			String warningMsg = String.format("Server error while obtaining access token from XSUAA (%s): %s",
 					ex.getStatusCode(), ex.getResponseBodyAsString());
 			LOGGER.error(warningMsg, ex);
 			throw new OAuth2ServiceException(warningMsg);
 		} catch (ResourceAccessException ex) {
+			SecurityMetrics.recordHttpRequest(SecurityMetrics.CLIENT_TOKEN, SecurityMetrics.IO_ERROR, start);
 			String warningMsg = String.format(
 					"RestClient isn't configured properly - Error while obtaining access token from XSUAA (%s): %s",
 					requestUri, ex.getLocalizedMessage());
@@ -15,6 +15,11 @@ public class HttpHeaders {
 	public static final String CONTENT_TYPE = "Content-Type";
 	public static final String X_ZID = "X-zid";
 	public static final String X_ZONE_UUID = "x-zone_uuid";
+	public static final String CACHE_CONTROL = "Cache-Control";
+	public static final String ETAG = "ETag";
+	public static final String LAST_MODIFIED = "Last-Modified";
+	public static final String IF_NONE_MATCH = "If-None-Match";
+	public static final String IF_MODIFIED_SINCE = "If-Modified-Since";
 
 	private final Set<HttpHeader> headers;
 
@@ -9,9 +9,11 @@ import com.sap.cloud.security.xsuaa.Assertions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.Signature;
+import java.security.SignatureException;
 import java.util.Base64;
-import java.util.regex.Pattern;
 
 import static java.lang.System.lineSeparator;
 
@@ -41,36 +43,40 @@ public final class Base64JwtDecoder {
 	public DecodedJwt decode(String jwt) {
 		Assertions.assertNotNull(jwt, "JWT must not be null");
 
-		String[] parts = jwt.split(Pattern.quote("."));
-		if (parts.length != 3) {
+		int headerEnd = jwt.indexOf('.');
+		int payloadEnd = headerEnd < 0 ? -1 : jwt.indexOf('.', headerEnd + 1);
+		if (payloadEnd < 0 || payloadEnd == jwt.length() - 1 || jwt.indexOf('.', payloadEnd + 1) >= 0) {
 			throw new IllegalArgumentException("JWT token does not consist of 'header'.'payload'.'signature'.");
 		}
-		String header = base64Decode(parts[0]);
-		String payload = base64Decode(parts[1]);
-		String signature = parts[2];
+		byte[] encodedBytes = jwt.getBytes(StandardCharsets.US_ASCII);
+		String header = base64Decode(encodedBytes, 0, headerEnd);
+		String payload = base64Decode(encodedBytes, headerEnd + 1, payloadEnd - headerEnd - 1);
 
-		return new DecodedJwtImpl(jwt, header, payload, signature);
+		return new DecodedJwtImpl(jwt, encodedBytes, payloadEnd, header, payload);
 	}
 
-	private String base64Decode(String encoded) {
-		byte[] decodedBytes = Base64.getUrlDecoder().decode(encoded);
-		return new String(decodedBytes, StandardCharsets.UTF_8);
+	private static String base64Decode(byte[] encoded, int offset, int length) {
+		ByteBuffer decoded = Base64.getUrlDecoder().decode(ByteBuffer.wrap(encoded, offset, length));
+		return new String(decoded.array(), decoded.arrayOffset() + decoded.position(), decoded.remaining(),
+				StandardCharsets.UTF_8);
 	}
 
 	static class DecodedJwtImpl implements DecodedJwt {
 
-		private String header;
-		private String payload;
-		private String signature;
-		private String encodedJwt;
+		private final String header;
+		private final String payload;
+		private final String encodedJwt;
+		private final byte[] encodedBytes; // ASCII bytes of encodedJwt, must not be modified
+		private final int payloadEnd; // index of the '.' in front of the signature
 		private static final String TAB = "\t";
 		private static final Logger LOGGER = LoggerFactory.getLogger(DecodedJwtImpl.class);
 
-		DecodedJwtImpl(String encodedJwt, String header, String payload, String signature) {
+		DecodedJwtImpl(String encodedJwt, byte[] encodedBytes, int payloadEnd, String header, String payload) {
 			this.header = header;
 			this.payload = payload;
-			this.signature = signature;
 			this.encodedJwt = encodedJwt;
+			this.encodedBytes = encodedBytes;
+			this.payloadEnd = payloadEnd;
 		}
 
 		@Override
@@ -85,7 +91,17 @@ public final class Base64JwtDecoder {
 
 		@Override
 		public String getSignature() {
-			return signature;
+			return encodedJwt.substring(payloadEnd + 1);
+		}
+
+		@Override
+		public boolean verifySignature(Signature verifier) throws SignatureException {
+			verifier.update(encodedBytes, 0, payloadEnd);
+			int signatureStart = payloadEnd + 1;
+			ByteBuffer signature = Base64.getUrlDecoder()
+					.decode(ByteBuffer.wrap(encodedBytes, signatureStart, encodedBytes.length - signatureStart));
+			return verifier.verify(signature.array(), signature.arrayOffset() + signature.position(),
+					signature.remaining());
 		}
 
 		@Override
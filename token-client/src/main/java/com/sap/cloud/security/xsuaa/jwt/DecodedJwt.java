@@ -5,6 +5,11 @@
  */
 package com.sap.cloud.security.xsuaa.jwt;
 
+import java.nio.charset.StandardCharsets;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.util.Base64;
+
 /**
  * A Jwt token consists of three parts, separated by ".":
  * header.payload.signature
@@ -46,4 +51,24 @@ public interface DecodedJwt {
 	 */
 	String getEncodedToken();
 
+	/**
+	 * Verifies the signature of the jwt. The signing input, i.e. the encoded
+	 * {@code header.payload}, is passed as it is contained in the encoded token
+	 * to {@link Signature#update(byte[], int, int)} and the base64 decoded
+	 * signature to {@link Signature#verify(byte[])}.
+	 *
+	 * @param verifier
+	 *            the signature instance that is already initialized for
+	 *            verification with the public key of the identity service.
+	 * @return true if the signature was verified
+	 * @throws SignatureException
+	 *             in case the signature instance is not initialized properly or
+	 *             the signature can not be processed.
+	 */
+	default boolean verifySignature(Signature verifier) throws SignatureException {
+		String encodedToken = getEncodedToken();
+		verifier.update(encodedToken.substring(0, encodedToken.lastIndexOf('.')).getBytes(StandardCharsets.US_ASCII));
+		return verifier.verify(Base64.getUrlDecoder().decode(getSignature()));
+	}
+
 }
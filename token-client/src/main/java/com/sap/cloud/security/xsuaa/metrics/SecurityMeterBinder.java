@@ -0,0 +1,149 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.xsuaa.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Binds the {@link SecurityMetrics} to a Micrometer {@link MeterRegistry}.
+ * Requires {@code io.micrometer:micrometer-core} on the classpath. The metrics
+ * are recorded as soon as the binder is bound, in Spring Boot this is done by
+ * the auto-configuration of the starters:
+ *
+ * <pre>
+ * {@code
+ * new SecurityMeterBinder().bindTo(meterRegistry);
+ * }
+ * </pre>
+ *
+ * The metrics are recorded process-wide, i.e. the last bound registry receives
+ * the metrics of all token validators, caches and token services.
+ */
+public class SecurityMeterBinder implements MeterBinder {
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		for (String cache : SecurityMetrics.CACHES) {
+			Gauge.builder(SecurityMetrics.CACHE_SIZE, () -> SecurityMetrics.getCacheSize(cache))
+					.description("The approximate number of entries in the cache")
+					.tag("cache", cache)
+					.register(registry);
+		}
+		connectionGauge(registry, "leased", SecurityMetrics.ConnectionPool::getLeasedConnections);
+		connectionGauge(registry, "available", SecurityMetrics.ConnectionPool::getAvailableConnections);
+		connectionGauge(registry, "pending", SecurityMetrics.ConnectionPool::getPendingConnections);
+		SecurityMetrics.enable(new MicrometerRecorder(registry));
+	}
+
+	private static void connectionGauge(MeterRegistry registry, String state,
+			ToIntFunction<SecurityMetrics.ConnectionPool> connections) {
+		Gauge.builder(SecurityMetrics.HTTP_CONNECTIONS, () -> SecurityMetrics.getConnections(connections))
+				.description("The connections of the http client connection pools")
+				.tag("state", state)
+				.register(registry);
+	}
+
+	/**
+	 * Stops the recording of the metrics.
+	 */
+	public static void unbind() {
+		SecurityMetrics.enable(null);
+	}
+
+	static class MicrometerRecorder implements SecurityMetrics.Recorder {
+		private static final int VALID = 0;
+		private static final int INVALID = 1;
+
+		private final MeterRegistry registry;
+		private final Map<String, Timer[]> validationTimers = new ConcurrentHashMap<>();
+		private final Map<String, Timer[]> validatorTimers = new ConcurrentHashMap<>();
+		private final Map<String, Counter[]> cacheCounters = new ConcurrentHashMap<>();
+		private final Map<String, Counter> suppressedRefreshCounters = new ConcurrentHashMap<>();
+		private final Map<String, Map<String, Timer>> httpRequestTimers = new ConcurrentHashMap<>();
+
+		MicrometerRecorder(MeterRegistry registry) {
+			this.registry = registry;
+		}
+
+		@Override
+		public void recordValidation(String service, boolean valid, long nanos) {
+			validationTimers.computeIfAbsent(service, s -> new Timer[] {
+					validationTimer(s, "valid"), validationTimer(s, "invalid") })
+					[valid ? VALID : INVALID].record(nanos, TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		public void recordValidator(String validator, boolean valid, long nanos) {
+			validatorTimers.computeIfAbsent(validator, v -> new Timer[] {
+					validatorTimer(v, "valid"), validatorTimer(v, "invalid") })
+					[valid ? VALID : INVALID].record(nanos, TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		public void recordCacheAccess(String cache, boolean hit) {
+			cacheCounters.computeIfAbsent(cache, c -> new Counter[] {
+					cacheCounter(c, "hit"), cacheCounter(c, "miss") })
+					[hit ? VALID : INVALID].increment();
+		}
+
+		@Override
+		public void recordSuppressedRefresh(String reason) {
+			suppressedRefreshCounters.computeIfAbsent(reason, r -> Counter
+					.builder(SecurityMetrics.TOKEN_KEY_SUPPRESSED_REFRESHES)
+					.description("The retrievals of token keys for unknown key ids that were suppressed")
+					.tag("reason", r)
+					.register(registry)).increment();
+		}
+
+		@Override
+		public void recordHttpRequest(String client, String status, long nanos) {
+			httpRequestTimers.computeIfAbsent(client, c -> new ConcurrentHashMap<>())
+					.computeIfAbsent(status, st -> httpRequestTimer(client, st))
+					.record(nanos, TimeUnit.NANOSECONDS);
+		}
+
+		private Timer validationTimer(String service, String result) {
+			return Timer.builder(SecurityMetrics.TOKEN_VALIDATIONS)
+					.description("The validations of tokens with all configured validators")
+					.tag("service", service)
+					.tag("result", result)
+					.register(registry);
+		}
+
+		private Timer validatorTimer(String validator, String result) {
+			return Timer.builder(SecurityMetrics.TOKEN_VALIDATORS)
+					.description("The validations of tokens by a single validator")
+					.tag("validator", validator)
+					.tag("result", result)
+					.register(registry);
+		}
+
+		private Timer httpRequestTimer(String client, String status) {
+			return Timer.builder(SecurityMetrics.HTTP_REQUESTS)
+					.description("The requests to the identity service")
+					.tag("client", client)
+					.tag("status", status)
+					.register(registry);
+		}
+
+		private Counter cacheCounter(String cache, String result) {
+			return Counter.builder(SecurityMetrics.CACHE_REQUESTS)
+					.description("The lookups of the cache")
+					.tag("cache", cache)
+					.tag("result", result)
+					.register(registry);
+		}
+	}
+}
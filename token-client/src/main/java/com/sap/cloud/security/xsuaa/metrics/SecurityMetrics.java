@@ -0,0 +1,264 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.xsuaa.metrics;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.ToIntFunction;
+
+import javax.annotation.Nullable;
+
+import com.github.benmanes.caffeine.cache.Cache;
+
+/**
+ * Records the metrics of the token validation, the caches and the calls to the
+ * identity service. Nothing is recorded unless a {@link SecurityMeterBinder}
+ * has been bound to a Micrometer {@code MeterRegistry}. This class does not
+ * depend on Micrometer, hence the instrumented classes can be used without
+ * Micrometer on the classpath.
+ *
+ * The following meters are provided:
+ * <ul>
+ * <li>{@value #TOKEN_VALIDATIONS} timer of
+ * {@code CombiningValidator#validate} and {@code validateAsync}, including
+ * tokens found in the validation result cache, tagged with {@code service}
+ * and {@code result}</li>
+ * <li>{@value #TOKEN_VALIDATORS} timer of each validator, tagged with
+ * {@code validator} and {@code result}</li>
+ * <li>{@value #CACHE_REQUESTS} counter of cache lookups, tagged with
+ * {@code cache} and {@code result} (hit or miss)</li>
+ * <li>{@value #CACHE_SIZE} gauge of the number of cache entries, tagged with
+ * {@code cache}</li>
+ * <li>{@value #TOKEN_KEY_SUPPRESSED_REFRESHES} counter of retrievals of token
+ * keys for unknown key ids that were suppressed, tagged with {@code reason}
+ * (negative_cache or rate_limited)</li>
+ * <li>{@value #HTTP_REQUESTS} timer of the requests to the identity service,
+ * tagged with {@code client} and {@code status}</li>
+ * <li>{@value #HTTP_CONNECTIONS} gauge of the connections of the http client
+ * connection pools, tagged with {@code state} (leased, available or
+ * pending)</li>
+ * </ul>
+ */
+public final class SecurityMetrics {
+
+	public static final String TOKEN_VALIDATIONS = "sap.security.token.validations";
+	public static final String TOKEN_VALIDATORS = "sap.security.token.validators";
+	public static final String CACHE_REQUESTS = "sap.security.cache.requests";
+	public static final String CACHE_SIZE = "sap.security.cache.size";
+	public static final String TOKEN_KEY_SUPPRESSED_REFRESHES = "sap.security.token_keys.suppressed_refreshes";
+	public static final String HTTP_REQUESTS = "sap.security.http.requests";
+	public static final String HTTP_CONNECTIONS = "sap.security.http.connections";
+
+	public static final String CACHE_TOKEN_KEYS = "token_keys";
+	public static final String CACHE_OIDC_CONFIGURATIONS = "oidc_configurations";
+	public static final String CACHE_ACCESS_TOKENS = "access_tokens";
+	public static final String CACHE_VALIDATION_RESULTS = "validation_results";
+	static final String[] CACHES = { CACHE_TOKEN_KEYS, CACHE_OIDC_CONFIGURATIONS, CACHE_ACCESS_TOKENS,
+			CACHE_VALIDATION_RESULTS };
+
+	public static final String REASON_NEGATIVE_CACHE = "negative_cache";
+	public static final String REASON_RATE_LIMITED = "rate_limited";
+
+	public static final String CLIENT_TOKEN_KEYS = "token_keys";
+	public static final String CLIENT_OIDC_CONFIGURATION = "oidc_configuration";
+	public static final String CLIENT_TOKEN = "token";
+
+	/**
+	 * Status tag value of http requests that failed without response.
+	 */
+	public static final int IO_ERROR = -1;
+
+	private static volatile Recorder recorder; // null, as long as metrics are disabled
+	private static final Map<String, List<WeakReference<Cache<?, ?>>>> caches = new ConcurrentHashMap<>();
+	private static final List<WeakReference<ConnectionPool>> connectionPools = new CopyOnWriteArrayList<>();
+
+	private SecurityMetrics() {
+		throw new IllegalStateException("Utility class");
+	}
+
+	/**
+	 * Instrumented code checks this before it measures the time.
+	 *
+	 * @return true, if metrics are recorded
+	 */
+	public static boolean isEnabled() {
+		return recorder != null;
+	}
+
+	/**
+	 * Records the validation of a token by a combining validator.
+	 *
+	 * @param service
+	 *            the identity service of the token, or null if unknown
+	 * @param valid
+	 *            whether the token is valid
+	 * @param startNanos
+	 *            the {@link System#nanoTime()} before the validation
+	 */
+	public static void recordValidation(@Nullable Object service, boolean valid, long startNanos) {
+		Recorder current = recorder;
+		if (current != null) {
+			current.recordValidation(service == null ? "unknown" : service.toString().toLowerCase(), valid,
+					System.nanoTime() - startNanos);
+		}
+	}
+
+	/**
+	 * Records the validation of a token by a single validator.
+	 *
+	 * @param validator
+	 *            the validator
+	 * @param valid
+	 *            whether the token is valid
+	 * @param startNanos
+	 *            the {@link System#nanoTime()} before the validation
+	 */
+	public static void recordValidator(Object validator, boolean valid, long startNanos) {
+		Recorder current = recorder;
+		if (current != null) {
+			current.recordValidator(validator.getClass().getSimpleName(), valid, System.nanoTime() - startNanos);
+		}
+	}
+
+	/**
+	 * Records a lookup of one of the caches.
+	 *
+	 * @param cache
+	 *            the name of the cache, e.g. {@link #CACHE_TOKEN_KEYS}
+	 * @param hit
+	 *            whether the cache provided the value
+	 */
+	public static void recordCacheAccess(String cache, boolean hit) {
+		Recorder current = recorder;
+		if (current != null) {
+			current.recordCacheAccess(cache, hit);
+		}
+	}
+
+	/**
+	 * Records a retrieval of token keys for an unknown key id that was
+	 * suppressed.
+	 *
+	 * @param reason
+	 *            why the retrieval was suppressed, e.g.
+	 *            {@link #REASON_NEGATIVE_CACHE}
+	 */
+	public static void recordSuppressedRefresh(String reason) {
+		Recorder current = recorder;
+		if (current != null) {
+			current.recordSuppressedRefresh(reason);
+		}
+	}
+
+	/**
+	 * Records a request to the identity service.
+	 *
+	 * @param client
+	 *            the kind of request, e.g. {@link #CLIENT_TOKEN_KEYS}
+	 * @param statusCode
+	 *            the http status code of the response or {@link #IO_ERROR}
+	 * @param startNanos
+	 *            the {@link System#nanoTime()} before the request
+	 */
+	public static void recordHttpRequest(String client, int statusCode, long startNanos) {
+		Recorder current = recorder;
+		if (current != null) {
+			current.recordHttpRequest(client, statusCode == IO_ERROR ? "IO_ERROR" : String.valueOf(statusCode),
+					System.nanoTime() - startNanos);
+		}
+	}
+
+	/**
+	 * Registers a cache whose entries are reported by the {@value #CACHE_SIZE}
+	 * gauge. The cache is weakly referenced, the gauge reports the sum of the
+	 * sizes of all registered caches with the same name. A cache that is
+	 * registered again is counted once.
+	 *
+	 * @param name
+	 *            the name of the cache, e.g. {@link #CACHE_TOKEN_KEYS}
+	 * @param cache
+	 *            the cache
+	 */
+	public static void registerCache(String name, Cache<?, ?> cache) {
+		List<WeakReference<Cache<?, ?>>> references = caches.computeIfAbsent(name,
+				n -> new CopyOnWriteArrayList<>());
+		references.removeIf(reference -> reference.get() == null);
+		if (references.stream().noneMatch(reference -> reference.get() == cache)) {
+			references.add(new WeakReference<>(cache));
+		}
+	}
+
+	static long getCacheSize(String name) {
+		long size = 0;
+		for (WeakReference<Cache<?, ?>> reference : caches.getOrDefault(name, Collections.emptyList())) {
+			Cache<?, ?> cache = reference.get();
+			if (cache != null) {
+				size += cache.estimatedSize();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Registers a connection pool whose connections are reported by the
+	 * {@value #HTTP_CONNECTIONS} gauge. The pool is weakly referenced, the gauge
+	 * reports the sum of all registered pools.
+	 *
+	 * @param connectionPool
+	 *            the connection pool
+	 */
+	public static void registerConnectionPool(ConnectionPool connectionPool) {
+		connectionPools.removeIf(reference -> reference.get() == null);
+		connectionPools.add(new WeakReference<>(connectionPool));
+	}
+
+	static long getConnections(ToIntFunction<ConnectionPool> state) {
+		long connections = 0;
+		for (WeakReference<ConnectionPool> reference : connectionPools) {
+			ConnectionPool connectionPool = reference.get();
+			if (connectionPool != null) {
+				connections += state.applyAsInt(connectionPool);
+			}
+		}
+		return connections;
+	}
+
+	static void enable(@Nullable Recorder newRecorder) {
+		recorder = newRecorder;
+	}
+
+	/**
+	 * The statistics of a http client connection pool.
+	 */
+	public interface ConnectionPool {
+
+		int getLeasedConnections();
+
+		int getAvailableConnections();
+
+		int getPendingConnections();
+	}
+
+	/**
+	 * Records the metrics with a metrics library.
+	 */
+	interface Recorder {
+
+		void recordValidation(String service, boolean valid, long nanos);
+
+		void recordValidator(String validator, boolean valid, long nanos);
+
+		void recordCacheAccess(String cache, boolean hit);
+
+		void recordSuppressedRefresh(String reason);
+
+		void recordHttpRequest(String client, String status, long nanos);
+	}
+}
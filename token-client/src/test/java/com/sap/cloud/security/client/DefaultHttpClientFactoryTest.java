@@ -0,0 +1,138 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.client;
+
+import com.sap.cloud.security.config.ClientCertificate;
+import com.sap.cloud.security.config.ClientCredentials;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class DefaultHttpClientFactoryTest {
+
+	private HttpServer server;
+	private Set<Integer> clientPorts;
+
+	@Before
+	public void setUp() throws IOException {
+		clientPorts = ConcurrentHashMap.newKeySet();
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/", exchange -> {
+			clientPorts.add(exchange.getRemoteAddress().getPort());
+			byte[] body = "ok".getBytes();
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream outputStream = exchange.getResponseBody()) {
+				outputStream.write(body);
+			}
+		});
+		server.start();
+	}
+
+	@After
+	public void tearDown() {
+		server.stop(0);
+		System.clearProperty(HttpClientConfiguration.MAX_CONNECTIONS);
+		System.clearProperty(HttpClientConfiguration.SOCKET_TIMEOUT);
+	}
+
+	@Test
+	public void createClient_reusesPooledConnection() throws IOException {
+		try (CloseableHttpClient client = new DefaultHttpClientFactory().createClient(null)) {
+			assertThat(get(client)).isEqualTo("ok");
+			assertThat(get(client)).isEqualTo("ok");
+		}
+
+		assertThat(clientPorts).hasSize(1);
+	}
+
+	@Test
+	public void createClient_clientsShareConnectionPool() throws IOException {
+		try (CloseableHttpClient client = new DefaultHttpClientFactory().createClient(null)) {
+			get(client);
+		}
+		try (CloseableHttpClient client = new DefaultHttpClientFactory().createClient(
+				new ClientCredentials("clientId", "secret"))) {
+			get(client);
+		}
+
+		assertThat(clientPorts).hasSize(1);
+	}
+
+	@Test
+	public void sslContext_isSharedPerCertificate() throws IOException {
+		String certificate = IOUtils.resourceToString("/certificates.txt", StandardCharsets.UTF_8);
+		String key = IOUtils.resourceToString("/privateRSAKey.txt", StandardCharsets.UTF_8);
+		HttpClientRegistry registry = HttpClientRegistry.getInstance();
+
+		SSLContext sslContext = registry.getSSLContext(new ClientCertificate(certificate, key, "clientId"));
+
+		assertThat(registry.getSSLContext(new ClientCertificate(certificate, key, "clientId"))).isSameAs(sslContext);
+		assertThat(registry.getSSLContext(new ClientCertificate(certificate, key, "otherClientId")))
+				.isSameAs(sslContext);
+	}
+
+	@Test
+	public void createClient_keepAliveExceeded_opensNewConnection() throws Exception {
+		HttpClientConfiguration configuration = HttpClientConfiguration.builder()
+				.keepAlive(Duration.ofMillis(1))
+				.build();
+		try (CloseableHttpClient client = new DefaultHttpClientFactory(configuration).createClient(null)) {
+			get(client);
+			Thread.sleep(10);
+			get(client);
+		}
+
+		assertThat(clientPorts).hasSize(2);
+	}
+
+	@Test
+	public void fromSystemProperties() {
+		System.setProperty(HttpClientConfiguration.MAX_CONNECTIONS, "42");
+		System.setProperty(HttpClientConfiguration.SOCKET_TIMEOUT, "1500");
+
+		HttpClientConfiguration configuration = HttpClientConfiguration.fromSystemProperties();
+
+		assertThat(configuration.getMaxConnections()).isEqualTo(42);
+		assertThat(configuration.getSocketTimeout()).isEqualTo(Duration.ofMillis(1500));
+		assertThat(configuration.getMaxConnectionsPerRoute())
+				.isEqualTo(HttpClientConfiguration.defaultConfiguration().getMaxConnectionsPerRoute());
+	}
+
+	@Test
+	public void builder_invalidValues_throwsException() {
+		assertThatThrownBy(() -> HttpClientConfiguration.builder().maxConnectionsPerRoute(0).build())
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("maxConnectionsPerRoute");
+		assertThatThrownBy(() -> HttpClientConfiguration.builder().connectTimeout(Duration.ofSeconds(-1)).build())
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("connectTimeout");
+	}
+
+	private String get(CloseableHttpClient client) throws IOException {
+		HttpGet request = new HttpGet("http://localhost:" + server.getAddress().getPort() + "/");
+		try (CloseableHttpResponse response = client.execute(request)) {
+			return EntityUtils.toString(response.getEntity());
+		}
+	}
+}
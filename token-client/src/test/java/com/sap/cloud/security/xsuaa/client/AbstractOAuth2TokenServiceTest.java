@@ -14,14 +14,25 @@ import com.sap.cloud.security.xsuaa.tokenflows.TokenCacheConfiguration;
 import org.assertj.core.util.Maps;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 import java.net.URI;
 import java.time.*;
 import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
 
 import static java.time.ZoneOffset.UTC;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 public class AbstractOAuth2TokenServiceTest {
@@ -143,6 +154,14 @@ public class AbstractOAuth2TokenServiceTest {
 		assertThat(cut.tokenRequestCallCount).isOne();
 	}
 
+	@Test
+	public void requestAccessToken_sameConcatenatedParameters_requestsFreshToken() throws OAuth2ServiceException {
+		retrieveAccessTokenViaJwtBearerTokenGrant("token", Maps.newHashMap("a", "bc"));
+		retrieveAccessTokenViaJwtBearerTokenGrant("token", Maps.newHashMap("ab", "c"));
+
+		assertThat(cut.tokenRequestCallCount).isEqualTo(2);
+	}
+
 	@Test
 	public void requestAccessToken_cacheGloballyDisabled_requestsFreshTokens() throws OAuth2ServiceException {
 		cut = new TestOAuth2TokenService(TokenCacheConfiguration.cacheDisabled());
@@ -238,6 +257,66 @@ public class AbstractOAuth2TokenServiceTest {
 		assertThat(cut.tokenRequestCallCount).isEqualTo(2);
 	}
 
+	@Test
+	public void requestAccessToken_tokenReachedExpirationDelta_isRefreshed() throws OAuth2ServiceException {
+		cut = new TestOAuth2TokenService(cacheConfigurationWithCacheStatistics(true));
+		cut.setExpiredAt(NOW.plus(Duration.ofMinutes(5)));
+
+		OAuth2TokenResponse response = retrieveAccessTokenViaClientCredentials();
+		cut.advanceTime(Duration.ofMinutes(4).plusSeconds(31));
+		OAuth2TokenResponse refreshedResponse = retrieveAccessTokenViaClientCredentials();
+
+		CacheStats cacheStats = (CacheStats) cut.getCacheStatistics();
+		assertThat(refreshedResponse).isNotSameAs(response);
+		assertThat(cut.tokenRequestCallCount).isEqualTo(2);
+		assertThat(cacheStats.hitCount()).isEqualTo(1); // found, but needs to be refreshed
+		assertThat(cacheStats.evictionCount()).isZero();
+	}
+
+	@Test
+	public void requestAccessToken_tokenExpired_isEvictedFromCache() throws OAuth2ServiceException {
+		cut = new TestOAuth2TokenService(cacheConfigurationWithCacheStatistics(true));
+		cut.setExpiredAt(NOW.plus(Duration.ofMinutes(5)));
+
+		retrieveAccessTokenViaClientCredentials();
+		cut.advanceTime(Duration.ofMinutes(5));
+		retrieveAccessTokenViaClientCredentials();
+
+		CacheStats cacheStats = (CacheStats) cut.getCacheStatistics();
+		assertThat(cut.tokenRequestCallCount).isEqualTo(2);
+		assertThat(cacheStats.missCount()).isEqualTo(2);
+		assertThat(cacheStats.evictionCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void requestAccessToken_tokenExpiresAfterCacheDuration_isEvictedAfterCacheDuration()
+			throws OAuth2ServiceException {
+		cut = new TestOAuth2TokenService(cacheConfigurationWithCacheStatistics(true));
+
+		retrieveAccessTokenViaClientCredentials();
+		cut.advanceTime(TEST_CACHE_CONFIGURATION.getCacheDuration().minusSeconds(1));
+		retrieveAccessTokenViaClientCredentials();
+		cut.advanceTime(Duration.ofSeconds(1));
+		retrieveAccessTokenViaClientCredentials();
+
+		assertThat(cut.tokenRequestCallCount).isEqualTo(2);
+		assertThat(((CacheStats) cut.getCacheStatistics()).evictionCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void requestAccessToken_tokenExpiry_isDerivedFromCacheTicker() throws OAuth2ServiceException {
+		ClientIdentity otherClientIdentity = new ClientCredentials("otherClientId", "clientSecret");
+		retrieveAccessTokenViaClientCredentials();
+
+		TestOAuth2TokenService.testCacheTicker.advance(Duration.ofMinutes(4)); // clock stays at NOW
+		cut.setExpiredAt(NOW.plus(Duration.ofMinutes(5)));
+		retrieveAccessTokenViaClientCredentials(otherClientIdentity, false);
+		TestOAuth2TokenService.testCacheTicker.advance(Duration.ofMinutes(1));
+		retrieveAccessTokenViaClientCredentials(otherClientIdentity, false);
+
+		assertThat(cut.tokenRequestCallCount).isEqualTo(3);
+	}
+
 	@Test
 	public void cacheStatistics_isDisabled_statisticsObjectIsNull() {
 		TokenCacheConfiguration tokenCacheConfiguration = cacheConfigurationWithCacheStatistics(false);
@@ -281,6 +360,104 @@ public class AbstractOAuth2TokenServiceTest {
 				SUBDOMAIN, null, false);
 	}
 
+	@Test
+	public void refreshAhead_usedToken_isRefreshedBeforeCacheExpiration() throws OAuth2ServiceException {
+		ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+		cut.withRefreshAhead(Duration.ofMinutes(1), scheduler);
+		OAuth2TokenResponse cachedResponse = retrieveAccessTokenViaClientCredentials();
+		ArgumentCaptor<Runnable> refresh = ArgumentCaptor.forClass(Runnable.class);
+		verify(scheduler).schedule(refresh.capture(), eq(Duration.ofMinutes(9).toMillis()), eq(MILLISECONDS));
+
+		assertThat(retrieveAccessTokenViaClientCredentials()).isSameAs(cachedResponse);
+		refresh.getValue().run();
+
+		assertThat(cut.tokenRequestCallCount).isEqualTo(2);
+		assertThat(retrieveAccessTokenViaClientCredentials()).isNotSameAs(cachedResponse);
+		assertThat(cut.tokenRequestCallCount).isEqualTo(2);
+		verify(scheduler, times(2)).schedule(any(Runnable.class), anyLong(), eq(MILLISECONDS));
+	}
+
+	@Test
+	public void refreshAhead_usedToken_isRefreshedBeforeExpirationDelta() throws OAuth2ServiceException {
+		ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+		cut.withRefreshAhead(Duration.ofMinutes(1), scheduler);
+		cut.setExpiredAt(NOW.plus(Duration.ofMinutes(5)));
+
+		retrieveAccessTokenViaClientCredentials();
+
+		verify(scheduler).schedule(any(Runnable.class), eq(Duration.ofMinutes(5).minusSeconds(90).toMillis()),
+				eq(MILLISECONDS));
+	}
+
+	@Test
+	public void refreshAhead_unusedToken_isNotRefreshed() throws OAuth2ServiceException {
+		ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+		cut.withRefreshAhead(Duration.ofMinutes(1), scheduler);
+		retrieveAccessTokenViaClientCredentials();
+		ArgumentCaptor<Runnable> refresh = ArgumentCaptor.forClass(Runnable.class);
+		verify(scheduler).schedule(refresh.capture(), anyLong(), eq(MILLISECONDS));
+
+		refresh.getValue().run();
+
+		assertThat(cut.tokenRequestCallCount).isEqualTo(1);
+	}
+
+	@Test
+	public void refreshAhead_tokenExpiresWithinRefreshAheadTime_isNotScheduled() throws OAuth2ServiceException {
+		ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+		cut.withRefreshAhead(Duration.ofMinutes(1), scheduler);
+		cut.setExpiredAt(NOW.plus(Duration.ofSeconds(60)));
+
+		retrieveAccessTokenViaClientCredentials();
+
+		verifyNoInteractions(scheduler);
+	}
+
+	@Test
+	public void refreshAhead_cacheCleared_tokenIsNotRefreshed() throws OAuth2ServiceException {
+		ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+		cut.withRefreshAhead(Duration.ofMinutes(1), scheduler);
+		retrieveAccessTokenViaClientCredentials();
+		retrieveAccessTokenViaClientCredentials();
+		ArgumentCaptor<Runnable> refresh = ArgumentCaptor.forClass(Runnable.class);
+		verify(scheduler).schedule(refresh.capture(), anyLong(), eq(MILLISECONDS));
+
+		cut.clearCache();
+		refresh.getValue().run();
+
+		assertThat(cut.tokenRequestCallCount).isEqualTo(1);
+	}
+
+	@Test
+	public void refreshAhead_enabledAgain_previousSchedulerIsShutDown() {
+		ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+		cut.withRefreshAhead(Duration.ofMinutes(1), scheduler);
+
+		cut.withRefreshAhead(Duration.ofMinutes(2), 1);
+
+		verify(scheduler).shutdownNow();
+	}
+
+	@Test
+	public void refreshAhead_cacheDisabled_isNotEnabled() throws OAuth2ServiceException {
+		ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+		cut = new TestOAuth2TokenService(TokenCacheConfiguration.cacheDisabled());
+		cut.withRefreshAhead(Duration.ofMinutes(1), scheduler);
+
+		retrieveAccessTokenViaClientCredentials();
+
+		verify(scheduler).shutdown();
+		verifyNoMoreInteractions(scheduler);
+	}
+
+	@Test
+	public void refreshAhead_invalidArguments_throwIllegalArgumentException() {
+		assertThatThrownBy(() -> cut.withRefreshAhead(Duration.ZERO, 1))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> cut.withRefreshAhead(Duration.ofMinutes(1), 0))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
 	private OAuth2TokenResponse retrieveAccessTokenViaPasswordGrant(URI tokenEndpointUri)
 			throws OAuth2ServiceException {
 		return cut.retrieveAccessTokenViaPasswordGrant(tokenEndpointUri, clientIdentity(), "username", "password",
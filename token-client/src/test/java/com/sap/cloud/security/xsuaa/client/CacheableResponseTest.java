@@ -0,0 +1,43 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.xsuaa.client;
+
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CacheableResponseTest {
+
+	@Test
+	public void parseMaxAge() {
+		assertThat(CacheableResponse.parseMaxAge("max-age=600")).isEqualTo(Duration.ofMinutes(10));
+		assertThat(CacheableResponse.parseMaxAge("public, Max-Age=\"60\", must-revalidate"))
+				.isEqualTo(Duration.ofMinutes(1));
+		assertThat(CacheableResponse.parseMaxAge("no-cache")).isEqualTo(Duration.ZERO);
+		assertThat(CacheableResponse.parseMaxAge("private, no-store")).isEqualTo(Duration.ZERO);
+	}
+
+	@Test
+	public void parseMaxAge_notSpecifiedOrInvalid_returnsNull() {
+		assertThat(CacheableResponse.parseMaxAge(null)).isNull();
+		assertThat(CacheableResponse.parseMaxAge("public")).isNull();
+		assertThat(CacheableResponse.parseMaxAge("max-age=soon")).isNull();
+		assertThat(CacheableResponse.parseMaxAge("max-age=-1")).isNull();
+	}
+
+	@Test
+	public void of_hasNoCachingInformation() {
+		CacheableResponse<String> response = CacheableResponse.of("body");
+
+		assertThat(response.getBody()).isEqualTo("body");
+		assertThat(response.isNotModified()).isFalse();
+		assertThat(response.getETag()).isNull();
+		assertThat(response.getLastModified()).isNull();
+		assertThat(response.getMaxAge()).isNull();
+	}
+}
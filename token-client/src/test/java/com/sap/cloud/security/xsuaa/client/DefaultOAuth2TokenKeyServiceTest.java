@@ -8,12 +8,14 @@ package com.sap.cloud.security.xsuaa.client;
 import com.sap.cloud.security.xsuaa.http.HttpHeaders;
 import com.sap.cloud.security.xsuaa.util.HttpClientTestFactory;
 import org.apache.commons.io.IOUtils;
+import org.apache.http.Header;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatcher;
 import org.mockito.Mockito;
 import org.springframework.http.HttpMethod;
@@ -21,7 +23,9 @@ import org.springframework.http.HttpMethod;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
@@ -93,6 +97,53 @@ public class DefaultOAuth2TokenKeyServiceTest {
 		Mockito.verify(httpClient, times(1)).execute(argThat(isHttpGetAndContainsCorrectURI()));
 	}
 
+	@Test
+	public void retrieveTokenKeys_returnsCachingInformation() throws IOException {
+		CloseableHttpResponse response = mockResponse();
+		mockHeader(response, HttpHeaders.ETAG, "\"v1\"");
+		mockHeader(response, HttpHeaders.CACHE_CONTROL, "public, max-age=3600");
+
+		CacheableResponse<String> tokenKeys = cut.retrieveTokenKeys(TOKEN_KEYS_ENDPOINT_URI, ZONE_UUID, null);
+
+		assertThat(tokenKeys.getBody()).isEqualTo(jsonWebKeysAsString);
+		assertThat(tokenKeys.isNotModified()).isFalse();
+		assertThat(tokenKeys.getETag()).isEqualTo("\"v1\"");
+		assertThat(tokenKeys.getLastModified()).isNull();
+		assertThat(tokenKeys.getMaxAge()).isEqualTo(Duration.ofHours(1));
+	}
+
+	@Test
+	public void retrieveTokenKeys_notModified_returnsPreviousBody() throws IOException {
+		CloseableHttpResponse response = mockResponse();
+		mockHeader(response, HttpHeaders.ETAG, "\"v1\"");
+		mockHeader(response, HttpHeaders.LAST_MODIFIED, "Wed, 21 Jul 2021 07:28:00 GMT");
+		CacheableResponse<String> previousResponse = cut.retrieveTokenKeys(TOKEN_KEYS_ENDPOINT_URI, ZONE_UUID, null);
+		CloseableHttpResponse notModifiedResponse = HttpClientTestFactory.createHttpResponse("",
+				HttpStatus.SC_NOT_MODIFIED);
+		when(notModifiedResponse.getEntity()).thenReturn(null);
+		mockHeader(notModifiedResponse, HttpHeaders.CACHE_CONTROL, "max-age=600");
+		when(httpClient.execute(any())).thenReturn(notModifiedResponse);
+
+		CacheableResponse<String> tokenKeys = cut.retrieveTokenKeys(TOKEN_KEYS_ENDPOINT_URI, ZONE_UUID,
+				previousResponse);
+
+		assertThat(tokenKeys.isNotModified()).isTrue();
+		assertThat(tokenKeys.getBody()).isSameAs(previousResponse.getBody());
+		assertThat(tokenKeys.getETag()).isEqualTo("\"v1\"");
+		assertThat(tokenKeys.getMaxAge()).isEqualTo(Duration.ofMinutes(10));
+		ArgumentCaptor<HttpUriRequest> requestCaptor = ArgumentCaptor.forClass(HttpUriRequest.class);
+		Mockito.verify(httpClient, times(2)).execute(requestCaptor.capture());
+		assertThat(requestCaptor.getValue().getFirstHeader(HttpHeaders.IF_NONE_MATCH).getValue()).isEqualTo("\"v1\"");
+		assertThat(requestCaptor.getValue().getFirstHeader(HttpHeaders.IF_MODIFIED_SINCE).getValue())
+				.isEqualTo("Wed, 21 Jul 2021 07:28:00 GMT");
+	}
+
+	private static void mockHeader(CloseableHttpResponse response, String name, String value) {
+		Header header = Mockito.mock(Header.class);
+		when(header.getValue()).thenReturn(value);
+		when(response.getFirstHeader(name)).thenReturn(header);
+	}
+
 	private CloseableHttpResponse mockResponse() throws IOException {
 		CloseableHttpResponse response = HttpClientTestFactory.createHttpResponse(jsonWebKeysAsString);
 		when(httpClient.execute(any())).thenReturn(response);
@@ -18,16 +18,19 @@ import java.net.URI;
 import java.nio.charset.StandardCharsets;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.http.message.BasicHeader;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatcher;
 import org.mockito.Mockito;
 import org.springframework.http.HttpMethod;
 
+import com.sap.cloud.security.xsuaa.http.HttpHeaders;
 import com.sap.cloud.security.xsuaa.util.HttpClientTestFactory;
 
 public class DefaultOidcConfigurationServiceTest {
@@ -127,6 +130,26 @@ public class DefaultOidcConfigurationServiceTest {
 		assertThat(result.getAuthorizeEndpoint().toString()).isEqualTo("http://localhost/oauth/authorize");
 	}
 
+	@Test
+	public void retrieveEndpoints_notModified_returnsPreviousEndpoints() throws IOException {
+		CloseableHttpResponse response = mockResponse();
+		when(response.getFirstHeader(HttpHeaders.ETAG)).thenReturn(new BasicHeader(HttpHeaders.ETAG, "W/\"1\""));
+		CacheableResponse<OAuth2ServiceEndpointsProvider> previousResponse = cut
+				.retrieveEndpoints(CONFIG_ENDPOINT_URI, null);
+		CloseableHttpResponse notModifiedResponse = HttpClientTestFactory.createHttpResponse("",
+				HttpStatus.SC_NOT_MODIFIED);
+		when(httpClientMock.execute(any())).thenReturn(notModifiedResponse);
+
+		CacheableResponse<OAuth2ServiceEndpointsProvider> result = cut.retrieveEndpoints(CONFIG_ENDPOINT_URI,
+				previousResponse);
+
+		assertThat(result.isNotModified()).isTrue();
+		assertThat(result.getBody()).isSameAs(previousResponse.getBody());
+		ArgumentCaptor<HttpUriRequest> requestCaptor = ArgumentCaptor.forClass(HttpUriRequest.class);
+		Mockito.verify(httpClientMock, times(2)).execute(requestCaptor.capture());
+		assertThat(requestCaptor.getValue().getFirstHeader(HttpHeaders.IF_NONE_MATCH).getValue()).isEqualTo("W/\"1\"");
+	}
+
 	private CloseableHttpResponse mockResponse() throws IOException {
 		CloseableHttpResponse response = HttpClientTestFactory.createHttpResponse(jsonOidcConfiguration);
 		when(httpClientMock.execute(any())).thenReturn(response);
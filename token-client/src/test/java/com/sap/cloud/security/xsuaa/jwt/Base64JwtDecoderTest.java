@@ -11,6 +11,12 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.springframework.security.oauth2.jwt.Jwt;
 
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.util.Base64;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertEquals;
 
@@ -49,6 +55,40 @@ public class Base64JwtDecoderTest {
 		Base64JwtDecoder.getInstance().decode("invalid");
 	}
 
+	@Test
+	public void itThrowsIfJwtConsistsOfMoreThanThreeSegments() {
+		expectedException.expect(IllegalArgumentException.class);
+		expectedException.expectMessage("JWT token does not consist of 'header'.'payload'.'signature'.");
+
+		Base64JwtDecoder.getInstance().decode(encodedJwt + ".");
+	}
+
+	@Test
+	public void itThrowsIfJwtHasNoSignature() {
+		expectedException.expect(IllegalArgumentException.class);
+		expectedException.expectMessage("JWT token does not consist of 'header'.'payload'.'signature'.");
+
+		Base64JwtDecoder.getInstance().decode("header.payload.");
+	}
+
+	@Test
+	public void verifySignature() throws Exception {
+		KeyPair keyPair = KeyPairGenerator.getInstance("RSA").generateKeyPair();
+		String headerAndPayload = encodedJwt.substring(0, encodedJwt.lastIndexOf('.'));
+		Signature signer = Signature.getInstance("SHA256withRSA");
+		signer.initSign(keyPair.getPrivate());
+		signer.update(headerAndPayload.getBytes(StandardCharsets.US_ASCII));
+		String signedJwt = headerAndPayload + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(signer.sign());
+		Signature verifier = Signature.getInstance("SHA256withRSA");
+
+		verifier.initVerify(keyPair.getPublic());
+		assertThat(Base64JwtDecoder.getInstance().decode(signedJwt).verifySignature(verifier)).isTrue();
+
+		String modifiedJwt = "eyJhbGciOiJSUzI1NiJ9" + signedJwt.substring(signedJwt.indexOf('.'));
+		verifier.initVerify(keyPair.getPublic());
+		assertThat(Base64JwtDecoder.getInstance().decode(modifiedJwt).verifySignature(verifier)).isFalse();
+	}
+
 	@Test
 	public void itAllowsEmptyPayload() {
 		DecodedJwt decodedJwt = Base64JwtDecoder.getInstance().decode("header..signature");
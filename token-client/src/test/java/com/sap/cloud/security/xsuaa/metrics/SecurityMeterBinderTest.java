@@ -0,0 +1,125 @@
+/**
+ * SPDX-FileCopyrightText: 2018-2021 SAP SE or an SAP affiliate company and Cloud Security Client Java contributors
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.sap.cloud.security.xsuaa.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+
+import com.sap.cloud.security.config.ClientCredentials;
+import com.sap.cloud.security.xsuaa.client.AbstractOAuth2TokenService;
+import com.sap.cloud.security.xsuaa.client.DefaultOAuth2TokenKeyService;
+import com.sap.cloud.security.xsuaa.client.OAuth2ServiceException;
+import com.sap.cloud.security.xsuaa.client.OAuth2TokenResponse;
+import com.sap.cloud.security.xsuaa.http.HttpHeaders;
+import com.sap.cloud.security.xsuaa.util.HttpClientTestFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SecurityMeterBinderTest {
+
+	private static final URI TOKEN_KEYS_URI = URI.create("https://auth.com/token_keys");
+	private static final URI TOKEN_URI = URI.create("https://auth.com/oauth/token");
+
+	private SimpleMeterRegistry registry;
+
+	@Before
+	public void setUp() {
+		registry = new SimpleMeterRegistry();
+		new SecurityMeterBinder().bindTo(registry);
+	}
+
+	@After
+	public void tearDown() {
+		SecurityMeterBinder.unbind();
+	}
+
+	@Test
+	public void unbind_disablesRecording() {
+		assertThat(SecurityMetrics.isEnabled()).isTrue();
+
+		SecurityMeterBinder.unbind();
+
+		assertThat(SecurityMetrics.isEnabled()).isFalse();
+		SecurityMetrics.recordCacheAccess(SecurityMetrics.CACHE_TOKEN_KEYS, true);
+		assertThat(registry.find(SecurityMetrics.CACHE_REQUESTS).counter()).isNull();
+	}
+
+	@Test
+	public void httpRequests_areTaggedWithStatus() throws IOException {
+		CloseableHttpResponse response = HttpClientTestFactory.createHttpResponse("error", HttpStatus.SC_BAD_REQUEST);
+		CloseableHttpClient httpClient = mock(CloseableHttpClient.class);
+		when(httpClient.execute(any()))
+				.thenReturn(response)
+				.thenThrow(new IOException("connection refused"));
+		DefaultOAuth2TokenKeyService tokenKeyService = new DefaultOAuth2TokenKeyService(httpClient);
+
+		assertThatThrownBy(() -> tokenKeyService.retrieveTokenKeys(TOKEN_KEYS_URI, null))
+				.isInstanceOf(OAuth2ServiceException.class);
+		assertThatThrownBy(() -> tokenKeyService.retrieveTokenKeys(TOKEN_KEYS_URI, null))
+				.isInstanceOf(OAuth2ServiceException.class);
+
+		assertThat(registry.get(SecurityMetrics.HTTP_REQUESTS)
+				.tags("client", SecurityMetrics.CLIENT_TOKEN_KEYS, "status", "400").timer().count()).isEqualTo(1);
+		assertThat(registry.get(SecurityMetrics.HTTP_REQUESTS)
+				.tags("client", SecurityMetrics.CLIENT_TOKEN_KEYS, "status", "IO_ERROR").timer().count())
+						.isEqualTo(1);
+	}
+
+	@Test
+	public void tokenServiceCache_countsHitsAndMissesAndReportsSize() throws OAuth2ServiceException {
+		AbstractOAuth2TokenService tokenService = new AbstractOAuth2TokenService() {
+			@Override
+			protected OAuth2TokenResponse requestAccessToken(URI tokenEndpointUri, HttpHeaders headers,
+					Map<String, String> parameters) {
+				return new OAuth2TokenResponse("access-token", 3600, null);
+			}
+		};
+		ClientCredentials clientCredentials = new ClientCredentials("clientId", "clientSecret");
+
+		tokenService.retrieveAccessTokenViaClientCredentialsGrant(TOKEN_URI, clientCredentials, null, null, null,
+				false);
+		tokenService.retrieveAccessTokenViaClientCredentialsGrant(TOKEN_URI, clientCredentials, null, null, null,
+				false);
+
+		assertThat(registry.get(SecurityMetrics.CACHE_REQUESTS)
+				.tags("cache", SecurityMetrics.CACHE_ACCESS_TOKENS, "result", "miss").counter().count())
+						.isEqualTo(1);
+		assertThat(registry.get(SecurityMetrics.CACHE_REQUESTS)
+				.tags("cache", SecurityMetrics.CACHE_ACCESS_TOKENS, "result", "hit").counter().count())
+						.isEqualTo(1);
+		assertThat(registry.get(SecurityMetrics.CACHE_SIZE)
+				.tag("cache", SecurityMetrics.CACHE_ACCESS_TOKENS).gauge().value()).isGreaterThanOrEqualTo(1);
+	}
+
+	@Test
+	public void connectionPools_reportConnectionsByState() {
+		SecurityMetrics.ConnectionPool connectionPool = mock(SecurityMetrics.ConnectionPool.class);
+		when(connectionPool.getLeasedConnections()).thenReturn(3);
+		when(connectionPool.getAvailableConnections()).thenReturn(2);
+		SecurityMetrics.registerConnectionPool(connectionPool);
+
+		assertThat(registry.get(SecurityMetrics.HTTP_CONNECTIONS).tag("state", "leased").gauge().value())
+				.isGreaterThanOrEqualTo(3);
+		assertThat(registry.get(SecurityMetrics.HTTP_CONNECTIONS).tag("state", "available").gauge().value())
+				.isGreaterThanOrEqualTo(2);
+		assertThat(registry.get(SecurityMetrics.HTTP_CONNECTIONS).tag("state", "pending").gauge()).isNotNull();
+		verify(connectionPool, atLeastOnce()).getLeasedConnections();
+	}
+}